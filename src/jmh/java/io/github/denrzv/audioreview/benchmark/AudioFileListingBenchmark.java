@@ -0,0 +1,106 @@
+package io.github.denrzv.audioreview.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.model.AudioFile;
+import io.github.denrzv.audioreview.model.Category;
+import io.github.denrzv.audioreview.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of the admin file listing: mapping entities to {@link AudioFileResponse} the way
+ * {@code AudioFileService.getAllFiles} does, and serializing the response with an
+ * {@link ObjectMapper} configured like Spring MVC's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioFileListingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private List<AudioFile> page;
+    private Map<String, Object> response;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        Category unclassified = Category.builder().id(1L).name("Unclassified").shortcut("N").build();
+        Category voicemail = Category.builder().id(2L).name("Voicemail").shortcut("V").build();
+        User admin = User.builder().id(1L).username("admin").role(User.Role.ADMIN).active(true).build();
+        LocalDateTime uploadedAt = LocalDateTime.of(2024, 5, 17, 14, 3, 22);
+
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String filename = "2024-05-17_14-03-22_campaign-2291_voicemail_" + (49512345678L + i) + ".wav";
+            page.add(AudioFile.builder()
+                    .id((long) i + 1)
+                    .filename(filename)
+                    .filepath("3f/a2/" + filename)
+                    .initialCategory(voicemail)
+                    .currentCategory(i % 3 == 0 ? voicemail : unclassified)
+                    .uploadedBy(admin)
+                    .uploadedAt(uploadedAt.plusSeconds(i))
+                    .version(0L)
+                    .build());
+        }
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        response = toResponse(page);
+    }
+
+    @Benchmark
+    public Map<String, Object> map() {
+        return toResponse(page);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(toResponse(page));
+    }
+
+    private static Map<String, Object> toResponse(List<AudioFile> files) {
+        List<AudioFileResponse> data = files.stream().map(file ->
+                new AudioFileResponse(
+                        file.getId(),
+                        file.getFilename(),
+                        file.getInitialCategory().getName(),
+                        file.getUploadedAt(),
+                        file.getUploadedBy().getUsername(),
+                        file.getCurrentCategory().getName(),
+                        file.getFilepath()
+                )
+        ).toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        response.put("total", (long) files.size());
+        return response;
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.denrzv.audioreview.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, typically the baseline of the last release in
+ * {@code benchmarks/} against a fresh run, and exits with status 1 if any benchmark regressed
+ * by more than the threshold. Run with:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:java@compare-benchmarks -Dbenchmark.baseline=benchmarks/1.0.0.json
+ * </pre>
+ */
+public final class BenchmarkComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14.3f %-10s (new)%n", entry.getKey(), now.score(), now.unit());
+                continue;
+            }
+            // Positive change is always an improvement, whichever way the mode counts
+            double change = (now.score() - before.score()) / before.score() * 100 * (now.higherIsBetter() ? 1 : -1);
+            boolean regressed = change < -threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %-10s %+8.1f%%%s%n", entry.getKey(), now.score(), now.unit(), change,
+                    regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(Path path) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                new TreeMap<>(toMap(params)).forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+            JsonNode metric = run.get("primaryMetric");
+            results.put(key.toString(), new Result(metric.get("score").asDouble(), metric.get("scoreUnit").asText(),
+                    "thrpt".equals(run.get("mode").asText())));
+        }
+        return results;
+    }
+
+    private static Map<String, String> toMap(JsonNode params) {
+        Map<String, String> map = new LinkedHashMap<>();
+        params.fields().forEachRemaining(field -> map.put(field.getKey(), field.getValue().asText()));
+        return map;
+    }
+
+    private record Result(double score, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.denrzv.audioreview.benchmark;
+
+import io.github.denrzv.audioreview.event.ClusterEventBus;
+import io.github.denrzv.audioreview.model.Category;
+import io.github.denrzv.audioreview.repository.CategoryRepository;
+import io.github.denrzv.audioreview.service.CategoryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CategoryServiceImpl#extractCategoryFromFileName}, run on every upload, against
+ * category lists of realistic sizes. The category list itself comes from the service cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryExtractionBenchmark {
+
+    private static final String[] NAMES = {
+            "Unclassified", "Voicemail", "Answering Machine", "Human", "Silence", "Fax", "Music On Hold",
+            "IVR", "Busy Tone", "Ringback", "Noise", "Disconnected", "Wrong Number", "Callback Request"
+    };
+
+    @Param({"5", "15", "50"})
+    public int categoryCount;
+
+    private CategoryServiceImpl categoryService;
+    private String matchingFileName;
+    private String unmatchedFileName;
+
+    @Setup
+    public void setUp() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < categoryCount; i++) {
+            String name = i < NAMES.length ? NAMES[i] : "Campaign Segment " + i;
+            categories.add(Category.builder()
+                    .id((long) i + 1)
+                    .name(name)
+                    .shortcut(String.valueOf((char) ('A' + i % 26)))
+                    .build());
+        }
+        CategoryRepository repository = (CategoryRepository) Proxy.newProxyInstance(
+                CategoryRepository.class.getClassLoader(),
+                new Class<?>[]{CategoryRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && args == null) {
+                        return categories;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        ClusterEventBus standalone = new ClusterEventBus(null, null, null, null, null, null, false, 0, 0, 0);
+        categoryService = new CategoryServiceImpl(repository, null, null, standalone, Long.MAX_VALUE / 2);
+
+        String last = categories.get(categories.size() - 1).getName().replace(" ", "_");
+        matchingFileName = "2024-05-17_14-03-22_campaign-2291_" + last + "_0049512345678.wav";
+        unmatchedFileName = "2024-05-17_14-03-22_campaign-2291_outbound_0049512345678.wav";
+    }
+
+    @Benchmark
+    public String lastCategoryMatches() {
+        return categoryService.extractCategoryFromFileName(matchingFileName);
+    }
+
+    @Benchmark
+    public String noCategoryMatches() {
+        return categoryService.extractCategoryFromFileName(unmatchedFileName);
+    }
+}
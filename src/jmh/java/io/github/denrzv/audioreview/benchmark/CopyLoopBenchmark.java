@@ -0,0 +1,125 @@
+package io.github.denrzv.audioreview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying a stored file to the response the way {@code AudioFileController.serveFile} does,
+ * against candidate alternatives. The target stream hands every chunk to a {@link Blackhole},
+ * so the numbers cover reading and buffer handling but not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyLoopBenchmark {
+
+    @Param({"262144", "8388608"})
+    public int fileSize;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        file = Files.createTempFile("copy-benchmark", ".wav");
+        Files.write(file, content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long current64kLoop(Blackhole blackhole) throws IOException {
+        return bufferLoop(blackhole, 64 * 1024);
+    }
+
+    @Benchmark
+    public long small8kLoop(Blackhole blackhole) throws IOException {
+        return bufferLoop(blackhole, 8 * 1024);
+    }
+
+    @Benchmark
+    public long inputStreamTransferTo(Blackhole blackhole) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.transferTo(new BlackholeOutputStream(blackhole));
+        }
+    }
+
+    @Benchmark
+    public long fileChannelTransferTo(Blackhole blackhole) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var target = Channels.newChannel(new BlackholeOutputStream(blackhole));
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return position;
+        }
+    }
+
+    private long bufferLoop(Blackhole blackhole, int bufferSize) throws IOException {
+        long copied = 0;
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new BlackholeOutputStream(blackhole)) {
+            byte[] buffer = new byte[bufferSize];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+                if (copied == 0) {
+                    out.flush();
+                }
+                copied += bytesRead;
+            }
+        }
+        return copied;
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b[off]);
+            blackhole.consume(len);
+        }
+    }
+}
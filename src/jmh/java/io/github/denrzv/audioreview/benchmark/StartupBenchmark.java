@@ -0,0 +1,187 @@
+package io.github.denrzv.audioreview.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-ready of the packaged application: from launching the JVM until
+ * {@code /actuator/health} answers, for each startup mode, several runs each. Results are written
+ * in the JMH JSON format, so {@link BenchmarkComparison} can compare them against an earlier release.
+ * <p>
+ * Modes: {@code default} (plain JVM), {@code cds} (class data sharing archive), {@code aot} (Spring AOT,
+ * needs a {@code fast-startup} build) and {@code aot-cds} (both, as the Dockerfile runs it). Archives
+ * are trained the way the Dockerfile trains them, without a database. The measured runs need the
+ * database, configured through the usual environment variables.
+ */
+public final class StartupBenchmark {
+
+    /**
+     * Settings of the CDS training run: the context is refreshed and the JVM exits before anything
+     * connects to the database. Kept in sync with the Dockerfile.
+     */
+    static final List<String> TRAINING_ARGUMENTS = List.of(
+            "-Dspring.context.exit=onRefresh",
+            "-Dspring.flyway.enabled=false",
+            "-Dspring.jpa.hibernate.ddl-auto=none",
+            "-Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+            "-Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false");
+
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+    private static final long POLL_INTERVAL_MS = 20;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: StartupBenchmark <app.jar> <result.json> [modes] [runs]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        Path result = Path.of(args[1]);
+        List<String> modes = List.of((args.length > 2 ? args[2] : "default,cds,aot,aot-cds").split(","));
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        Path workDir = jar.toAbsolutePath().getParent().resolve("startup-benchmark");
+        Path appDir = extract(jar, workDir);
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String mode : modes) {
+            List<String> jvmArguments = jvmArguments(mode, appDir, workDir);
+            List<Double> samples = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                double millis = timeToReady(appDir, jvmArguments, workDir.resolve(mode + "-" + run + ".log"), httpClient);
+                samples.add(millis);
+                System.out.printf("%-8s run %d: %8.0f ms%n", mode, run + 1, millis);
+            }
+            results.add(result(mode, samples));
+        }
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(result.toFile(), results);
+        System.out.println("Startup results written to " + result);
+    }
+
+    private static Path extract(Path jar, Path workDir) throws IOException, InterruptedException {
+        Path appDir = workDir.resolve("app");
+        run(List.of(java(), "-Djarmode=tools", "-jar", jar.toString(), "extract", "--force",
+                "--destination", appDir.toString()), workDir.resolve("extract.log"));
+        return appDir;
+    }
+
+    private static List<String> jvmArguments(String mode, Path appDir, Path workDir) throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>();
+        if (mode.startsWith("aot")) {
+            arguments.add("-Dspring.aot.enabled=true");
+        }
+        if (mode.endsWith("cds")) {
+            Path archive = workDir.resolve(mode + ".jsa").toAbsolutePath();
+            List<String> training = new ArrayList<>(List.of(java(), "-XX:ArchiveClassesAtExit=" + archive));
+            training.addAll(arguments);
+            training.addAll(TRAINING_ARGUMENTS);
+            training.addAll(List.of("-jar", appDir.resolve(jarName(appDir)).toString()));
+            run(training, workDir.resolve(mode + "-training.log"));
+            arguments.add("-XX:SharedArchiveFile=" + archive);
+        } else if (!mode.equals("default") && !mode.equals("aot")) {
+            throw new IllegalArgumentException("Unknown startup mode: " + mode);
+        }
+        return arguments;
+    }
+
+    private static double timeToReady(Path appDir, List<String> jvmArguments, Path log, HttpClient httpClient)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(java()));
+        command.addAll(jvmArguments);
+        command.addAll(List.of("-jar", appDir.resolve(jarName(appDir)).toString(),
+                "--server.port=" + port, "--management.server.port=" + port));
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = startedAt + READY_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - startedAt) / 1e6;
+                    }
+                } catch (IOException notListeningYet) {
+                    // Keep polling
+                }
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+            throw new IllegalStateException("Application not ready within " + READY_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Map<String, Object> result(String mode, List<Double> samples) {
+        double mean = samples.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        Map<String, Object> primaryMetric = new LinkedHashMap<>();
+        primaryMetric.put("score", mean);
+        primaryMetric.put("scoreUnit", "ms");
+        primaryMetric.put("rawData", List.of(samples));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("benchmark", StartupBenchmark.class.getName() + ".timeToReady");
+        // Single shot: lower is better for the comparison
+        result.put("mode", "ss");
+        result.put("params", Map.of("mode", mode));
+        result.put("primaryMetric", primaryMetric);
+        return result;
+    }
+
+    private static void run(List<String> command, Path log) throws IOException, InterruptedException {
+        Files.createDirectories(log.getParent());
+        int exitCode = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("'" + String.join(" ", command) + "' exited with " + exitCode + ", see " + log);
+        }
+    }
+
+    private static String jarName(Path appDir) throws IOException {
+        try (var files = Files.list(appDir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar extracted to " + appDir));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString() + (File.separatorChar == '\\' ? ".exe" : "");
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.denrzv.audioreview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the stream URL handed to reviewers. {@link #current} is what
+ * {@code ClassificationService} does today; the others are candidate replacements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamUrlBenchmark {
+
+    private static final String FILE_SERVER_URL = "http://localhost:8080";
+    private static final String FILES_PATH = FILE_SERVER_URL + "/admin/audio/files/";
+
+    @Param({"2024-05-17_14-03-22_campaign-2291_voicemail_0049512345678.wav",
+            "Anrufbeantworter – Rückruf (Kunde 42) #7.wav"})
+    public String filename;
+
+    @Benchmark
+    public String current() {
+        String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8);
+        return String.format("%s/admin/audio/files/%s", FILE_SERVER_URL, encodedFilename);
+    }
+
+    @Benchmark
+    public String concatenation() {
+        return FILES_PATH + URLEncoder.encode(filename, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String pathSegmentEncoding() {
+        return FILES_PATH + UriUtils.encodePathSegment(filename, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,241 @@
+package io.github.denrzv.audioreview.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.denrzv.audioreview.service.FileStorageService;
+import io.github.denrzv.audioreview.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reviewer-floor load simulation. Boots the application against a Postgres container, seeds
+ * unclassified files and reviewer accounts, and drives every reviewer through the login, next,
+ * stream and classify loop with log-normal think times. Reports throughput and latency
+ * percentiles per step, duplicate assignments, lease contention and row lock waits.
+ * <p>
+ * Tuned with system properties: {@code simulation.reviewers}, {@code simulation.files},
+ * {@code simulation.duration-seconds}, {@code simulation.think-time-ms} (median),
+ * {@code simulation.audio-kb} and {@code simulation.allow-duplicates}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+class ReviewerLoadSimulation {
+
+    private static final int REVIEWERS = Integer.getInteger("simulation.reviewers", 20);
+    private static final int FILES = Integer.getInteger("simulation.files", 2000);
+    private static final int DURATION_SECONDS = Integer.getInteger("simulation.duration-seconds", 60);
+    private static final int THINK_TIME_MS = Integer.getInteger("simulation.think-time-ms", 800);
+    private static final int AUDIO_KB = Integer.getInteger("simulation.audio-kb", 64);
+    private static final boolean ALLOW_DUPLICATES = Boolean.getBoolean("simulation.allow-duplicates");
+    private static final String PASSWORD = "simulation";
+    private static final Path WORK_DIR = createWorkDir();
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void simulationProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.storage.backend", () -> "local");
+        registry.add("file.upload-dir", () -> WORK_DIR.resolve("uploads").toString());
+        registry.add("app.classification-journal.dir", () -> WORK_DIR.resolve("journal").toString());
+        registry.add("app.classification-partitions.archive-dir", () -> WORK_DIR.resolve("archive").toString());
+        registry.add("app.resumable-upload.dir", () -> WORK_DIR.resolve("uploads-staging").toString());
+    }
+
+    @Test
+    void reviewerFloor() throws Exception {
+        seedReviewers();
+        seedFiles();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        for (String operation : List.of("login", "next", "stream", "classify")) {
+            recorders.put(operation, new LatencyRecorder(operation));
+        }
+        ConcurrentHashMap<Long, String> assignments = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Long, Integer> classifications = new ConcurrentHashMap<>();
+        SimulatedReviewer.Counters counters = new SimulatedReviewer.Counters();
+
+        String baseUrl = "http://localhost:" + port;
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        ExecutorService reviewers = Executors.newFixedThreadPool(REVIEWERS);
+        for (int i = 0; i < REVIEWERS; i++) {
+            reviewers.submit(new SimulatedReviewer(baseUrl, reviewerName(i), PASSWORD, httpClient, objectMapper,
+                    recorders, assignments, classifications, counters, deadline, THINK_TIME_MS, i));
+        }
+        reviewers.shutdown();
+        if (!reviewers.awaitTermination(DURATION_SECONDS + 120L, TimeUnit.SECONDS)) {
+            reviewers.shutdownNow();
+        }
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("reviewers", REVIEWERS);
+        report.put("seededFiles", FILES);
+        report.put("durationSeconds", Math.round(elapsedSeconds * 100) / 100.0);
+        report.put("medianThinkTimeMs", THINK_TIME_MS);
+        report.put("classified", classifications.size());
+        report.put("queueEmptied", counters.emptyQueue.get() > 0);
+        report.put("bytesStreamed", counters.bytesStreamed.get());
+        List<Map<String, Object>> steps = new ArrayList<>();
+        recorders.values().forEach(recorder -> steps.add(recorder.summarize(elapsedSeconds)));
+        report.put("steps", steps);
+        report.put("duplicateAssignments", counters.duplicateAssignments.get());
+        report.put("repeatClassifications", counters.repeatClassifications.get());
+        report.put("classifyConflicts", counters.classifyConflicts.get());
+        report.put("leasesAcquired", counterValue("file.leases.acquired"));
+        report.put("leaseContention", counterValue("file.leases.contention"));
+        report.put("optimisticLockConflicts", counterValue("review.optimistic.lock.conflicts"));
+        report.put("rowLockWaits", lockWaits());
+
+        writeReport(report);
+
+        assertTrue(classifications.size() > 0, "No file was classified");
+        if (!ALLOW_DUPLICATES) {
+            assertEquals(0, counters.duplicateAssignments.get(), "Files were leased to two reviewers at once");
+            assertEquals(0, counters.repeatClassifications.get(), "Files were classified more than once");
+        }
+    }
+
+    private void seedReviewers() {
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < REVIEWERS; i++) {
+            rows.add(new Object[]{reviewerName(i), hash});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, role, active) VALUES (?, ?, 'USER', TRUE) " +
+                "ON CONFLICT (username) DO NOTHING", rows);
+    }
+
+    private void seedFiles() throws IOException {
+        Long voice = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Voice'", Long.class);
+        Long unclassified = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Unclassified'", Long.class);
+        Long admin = jdbcTemplate.queryForObject("SELECT id FROM users WHERE role = 'ADMIN' ORDER BY id LIMIT 1", Long.class);
+        byte[] audio = silentWav(AUDIO_KB * 1024);
+        LocalDate today = LocalDate.now();
+        Timestamp uploadedAt = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> rows = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            String filename = String.format("simulation_voice_%06d.wav", i);
+            String path = fileStorageService.getStorageLayout().pathFor(filename, "voice", today);
+            storageBackend.put(path, new ByteArrayInputStream(audio), audio.length);
+            rows.add(new Object[]{filename, path, voice, unclassified, admin, uploadedAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                "uploaded_by, uploaded_at, version) VALUES (?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    private double counterValue(String name) {
+        return meterRegistry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private List<Map<String, Object>> lockWaits() {
+        List<Map<String, Object>> waits = new ArrayList<>();
+        for (Timer timer : meterRegistry.find("review.lock.wait").timers()) {
+            Map<String, Object> wait = new LinkedHashMap<>();
+            wait.put("operation", timer.getId().getTag("operation"));
+            wait.put("count", timer.count());
+            wait.put("meanMs", Math.round(timer.mean(TimeUnit.MILLISECONDS) * 100) / 100.0);
+            wait.put("maxMs", Math.round(timer.max(TimeUnit.MILLISECONDS) * 100) / 100.0);
+            wait.put("totalMs", Math.round(timer.totalTime(TimeUnit.MILLISECONDS)));
+            waits.add(wait);
+        }
+        return waits;
+    }
+
+    private void writeReport(Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = objectMapper.writeValueAsString(report);
+        System.out.println("Reviewer load simulation report:");
+        System.out.println(json);
+
+        Path reportDir = Path.of("target", "load-simulation");
+        Files.createDirectories(reportDir);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Files.writeString(reportDir.resolve("report-" + timestamp + ".json"), json);
+    }
+
+    private static String reviewerName(int index) {
+        return String.format("reviewer-%03d@simulation.io", index);
+    }
+
+    /**
+     * A mono 8 kHz 16-bit PCM file of silence, so the stream step moves realistic amounts of audio.
+     */
+    private static byte[] silentWav(int dataLength) {
+        ByteBuffer wav = ByteBuffer.allocate(44 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(36 + dataLength).put("WAVE".getBytes());
+        wav.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(8000).putInt(16000).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes()).putInt(dataLength);
+        return wav.array();
+    }
+
+    private static Path createWorkDir() {
+        try {
+            return Files.createTempDirectory("reviewer-load-simulation");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
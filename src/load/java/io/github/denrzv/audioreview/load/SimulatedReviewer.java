@@ -0,0 +1,204 @@
+package io.github.denrzv.audioreview.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One reviewer working the queue: log in once, then take the next file, listen to it, think and
+ * classify it until the deadline passes or the queue is empty.
+ */
+class SimulatedReviewer implements Runnable {
+
+    private static final List<String> CATEGORIES = List.of("Silent", "Voice", "AnsweringMachine", "Undefined");
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_CONFLICT = 409;
+
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Map<String, LatencyRecorder> recorders;
+    private final ConcurrentMap<Long, String> assignments;
+    private final ConcurrentMap<Long, Integer> classifications;
+    private final Counters counters;
+    private final long deadlineNanos;
+    private final long medianThinkTimeMs;
+    private final Random random;
+
+    SimulatedReviewer(String baseUrl, String username, String password, HttpClient httpClient, ObjectMapper objectMapper,
+                      Map<String, LatencyRecorder> recorders, ConcurrentMap<Long, String> assignments,
+                      ConcurrentMap<Long, Integer> classifications, Counters counters,
+                      long deadlineNanos, long medianThinkTimeMs, long seed) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.recorders = recorders;
+        this.assignments = assignments;
+        this.classifications = classifications;
+        this.counters = counters;
+        this.deadlineNanos = deadlineNanos;
+        this.medianThinkTimeMs = medianThinkTimeMs;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        try {
+            String token = login();
+            if (token == null) {
+                return;
+            }
+            while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+                if (!reviewNext(token)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String login() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(Map.of("username", username, "password", password))))
+                .build();
+        HttpResponse<String> response = send("login", request);
+        if (response == null || response.statusCode() != HTTP_OK) {
+            return null;
+        }
+        return readTree(response.body()).path("token").asText(null);
+    }
+
+    /**
+     * @return false once the queue is empty
+     */
+    private boolean reviewNext(String token) throws InterruptedException {
+        HttpResponse<String> next = send("next", authorized(token, "/classification/random").GET().build());
+        if (next == null) {
+            return true;
+        }
+        if (next.statusCode() != HTTP_OK) {
+            // The controller answers 400 when nothing is left to classify
+            counters.emptyQueue.incrementAndGet();
+            return false;
+        }
+        JsonNode file = readTree(next.body());
+        long fileId = file.path("id").asLong();
+
+        String holder = assignments.putIfAbsent(fileId, username);
+        if (holder != null && !holder.equals(username)) {
+            counters.duplicateAssignments.incrementAndGet();
+        }
+
+        stream(token, file.path("filePath").asText());
+        Thread.sleep(thinkTimeMs());
+
+        String category = CATEGORIES.get(random.nextInt(CATEGORIES.size()));
+        HttpResponse<String> classified = send("classify", authorized(token, "/classification/" + fileId)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(Map.of("category", category))))
+                .build());
+        assignments.remove(fileId, username);
+        if (classified != null && classified.statusCode() == HTTP_CONFLICT) {
+            counters.classifyConflicts.incrementAndGet();
+        } else if (classified != null && classified.statusCode() == HTTP_OK
+                && classifications.merge(fileId, 1, Integer::sum) > 1) {
+            counters.repeatClassifications.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void stream(String token, String fileUrl) throws InterruptedException {
+        // The returned URL carries the configured file server; only its path is used here
+        String path = URI.create(fileUrl).getRawPath();
+        HttpRequest request = authorized(token, path).GET().build();
+        long startedAt = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                long bytes = body.transferTo(OutputStream.nullOutputStream());
+                counters.bytesStreamed.addAndGet(bytes);
+            }
+            if (response.statusCode() != HTTP_OK) {
+                recorders.get("stream").recordError();
+                return;
+            }
+            recorders.get("stream").record(System.nanoTime() - startedAt);
+        } catch (IOException ex) {
+            recorders.get("stream").recordError();
+        }
+    }
+
+    private HttpResponse<String> send(String operation, HttpRequest request) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - startedAt;
+            if (response.statusCode() >= 500) {
+                recorders.get(operation).recordError();
+            } else {
+                recorders.get(operation).record(elapsed);
+            }
+            return response;
+        } catch (IOException ex) {
+            recorders.get(operation).recordError();
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private long thinkTimeMs() {
+        // Log-normal around the median: most decisions are quick, a few take several times longer
+        return Math.round(medianThinkTimeMs * Math.exp(0.5 * random.nextGaussian()));
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unexpected response: " + body, ex);
+        }
+    }
+
+    /**
+     * Outcomes shared by all reviewers of a run.
+     */
+    static class Counters {
+        final AtomicLong duplicateAssignments = new AtomicLong();
+        final AtomicLong repeatClassifications = new AtomicLong();
+        final AtomicLong classifyConflicts = new AtomicLong();
+        final AtomicLong emptyQueue = new AtomicLong();
+        final AtomicLong bytesStreamed = new AtomicLong();
+    }
+}
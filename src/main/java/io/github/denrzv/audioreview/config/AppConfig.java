@@ -11,8 +11,8 @@ import org.springframework.context.annotation.Configuration;
 public class AppConfig {
     @Value("${app.file-server-url}")
     private String fileServerUrl;
-    @Value("${app.user-lock-minutes}")
-    private String userLockMinutes;
     @Value("${app.allowed-origin}")
     private String allowedOrigin;
+    @Value("${app.classification-partitions.retention-months}")
+    private int classificationRetentionMonths;
 }
@@ -0,0 +1,116 @@
+package io.github.denrzv.audioreview.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes read-only transactions to the replica and everything else to the primary.
+ *
+ * <p>Reads fall back to the primary while the replica lags more than the allowed maximum or is
+ * unreachable, and for a short window after a user ran a read-write transaction, so users always
+ * read their own writes.</p>
+ *
+ * <p>Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction manager opens the
+ * connection before the read-only flag is bound to the thread.</p>
+ *
+ * <p>Requires {@code spring.jpa.open-in-view} off: an entity manager spanning the request keeps the
+ * first connection it got, and with it the route of the first transaction, for every later one.</p>
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final String LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+    private final long stickyWindowNanos;
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    private volatile boolean replicaAvailable;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMs, long stickyWindowMs) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        this.stickyWindowNanos = TimeUnit.MILLISECONDS.toNanos(stickyWindowMs);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        String username = currentUsername();
+
+        if (!inTransaction || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (inTransaction && username != null) {
+                stickyUntil.put(username, System.nanoTime() + stickyWindowNanos);
+            }
+            return Route.PRIMARY;
+        }
+
+        if (!replicaAvailable || isSticky(username)) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    /**
+     * Measure the replica's replay lag and enable or disable read routing accordingly.
+     * Also forgets expired read-your-writes windows.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms}")
+    public void checkReplicaLag() {
+        boolean available;
+        try {
+            Double lagMs = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            available = lagMs != null && lagMs <= maxLagMs;
+            if (!available) {
+                log.warn("Replica lag {} ms exceeds {} ms, routing reads to primary", lagMs, maxLagMs);
+            }
+        } catch (RuntimeException ex) {
+            available = false;
+            log.warn("Replica unavailable, routing reads to primary: {}", ex.getMessage());
+        }
+        if (available && !replicaAvailable) {
+            log.info("Replica caught up, routing read-only transactions to replica");
+        }
+        replicaAvailable = available;
+
+        long now = System.nanoTime();
+        stickyUntil.values().removeIf(until -> until - now < 0);
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    private boolean isSticky(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(username);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.denrzv.audioreview.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Skips Flyway on startup when the database was already migrated with exactly the migrations this
+ * build ships. After a successful migration the SHA-256 of all classpath migration scripts is stored
+ * in {@code schema_fingerprints}; a node whose scripts hash to a stored value starts without scanning,
+ * validating or migrating. Any other node, including the first of a new release, runs Flyway as usual.
+ * Every build keeps its own row, so nodes of two releases running side by side do not undo each
+ * other's fingerprint.
+ */
+@Slf4j
+public class SchemaFingerprintMigrationStrategy implements FlywayMigrationStrategy {
+
+    static final String RECORDED = "SELECT fingerprint FROM schema_fingerprints WHERE fingerprint = ?";
+    static final String RECORD = "INSERT INTO schema_fingerprints (fingerprint, recorded_at) " +
+            "VALUES (?, LOCALTIMESTAMP) " +
+            "ON CONFLICT (fingerprint) DO UPDATE SET recorded_at = EXCLUDED.recorded_at";
+
+    private final boolean skipKnownSchema;
+
+    public SchemaFingerprintMigrationStrategy(boolean skipKnownSchema) {
+        this.skipKnownSchema = skipKnownSchema;
+    }
+
+    @Override
+    public void migrate(Flyway flyway) {
+        migrate(flyway, new JdbcTemplate(flyway.getConfiguration().getDataSource()));
+    }
+
+    void migrate(Flyway flyway, JdbcTemplate jdbcTemplate) {
+        if (!skipKnownSchema) {
+            flyway.migrate();
+            return;
+        }
+        String fingerprint = fingerprint(flyway.getConfiguration().getLocations());
+        if (fingerprint != null && isRecorded(jdbcTemplate, fingerprint)) {
+            log.info("Schema fingerprint {} already applied, skipping Flyway validation", fingerprint.substring(0, 12));
+            return;
+        }
+
+        flyway.migrate();
+        if (fingerprint != null) {
+            jdbcTemplate.update(RECORD, fingerprint);
+        }
+    }
+
+    private static boolean isRecorded(JdbcTemplate jdbcTemplate, String fingerprint) {
+        try {
+            return !jdbcTemplate.queryForList(RECORDED, String.class, fingerprint).isEmpty();
+        } catch (DataAccessException ex) {
+            // Not migrated far enough to have the table yet
+            return false;
+        }
+    }
+
+    /**
+     * @return hex SHA-256 over the names and contents of the migration scripts, or null if a
+     * location is not on the classpath and cannot be fingerprinted
+     */
+    static String fingerprint(Location[] locations) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            for (Location location : locations) {
+                if (!location.isClassPath()) {
+                    return null;
+                }
+                List<Resource> scripts = Arrays.stream(resolver.getResources("classpath*:" + location.getRootPath() + "/**/*.sql"))
+                        .sorted(Comparator.comparing(Resource::getFilename))
+                        .toList();
+                for (Resource script : scripts) {
+                    digest.update(script.getFilename().getBytes(StandardCharsets.UTF_8));
+                    try (InputStream content = script.getInputStream()) {
+                        digest.update(content.readAllBytes());
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException ex) {
+            log.warn("Could not fingerprint the migrations, running Flyway: {}", ex.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.denrzv.audioreview.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache for the read-mostly reference entities, {@code User} and
+ * {@code Category}, their natural IDs and queries marked cacheable. Regions live in local
+ * size-bounded Caffeine caches behind JCache; regions not declared here fail the startup instead
+ * of growing without bound. Changes on other nodes are evicted by {@link SecondLevelCacheEvictor}
+ * and entries expire after {@code app.cluster-events.cache-ttl-ms} like the other caches.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USERS = "users";
+    public static final String USERS_BY_USERNAME = "users-by-username";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORIES_BY_NAME = "categories-by-name";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(MeterRegistry meterRegistry,
+                                              @Value("${app.second-level-cache.users}") long users,
+                                              @Value("${app.second-level-cache.categories}") long categories,
+                                              @Value("${app.second-level-cache.query-results}") long queryResults,
+                                              @Value("${app.cluster-events.cache-ttl-ms}") long ttlMs) {
+        // Own cache manager instead of the JVM-wide default, so two persistence units never share entries
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("audio-review:" + UUID.randomUUID()), getClass().getClassLoader());
+        createCache(cacheManager, meterRegistry, USERS, users, ttlMs);
+        createCache(cacheManager, meterRegistry, USERS_BY_USERNAME, users, ttlMs);
+        createCache(cacheManager, meterRegistry, CATEGORIES, categories, ttlMs);
+        createCache(cacheManager, meterRegistry, CATEGORIES_BY_NAME, categories, ttlMs);
+        createCache(cacheManager, meterRegistry, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                queryResults, ttlMs);
+        // One entry per table; must not expire, a missing timestamp makes cached query results look current
+        createCache(cacheManager, meterRegistry, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                1000, 0);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void createCache(CacheManager cacheManager, MeterRegistry meterRegistry,
+                                    String name, long maximumSize, long ttlMs) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        if (ttlMs > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        }
+        // Hibernate caches disassembled state, there is nothing to copy
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        Cache<Object, Object> cache = cacheManager.createCache(name, configuration);
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+}
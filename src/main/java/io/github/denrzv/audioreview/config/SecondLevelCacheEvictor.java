@@ -0,0 +1,48 @@
+package io.github.denrzv.audioreview.config;
+
+import io.github.denrzv.audioreview.event.CategoriesChangedEvent;
+import io.github.denrzv.audioreview.event.ResyncRequiredEvent;
+import io.github.denrzv.audioreview.event.UserChangedEvent;
+import io.github.denrzv.audioreview.model.Category;
+import io.github.denrzv.audioreview.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts second-level cache entries changed on other nodes. Local changes go through Hibernate,
+ * which keeps the cache current by itself.
+ */
+@Component
+@AllArgsConstructor
+public class SecondLevelCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @EventListener(condition = "#event.remote")
+    public void onUserChanged(UserChangedEvent event) {
+        org.hibernate.Cache cache = cache();
+        // The event only carries the username; user changes are rare enough to drop them all
+        cache.evictEntityData(User.class);
+        cache.evictNaturalIdData(User.class);
+    }
+
+    @EventListener(condition = "#event.remote")
+    public void onCategoriesChanged(CategoriesChangedEvent event) {
+        org.hibernate.Cache cache = cache();
+        cache.evictEntityData(Category.class);
+        cache.evictNaturalIdData(Category.class);
+        cache.evictDefaultQueryRegion();
+    }
+
+    @EventListener
+    public void onResyncRequired(ResyncRequiredEvent event) {
+        cache().evictAllRegions();
+    }
+
+    private org.hibernate.Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
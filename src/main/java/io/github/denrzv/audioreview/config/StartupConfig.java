@@ -0,0 +1,62 @@
+package io.github.denrzv.audioreview.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Startup time settings. Beans from the packages in {@code app.startup.lazy-packages} (API docs by
+ * default) are created on first use instead of during startup, and with
+ * {@code app.startup.skip-known-schema} Flyway is skipped on databases already migrated by the
+ * same build, see {@link SchemaFingerprintMigrationStrategy}.
+ * <p>
+ * With Spring AOT (the {@code fast-startup} build profile) the lazy packages are applied when the
+ * build runs, not when the application starts.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyNonCriticalBeans(Environment environment) {
+        List<String> packages = Binder.get(environment)
+                .bind("app.startup.lazy-packages", Bindable.listOf(String.class))
+                .orElse(List.of());
+        return beanFactory -> {
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                String className = declaringClassName(beanFactory, definition);
+                if (className != null && packages.stream().anyMatch(prefix -> className.startsWith(prefix + "."))) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${app.startup.skip-known-schema}") boolean skipKnownSchema) {
+        return new SchemaFingerprintMigrationStrategy(skipKnownSchema);
+    }
+
+    /**
+     * The bean class, or for {@code @Bean} methods the configuration class declaring the method.
+     */
+    private static String declaringClassName(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        if (definition.getBeanClassName() != null) {
+            return definition.getBeanClassName();
+        }
+        String factoryBeanName = definition.getFactoryBeanName();
+        if (factoryBeanName != null && beanFactory.containsBeanDefinition(factoryBeanName)) {
+            return beanFactory.getBeanDefinition(factoryBeanName).getBeanClassName();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.denrzv.audioreview.config;
+
+import io.github.denrzv.audioreview.storage.LocalStorageBackend;
+import io.github.denrzv.audioreview.storage.S3StorageBackend;
+import io.github.denrzv.audioreview.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Selects the {@link StorageBackend} with {@code app.storage.backend}: {@code local} keeps files
+ * below {@code file.upload-dir}, {@code s3} keeps them in an S3-compatible bucket shared by all nodes.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "local", matchIfMissing = true)
+    public LocalStorageBackend localStorageBackend(@Value("${file.upload-dir}") String uploadDir,
+                                                   @Value("${app.storage.local.listing-threads}") int listingThreads) {
+        return new LocalStorageBackend(Paths.get(uploadDir), listingThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+    public S3StorageBackend s3StorageBackend(@Value("${app.storage.s3.endpoint}") String endpoint,
+                                             @Value("${app.storage.s3.region}") String region,
+                                             @Value("${app.storage.s3.bucket}") String bucket,
+                                             @Value("${app.storage.s3.access-key}") String accessKey,
+                                             @Value("${app.storage.s3.secret-key}") String secretKey,
+                                             @Value("${app.storage.s3.path-style-access}") boolean pathStyleAccess,
+                                             @Value("${app.storage.s3.part-size-mb}") int partSizeMb,
+                                             @Value("${app.storage.s3.direct-urls}") boolean directUrls) {
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+        S3Configuration s3Configuration = S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build();
+
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        if (StringUtils.hasText(endpoint)) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+
+        return new S3StorageBackend(clientBuilder.build(), presignerBuilder.build(), bucket,
+                partSizeMb * 1024 * 1024, directUrls);
+    }
+}
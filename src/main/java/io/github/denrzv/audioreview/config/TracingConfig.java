@@ -0,0 +1,38 @@
+package io.github.denrzv.audioreview.config;
+
+import io.github.denrzv.audioreview.tracing.TracingDataSource;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Request tracing on top of Micrometer observations. HTTP requests and scheduled tasks are observed
+ * by Spring itself, services annotated with {@code @Observed} through the observed aspect
+ * ({@code management.observations.annotations.enabled}) and SQL statements by wrapping the
+ * application data source. Traces are collected by {@link io.github.denrzv.audioreview.tracing.TraceRecorder}.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor(ObjectProvider<ObservationRegistry> observationRegistry,
+                                                                   @Value("${app.tracing.enabled}") boolean enabled,
+                                                                   @Value("${app.tracing.sql-max-length}") int sqlMaxLength) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Only the data source the application uses; pools behind a routing data source stay as they are
+                if (enabled && beanName.equals("dataSource") && bean instanceof DataSource dataSource
+                        && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource(dataSource, observationRegistry.getObject(), sqlMaxLength);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.denrzv.audioreview.config;
+
+import io.github.denrzv.audioreview.security.JwtHandshakeInterceptor;
+import io.github.denrzv.audioreview.websocket.ReviewerSessionHandler;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@AllArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private ReviewerSessionHandler reviewerSessionHandler;
+    private JwtHandshakeInterceptor jwtHandshakeInterceptor;
+    private AppConfig appConfig;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(reviewerSessionHandler, "/ws/review")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins(appConfig.getAllowedOrigin());
+    }
+}
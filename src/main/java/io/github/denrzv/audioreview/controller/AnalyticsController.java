@@ -0,0 +1,120 @@
+package io.github.denrzv.audioreview.controller;
+
+import io.github.denrzv.audioreview.dto.ConfusionMatrixResponse;
+import io.github.denrzv.audioreview.dto.ReviewerThroughput;
+import io.github.denrzv.audioreview.dto.ReviewerTrendPoint;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Granularity;
+import io.github.denrzv.audioreview.service.ConfusionMatrixService;
+import io.github.denrzv.audioreview.service.ReviewerAnalyticsService;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/analytics")
+@AllArgsConstructor
+public class AnalyticsController {
+
+    private static final int DEFAULT_HISTORY_DAYS = 30;
+    private static final int DEFAULT_THROUGHPUT_HOURS = 24;
+    private static final int MAX_LEADERBOARD_SIZE = 1000;
+
+    private final ConfusionMatrixService confusionMatrixService;
+    private final ReviewerAnalyticsService reviewerAnalyticsService;
+
+    /**
+     * Endpoint to get how often reviewers overturn the initial category: files per (initial, current)
+     * category pair, precision and recall of the initial category, and category changes per day.
+     *
+     * @param from first day of the history (UTC), defaults to 30 days before {@code to}
+     * @param to   last day of the history (UTC), defaults to today
+     * @return the confusion matrix report
+     */
+    @GetMapping("/confusion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ConfusionMatrixResponse> getConfusionMatrix(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_HISTORY_DAYS - 1L);
+        return ResponseEntity.ok(confusionMatrixService.getConfusionMatrix(first, last));
+    }
+
+    /**
+     * Endpoint to recompute the confusion counts from the files and classification history.
+     * Uploads and classifications wait while it runs.
+     *
+     * @return no content
+     */
+    @PostMapping("/confusion/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildConfusionMatrix() {
+        confusionMatrixService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to rank reviewers by labels in a time range, with labels per hour of labelling
+     * and mean, median and 90th percentile time per label.
+     *
+     * @param granularity rollup buckets to read: MINUTE, HOUR or DAY
+     * @param from        start of the range (server time), defaults to 24 hours before {@code to}
+     * @param to          end of the range (server time), defaults to now
+     * @param limit       maximum number of reviewers
+     * @return reviewers, most labels first
+     */
+    @GetMapping("/reviewers")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ReviewerThroughput>> getReviewerLeaderboard(
+            @RequestParam(defaultValue = "HOUR") Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(DEFAULT_THROUGHPUT_HOURS);
+        int size = Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE));
+        return ResponseEntity.ok(reviewerAnalyticsService.getLeaderboard(granularity, start, end, size));
+    }
+
+    /**
+     * Endpoint to get one reviewer's labels and time per label per minute, hour or day.
+     *
+     * @param username    the reviewer
+     * @param granularity rollup buckets to read: MINUTE, HOUR or DAY
+     * @param from        start of the range (server time), defaults to 24 hours before {@code to}
+     * @param to          end of the range (server time), defaults to now
+     * @return buckets with labels, oldest first
+     */
+    @GetMapping("/reviewers/{username}/trend")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ReviewerTrendPoint>> getReviewerTrend(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "HOUR") Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(DEFAULT_THROUGHPUT_HOURS);
+        return ResponseEntity.ok(reviewerAnalyticsService.getTrend(username, granularity, start, end));
+    }
+
+    /**
+     * Endpoint to recompute the reviewer rollups from the retained classifications, e.g. after
+     * changing the idle threshold. Minute and hour buckets older than their retention are
+     * recreated and dropped again by the next retention run.
+     *
+     * @return no content
+     */
+    @PostMapping("/reviewers/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildReviewerRollups() {
+        reviewerAnalyticsService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -3,29 +3,36 @@ package io.github.denrzv.audioreview.controller;
 import io.github.denrzv.audioreview.dto.AudioFileResponse;
 import io.github.denrzv.audioreview.model.AudioFile;
 import io.github.denrzv.audioreview.service.AudioFileService;
+import io.github.denrzv.audioreview.service.DashboardStatsService;
+import io.github.denrzv.audioreview.service.FileStorageService;
+import io.github.denrzv.audioreview.service.ReviewMetrics;
+import io.github.denrzv.audioreview.storage.StorageObject;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/admin/audio")
@@ -33,11 +40,26 @@ import java.util.Map;
 public class AudioFileController {
 
     private final AudioFileService audioFileService;
-    private final Path fileStorageLocation = Paths.get("uploads");
+    private final DashboardStatsService dashboardStatsService;
+    private final FileStorageService fileStorageService;
+    private final ReviewMetrics reviewMetrics;
+    private final ObservationRegistry observationRegistry;
+    private static final int SERVE_BUFFER_SIZE = 64 * 1024;
     private static final Logger logger = LoggerFactory.getLogger(AudioFileController.class);
 
+    /**
+     * Endpoint to play an audio file. Backends that can serve files themselves get a redirect to a
+     * short-lived URL; otherwise the file is streamed, honouring a single {@code Range} so players can seek.
+     *
+     * @param filename    the audio file name
+     * @param rangeHeader optional byte range
+     * @param response    the response to stream to
+     */
     @GetMapping("/files/{filename:.+}")
-    public void serveFile(@PathVariable String filename, HttpServletResponse response) {
+    public void serveFile(@PathVariable String filename,
+                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                          HttpServletResponse response) {
+        long startedAt = System.nanoTime();
         try {
             // Decode the filename to handle special characters
             String decodedFilename = URLDecoder.decode(filename, StandardCharsets.UTF_8);
@@ -48,31 +70,71 @@ public class AudioFileController {
                 return;
             }
 
-            Path filePath = fileStorageLocation.resolve(audioFile.getFilepath()).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
+            Optional<URI> directUrl = fileStorageService.directUrl(audioFile.getFilepath());
+            if (directUrl.isPresent()) {
+                response.setStatus(HttpServletResponse.SC_FOUND);
+                response.setHeader(HttpHeaders.LOCATION, directUrl.get().toString());
+                return;
+            }
 
-            if (!resource.exists() || !resource.isReadable()) {
+            Optional<StorageObject> stored = fileStorageService.stat(audioFile.getFilepath());
+            if (stored.isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 return;
             }
+            long size = stored.get().size();
+
+            long offset = 0;
+            long length = size;
+            if (rangeHeader != null) {
+                try {
+                    HttpRange range = HttpRange.parseRanges(rangeHeader).get(0);
+                    offset = range.getRangeStart(size);
+                    length = range.getRangeEnd(size) - offset + 1;
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + (offset + length - 1) + "/" + size);
+            }
 
-            String mimeType = Files.probeContentType(filePath);
-            response.setContentType(mimeType != null ? mimeType : "application/octet-stream");
+            response.setContentType(MediaTypeFactory.getMediaType(decodedFilename)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
             response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + decodedFilename + "\"");
-
-            try (InputStream inputStream = resource.getInputStream();
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setContentLengthLong(length);
+
+            long bytesServed = 0;
+            long firstByteNanos = -1;
+            Observation transfer = Observation.createNotStarted("audio.serve.transfer", observationRegistry)
+                    .highCardinalityKeyValue("file", audioFile.getFilepath())
+                    .highCardinalityKeyValue("range", offset + "+" + length)
+                    .start();
+            try (InputStream inputStream = fileStorageService.open(audioFile.getFilepath(), offset, length);
                  OutputStream outputStream = response.getOutputStream()) {
-                byte[] buffer = new byte[4096];
+                byte[] buffer = new byte[SERVE_BUFFER_SIZE];
                 int bytesRead;
                 while ((bytesRead = inputStream.read(buffer)) != -1) {
                     outputStream.write(buffer, 0, bytesRead);
+                    if (bytesServed == 0) {
+                        // Push the first chunk out so the player can start while the rest streams
+                        outputStream.flush();
+                        firstByteNanos = System.nanoTime() - startedAt;
+                    }
+                    bytesServed += bytesRead;
                 }
             } catch (IOException e) {
-                if (e.getMessage().contains("Broken pipe")) {
+                transfer.error(e);
+                if (e.getMessage() != null && e.getMessage().contains("Broken pipe")) {
                     response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                     return;
                 }
                 throw e;
+            } finally {
+                transfer.highCardinalityKeyValue("bytes", String.valueOf(bytesServed)).stop();
+                reviewMetrics.recordServed(bytesServed, firstByteNanos, System.nanoTime() - startedAt);
             }
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -160,7 +222,10 @@ public class AudioFileController {
     @PutMapping("/multiple")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateMultipleFiles(@RequestBody Map<String, Object> request) {
-        List<Long> fileIds = (List<Long>) request.get("ids");
+        // JSON numbers arrive as Integer or Long depending on their size
+        List<Long> fileIds = ((List<?>) request.get("ids")).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
         String currentCategory = (String) request.get("currentCategory");
         audioFileService.updateMultipleFiles(fileIds, currentCategory);
         return ResponseEntity.ok("Files updated successfully");
@@ -169,8 +234,20 @@ public class AudioFileController {
     @GetMapping("/stats")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
-        Map<String, Object> stats = audioFileService.getDashboardStats();
+        Map<String, Object> stats = dashboardStatsService.getStats();
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Server-Sent Events stream of dashboard statistics.
+     * Sends a full {@code stats} snapshot first, then {@code delta} events with the changed entries only.
+     *
+     * @return the event stream
+     */
+    @GetMapping(value = "/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public SseEmitter streamDashboardStats() {
+        return dashboardStatsService.subscribe();
+    }
+
 }
@@ -1,5 +1,6 @@
 package io.github.denrzv.audioreview.controller;
 
+import io.github.denrzv.audioreview.event.UserChangedEvent;
 import io.github.denrzv.audioreview.model.User;
 import io.github.denrzv.audioreview.repository.UserRepository;
 import io.github.denrzv.audioreview.security.JwtUtils;
@@ -7,13 +8,14 @@ import io.github.denrzv.audioreview.security.UserDetailsImpl;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -25,10 +27,12 @@ public class AuthController {
 
     JwtUtils jwtUtils;
 
-    BCryptPasswordEncoder passwordEncoder;
+    PasswordEncoder passwordEncoder;
 
     UserRepository userRepository;
 
+    ApplicationEventPublisher eventPublisher;
+
     /**
      * Login endpoint.
      *
@@ -82,6 +86,7 @@ public class AuthController {
                 .build();
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
 
         return ResponseEntity.ok("User registered successfully!");
     }
@@ -0,0 +1,60 @@
+package io.github.denrzv.audioreview.controller;
+
+import io.github.denrzv.audioreview.dto.ArchivedClassificationResponse;
+import io.github.denrzv.audioreview.service.ClassificationPartitionService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/classifications")
+@AllArgsConstructor
+public class ClassificationArchiveController {
+
+    private final ClassificationPartitionService classificationPartitionService;
+
+    /**
+     * List the months whose classifications have been archived.
+     *
+     * @return archived months as {@code yyyy-MM}
+     */
+    @GetMapping("/archives")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<String>> listArchives() {
+        return ResponseEntity.ok(classificationPartitionService.listArchives());
+    }
+
+    /**
+     * Query an archived month.
+     *
+     * @param month       the archived month, {@code yyyy-MM}
+     * @param userId      optional reviewer filter
+     * @param audioFileId optional audio file filter
+     * @param limit       maximum number of rows
+     * @return matching archived classifications
+     */
+    @GetMapping("/archives/{month}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ArchivedClassificationResponse>> readArchive(
+            @PathVariable String month,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long audioFileId,
+            @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(classificationPartitionService.readArchive(month, userId, audioFileId, limit));
+    }
+
+    /**
+     * Run partition maintenance now instead of waiting for the schedule.
+     *
+     * @return the ensured and archived partitions
+     */
+    @PostMapping("/partitions/maintenance")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, List<String>>> maintainPartitions() {
+        return ResponseEntity.ok(classificationPartitionService.maintainPartitions());
+    }
+}
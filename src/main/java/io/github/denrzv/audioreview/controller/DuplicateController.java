@@ -0,0 +1,65 @@
+package io.github.denrzv.audioreview.controller;
+
+import io.github.denrzv.audioreview.dto.DuplicateFileResponse;
+import io.github.denrzv.audioreview.service.DuplicateClusterService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/duplicates")
+@AllArgsConstructor
+public class DuplicateController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final DuplicateClusterService duplicateClusterService;
+
+    /**
+     * Endpoint to list clusters of near-duplicate files, most recently grown first.
+     *
+     * @param page     zero-based page number
+     * @param pageSize clusters per page
+     * @return the clusters and their total number
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getClusters(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(duplicateClusterService.getClusters(Math.max(0, page), size));
+    }
+
+    /**
+     * Endpoint to get the near-duplicates of a file, with the file each one got its label from.
+     *
+     * @param fileId the audio file ID
+     * @return the files of its cluster, including itself
+     */
+    @GetMapping("/files/{fileId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DuplicateFileResponse>> getClusterOfFile(@PathVariable long fileId) {
+        return ResponseEntity.ok(duplicateClusterService.getClusterOfFile(fileId));
+    }
+
+    /**
+     * Endpoint to rebuild the near-duplicate index from the stored fingerprints in the background,
+     * e.g. after many deletes or after changing the number of bands.
+     *
+     * @return accepted, or service unavailable if detection is disabled or busy
+     */
+    @PostMapping("/index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildIndex() {
+        if (!duplicateClusterService.rebuildIndex()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
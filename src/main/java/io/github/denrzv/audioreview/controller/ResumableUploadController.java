@@ -0,0 +1,120 @@
+package io.github.denrzv.audioreview.controller;
+
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Resumable uploads for files beyond the multipart size limit, following the tus protocol's core flow:
+ * create the upload, PATCH chunks at the offset reported by HEAD, then finish it.
+ */
+@RestController
+@RequestMapping("/admin/audio/uploads")
+@AllArgsConstructor
+public class ResumableUploadController {
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ResumableUploadService resumableUploadService;
+
+    /**
+     * Endpoint to create a resumable upload.
+     * Only accessible by ADMIN role.
+     *
+     * @param filename     the original file name
+     * @param contentType  the audio content type
+     * @param uploadLength total length in bytes
+     * @return 201 with the upload location
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> createUpload(@RequestParam String filename,
+                                             @RequestParam String contentType,
+                                             @RequestHeader(UPLOAD_LENGTH) long uploadLength) {
+        ResumableUploadService.Upload upload = resumableUploadService.create(filename, contentType, uploadLength);
+        return ResponseEntity.created(URI.create("/admin/audio/uploads/" + upload.id()))
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .header(UPLOAD_LENGTH, String.valueOf(upload.length()))
+                .build();
+    }
+
+    /**
+     * Endpoint to get the offset to resume an upload from.
+     *
+     * @param id the upload ID
+     * @return the current offset and total length as headers
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> getOffset(@PathVariable String id) {
+        ResumableUploadService.Upload upload = resumableUploadService.get(id);
+        return ResponseEntity.ok()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(upload.offset()))
+                .header(UPLOAD_LENGTH, String.valueOf(upload.length()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    /**
+     * Endpoint to write a chunk. The request body is streamed to disk as it arrives.
+     *
+     * @param id           the upload ID
+     * @param uploadOffset the offset the chunk starts at, must match the current offset
+     * @param request      the request carrying the chunk
+     * @return 204 with the new offset
+     */
+    @PatchMapping(value = "/{id}", consumes = "application/offset+octet-stream")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> appendChunk(@PathVariable String id,
+                                            @RequestHeader(UPLOAD_OFFSET) long uploadOffset,
+                                            HttpServletRequest request) throws IOException {
+        ResumableUploadService.Upload upload;
+        try (InputStream content = request.getInputStream()) {
+            upload = resumableUploadService.append(id, uploadOffset, content);
+        }
+        return ResponseEntity.status(HttpStatus.NO_CONTENT)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(upload.offset()))
+                .build();
+    }
+
+    /**
+     * Endpoint to register a completed upload as an audio file.
+     *
+     * @param id the upload ID
+     * @return metadata of the uploaded file
+     */
+    @PostMapping("/{id}/finish")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AudioFileResponse> finishUpload(@PathVariable String id) {
+        return ResponseEntity.ok(resumableUploadService.finish(id));
+    }
+
+    /**
+     * Endpoint to abandon an upload.
+     *
+     * @param id the upload ID
+     * @return 204
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> abortUpload(@PathVariable String id) {
+        resumableUploadService.abort(id);
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+}
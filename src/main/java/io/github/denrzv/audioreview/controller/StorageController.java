@@ -0,0 +1,82 @@
+package io.github.denrzv.audioreview.controller;
+
+import io.github.denrzv.audioreview.dto.StorageReconciliationReport;
+import io.github.denrzv.audioreview.service.StorageLayoutMigrator;
+import io.github.denrzv.audioreview.service.StorageReconciler;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/storage")
+@AllArgsConstructor
+public class StorageController {
+
+    private final StorageReconciler storageReconciler;
+    private final StorageLayoutMigrator storageLayoutMigrator;
+
+    /**
+     * Endpoint to get the report of the running or last storage reconciliation.
+     *
+     * @return the reconciliation report
+     */
+    @GetMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StorageReconciliationReport> getReconciliation() {
+        return ResponseEntity.ok(storageReconciler.getLastReport());
+    }
+
+    /**
+     * Endpoint to start a storage reconciliation in the background.
+     *
+     * @param fixOrphans delete stored files that have no database row
+     * @param fixMissing delete database rows whose stored file is gone
+     * @param verify     verify checksums that are due
+     * @return the initial report; poll GET for progress
+     */
+    @PostMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StorageReconciliationReport> startReconciliation(
+            @RequestParam(defaultValue = "false") boolean fixOrphans,
+            @RequestParam(defaultValue = "false") boolean fixMissing,
+            @RequestParam(defaultValue = "true") boolean verify) {
+        return ResponseEntity.accepted().body(storageReconciler.start(fixOrphans, fixMissing, verify));
+    }
+
+    /**
+     * Endpoint to get the progress of the storage layout migration.
+     *
+     * @return the migration status
+     */
+    @GetMapping("/layout-migration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getLayoutMigration() {
+        return ResponseEntity.ok(storageLayoutMigrator.getStatus());
+    }
+
+    /**
+     * Endpoint to start or resume moving stored files into the configured layout.
+     *
+     * @param restart start over from the first file instead of resuming
+     * @return the migration status
+     */
+    @PostMapping("/layout-migration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startLayoutMigration(@RequestParam(defaultValue = "false") boolean restart) {
+        return ResponseEntity.accepted().body(storageLayoutMigrator.start(restart));
+    }
+
+    /**
+     * Endpoint to pause the storage layout migration after the current batch.
+     *
+     * @return the migration status
+     */
+    @DeleteMapping("/layout-migration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> stopLayoutMigration() {
+        return ResponseEntity.ok(storageLayoutMigrator.stop());
+    }
+}
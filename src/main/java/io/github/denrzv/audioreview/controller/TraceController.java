@@ -0,0 +1,47 @@
+package io.github.denrzv.audioreview.controller;
+
+import io.github.denrzv.audioreview.exception.ResourceNotFoundException;
+import io.github.denrzv.audioreview.tracing.TraceRecord;
+import io.github.denrzv.audioreview.tracing.TraceStore;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/traces")
+@AllArgsConstructor
+public class TraceController {
+
+    private final TraceStore traceStore;
+
+    /**
+     * Endpoint to list the slow, failed and sampled request traces kept in memory, newest first.
+     *
+     * @param minDurationMs only traces at least this long
+     * @param limit         maximum number of traces
+     * @return the traces with their spans
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<TraceRecord>> getTraces(@RequestParam(defaultValue = "0") double minDurationMs,
+                                                       @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(traceStore.list(minDurationMs, limit));
+    }
+
+    /**
+     * Endpoint to get a single kept trace.
+     *
+     * @param traceId the trace ID
+     * @return the trace, or 404 if it is not kept or was evicted
+     */
+    @GetMapping("/{traceId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TraceRecord> getTrace(@PathVariable String traceId) {
+        return traceStore.find(traceId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("Trace not found: " + traceId));
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.denrzv.audioreview.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.denrzv.audioreview.dto.UserProvisioningRequest;
+import io.github.denrzv.audioreview.dto.UserProvisioningResult;
+import io.github.denrzv.audioreview.service.UserProvisioningService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+@RestController
+@RequestMapping("/admin/users")
+@AllArgsConstructor
+public class UserProvisioningController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final UserProvisioningService userProvisioningService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Endpoint to create many users at once. Accepts CSV ({@code username,password[,role]}), a JSON
+     * array or newline-delimited JSON objects, and streams one JSON result per submitted user back as
+     * newline-delimited JSON while the input is still being processed.
+     *
+     * @param contentType the input format
+     * @param request     the request to read users from
+     * @param response    the response to stream results to
+     * @throws IOException if reading the input or writing the results fails
+     */
+    @PostMapping(value = "/bulk",
+            consumes = {TEXT_CSV, MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public void provisionUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        Iterator<UserProvisioningRequest> users = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? userProvisioningService.readCsv(new BufferedReader(new InputStreamReader(request.getInputStream(),
+                        contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8)))
+                : userProvisioningService.readJson(request.getInputStream());
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        userProvisioningService.provision(users, results -> {
+            try {
+                for (UserProvisioningResult result : results) {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+}
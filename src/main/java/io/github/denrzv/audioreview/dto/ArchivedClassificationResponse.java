@@ -0,0 +1,20 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedClassificationResponse {
+    private Long id;
+    private Long userId;
+    private Long audioFileId;
+    private Long previousCategoryId;
+    private Long newCategoryId;
+    private LocalDateTime classifiedAt;
+    private Long labelledFrom;
+}
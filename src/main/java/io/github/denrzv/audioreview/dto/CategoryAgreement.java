@@ -0,0 +1,36 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How well the filename-derived initial category predicts the reviewers' label for one category.
+ * Only reviewed files count; rates are null when there is nothing to divide by.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryAgreement {
+    private String category;
+    /**
+     * Reviewed files whose initial category is this one.
+     */
+    private long predicted;
+    /**
+     * Reviewed files labelled with this category.
+     */
+    private long labelled;
+    /**
+     * Reviewed files both initially and finally in this category.
+     */
+    private long agreed;
+    private Double precision;
+    private Double recall;
+    /**
+     * Share of the reviewed files initially in this category that reviewers moved elsewhere.
+     */
+    private Double overturnRate;
+}
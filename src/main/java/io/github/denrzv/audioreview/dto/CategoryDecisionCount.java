@@ -0,0 +1,17 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryDecisionCount {
+    private LocalDate day;
+    private String initialCategory;
+    private String newCategory;
+    private long count;
+}
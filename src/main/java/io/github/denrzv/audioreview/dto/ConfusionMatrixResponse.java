@@ -0,0 +1,28 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConfusionMatrixResponse {
+    /**
+     * Files by initial category, then by current category.
+     */
+    private Map<String, Map<String, Long>> matrix;
+    private List<CategoryAgreement> categories;
+    private long reviewed;
+    private long agreed;
+    /**
+     * Files still unclassified or without a current category.
+     */
+    private long pending;
+    private List<CategoryDecisionCount> decisions;
+}
@@ -0,0 +1,25 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A cluster of near-duplicate audio files. The cluster ID is the ID of its first file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DuplicateClusterResponse {
+    private long clusterId;
+    private long files;
+    /**
+     * Files labelled by copying the label of a duplicate.
+     */
+    private long propagatedLabels;
+    private LocalDateTime lastFingerprintedAt;
+}
@@ -0,0 +1,43 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One file of a near-duplicate cluster.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DuplicateFileResponse {
+    private long fileId;
+    private String filename;
+    private String currentCategory;
+    private long durationMs;
+    /**
+     * Landmarks in the fingerprint; 0 if the audio could not be decoded.
+     */
+    private int landmarks;
+    /**
+     * Closest duplicate found when the file was fingerprinted, null if it started the cluster.
+     */
+    private Long matchedFileId;
+    /**
+     * Share of landmarks matched with that duplicate, between 0 and 1.
+     */
+    private Float similarity;
+    /**
+     * File the current label was copied from, null if a human labelled this file or nobody did.
+     */
+    private Long labelledFrom;
+    /**
+     * Last time a human labelled this file.
+     */
+    private LocalDateTime labelledAt;
+    private LocalDateTime fingerprintedAt;
+}
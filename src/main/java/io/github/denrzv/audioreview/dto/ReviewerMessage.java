@@ -0,0 +1,35 @@
+package io.github.denrzv.audioreview.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Frame exchanged over the reviewer WebSocket channel.
+ * Only the fields relevant to the frame type are serialized.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReviewerMessage {
+
+    public static final String NEXT = "next";
+    public static final String CLASSIFY = "classify";
+    public static final String HEARTBEAT = "heartbeat";
+    public static final String RELEASE = "release";
+    public static final String ASSIGNED = "assigned";
+    public static final String EMPTY = "empty";
+    public static final String REVOKED = "revoked";
+    public static final String ERROR = "error";
+
+    private String type;
+    private Long fileId;
+    private String shortcut;
+    private Long classifiedFileId;
+    private AudioFileResponse file;
+    private String message;
+}
@@ -0,0 +1,36 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One reviewer's throughput over a time range. The time of a label is the time since the same
+ * reviewer's previous label; longer gaps than the idle threshold count as idle time instead.
+ * Times are null when no label was timed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewerThroughput {
+    private String username;
+    private long labels;
+    /**
+     * Buckets of the requested granularity with at least one label.
+     */
+    private long activeBuckets;
+    /**
+     * Labels per hour spent labelling, idle time excluded.
+     */
+    private Double labelsPerHour;
+    private Long meanLabelMs;
+    /**
+     * Within about 12%, see the label time histogram.
+     */
+    private Long medianLabelMs;
+    private Long p90LabelMs;
+    private long labelTimeMs;
+    private long idleMs;
+}
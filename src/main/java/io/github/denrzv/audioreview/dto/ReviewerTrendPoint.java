@@ -0,0 +1,25 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A reviewer's throughput in one minute, hour or day bucket.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewerTrendPoint {
+    private LocalDateTime bucketStart;
+    private long labels;
+    private Long meanLabelMs;
+    private Long medianLabelMs;
+    private Long p90LabelMs;
+    private long labelTimeMs;
+    private long idleMs;
+}
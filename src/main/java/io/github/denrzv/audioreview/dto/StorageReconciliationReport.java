@@ -0,0 +1,37 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StorageReconciliationReport {
+    private boolean running;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private boolean fixOrphans;
+    private boolean fixMissing;
+    private long storedFiles;
+    private long databaseRows;
+    private long orphanCount;
+    private List<String> orphanSamples;
+    private long missingCount;
+    private List<String> missingSamples;
+    private long checksumsVerified;
+    private long checksumsRecorded;
+    private long checksumMismatchCount;
+    private List<String> checksumMismatchSamples;
+    private long scrubFailureCount;
+    private List<String> scrubFailureSamples;
+    private long bytesVerified;
+    private long orphansDeleted;
+    private long missingRowsDeleted;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package io.github.denrzv.audioreview.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProvisioningRequest {
+    private String username;
+    private String password;
+    /**
+     * {@code USER} or {@code ADMIN}; {@code USER} if empty.
+     */
+    private String role;
+}
@@ -0,0 +1,30 @@
+package io.github.denrzv.audioreview.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever audio files are added, removed or change category.
+ */
+@Getter
+@AllArgsConstructor
+public class AudioFilesChangedEvent {
+
+    private final Reason reason;
+
+    /**
+     * True if the change happened on another node and was received through the {@link ClusterEventBus}.
+     */
+    private final boolean remote;
+
+    public AudioFilesChangedEvent(Reason reason) {
+        this(reason, false);
+    }
+
+    public enum Reason {
+        UPLOADED,
+        CLASSIFIED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.denrzv.audioreview.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a category is created, renamed or deleted.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoriesChangedEvent {
+
+    private final Long categoryId;
+
+    /**
+     * True if the change happened on another node and was received through the {@link ClusterEventBus}.
+     */
+    private final boolean remote;
+
+    public CategoriesChangedEvent(Long categoryId) {
+        this(categoryId, false);
+    }
+}
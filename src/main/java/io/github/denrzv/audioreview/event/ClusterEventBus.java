@@ -0,0 +1,272 @@
+package io.github.denrzv.audioreview.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays change events between backend nodes through Postgres {@code LISTEN/NOTIFY}.
+ * Local {@link AudioFilesChangedEvent}s, {@link CategoriesChangedEvent}s and {@link UserChangedEvent}s
+ * are sent with {@code pg_notify} as part of the transaction that made the change, so other nodes
+ * only hear about committed changes. Read-only transactions may run on a replica, which cannot
+ * notify, so their changes are sent once they commit, in a transaction of their own on the
+ * primary. Each node listens on a dedicated connection outside the pool
+ * and republishes what it receives from other nodes as the same event with {@code remote} set.
+ * <p>
+ * Notifications sent while a node is not listening are lost, so a {@link ResyncRequiredEvent} is
+ * published every time the listener (re)connects, and {@link #isSynchronized()} is false in between.
+ */
+@Component
+@Slf4j
+public class ClusterEventBus {
+
+    private static final String CHANNEL = "audio_review_events";
+    private static final long MIN_RECONNECT_DELAY_MS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate primaryTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<JdbcConnectionDetails> connectionDetails;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final int pollMs;
+    private final long keepAliveNanos;
+    private final long maxReconnectDelayMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    public ClusterEventBus(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           ObjectMapper objectMapper,
+                           ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                           DataSourceProperties dataSourceProperties,
+                           @Value("${app.cluster-events.enabled}") boolean enabled,
+                           @Value("${app.cluster-events.poll-ms}") int pollMs,
+                           @Value("${app.cluster-events.keepalive-ms}") long keepAliveMs,
+                           @Value("${app.cluster-events.max-reconnect-delay-ms}") long maxReconnectDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.connectionDetails = connectionDetails;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.pollMs = pollMs;
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMs);
+        this.maxReconnectDelayMs = maxReconnectDelayMs;
+    }
+
+    /**
+     * Whether changes made on other nodes are currently being received. Caches should load
+     * through while this is false. Always true when the bus is disabled for single-node setups.
+     */
+    public boolean isSynchronized() {
+        return !enabled || listening;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAudioFilesChanged(AudioFilesChangedEvent event) {
+        if (!event.isRemote()) {
+            notifyNodes(Type.AUDIO_FILES, event.getReason().name());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChangedEvent event) {
+        if (!event.isRemote()) {
+            notifyNodes(Type.CATEGORIES, event.getCategoryId() != null ? event.getCategoryId().toString() : null);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!event.isRemote()) {
+            notifyNodes(Type.USER, event.getUsername());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Cluster event bus is disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cluster-event-bus");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void notifyNodes(Type type, String key) {
+        if (!enabled) {
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(new Notification(nodeId, type, key));
+        } catch (JsonProcessingException ex) {
+            log.warn("Could not notify other nodes of {} {}: {}", type, key, ex.getMessage());
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    primaryTransaction.executeWithoutResult(status -> send(type, key, payload));
+                }
+            });
+            return;
+        }
+        // Inside a transaction the notification is only delivered if and when it commits
+        send(type, key, payload);
+    }
+
+    private void send(Type type, String key, String payload) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+            }, CHANNEL, payload);
+        } catch (RuntimeException ex) {
+            // Never fail the change itself; other nodes catch up through their cache TTLs
+            log.warn("Could not notify other nodes of {} {}: {}", type, key, ex.getMessage());
+        }
+    }
+
+    private void listen() {
+        long reconnectDelayMs = MIN_RECONNECT_DELAY_MS;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                reconnectDelayMs = MIN_RECONNECT_DELAY_MS;
+                log.info("Listening for cluster events as node {}", nodeId);
+                // Anything cached before now may have missed notifications; drop it before reporting synchronized
+                eventPublisher.publishEvent(new ResyncRequiredEvent());
+                listening = true;
+
+                long lastCheck = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                    // A silently dropped connection only shows up once something is sent on it
+                    if (System.nanoTime() - lastCheck > keepAliveNanos) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        lastCheck = System.nanoTime();
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (listening) {
+                    log.warn("Lost cluster event connection: {}", ex.getMessage());
+                } else {
+                    log.debug("Could not connect for cluster events: {}", ex.getMessage());
+                }
+            } finally {
+                listening = false;
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                reconnectDelayMs = Math.min(reconnectDelayMs * 2, maxReconnectDelayMs);
+            }
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        if (details != null) {
+            return DriverManager.getConnection(details.getJdbcUrl(), details.getUsername(), details.getPassword());
+        }
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+
+    private void dispatch(String payload) {
+        Notification notification;
+        try {
+            notification = objectMapper.readValue(payload, Notification.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed cluster event: {}", payload);
+            return;
+        }
+        if (nodeId.equals(notification.node())) {
+            return;
+        }
+
+        try {
+            switch (notification.type()) {
+                case AUDIO_FILES -> eventPublisher.publishEvent(
+                        new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.valueOf(notification.key()), true));
+                case CATEGORIES -> eventPublisher.publishEvent(new CategoriesChangedEvent(
+                        notification.key() != null ? Long.valueOf(notification.key()) : null, true));
+                case USER -> eventPublisher.publishEvent(new UserChangedEvent(notification.key(), true));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not handle cluster event {}: {}", payload, ex.getMessage());
+        }
+    }
+
+    enum Type {
+        AUDIO_FILES,
+        CATEGORIES,
+        USER
+    }
+
+    record Notification(String node, Type type, String key) {
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.denrzv.audioreview.event;
+
+/**
+ * Published when changes made on other nodes may have been missed, for example after the
+ * {@link ClusterEventBus} lost its connection. Holders of in-process caches should drop everything.
+ */
+public class ResyncRequiredEvent {
+}
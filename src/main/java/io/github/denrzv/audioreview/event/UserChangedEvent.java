@@ -0,0 +1,23 @@
+package io.github.denrzv.audioreview.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a user account is created or its credentials, role or status change.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final String username;
+
+    /**
+     * True if the change happened on another node and was received through the {@link ClusterEventBus}.
+     */
+    private final boolean remote;
+
+    public UserChangedEvent(String username) {
+        this(username, false);
+    }
+}
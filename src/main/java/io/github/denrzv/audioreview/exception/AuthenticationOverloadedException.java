@@ -0,0 +1,21 @@
+package io.github.denrzv.audioreview.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a login is shed because password hashing is saturated.
+ * Carries the status to answer with (429 or 503) and how long the client should back off.
+ */
+@Getter
+public class AuthenticationOverloadedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public AuthenticationOverloadedException(HttpStatus status, long retryAfterSeconds) {
+        super("Too many logins in progress, retry in " + retryAfterSeconds + " s");
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,5 +1,8 @@
 package io.github.denrzv.audioreview.exception;
 
+import io.github.denrzv.audioreview.service.ReviewMetrics;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,8 +20,11 @@ import java.util.Map;
  * Global exception handler to handle custom and validation exceptions.
  */
 @ControllerAdvice
+@AllArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final ReviewMetrics reviewMetrics;
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<String> handleResourceNotFoundException(ResourceNotFoundException ex, WebRequest request) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -33,6 +39,30 @@ public class GlobalExceptionHandler {
                 .body(ex.getMessage());
     }
 
+    @ExceptionHandler(UploadOffsetConflictException.class)
+    public ResponseEntity<String> handleUploadOffsetConflictException(UploadOffsetConflictException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(AuthenticationOverloadedException.class)
+    public ResponseEntity<String> handleAuthenticationOverloadedException(AuthenticationOverloadedException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain")
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        // Conflicts detected at commit time surface here rather than in the service
+        reviewMetrics.recordOptimisticLockConflict("request");
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain")
+                .body(ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
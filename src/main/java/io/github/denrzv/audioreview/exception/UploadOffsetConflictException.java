@@ -0,0 +1,15 @@
+package io.github.denrzv.audioreview.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a resumable upload chunk does not start at the current upload offset.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UploadOffsetConflictException extends RuntimeException {
+
+    public UploadOffsetConflictException(String message) {
+        super(message);
+    }
+}
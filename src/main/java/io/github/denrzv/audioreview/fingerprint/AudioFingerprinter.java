@@ -0,0 +1,286 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Landmark fingerprinter in the style of the spectral-peak schemes used for audio identification.
+ * Audio is decoded with {@code javax.sound.sampled} (WAV, AU and AIFF with PCM, µ-law or A-law
+ * samples), mixed down to mono and resampled to 8 kHz, since every source we ingest passed
+ * through the telephone band anyway. The spectrogram is reduced to its local maxima, and every
+ * peak is paired with the next few peaks in a target zone after it; a pair hashes its two
+ * frequencies and their distance in time, which survives re-encoding, level changes and
+ * trimming.
+ */
+public final class AudioFingerprinter {
+
+    public static final int SAMPLE_RATE = 8000;
+    /**
+     * 128 ms frames every 32 ms.
+     */
+    static final int FRAME_SIZE = 1024;
+    static final int HOP_SIZE = 256;
+    /**
+     * A trimmed copy rarely starts on a frame boundary of the original, and peaks of frames half a
+     * hop apart differ a lot. Every recording is therefore analysed on this many frame grids a
+     * fraction of a hop apart and the landmarks of all grids are kept, so any copy lines up with
+     * one of them to within an eighth of a hop.
+     */
+    private static final int GRIDS = 4;
+    /**
+     * Peaks are only taken between about 250 Hz and 3.5 kHz, the band every codec keeps.
+     */
+    private static final int MIN_BIN = 32;
+    private static final int MAX_BIN = MIN_BIN + 416;
+    private static final int PEAK_BIN_RADIUS = 20;
+    private static final int PEAK_FRAME_RADIUS = 8;
+    /**
+     * A peak must stand this far above the mean level of its frame and within this range of the
+     * loudest point of the recording, so noise floors and codec artifacts do not produce peaks.
+     */
+    private static final double PEAK_ABOVE_FRAME_DB = 9;
+    private static final double PEAK_DYNAMIC_RANGE_DB = 60;
+    private static final int TARGET_MAX_FRAMES = 32;
+    private static final int TARGET_MAX_BINS = 63;
+    private static final int FAN_OUT = 3;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final Fft FFT = new Fft(FRAME_SIZE);
+    private static final double[] WINDOW = new double[FRAME_SIZE];
+
+    static {
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            WINDOW[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / FRAME_SIZE);
+        }
+    }
+
+    private final int maxSamples;
+
+    /**
+     * @param maxSeconds audio past this point is not fingerprinted
+     */
+    public AudioFingerprinter(int maxSeconds) {
+        this.maxSamples = maxSeconds * SAMPLE_RATE;
+    }
+
+    /**
+     * Decode and fingerprint a recording.
+     *
+     * @param in the encoded audio, closed when done
+     * @return the fingerprint, without landmarks for silent audio
+     * @throws UnsupportedAudioFileException if the audio format cannot be decoded
+     * @throws IOException                   if the stream cannot be read
+     */
+    public Fingerprint fingerprint(InputStream in) throws UnsupportedAudioFileException, IOException {
+        AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+        AudioFormat format = source.getFormat();
+        if (format.getSampleRate() <= 0 || format.getChannels() <= 0) {
+            throw new UnsupportedAudioFileException("Unknown sample rate or channels: " + format);
+        }
+        AudioFormat pcm = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+        if (!AudioSystem.isConversionSupported(pcm, format)) {
+            throw new UnsupportedAudioFileException("Cannot decode " + format);
+        }
+
+        Samples samples = new Samples(maxSamples);
+        Resampler resampler = format.getSampleRate() == SAMPLE_RATE
+                ? null
+                : new Resampler(format.getSampleRate(), SAMPLE_RATE, samples::add);
+        long inputLimit = (long) Math.ceil((double) maxSamples * format.getSampleRate() / SAMPLE_RATE);
+        int channels = format.getChannels();
+        int frameBytes = 2 * channels;
+        byte[] buffer = new byte[READ_BUFFER_SIZE - READ_BUFFER_SIZE % frameBytes];
+        long read = 0;
+        try (AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, source)) {
+            // Audio input streams only ever return whole frames
+            int length;
+            while (read < inputLimit && (length = decoded.read(buffer)) != -1) {
+                int frames = length / frameBytes;
+                for (int frame = 0; frame < frames && read < inputLimit; frame++, read++) {
+                    int sum = 0;
+                    for (int channel = 0; channel < channels; channel++) {
+                        int offset = frame * frameBytes + channel * 2;
+                        sum += (short) ((buffer[offset] & 0xff) | (buffer[offset + 1] << 8));
+                    }
+                    float sample = sum / (32768f * channels);
+                    if (resampler != null) {
+                        resampler.accept(sample);
+                    } else {
+                        samples.add(sample);
+                    }
+                }
+            }
+        }
+        if (resampler != null) {
+            resampler.finish();
+        }
+        return fingerprint(samples.toArray());
+    }
+
+    /**
+     * Fingerprint mono audio at {@value #SAMPLE_RATE} Hz.
+     *
+     * @param samples the audio, between -1 and 1
+     * @return the fingerprint
+     */
+    public Fingerprint fingerprint(float[] samples) {
+        int length = Math.min(samples.length, maxSamples);
+        long durationMs = length * 1000L / SAMPLE_RATE;
+        if (length < FRAME_SIZE) {
+            return new Fingerprint(new long[0], durationMs);
+        }
+        long[] landmarks = new long[0];
+        for (int grid = 0; grid < GRIDS; grid++) {
+            int offset = grid * HOP_SIZE / GRIDS;
+            if (length - offset < FRAME_SIZE) {
+                break;
+            }
+            long[] gridLandmarks = landmarks(peaks(spectrogram(samples, offset, length)), (double) grid / GRIDS);
+            int count = landmarks.length;
+            landmarks = Arrays.copyOf(landmarks, count + gridLandmarks.length);
+            System.arraycopy(gridLandmarks, 0, landmarks, count, gridLandmarks.length);
+        }
+        return new Fingerprint(landmarks, durationMs);
+    }
+
+    /**
+     * Log power per frame and bin of the fingerprinted band, in dB.
+     *
+     * @param offset first sample of the first frame
+     */
+    private static float[][] spectrogram(float[] samples, int offset, int length) {
+        int frames = (length - offset - FRAME_SIZE) / HOP_SIZE + 1;
+        float[][] spectrogram = new float[frames][MAX_BIN - MIN_BIN];
+        double[] re = new double[FRAME_SIZE];
+        double[] im = new double[FRAME_SIZE];
+        for (int frame = 0; frame < frames; frame++) {
+            int start = offset + frame * HOP_SIZE;
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                re[i] = samples[start + i] * WINDOW[i];
+            }
+            Arrays.fill(im, 0);
+            FFT.transform(re, im);
+            for (int bin = MIN_BIN; bin < MAX_BIN; bin++) {
+                double power = re[bin] * re[bin] + im[bin] * im[bin];
+                spectrogram[frame][bin - MIN_BIN] = (float) (10 * Math.log10(power + 1e-10));
+            }
+        }
+        return spectrogram;
+    }
+
+    /**
+     * Peaks of the spectrogram: points that are the maximum of their neighbourhood of
+     * {@value #PEAK_FRAME_RADIUS} frames and {@value #PEAK_BIN_RADIUS} bins each way.
+     *
+     * @return frame and bin of each peak, ordered by frame
+     */
+    private static List<int[]> peaks(float[][] spectrogram) {
+        int frames = spectrogram.length;
+        int bins = MAX_BIN - MIN_BIN;
+        float loudest = Float.NEGATIVE_INFINITY;
+        float[] frameFloor = new float[frames];
+        // Maximum over the neighbouring bins, so the frame direction is a 1-D check per point
+        float[][] binMax = new float[frames][bins];
+        for (int frame = 0; frame < frames; frame++) {
+            float[] levels = spectrogram[frame];
+            double sum = 0;
+            for (int bin = 0; bin < bins; bin++) {
+                sum += levels[bin];
+                loudest = Math.max(loudest, levels[bin]);
+                float max = Float.NEGATIVE_INFINITY;
+                for (int other = Math.max(0, bin - PEAK_BIN_RADIUS); other <= Math.min(bins - 1, bin + PEAK_BIN_RADIUS); other++) {
+                    max = Math.max(max, levels[other]);
+                }
+                binMax[frame][bin] = max;
+            }
+            frameFloor[frame] = (float) (sum / bins + PEAK_ABOVE_FRAME_DB);
+        }
+
+        double floor = loudest - PEAK_DYNAMIC_RANGE_DB;
+        List<int[]> peaks = new ArrayList<>();
+        for (int frame = 0; frame < frames; frame++) {
+            float[] levels = spectrogram[frame];
+            for (int bin = 0; bin < bins; bin++) {
+                float level = levels[bin];
+                if (level != binMax[frame][bin] || level < frameFloor[frame] || level < floor) {
+                    continue;
+                }
+                boolean peak = true;
+                for (int other = Math.max(0, frame - PEAK_FRAME_RADIUS); peak && other <= Math.min(frames - 1, frame + PEAK_FRAME_RADIUS); other++) {
+                    // Ties go to the earlier frame, so a flat plateau yields one peak
+                    peak = other == frame || binMax[other][bin] < level || (other > frame && binMax[other][bin] == level);
+                }
+                if (peak) {
+                    peaks.add(new int[]{frame, bin});
+                }
+            }
+        }
+        return peaks;
+    }
+
+    /**
+     * Pair every peak with the first {@value #FAN_OUT} peaks in its target zone: up to
+     * {@value #TARGET_MAX_FRAMES} frames later and {@value #TARGET_MAX_BINS} bins up or down.
+     *
+     * @param gridOffset offset of the frame grid in frames, added to the stored frame
+     */
+    private static long[] landmarks(List<int[]> peaks, double gridOffset) {
+        long[] landmarks = new long[peaks.size() * FAN_OUT];
+        int count = 0;
+        for (int anchor = 0; anchor < peaks.size(); anchor++) {
+            int[] first = peaks.get(anchor);
+            int paired = 0;
+            for (int target = anchor + 1; target < peaks.size() && paired < FAN_OUT; target++) {
+                int[] second = peaks.get(target);
+                int distance = second[0] - first[0];
+                if (distance > TARGET_MAX_FRAMES) {
+                    break;
+                }
+                int delta = second[1] - first[1];
+                if (distance == 0 || Math.abs(delta) > TARGET_MAX_BINS) {
+                    continue;
+                }
+                // 9 bits of anchor frequency, 7 bits of frequency delta, 5 bits of time delta
+                int hash = first[1] << 12 | (delta + TARGET_MAX_BINS) << 5 | (distance - 1);
+                landmarks[count++] = (long) hash << 32 | Math.round(first[0] + gridOffset);
+                paired++;
+            }
+        }
+        return Arrays.copyOf(landmarks, count);
+    }
+
+    /**
+     * Growable sample buffer that stops accepting samples at a limit.
+     */
+    private static final class Samples {
+        private final int limit;
+        private float[] values = new float[SAMPLE_RATE * 60];
+        private int size;
+
+        Samples(int limit) {
+            this.limit = limit;
+        }
+
+        void add(float sample) {
+            if (size == limit) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(limit, (long) size * 2));
+            }
+            values[size++] = sample;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import io.github.denrzv.audioreview.event.AudioFilesChangedEvent;
+import io.github.denrzv.audioreview.journal.ClassificationJournal;
+import io.github.denrzv.audioreview.journal.ClassificationRecord;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository.ClusteredFingerprint;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository.CopiedLabel;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository.IndexedFingerprint;
+import io.github.denrzv.audioreview.service.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds near-duplicate uploads and keeps their labels in step.
+ *
+ * <p>Once an upload commits, the file is fingerprinted on a single background thread, which owns
+ * the {@link LshIndex}. Candidates from the index are verified against their stored fingerprints;
+ * every verified duplicate pulls the file into its cluster, merging clusters the file bridges.
+ * Whenever a human labels a file of a cluster, the label is copied to the cluster's unclassified
+ * files and to the files that got their label the same way, so the review queue sees every call
+ * once. Copied labels are journaled like reviewer classifications, without a reviewer and with the
+ * file they were copied from. Files that cannot be decoded get a fingerprint row without landmarks
+ * and stay on their own.</p>
+ *
+ * <p>Every fingerprint is stored in the database before it goes into the index, and the index
+ * only takes rows once they are committed. It remembers the last row it holds, so after a restart
+ * it catches up from the table, and a missing or damaged index file is rebuilt from it. Files the queue had no room for, and files
+ * uploaded before duplicate detection existed, are picked up by a periodic backfill, which also
+ * retries clusters whose labels could not be copied.</p>
+ */
+@Component
+@Slf4j
+public class DuplicateDetector {
+
+    /**
+     * Advisory lock serializing clustering across application instances.
+     */
+    static final long CLUSTER_LOCK_KEY = 0x4C534831L;
+    private static final int CATCH_UP_BATCH_SIZE = 1000;
+
+    private final AudioFingerprintRepository fingerprintRepository;
+    private final FileStorageService fileStorageService;
+    private final ClassificationJournal classificationJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AudioFingerprinter fingerprinter;
+    private final boolean enabled;
+    private final Path indexPath;
+    private final int bands;
+    private final int rows;
+    private final double minScore;
+    private final int minLandmarks;
+    private final int maxCandidates;
+    private final int backfillBatchSize;
+    private final boolean propagateLabels;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> unsettledClusters = ConcurrentHashMap.newKeySet();
+    private final AtomicLong indexedFiles = new AtomicLong();
+    private final Map<String, Counter> fingerprintedCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer fingerprintTimer;
+    private final Counter droppedCounter;
+    private final Counter propagatedCounter;
+
+    // Confined to the worker thread
+    private LshIndex index;
+    private long backfillCursor;
+
+    public DuplicateDetector(AudioFingerprintRepository fingerprintRepository,
+                             FileStorageService fileStorageService,
+                             ClassificationJournal classificationJournal,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.duplicates.enabled}") boolean enabled,
+                             @Value("${app.duplicates.index-file}") String indexFile,
+                             @Value("${app.duplicates.bands}") int bands,
+                             @Value("${app.duplicates.rows}") int rows,
+                             @Value("${app.duplicates.max-seconds}") int maxSeconds,
+                             @Value("${app.duplicates.min-score}") double minScore,
+                             @Value("${app.duplicates.min-landmarks}") int minLandmarks,
+                             @Value("${app.duplicates.max-candidates}") int maxCandidates,
+                             @Value("${app.duplicates.queue-capacity}") int queueCapacity,
+                             @Value("${app.duplicates.backfill-batch-size}") int backfillBatchSize,
+                             @Value("${app.duplicates.propagate-labels}") boolean propagateLabels) {
+        this.fingerprintRepository = fingerprintRepository;
+        this.fileStorageService = fileStorageService;
+        this.classificationJournal = classificationJournal;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.fingerprinter = new AudioFingerprinter(maxSeconds);
+        this.enabled = enabled;
+        this.indexPath = Paths.get(indexFile).toAbsolutePath().normalize();
+        this.bands = bands;
+        this.rows = rows;
+        this.minScore = minScore;
+        this.minLandmarks = minLandmarks;
+        this.maxCandidates = maxCandidates;
+        this.backfillBatchSize = backfillBatchSize;
+        this.propagateLabels = propagateLabels;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "fingerprint-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.fingerprintTimer = Timer.builder("duplicates.fingerprinting")
+                .description("Time to decode, fingerprint and cluster one file")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("duplicates.queue.dropped")
+                .description("Uploads not queued for fingerprinting because the queue was full; the backfill picks them up")
+                .register(meterRegistry);
+        this.propagatedCounter = Counter.builder("duplicates.labels.propagated")
+                .description("Files labelled by copying the human label of a duplicate")
+                .register(meterRegistry);
+        Gauge.builder("duplicates.index.files", indexedFiles, AtomicLong::get)
+                .description("Files in the near-duplicate index")
+                .register(meterRegistry);
+        Gauge.builder("duplicates.queue", executor, pool -> pool.getQueue().size())
+                .description("Fingerprinting tasks waiting for the worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue an uploaded file for fingerprinting once the current transaction commits.
+     *
+     * @param fileId the audio file ID
+     */
+    public void submitAfterCommit(long fileId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            if (!submit(() -> fingerprint(fileId))) {
+                droppedCounter.increment();
+            }
+        });
+    }
+
+    /**
+     * Record that a human labelled the given files. Once the current transaction commits, the
+     * labels are copied to the files' duplicates.
+     *
+     * @param fileIds the audio file IDs
+     */
+    public void recordHumanLabels(Collection<Long> fileIds) {
+        if (!enabled || fileIds.isEmpty()) {
+            return;
+        }
+        List<Long> clusterIds = fingerprintRepository.markLabelled(List.copyOf(fileIds));
+        if (clusterIds.isEmpty() || !propagateLabels) {
+            return;
+        }
+        afterCommit(() -> {
+            unsettledClusters.addAll(clusterIds);
+            // If the queue is full, the next task settles them
+            submit(this::settleClusters);
+        });
+    }
+
+    /**
+     * Rebuild the index from the stored fingerprints, dropping deleted files, and swap it in.
+     *
+     * @return false if duplicate detection is disabled or the queue is full
+     */
+    public boolean requestRebuild() {
+        return enabled && submit(() -> {
+            try {
+                rebuild();
+            } catch (IOException | RuntimeException ex) {
+                log.error("Could not rebuild the fingerprint index", ex);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            submit(this::openIndex);
+        }
+    }
+
+    /**
+     * Retry clusters whose labels could not be copied and queue a batch of files without a
+     * fingerprint.
+     */
+    @Scheduled(fixedDelayString = "${app.duplicates.backfill-interval-ms}")
+    public void backfill() {
+        if (enabled && executor.getQueue().isEmpty()) {
+            submit(this::backfillBatch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        submit(this::closeIndex);
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Stopping with {} fingerprinting tasks left, the backfill will pick them up", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void openIndex() {
+        try {
+            LshIndex opened = LshIndex.open(indexPath, bands, rows);
+            if (opened != null && opened.getLastSeq() > fingerprintRepository.findMaxSeq()) {
+                // The fingerprints were removed or restored from an older backup
+                log.info("Fingerprint index {} is ahead of the database", indexPath);
+                opened.close();
+                opened = null;
+            }
+            if (opened == null) {
+                rebuild();
+                return;
+            }
+            index = opened;
+            catchUp();
+            log.info("Opened fingerprint index {} with {} files", indexPath, index.getFiles());
+        } catch (IOException | RuntimeException ex) {
+            log.error("Could not open fingerprint index {}, near-duplicate detection is off", indexPath, ex);
+        }
+    }
+
+    private void rebuild() throws IOException {
+        Path building = indexPath.resolveSibling(indexPath.getFileName() + ".rebuild");
+        Files.deleteIfExists(building);
+        long expectedFiles = fingerprintRepository.countIndexed();
+        LshIndex rebuilt = LshIndex.create(building, bands, rows, expectedFiles);
+        try {
+            transactionTemplate.executeWithoutResult(status -> fingerprintRepository.forEachIndexed(indexed -> {
+                add(rebuilt, indexed);
+            }));
+        } catch (RuntimeException ex) {
+            rebuilt.close();
+            throw ex;
+        }
+        closeIndex();
+        rebuilt.moveTo(indexPath);
+        index = rebuilt;
+        indexedFiles.set(index.getFiles());
+        log.info("Rebuilt fingerprint index {} with {} files", indexPath, index.getFiles());
+        // Rows stored while rebuilding are picked up by the next catch-up
+    }
+
+    private void closeIndex() {
+        if (index == null) {
+            return;
+        }
+        try {
+            index.force();
+            index.close();
+        } catch (IOException ex) {
+            log.warn("Could not close fingerprint index {}: {}", indexPath, ex.getMessage());
+        }
+        index = null;
+    }
+
+    /**
+     * Add the committed fingerprints stored since the index was last written, e.g. by another
+     * instance. Runs outside of any transaction.
+     */
+    private void catchUp() {
+        List<IndexedFingerprint> batch;
+        do {
+            batch = fingerprintRepository.findSince(index.getLastSeq(), CATCH_UP_BATCH_SIZE);
+            batch.forEach(indexed -> add(index, indexed));
+        } while (batch.size() == CATCH_UP_BATCH_SIZE);
+        indexedFiles.set(index.getFiles());
+    }
+
+    private void add(LshIndex target, IndexedFingerprint indexed) {
+        try {
+            target.add(indexed.fileId(), target.signature(indexed.fingerprint()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        target.setLastSeq(Math.max(target.getLastSeq(), indexed.seq()));
+    }
+
+    private void backfillBatch() {
+        settleClusters();
+        if (index == null) {
+            return;
+        }
+        List<Long> fileIds = fingerprintRepository.findFilesWithoutFingerprint(backfillCursor, backfillBatchSize);
+        if (fileIds.isEmpty()) {
+            backfillCursor = 0;
+            return;
+        }
+        backfillCursor = fileIds.get(fileIds.size() - 1);
+        log.info("Fingerprinting {} files uploaded without a fingerprint", fileIds.size());
+        fileIds.forEach(this::fingerprint);
+    }
+
+    private void fingerprint(long fileId) {
+        settleClusters();
+        if (index == null) {
+            // Not open yet or failed to open; the backfill picks the file up later
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        try {
+            outcome = fingerprintAndCluster(fileId);
+        } catch (DataIntegrityViolationException ex) {
+            // Deleted while it was being fingerprinted
+            outcome = "deleted";
+        } catch (IOException | RuntimeException ex) {
+            // Includes decoder errors on malformed files; the backfill tries the file again
+            log.warn("Could not fingerprint audio file {}: {}", fileId, ex.getMessage());
+            outcome = "failed";
+        }
+        sample.stop(fingerprintTimer);
+        fingerprintedCounters.computeIfAbsent(outcome, key -> Counter.builder("duplicates.fingerprinted")
+                .description("Files fingerprinted, by whether they joined a cluster")
+                .tag("outcome", key)
+                .register(meterRegistry)).increment();
+    }
+
+    private String fingerprintAndCluster(long fileId) throws IOException {
+        Optional<String> path = fingerprintRepository.findFilePath(fileId);
+        if (path.isEmpty()) {
+            return "deleted";
+        }
+        Fingerprint fingerprint;
+        try (InputStream in = fileStorageService.open(path.get(), 0, -1)) {
+            fingerprint = fingerprinter.fingerprint(in);
+        } catch (UnsupportedAudioFileException ex) {
+            log.debug("Audio file {} cannot be decoded for fingerprinting: {}", fileId, ex.getMessage());
+            fingerprint = null;
+        }
+
+        Fingerprint decoded = fingerprint;
+        Clustering clustering;
+        do {
+            catchUp();
+            clustering = transactionTemplate.execute(status -> cluster(fileId, decoded));
+        } while (clustering == Clustering.STALE_INDEX);
+        if (clustering == null) {
+            return "skipped";
+        }
+        // Committed, so the fingerprint can go into the index
+        if (clustering.signature() != null) {
+            index.add(fileId, clustering.signature());
+        }
+        index.setLastSeq(Math.max(index.getLastSeq(), clustering.seq()));
+        indexedFiles.set(index.getFiles());
+        propagatedCounter.increment(clustering.relabelled());
+        if (decoded == null) {
+            return "undecodable";
+        }
+        return clustering.duplicate() ? "duplicate" : "unique";
+    }
+
+    /**
+     * Store a fingerprint and move the file into the cluster of its duplicates. The index is
+     * only read, so a rollback leaves it as it was.
+     *
+     * @return the stored row, null if the file had a fingerprint already, or
+     * {@link Clustering#STALE_INDEX} if another instance stored fingerprints the index lacks
+     */
+    private Clustering cluster(long fileId, Fingerprint fingerprint) {
+        fingerprintRepository.lockClusters(CLUSTER_LOCK_KEY);
+        if (fingerprintRepository.findClusterId(fileId).isPresent()) {
+            return null;
+        }
+        if (!fingerprintRepository.findSince(index.getLastSeq(), 1).isEmpty()) {
+            return Clustering.STALE_INDEX;
+        }
+
+        long clusterId = fileId;
+        Long matchedFileId = null;
+        Double similarity = null;
+        int[] signature = null;
+        TreeSet<Long> matchedClusters = new TreeSet<>();
+        if (fingerprint != null && fingerprint.size() > 0) {
+            signature = index.signature(fingerprint);
+            List<Long> candidates = index.candidates(signature, maxCandidates).stream()
+                    .filter(id -> id != fileId)
+                    .toList();
+            if (!candidates.isEmpty()) {
+                for (ClusteredFingerprint candidate : fingerprintRepository.findByFileIds(candidates)) {
+                    Fingerprint.Match match = fingerprint.match(candidate.fingerprint());
+                    if (match.landmarks() < minLandmarks || match.score() < minScore) {
+                        continue;
+                    }
+                    matchedClusters.add(candidate.clusterId());
+                    if (similarity == null || match.score() > similarity) {
+                        similarity = match.score();
+                        matchedFileId = candidate.fileId();
+                    }
+                }
+            }
+        }
+        if (!matchedClusters.isEmpty()) {
+            clusterId = Math.min(matchedClusters.first(), fileId);
+            fingerprintRepository.mergeClusters(List.copyOf(matchedClusters), clusterId);
+        }
+
+        long durationMs = fingerprint != null ? fingerprint.getDurationMs() : 0;
+        long seq = fingerprintRepository.insert(fileId, fingerprint, durationMs, clusterId, matchedFileId, similarity)
+                .orElseThrow(() -> new IllegalStateException("Fingerprint of audio file " + fileId + " stored concurrently"));
+        int relabelled = matchedClusters.isEmpty() ? 0 : settle(clusterId);
+        return new Clustering(seq, signature, !matchedClusters.isEmpty(), relabelled);
+    }
+
+    private void settleClusters() {
+        for (Long clusterId : List.copyOf(unsettledClusters)) {
+            unsettledClusters.remove(clusterId);
+            try {
+                Integer relabelled = transactionTemplate.execute(status -> {
+                    fingerprintRepository.lockClusters(CLUSTER_LOCK_KEY);
+                    return settle(clusterId);
+                });
+                propagatedCounter.increment(relabelled != null ? relabelled : 0);
+            } catch (DataAccessException ex) {
+                // Typically a lock timeout; the cluster is retried by the next task or backfill
+                unsettledClusters.add(clusterId);
+                log.warn("Could not copy labels within duplicate cluster {}, will retry: {}", clusterId, ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private int settle(long clusterId) {
+        if (!propagateLabels) {
+            return 0;
+        }
+        List<CopiedLabel> copied = fingerprintRepository.settleCluster(clusterId);
+        if (copied.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        copied.forEach(label -> classificationJournal.record(new ClassificationRecord(UUID.randomUUID(), null,
+                label.fileId(), label.previousCategoryId(), label.newCategoryId(), now, label.sourceFileId())));
+        log.debug("Copied the label of duplicate cluster {} to {} files", clusterId, copied.size());
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.CLASSIFIED));
+        return copied.size();
+    }
+
+    private record Clustering(long seq, int[] signature, boolean duplicate, int relabelled) {
+        static final Clustering STALE_INDEX = new Clustering(0, null, false, 0);
+    }
+}
@@ -0,0 +1,210 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import java.util.Arrays;
+
+/**
+ * Acoustic fingerprint of a recording: a set of landmarks, each a pair of spectral peaks hashed
+ * into {@value #HASH_BITS} bits together with the frame of the first peak. Landmarks are kept
+ * as {@code hash << 32 | frame} longs, sorted, so two fingerprints are matched with a single
+ * merge over equal hashes. Stored, they are delta and varint encoded, about four bytes each.
+ * <p>
+ * Two recordings of the same audio share many landmarks at one constant frame offset, however
+ * they were re-encoded, trimmed or leveled; unrelated recordings share a few by chance, at
+ * scattered offsets.
+ */
+public final class Fingerprint {
+
+    static final int HASH_BITS = 21;
+    /**
+     * Peaks shift by a frame when a trimmed copy starts between two frames, so matches one frame
+     * off still count towards the same alignment.
+     */
+    private static final int OFFSET_TOLERANCE = 1;
+    /**
+     * Hashes repeating more often than this in both recordings (steady tones, hold music) carry
+     * little information and would only cost time to pair up.
+     */
+    private static final int MAX_PAIRS_PER_HASH = 64;
+
+    private final long[] landmarks;
+    private final long durationMs;
+
+    /**
+     * @param landmarks  {@code hash << 32 | frame} values, in any order
+     * @param durationMs length of the fingerprinted audio
+     */
+    public Fingerprint(long[] landmarks, long durationMs) {
+        this.landmarks = Arrays.stream(landmarks).sorted().distinct().toArray();
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * @param bytes      landmarks as encoded by {@link #toBytes}
+     * @param durationMs length of the fingerprinted audio
+     * @return the fingerprint
+     */
+    public static Fingerprint fromBytes(byte[] bytes, long durationMs) {
+        long[] landmarks = new long[bytes.length / 2];
+        int count = 0;
+        int[] position = {0};
+        int hash = 0;
+        int frame = 0;
+        while (position[0] < bytes.length) {
+            int hashDelta = readVarint(bytes, position);
+            int frameValue = readVarint(bytes, position);
+            hash += hashDelta;
+            frame = hashDelta == 0 ? frame + frameValue : frameValue;
+            landmarks[count++] = (long) hash << 32 | frame;
+        }
+        return new Fingerprint(Arrays.copyOf(landmarks, count), durationMs);
+    }
+
+    /**
+     * Encode the landmarks: per landmark the hash delta, then the frame delta within the same
+     * hash or the frame itself for a new hash, both as varints.
+     *
+     * @return the encoded landmarks
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[landmarks.length * 10];
+        int position = 0;
+        int previousHash = 0;
+        int previousFrame = 0;
+        for (long landmark : landmarks) {
+            int hash = hash(landmark);
+            int frame = frame(landmark);
+            position = writeVarint(bytes, position, hash - previousHash);
+            position = writeVarint(bytes, position, hash == previousHash ? frame - previousFrame : frame);
+            previousHash = hash;
+            previousFrame = frame;
+        }
+        return Arrays.copyOf(bytes, position);
+    }
+
+    public int size() {
+        return landmarks.length;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    private static int writeVarint(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static int hash(long landmark) {
+        return (int) (landmark >>> 32);
+    }
+
+    static int frame(long landmark) {
+        return (int) landmark;
+    }
+
+    /**
+     * The distinct landmark hashes, as the set the MinHash signature is taken over.
+     *
+     * @return the hashes in ascending order
+     */
+    public int[] distinctHashes() {
+        int[] hashes = new int[landmarks.length];
+        int count = 0;
+        for (long landmark : landmarks) {
+            int hash = hash(landmark);
+            if (count == 0 || hashes[count - 1] != hash) {
+                hashes[count++] = hash;
+            }
+        }
+        return Arrays.copyOf(hashes, count);
+    }
+
+    /**
+     * Align two fingerprints: find the frame offset with the most landmarks in common.
+     *
+     * @param other the other fingerprint
+     * @return landmarks matched at the best offset and their share of the smaller fingerprint
+     */
+    public Match match(Fingerprint other) {
+        if (landmarks.length == 0 || other.landmarks.length == 0) {
+            return Match.NONE;
+        }
+        int[] offsets = new int[Math.min(landmarks.length, other.landmarks.length) * 4];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < landmarks.length && j < other.landmarks.length) {
+            int hash = hash(landmarks[i]);
+            int otherHash = hash(other.landmarks[j]);
+            if (hash < otherHash) {
+                i++;
+            } else if (hash > otherHash) {
+                j++;
+            } else {
+                int iEnd = i;
+                while (iEnd < landmarks.length && hash(landmarks[iEnd]) == hash) {
+                    iEnd++;
+                }
+                int jEnd = j;
+                while (jEnd < other.landmarks.length && hash(other.landmarks[jEnd]) == hash) {
+                    jEnd++;
+                }
+                if ((long) (iEnd - i) * (jEnd - j) <= MAX_PAIRS_PER_HASH) {
+                    for (int a = i; a < iEnd; a++) {
+                        for (int b = j; b < jEnd; b++) {
+                            if (count == offsets.length) {
+                                offsets = Arrays.copyOf(offsets, count * 2);
+                            }
+                            offsets[count++] = frame(other.landmarks[b]) - frame(landmarks[a]);
+                        }
+                    }
+                }
+                i = iEnd;
+                j = jEnd;
+            }
+        }
+        if (count == 0) {
+            return Match.NONE;
+        }
+
+        Arrays.sort(offsets, 0, count);
+        int best = 0;
+        int bestOffset = 0;
+        int start = 0;
+        for (int end = 0; end < count; end++) {
+            while (offsets[end] - offsets[start] > 2 * OFFSET_TOLERANCE) {
+                start++;
+            }
+            if (end - start + 1 > best) {
+                best = end - start + 1;
+                bestOffset = offsets[start] + OFFSET_TOLERANCE;
+            }
+        }
+        double score = Math.min(1.0, (double) best / Math.min(landmarks.length, other.landmarks.length));
+        return new Match(best, score, bestOffset);
+    }
+
+    /**
+     * @param landmarks landmarks matched at the best offset
+     * @param score     matched landmarks as a share of the smaller fingerprint, between 0 and 1
+     * @param offset    frames to add to this fingerprint's frames to reach the other's
+     */
+    public record Match(int landmarks, double score, int offset) {
+        static final Match NONE = new Match(0, 0, 0);
+    }
+}
@@ -0,0 +1,394 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Locality-sensitive hashing index over MinHash signatures of fingerprints. The signature of a
+ * fingerprint is the minimum of {@code bands * rows} independent hash functions over its distinct
+ * landmark hashes; two fingerprints agree on each minimum with probability equal to the Jaccard
+ * similarity of their landmark sets. Signatures are cut into bands of {@code rows} values and
+ * every band is a key in a multimap from band key to file ID, so recordings that agree on any
+ * whole band are found without comparing against every file.
+ * <p>
+ * The multimap is an open-addressing hash table living in a memory-mapped file: the page cache
+ * holds it, it survives restarts without a rebuild and it costs no heap. Slots hold a 32-bit
+ * band key (0 marks an empty slot) and the file ID. Adding a file is idempotent, so replaying
+ * additions after a crash is harmless. Deleted files are not removed; callers verify candidates
+ * against the database, and {@link #create} into a new file compacts.
+ * <p>
+ * Not thread-safe; the owner confines it to one thread.
+ */
+@Slf4j
+public final class LshIndex implements Closeable {
+
+    private static final int MAGIC = 0x4C534831;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 12;
+    /**
+     * The table is mapped in segments, since a single mapping cannot exceed 2 GB.
+     */
+    private static final int SEGMENT_BITS = 26;
+    private static final long SEGMENT_SLOTS = 1L << SEGMENT_BITS;
+    private static final long MIN_CAPACITY = 1 << 12;
+    private static final double MAX_LOAD = 0.7;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int BANDS_OFFSET = 8;
+    private static final int ROWS_OFFSET = 12;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int ENTRIES_OFFSET = 24;
+    private static final int FILES_OFFSET = 32;
+    private static final int LAST_SEQ_OFFSET = 40;
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private Path path;
+    private FileChannel channel;
+    private FileLock lock;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] segments;
+    private long capacity;
+    private long entries;
+    private long files;
+    private long lastSeq;
+
+    private LshIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.seeds = new long[bands * rows];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Create an empty index, replacing any file at the path.
+     *
+     * @param path          the index file
+     * @param bands         bands per signature
+     * @param rows          signature values per band
+     * @param expectedFiles files to size the table for
+     * @return the index
+     * @throws IOException if the file cannot be created
+     */
+    public static LshIndex create(Path path, int bands, int rows, long expectedFiles) throws IOException {
+        LshIndex index = new LshIndex(bands, rows);
+        Files.deleteIfExists(path);
+        index.map(path, capacityFor(expectedFiles * bands));
+        index.writeHeader();
+        return index;
+    }
+
+    /**
+     * Open an existing index.
+     *
+     * @param path  the index file
+     * @param bands bands per signature the caller expects
+     * @param rows  signature values per band the caller expects
+     * @return the index, or null if the file is missing, damaged or was built with other parameters
+     * @throws IOException if the file cannot be read
+     */
+    public static LshIndex open(Path path, int bands, int rows) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+            return null;
+        }
+        LshIndex index = new LshIndex(bands, rows);
+        index.map(path, -1);
+        MappedByteBuffer header = index.header;
+        if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION
+                || header.getInt(BANDS_OFFSET) != bands || header.getInt(ROWS_OFFSET) != rows
+                || header.getLong(CAPACITY_OFFSET) != index.capacity) {
+            log.info("Fingerprint index {} was built with other parameters or is damaged", path);
+            index.close();
+            return null;
+        }
+        index.entries = header.getLong(ENTRIES_OFFSET);
+        index.files = header.getLong(FILES_OFFSET);
+        index.lastSeq = header.getLong(LAST_SEQ_OFFSET);
+        return index;
+    }
+
+    public int getSignatureLength() {
+        return seeds.length;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return sequence number of the last fingerprint known to be in the index
+     */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+        header.putLong(LAST_SEQ_OFFSET, lastSeq);
+    }
+
+    /**
+     * MinHash signature of a fingerprint, as stored with it and passed to {@link #add} and
+     * {@link #candidates}.
+     *
+     * @param fingerprint the fingerprint, with landmarks
+     * @return the minimum of every hash function over the distinct landmark hashes
+     */
+    public int[] signature(Fingerprint fingerprint) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int hash : fingerprint.distinctHashes()) {
+            for (int i = 0; i < seeds.length; i++) {
+                int value = (int) (mix(hash ^ seeds[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Add a file. Adding the same file and signature again changes nothing.
+     *
+     * @param fileId    the audio file ID
+     * @param signature its signature
+     * @throws IOException if the table had to grow and the new file could not be written
+     */
+    public void add(long fileId, int[] signature) throws IOException {
+        checkSignature(signature);
+        if (entries + bands > capacity * MAX_LOAD) {
+            grow();
+        }
+        boolean added = false;
+        for (int band = 0; band < bands; band++) {
+            added |= put(bandKey(signature, band), fileId);
+        }
+        if (added) {
+            files++;
+            header.putLong(FILES_OFFSET, files);
+        }
+    }
+
+    /**
+     * Files sharing at least one band with a signature, most shared bands first.
+     *
+     * @param signature the signature to look up
+     * @param limit     maximum number of candidates
+     * @return candidate file IDs
+     */
+    public List<Long> candidates(int[] signature, int limit) {
+        checkSignature(signature);
+        Map<Long, Integer> sharedBands = new HashMap<>();
+        for (int band = 0; band < bands; band++) {
+            int key = bandKey(signature, band);
+            for (long slot = home(key); ; slot = next(slot)) {
+                int slotKey = keyAt(slot);
+                if (slotKey == 0) {
+                    break;
+                }
+                if (slotKey == key) {
+                    sharedBands.merge(fileAt(slot), 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(sharedBands.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream().limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Write the mapped pages to disk.
+     */
+    public void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Move the index file, e.g. to replace the live index with a rebuilt one.
+     *
+     * @param target the new path
+     * @throws IOException if the file cannot be moved
+     */
+    public void moveTo(Path target) throws IOException {
+        force();
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (lock != null) {
+            lock.release();
+        }
+        channel.close();
+    }
+
+    private boolean put(int key, long fileId) {
+        long slot = home(key);
+        while (true) {
+            int slotKey = keyAt(slot);
+            if (slotKey == 0) {
+                break;
+            }
+            if (slotKey == key && fileAt(slot) == fileId) {
+                return false;
+            }
+            slot = next(slot);
+        }
+        MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_BITS)];
+        int offset = (int) (slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES;
+        segment.putLong(offset + Integer.BYTES, fileId);
+        segment.putInt(offset, key);
+        entries++;
+        header.putLong(ENTRIES_OFFSET, entries);
+        return true;
+    }
+
+    /**
+     * Rehash into a file twice the size and swap it in.
+     */
+    private void grow() throws IOException {
+        Path target = path;
+        Path grown = path.resolveSibling(path.getFileName() + ".grow");
+        LshIndex bigger = new LshIndex(bands, rows);
+        Files.deleteIfExists(grown);
+        bigger.map(grown, capacity * 2);
+        for (long slot = 0; slot < capacity; slot++) {
+            int key = keyAt(slot);
+            if (key != 0) {
+                bigger.put(key, fileAt(slot));
+            }
+        }
+        bigger.files = files;
+        bigger.lastSeq = lastSeq;
+        bigger.writeHeader();
+        close();
+        bigger.moveTo(target);
+        log.info("Fingerprint index grew to {} slots", bigger.capacity);
+
+        channel = bigger.channel;
+        lock = bigger.lock;
+        header = bigger.header;
+        segments = bigger.segments;
+        capacity = bigger.capacity;
+        entries = bigger.entries;
+    }
+
+    private void map(Path file, long slots) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.path = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.lock = channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            this.lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Fingerprint index " + file + " is in use by another process");
+        }
+        this.capacity = slots >= 0 ? slots : (channel.size() - HEADER_BYTES) / SLOT_BYTES;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        int segmentCount = (int) ((capacity + SEGMENT_SLOTS - 1) / SEGMENT_SLOTS);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long first = i * SEGMENT_SLOTS;
+            long slotsInSegment = Math.min(SEGMENT_SLOTS, capacity - first);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + first * SLOT_BYTES, slotsInSegment * SLOT_BYTES);
+        }
+    }
+
+    private void writeHeader() {
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(BANDS_OFFSET, bands);
+        header.putInt(ROWS_OFFSET, rows);
+        header.putLong(CAPACITY_OFFSET, capacity);
+        header.putLong(ENTRIES_OFFSET, entries);
+        header.putLong(FILES_OFFSET, files);
+        header.putLong(LAST_SEQ_OFFSET, lastSeq);
+    }
+
+    private int keyAt(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)].getInt((int) (slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES);
+    }
+
+    private long fileAt(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)].getLong((int) (slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES + Integer.BYTES);
+    }
+
+    private long home(int key) {
+        // Capacity is a power of two
+        return mix(key) & (capacity - 1);
+    }
+
+    private long next(long slot) {
+        return (slot + 1) & (capacity - 1);
+    }
+
+    private int bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int row = 0; row < rows; row++) {
+            hash = mix(hash * 31 + signature[band * rows + row]);
+        }
+        int key = (int) hash;
+        return key != 0 ? key : 1;
+    }
+
+    private void checkSignature(int[] signature) {
+        if (signature.length != seeds.length) {
+            throw new IllegalArgumentException("Signature has " + signature.length + " values, expected " + seeds.length);
+        }
+    }
+
+    private static long capacityFor(long entries) {
+        long needed = (long) Math.ceil(entries / MAX_LOAD);
+        return Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1, needed - 1)) << 1);
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
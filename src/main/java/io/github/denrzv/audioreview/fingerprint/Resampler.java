@@ -0,0 +1,91 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+/**
+ * Streaming band-limited resampler using windowed-sinc interpolation. The cut-off sits below the
+ * lower of the two Nyquist frequencies, so content above the telephone band in wide-band
+ * recordings does not alias into it (the JDK's own sample rate conversion does alias). The kernel
+ * is tabulated, so no trigonometry runs per sample.
+ */
+final class Resampler {
+
+    interface Sink {
+        void put(float sample);
+    }
+
+    private static final int ZERO_CROSSINGS = 8;
+    private static final int TABLE_STEPS = 128;
+    private static final double CUTOFF = 0.9;
+
+    private final Sink sink;
+    private final double step;
+    private final int halfWidth;
+    private final float[] kernel;
+    private final float[] history;
+    private final int mask;
+    private long received;
+    private long produced;
+
+    /**
+     * @param inputRate  input sample rate
+     * @param outputRate output sample rate
+     * @param sink       receives the output samples
+     */
+    Resampler(double inputRate, double outputRate, Sink sink) {
+        this.sink = sink;
+        this.step = inputRate / outputRate;
+        // Cut-off as a fraction of the input Nyquist frequency
+        double cutoff = CUTOFF * Math.min(1.0, outputRate / inputRate);
+        this.halfWidth = (int) Math.ceil(ZERO_CROSSINGS / cutoff);
+        this.kernel = new float[halfWidth * TABLE_STEPS + 2];
+        for (int i = 0; i < kernel.length; i++) {
+            double x = (double) i / TABLE_STEPS;
+            if (x >= halfWidth) {
+                continue;
+            }
+            double u = Math.PI * cutoff * x;
+            double sinc = x == 0 ? 1 : Math.sin(u) / u;
+            double window = 0.5 * (1 + Math.cos(Math.PI * x / halfWidth));
+            kernel[i] = (float) (cutoff * sinc * window);
+        }
+        this.history = new float[Integer.highestOneBit(2 * halfWidth + (int) Math.ceil(step) + 2) << 1];
+        this.mask = history.length - 1;
+    }
+
+    void accept(float sample) {
+        history[(int) (received & mask)] = sample;
+        received++;
+        emit(received);
+    }
+
+    /**
+     * Emit the remaining output, treating the input as silent past its end.
+     */
+    void finish() {
+        long end = received;
+        for (int i = 0; i < halfWidth; i++) {
+            history[(int) (received & mask)] = 0;
+            received++;
+        }
+        emit(end);
+    }
+
+    private void emit(long limit) {
+        while (true) {
+            double position = produced * step;
+            long center = (long) position;
+            if (center + halfWidth >= received || center >= limit) {
+                return;
+            }
+            double sum = 0;
+            for (long k = Math.max(0, center - halfWidth + 1); k <= center + halfWidth; k++) {
+                double offset = Math.abs(position - k) * TABLE_STEPS;
+                int index = (int) offset;
+                double fraction = offset - index;
+                double weight = kernel[index] + (kernel[index + 1] - kernel[index]) * fraction;
+                sum += history[(int) (k & mask)] * weight;
+            }
+            sink.put((float) sum);
+            produced++;
+        }
+    }
+}
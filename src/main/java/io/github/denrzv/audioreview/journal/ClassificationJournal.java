@@ -0,0 +1,470 @@
+package io.github.denrzv.audioreview.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind journal for classification audit records.
+ *
+ * <p>The record is appended to a local journal file while the classifying transaction is still
+ * open; concurrent appends share one fsync. Once the transaction completes, a commit or abort
+ * marker follows and committed records are handed to a background writer through a lock-free
+ * ring buffer. The writer inserts records in multi-row batches and truncates the journal
+ * whenever everything appended has been flushed or aborted.
+ * Records left in the journal after a crash are replayed on startup: committed ones are
+ * inserted, aborted ones skipped, and records without a marker only if the file still carries
+ * the recorded label, i.e. the transaction committed before the crash. The journal ID makes the
+ * inserts idempotent. The records actually inserted are added to the reviewer rollups in the
+ * same transaction.</p>
+ */
+@Component
+@Slf4j
+public class ClassificationJournal implements SmartLifecycle {
+
+    private static final String JOURNAL_FILE = "classifications.journal";
+    private static final String INSERT_PREFIX = "INSERT INTO classifications " +
+            "(journal_id, user_id, audio_file_id, previous_category_id, new_category_id, classified_at, labelled_from) VALUES ";
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUFFIX = " ON CONFLICT (journal_id, classified_at) DO NOTHING RETURNING journal_id";
+    // Records of unknown outcome are inserted only if their file carries the recorded label
+    private static final String INSERT_COMMITTED_PREFIX = "INSERT INTO classifications " +
+            "(journal_id, user_id, audio_file_id, previous_category_id, new_category_id, classified_at, labelled_from) " +
+            "SELECT v.* FROM (VALUES ";
+    private static final String INSERT_COMMITTED_VALUES = "(CAST(? AS UUID), CAST(? AS BIGINT), CAST(? AS BIGINT), " +
+            "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS BIGINT))";
+    private static final String INSERT_COMMITTED_SUFFIX = ") AS v (journal_id, user_id, audio_file_id, " +
+            "previous_category_id, new_category_id, classified_at, labelled_from) " +
+            "WHERE EXISTS (SELECT 1 FROM audio_files f WHERE f.id = v.audio_file_id " +
+            "AND f.current_category_id = v.new_category_id)" + INSERT_SUFFIX;
+    private static final String COMMITTED_PREFIX = "committed,";
+    private static final String ABORTED_PREFIX = "aborted,";
+    private static final long RETRY_BACKOFF_MS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReviewerRollupWriter rollupWriter;
+    private final Path journalPath;
+    private final RingBuffer<ClassificationRecord> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean fsync;
+    private final Object journalLock = new Object();
+    private final Object syncLock = new Object();
+    // Committed records the writer has to retry, after a synchronous insert failed
+    private final Queue<ClassificationRecord> retries = new ConcurrentLinkedQueue<>();
+    // Records whose transaction ended with an unknown outcome and could not be resolved yet
+    private final Queue<ClassificationRecord> unresolved = new ConcurrentLinkedQueue<>();
+
+    private FileChannel journalChannel;
+    private long appendedCount;
+    private long flushedCount;
+    private long writtenBytes;
+    private volatile long syncedBytes;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public ClassificationJournal(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 ReviewerRollupWriter rollupWriter,
+                                 @Value("${app.classification-journal.dir}") String journalDir,
+                                 @Value("${app.classification-journal.buffer-capacity}") int bufferCapacity,
+                                 @Value("${app.classification-journal.batch-size}") int batchSize,
+                                 @Value("${app.classification-journal.flush-interval-ms}") long flushIntervalMs,
+                                 @Value("${app.classification-journal.fsync}") boolean fsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Records are also flushed from afterCommit callbacks, where joining the finished transaction would lose them
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rollupWriter = rollupWriter;
+        this.journalPath = Paths.get(journalDir).toAbsolutePath().normalize().resolve(JOURNAL_FILE);
+        this.buffer = new RingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.fsync = fsync;
+    }
+
+    /**
+     * Record a classification. The record is journaled right away, before the classifying
+     * transaction commits, so a crash after the commit cannot lose it; it is only handed to
+     * the writer once the transaction has committed. The outcome of the transaction is marked
+     * in the journal, so a rolled back record is not replayed. If the outcome is unknown, the
+     * record is inserted only if the file carries its label.
+     *
+     * @param record the classification record
+     */
+    public void record(ClassificationRecord record) {
+        boolean journaled = journal(record);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commit(record, journaled);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                commit(record, journaled);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && journaled) {
+                    abort(record);
+                } else if (status == STATUS_UNKNOWN) {
+                    resolve(record, journaled);
+                }
+            }
+        });
+    }
+
+    private boolean journal(ClassificationRecord record) {
+        long end;
+        synchronized (journalLock) {
+            try {
+                end = writeLine(record.toJournalLine());
+                appendedCount++;
+            } catch (IOException ex) {
+                log.error("Could not append to classification journal, record {} will be written synchronously",
+                        record.getJournalId(), ex);
+                return false;
+            }
+        }
+        if (fsync) {
+            sync(end);
+        }
+        return true;
+    }
+
+    /**
+     * Force the journal to disk up to the given end offset. Callers arriving while another one
+     * is forcing wait for it and are usually covered by its force, so concurrent appends share
+     * one disk sync.
+     */
+    private void sync(long end) {
+        synchronized (syncLock) {
+            if (syncedBytes >= end) {
+                return;
+            }
+            long target;
+            synchronized (journalLock) {
+                target = writtenBytes;
+            }
+            try {
+                journalChannel.force(false);
+                syncedBytes = target;
+            } catch (IOException ex) {
+                // The record is written, only not durable against a power loss before the next sync
+                log.warn("Could not sync classification journal: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Append a completion marker. Markers are not synced: a marker lost to a power failure only
+     * makes replay check the record against its file.
+     */
+    private void mark(String prefix, ClassificationRecord record) {
+        synchronized (journalLock) {
+            try {
+                writeLine(prefix + record.getJournalId());
+            } catch (IOException ex) {
+                log.warn("Could not mark classification record {} as {}: {}", record.getJournalId(),
+                        prefix.substring(0, prefix.length() - 1), ex.getMessage());
+            }
+        }
+    }
+
+    private void abort(ClassificationRecord record) {
+        mark(ABORTED_PREFIX, record);
+        markFlushed(1);
+    }
+
+    /**
+     * @return the number of bytes written to the journal since startup, including this line
+     */
+    private long writeLine(String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            writtenBytes += journalChannel.write(bytes);
+        }
+        return writtenBytes;
+    }
+
+    private void commit(ClassificationRecord record, boolean journaled) {
+        if (journaled) {
+            mark(COMMITTED_PREFIX, record);
+        }
+        enqueue(record, journaled);
+    }
+
+    private void resolve(ClassificationRecord record, boolean journaled) {
+        try {
+            insertIfCommitted(List.of(record));
+            if (journaled) {
+                markFlushed(1);
+            }
+        } catch (RuntimeException ex) {
+            if (journaled) {
+                log.warn("Could not resolve classification record {}, retrying: {}", record.getJournalId(), ex.getMessage());
+                unresolved.add(record);
+            } else {
+                log.error("Could not write unjournaled classification record {}, it is lost: {}",
+                        record.getJournalId(), ex.getMessage());
+            }
+        }
+    }
+
+    private void enqueue(ClassificationRecord record, boolean journaled) {
+        if (!journaled) {
+            try {
+                insertBatch(List.of(record));
+            } catch (RuntimeException ex) {
+                log.error("Could not write unjournaled classification record {}, it is lost: {}",
+                        record.getJournalId(), ex.getMessage());
+            }
+            return;
+        }
+
+        if (buffer.offer(record)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+
+        // Buffer is full, apply back-pressure on the caller instead of dropping the record
+        try {
+            insertBatch(List.of(record));
+            markFlushed(1);
+        } catch (RuntimeException ex) {
+            log.error("Could not write classification record {}, the writer retries it: {}",
+                    record.getJournalId(), ex.getMessage());
+            retries.add(record);
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(journalPath.getParent());
+            replay();
+            journalChannel = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not open classification journal " + journalPath, ex);
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "classification-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (journalLock) {
+            try {
+                journalChannel.close();
+            } catch (IOException ex) {
+                log.warn("Could not close classification journal: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start before the web server accepts requests and stop after it has drained them.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+
+        List<ClassificationRecord> pending = new ArrayList<>();
+        Set<UUID> aborted = new HashSet<>();
+        Set<UUID> committed = new HashSet<>();
+        try (var lines = Files.lines(journalPath, StandardCharsets.UTF_8)) {
+            lines.filter(line -> !line.isBlank()).forEach(line -> {
+                try {
+                    if (line.startsWith(ABORTED_PREFIX)) {
+                        aborted.add(UUID.fromString(line.substring(ABORTED_PREFIX.length())));
+                        return;
+                    }
+                    if (line.startsWith(COMMITTED_PREFIX)) {
+                        committed.add(UUID.fromString(line.substring(COMMITTED_PREFIX.length())));
+                        return;
+                    }
+                    pending.add(ClassificationRecord.fromJournalLine(line));
+                } catch (RuntimeException ex) {
+                    // A torn last line from a crash mid-write
+                    log.warn("Skipping unreadable classification journal entry: {}", line);
+                }
+            });
+        }
+        pending.removeIf(record -> aborted.contains(record.getJournalId()));
+        // Without a marker the process stopped before the transaction completed, or just after it committed
+        List<ClassificationRecord> unmarked = pending.stream()
+                .filter(record -> !committed.contains(record.getJournalId()))
+                .toList();
+        pending.removeAll(unmarked);
+
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            insertBatch(pending.subList(from, Math.min(pending.size(), from + batchSize)));
+        }
+        for (int from = 0; from < unmarked.size(); from += batchSize) {
+            insertIfCommitted(unmarked.subList(from, Math.min(unmarked.size(), from + batchSize)));
+        }
+        Files.write(journalPath, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+        log.info("Replayed {} committed and {} unmarked classification journal entries", pending.size(), unmarked.size());
+    }
+
+    private void runWriter() {
+        List<ClassificationRecord> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (batch.isEmpty()) {
+                for (ClassificationRecord retry; batch.size() < batchSize && (retry = retries.poll()) != null; ) {
+                    batch.add(retry);
+                }
+                buffer.drainTo(batch, batchSize - batch.size());
+            }
+            if (batch.isEmpty() && unresolved.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+
+            try {
+                if (!batch.isEmpty()) {
+                    insertBatch(batch);
+                    markFlushed(batch.size());
+                    batch.clear();
+                }
+                resolveUnresolved();
+            } catch (RuntimeException ex) {
+                // Includes transaction failures such as CannotCreateTransactionException, the batch is kept
+                if (!running) {
+                    log.warn("Stopping with {} unflushed classification records, they will be replayed from the journal",
+                            batch.size() + retries.size() + buffer.size() + unresolved.size());
+                    return;
+                }
+                log.error("Could not flush classification records, retrying: {}", ex.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS));
+            }
+        }
+    }
+
+    private void resolveUnresolved() {
+        List<ClassificationRecord> records = List.copyOf(unresolved);
+        if (!records.isEmpty()) {
+            insertIfCommitted(records);
+            unresolved.removeAll(records);
+            markFlushed(records.size());
+        }
+    }
+
+    private void insertBatch(List<ClassificationRecord> records) {
+        insert(records, false);
+    }
+
+    private void insertIfCommitted(List<ClassificationRecord> records) {
+        insert(records, true);
+    }
+
+    private void insert(List<ClassificationRecord> records, boolean ifCommitted) {
+        String sql = ifCommitted
+                ? INSERT_COMMITTED_PREFIX + String.join(", ", Collections.nCopies(records.size(), INSERT_COMMITTED_VALUES))
+                + INSERT_COMMITTED_SUFFIX
+                : INSERT_PREFIX + String.join(", ", Collections.nCopies(records.size(), INSERT_VALUES)) + INSERT_SUFFIX;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<UUID> inserted = new HashSet<>(jdbcTemplate.query(sql,
+                        ps -> {
+                            int index = 1;
+                            for (ClassificationRecord record : records) {
+                                ps.setObject(index++, record.getJournalId());
+                                ps.setObject(index++, record.getUserId(), Types.BIGINT);
+                                ps.setLong(index++, record.getAudioFileId());
+                                if (record.getPreviousCategoryId() != null) {
+                                    ps.setLong(index++, record.getPreviousCategoryId());
+                                } else {
+                                    ps.setNull(index++, Types.BIGINT);
+                                }
+                                ps.setLong(index++, record.getNewCategoryId());
+                                ps.setTimestamp(index++, Timestamp.valueOf(record.getClassifiedAt()));
+                                ps.setObject(index++, record.getLabelledFrom(), Types.BIGINT);
+                            }
+                        },
+                        (rs, rowNum) -> rs.getObject(1, UUID.class)));
+                // Replayed records that were already inserted must not be counted twice
+                rollupWriter.write(records.stream().filter(record -> inserted.contains(record.getJournalId())).toList());
+            });
+        } catch (DataIntegrityViolationException ex) {
+            if (records.size() == 1) {
+                // The file, user or category was deleted before the record was flushed
+                log.warn("Dropping classification record {}: {}", records.get(0).getJournalId(), ex.getMessage());
+                return;
+            }
+            records.forEach(record -> insert(List.of(record), ifCommitted));
+        }
+    }
+
+    private void markFlushed(int count) {
+        synchronized (journalLock) {
+            flushedCount += count;
+            if (flushedCount == appendedCount && journalChannel != null && journalChannel.isOpen()) {
+                try {
+                    journalChannel.truncate(0);
+                } catch (IOException ex) {
+                    log.warn("Could not truncate classification journal: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.denrzv.audioreview.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Classification audit entry waiting to be written to the {@code classifications} table.
+ * Labels copied from a near-duplicate have no user and name the file they were copied from.
+ */
+@Getter
+@AllArgsConstructor
+public class ClassificationRecord {
+
+    private final UUID journalId;
+    private final Long userId;
+    private final Long audioFileId;
+    private final Long previousCategoryId;
+    private final Long newCategoryId;
+    private final LocalDateTime classifiedAt;
+    private final Long labelledFrom;
+
+    String toJournalLine() {
+        return journalId + "," + (userId != null ? userId : "") + "," + audioFileId + ","
+                + (previousCategoryId != null ? previousCategoryId : "") + ","
+                + newCategoryId + "," + classifiedAt + ","
+                + (labelledFrom != null ? labelledFrom : "");
+    }
+
+    static ClassificationRecord fromJournalLine(String line) {
+        String[] parts = line.split(",", -1);
+        return new ClassificationRecord(
+                UUID.fromString(parts[0]),
+                parts[1].isEmpty() ? null : Long.valueOf(parts[1]),
+                Long.valueOf(parts[2]),
+                parts[3].isEmpty() ? null : Long.valueOf(parts[3]),
+                Long.valueOf(parts[4]),
+                LocalDateTime.parse(parts[5]),
+                // Journals written before copied labels were recorded have six fields
+                parts.length > 6 && !parts[6].isEmpty() ? Long.valueOf(parts[6]) : null
+        );
+    }
+}
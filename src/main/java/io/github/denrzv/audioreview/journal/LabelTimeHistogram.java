@@ -0,0 +1,121 @@
+package io.github.denrzv.audioreview.journal;
+
+import java.util.Arrays;
+
+/**
+ * Compact log-linear histogram of label times, in the spirit of HdrHistogram: every power of two
+ * of milliseconds is split into {@value #SUB_BINS} equal bins, so any recorded time is known to
+ * within about 12%. Times below {@value #MIN_MILLIS} ms share the first bin and times beyond
+ * the last bin are clamped into it. Histograms of any number of labels add up element-wise,
+ * which is how the {@code sum_histograms} aggregate merges rollup rows in the database.
+ */
+public final class LabelTimeHistogram {
+
+    static final long MIN_MILLIS = 128;
+    private static final int MIN_EXPONENT = 7;
+    private static final int SUB_BIN_BITS = 3;
+    static final int SUB_BINS = 1 << SUB_BIN_BITS;
+    /**
+     * Up to 2^20 ms, about 17 minutes, beyond any sensible idle threshold.
+     */
+    private static final int MAX_EXPONENT = 20;
+    static final int BINS = 1 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BINS;
+
+    private final long[] counts;
+
+    public LabelTimeHistogram() {
+        this.counts = new long[BINS];
+    }
+
+    private LabelTimeHistogram(long[] counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * @param counts bin counts as stored, possibly trimmed; null for an empty histogram
+     * @return the histogram
+     */
+    public static LabelTimeHistogram of(Long[] counts) {
+        long[] bins = new long[BINS];
+        if (counts != null) {
+            for (int i = 0; i < Math.min(counts.length, BINS); i++) {
+                bins[i] = counts[i] != null ? counts[i] : 0;
+            }
+        }
+        return new LabelTimeHistogram(bins);
+    }
+
+    public void record(long millis) {
+        counts[bin(millis)]++;
+    }
+
+    public void add(LabelTimeHistogram other) {
+        for (int i = 0; i < BINS; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long getTotalCount() {
+        return Arrays.stream(counts).sum();
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the middle of the bin holding the quantile in milliseconds, or null if empty
+     */
+    public Long valueAtQuantile(double quantile) {
+        long total = getTotalCount();
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BINS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (lowerBound(i) + upperBound(i)) / 2;
+            }
+        }
+        return (lowerBound(BINS - 1) + upperBound(BINS - 1)) / 2;
+    }
+
+    /**
+     * @return the counts without trailing empty bins, as stored
+     */
+    public Long[] toArray() {
+        int length = BINS;
+        while (length > 0 && counts[length - 1] == 0) {
+            length--;
+        }
+        Long[] trimmed = new Long[length];
+        for (int i = 0; i < length; i++) {
+            trimmed[i] = counts[i];
+        }
+        return trimmed;
+    }
+
+    static int bin(long millis) {
+        if (millis < MIN_MILLIS) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        if (exponent >= MAX_EXPONENT) {
+            return BINS - 1;
+        }
+        int subBin = (int) ((millis >>> (exponent - SUB_BIN_BITS)) & (SUB_BINS - 1));
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BINS + subBin;
+    }
+
+    static long lowerBound(int bin) {
+        if (bin == 0) {
+            return 0;
+        }
+        int exponent = MIN_EXPONENT + (bin - 1) / SUB_BINS;
+        int subBin = (bin - 1) % SUB_BINS;
+        return (long) (SUB_BINS + subBin) << (exponent - SUB_BIN_BITS);
+    }
+
+    static long upperBound(int bin) {
+        return bin == 0 ? MIN_MILLIS : lowerBound(bin) + (1L << (MIN_EXPONENT + (bin - 1) / SUB_BINS - SUB_BIN_BITS));
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.denrzv.audioreview.journal;
+
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Granularity;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Key;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Rollup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains {@code reviewer_rollups}: labels, time per label and idle time per reviewer and
+ * minute, hour and day. {@link #write} runs in the transaction that inserts the classifications,
+ * with only the rows actually inserted, so rollups and the raw table never disagree, also across
+ * nodes and journal replays. Old minute and hour buckets are dropped on a schedule; day buckets
+ * are kept.
+ */
+@Component
+@Slf4j
+public class ReviewerRollupWriter {
+
+    private static final String UPSERT_ROLLUP = "INSERT INTO reviewer_rollups (granularity, bucket_start, user_id, " +
+            "labels, timed_labels, label_time_ms, idle_ms, label_time_histogram) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, bucket_start, user_id) DO UPDATE SET " +
+            "labels = reviewer_rollups.labels + EXCLUDED.labels, " +
+            "timed_labels = reviewer_rollups.timed_labels + EXCLUDED.timed_labels, " +
+            "label_time_ms = reviewer_rollups.label_time_ms + EXCLUDED.label_time_ms, " +
+            "idle_ms = reviewer_rollups.idle_ms + EXCLUDED.idle_ms, " +
+            "label_time_histogram = add_histograms(reviewer_rollups.label_time_histogram, EXCLUDED.label_time_histogram)";
+    private static final String UPSERT_ACTIVITY = "INSERT INTO reviewer_activity (user_id, last_classified_at) VALUES (?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "last_classified_at = GREATEST(reviewer_activity.last_classified_at, EXCLUDED.last_classified_at)";
+    private static final int REBUILD_FETCH_SIZE = 5000;
+    private static final int REBUILD_FLUSH_ROLLUPS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleThresholdMs;
+    private final long minuteRetentionHours;
+    private final long hourRetentionDays;
+
+    public ReviewerRollupWriter(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${app.reviewer-rollups.idle-threshold-ms}") long idleThresholdMs,
+                                @Value("${app.reviewer-rollups.minute-retention-hours}") long minuteRetentionHours,
+                                @Value("${app.reviewer-rollups.hour-retention-days}") long hourRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idleThresholdMs = idleThresholdMs;
+        this.minuteRetentionHours = minuteRetentionHours;
+        this.hourRetentionDays = hourRetentionDays;
+    }
+
+    /**
+     * Add newly inserted classifications to the rollups. Must run in the inserting transaction.
+     * Labels copied from a duplicate have no reviewer and are left out.
+     *
+     * @param inserted the classifications inserted, in any order
+     */
+    public void write(List<ClassificationRecord> inserted) {
+        List<ClassificationRecord> records = inserted.stream().filter(record -> record.getUserId() != null).toList();
+        if (records.isEmpty()) {
+            return;
+        }
+        ReviewerRollups rollups = new ReviewerRollups(idleThresholdMs);
+        Long[] userIds = records.stream().map(ClassificationRecord::getUserId).distinct().sorted().toArray(Long[]::new);
+        // Locks the reviewers' activity rows, so concurrent writers time each label against the right predecessor
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement("SELECT user_id, last_classified_at FROM reviewer_activity " +
+                    "WHERE user_id = ANY(?) ORDER BY user_id FOR UPDATE");
+            statement.setArray(1, con.createArrayOf("bigint", userIds));
+            return statement;
+        }, rs -> {
+            rollups.setLastLabelAt(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime());
+        });
+
+        records.stream()
+                .sorted(Comparator.comparing(ClassificationRecord::getClassifiedAt))
+                .forEach(record -> rollups.add(record.getUserId(), record.getClassifiedAt()));
+        flush(rollups);
+    }
+
+    /**
+     * Recompute all rollups from the classifications still in the database (archived months are
+     * not included). Classification inserts wait until the rebuild commits.
+     *
+     * @return number of classifications read
+     */
+    public long rebuild() {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE reviewer_activity, reviewer_rollups IN EXCLUSIVE MODE");
+            jdbcTemplate.update("DELETE FROM reviewer_rollups");
+            jdbcTemplate.update("DELETE FROM reviewer_activity");
+
+            ReviewerRollups rollups = new ReviewerRollups(idleThresholdMs);
+            AtomicLong read = new AtomicLong();
+            jdbcTemplate.query(con -> {
+                PreparedStatement statement = con.prepareStatement(
+                        "SELECT user_id, classified_at FROM classifications WHERE user_id IS NOT NULL " +
+                                "ORDER BY user_id, classified_at");
+                statement.setFetchSize(REBUILD_FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                rollups.add(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime());
+                read.incrementAndGet();
+                if (rollups.getRollups().size() >= REBUILD_FLUSH_ROLLUPS) {
+                    flush(rollups);
+                }
+            });
+            flush(rollups);
+            return read.get();
+        });
+    }
+
+    @Scheduled(cron = "${app.reviewer-rollups.retention-cron}")
+    public void dropExpiredBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+        int minutes = jdbcTemplate.update("DELETE FROM reviewer_rollups WHERE granularity = ? AND bucket_start < ?",
+                Granularity.MINUTE.name(), Timestamp.valueOf(now.minusHours(minuteRetentionHours)));
+        int hours = jdbcTemplate.update("DELETE FROM reviewer_rollups WHERE granularity = ? AND bucket_start < ?",
+                Granularity.HOUR.name(), Timestamp.valueOf(now.minusDays(hourRetentionDays)));
+        log.debug("Dropped {} minute and {} hour reviewer rollups", minutes, hours);
+    }
+
+    /**
+     * Upsert the accumulated rollups in key order and clear them, keeping the latest label times.
+     */
+    private void flush(ReviewerRollups rollups) {
+        if (!rollups.isEmpty()) {
+            List<Map.Entry<Key, Rollup>> entries = new ArrayList<>(rollups.getRollups().entrySet());
+            jdbcTemplate.batchUpdate(UPSERT_ROLLUP, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Key key = entries.get(i).getKey();
+                    Rollup rollup = entries.get(i).getValue();
+                    ps.setString(1, key.granularity().name());
+                    ps.setTimestamp(2, Timestamp.valueOf(key.bucketStart()));
+                    ps.setLong(3, key.userId());
+                    ps.setLong(4, rollup.getLabels());
+                    ps.setLong(5, rollup.getTimedLabels());
+                    ps.setLong(6, rollup.getLabelTimeMs());
+                    ps.setLong(7, rollup.getIdleMs());
+                    ps.setArray(8, ps.getConnection().createArrayOf("bigint", rollup.getHistogram().toArray()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return entries.size();
+                }
+            });
+            rollups.clear();
+        }
+
+        List<Map.Entry<Long, LocalDateTime>> activity = new ArrayList<>(new TreeMap<>(rollups.getLastLabelAt()).entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_ACTIVITY, activity, activity.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey());
+            ps.setTimestamp(2, Timestamp.valueOf(entry.getValue()));
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.denrzv.audioreview.journal;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accumulates labels into per-reviewer minute, hour and day buckets. The time of a label is the
+ * time since the same reviewer's previous label; gaps longer than the idle threshold count as idle
+ * time instead, so breaks do not inflate the time per label.
+ * <p>
+ * Labels must be added in time order per reviewer. A label older than the reviewer's latest
+ * known one (replayed from the journal late) is counted but not timed.
+ */
+public class ReviewerRollups {
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime bucketOf(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+
+    public record Key(Granularity granularity, LocalDateTime bucketStart, long userId) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int compared = granularity.compareTo(other.granularity);
+            if (compared == 0) {
+                compared = bucketStart.compareTo(other.bucketStart);
+            }
+            return compared != 0 ? compared : Long.compare(userId, other.userId);
+        }
+    }
+
+    @Getter
+    public static class Rollup {
+        private long labels;
+        private long timedLabels;
+        private long labelTimeMs;
+        private long idleMs;
+        private final LabelTimeHistogram histogram = new LabelTimeHistogram();
+    }
+
+    private final long idleThresholdMs;
+    private final Map<Long, LocalDateTime> lastLabelAt = new HashMap<>();
+    // Sorted, so rows are always written (and locked) in the same order
+    private final Map<Key, Rollup> rollups = new TreeMap<>();
+
+    public ReviewerRollups(long idleThresholdMs) {
+        this.idleThresholdMs = idleThresholdMs;
+    }
+
+    /**
+     * Set the time of a reviewer's latest label before the ones about to be added.
+     */
+    public void setLastLabelAt(long userId, LocalDateTime time) {
+        lastLabelAt.put(userId, time);
+    }
+
+    public void add(long userId, LocalDateTime classifiedAt) {
+        LocalDateTime previous = lastLabelAt.get(userId);
+        Long gapMs = null;
+        if (previous == null || !classifiedAt.isBefore(previous)) {
+            lastLabelAt.put(userId, classifiedAt);
+            gapMs = previous != null ? Duration.between(previous, classifiedAt).toMillis() : null;
+        }
+
+        for (Granularity granularity : Granularity.values()) {
+            Rollup rollup = rollups.computeIfAbsent(new Key(granularity, granularity.bucketOf(classifiedAt), userId),
+                    key -> new Rollup());
+            rollup.labels++;
+            if (gapMs == null) {
+                continue;
+            }
+            if (gapMs <= idleThresholdMs) {
+                rollup.timedLabels++;
+                rollup.labelTimeMs += gapMs;
+                rollup.histogram.record(gapMs);
+            } else {
+                rollup.idleMs += gapMs;
+            }
+        }
+    }
+
+    public Map<Key, Rollup> getRollups() {
+        return rollups;
+    }
+
+    public Map<Long, LocalDateTime> getLastLabelAt() {
+        return lastLabelAt;
+    }
+
+    public boolean isEmpty() {
+        return rollups.isEmpty();
+    }
+
+    public void clear() {
+        rollups.clear();
+    }
+}
@@ -39,11 +39,8 @@ public class AudioFile {
     @Column(nullable = false)
     private LocalDateTime uploadedAt;
 
-    @Column(name = "locked_by")
-    private Long lockedBy;
-
-    @Column(name = "locked_at")
-    private LocalDateTime lockedAt;
+    @Column(name = "checksum")
+    private String checksum;
 
     @Version
     private Long version;
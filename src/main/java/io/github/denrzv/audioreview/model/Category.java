@@ -2,10 +2,17 @@ package io.github.denrzv.audioreview.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @SuppressWarnings("JpaDataSourceORMInspection")
 @Entity
 @Table(name = "categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
+@NaturalIdCache(region = "categories-by-name")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,6 +23,8 @@ public class Category {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Categories can be renamed
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     private String name;
 
@@ -18,7 +18,8 @@ public class Classification {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    // No user for labels copied from a near-duplicate
+    @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -36,4 +37,7 @@ public class Classification {
 
     @Column(nullable = false)
     private LocalDateTime classifiedAt;
+
+    // The file whose label was copied, null for reviewer classifications
+    private Long labelledFrom;
 }
\ No newline at end of file
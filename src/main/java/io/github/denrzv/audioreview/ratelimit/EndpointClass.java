@@ -0,0 +1,19 @@
+package io.github.denrzv.audioreview.ratelimit;
+
+/**
+ * Cost classes of endpoints; each class has its own token bucket per client.
+ */
+public enum EndpointClass {
+    /**
+     * Single-row reads and writes, the bulk of the review loop.
+     */
+    CHEAP,
+    /**
+     * Full-table reads, bulk updates and admin reports.
+     */
+    EXPENSIVE,
+    /**
+     * Long-lived responses such as audio downloads and event streams; limits how often they are opened.
+     */
+    STREAMING
+}
@@ -0,0 +1,136 @@
+package io.github.denrzv.audioreview.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits requests per user and endpoint class. Runs in the security filter chain right after
+ * {@link io.github.denrzv.audioreview.security.AuthTokenFilter}, so authenticated requests are
+ * limited per user and anonymous ones per remote address. Rejected requests get 429 with
+ * {@code Retry-After}.
+ * <p>
+ * The remote address is the client's only when {@code server.forward-headers-strategy} lets the
+ * proxy in front pass it on. Clients behind one NAT still share it, so anonymous requests to
+ * {@code app.rate-limit.per-resource-paths}, like the audio files the player fetches without a
+ * token, are limited per requested resource instead.
+ * <p>
+ * Endpoints are classified by the Ant path patterns in {@code app.rate-limit.streaming-paths} and
+ * {@code expensive-paths}, checked in that order; anything else is cheap. A pattern may require a
+ * query parameter value, e.g. {@code /admin/audio?noPagination=true}.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final boolean enabled;
+    private final List<PathRule> streamingPaths;
+    private final List<PathRule> expensivePaths;
+    private final List<PathRule> perResourcePaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private record PathRule(String pattern, String parameter, String value) {
+        static PathRule parse(String rule) {
+            int query = rule.indexOf('?');
+            if (query < 0) {
+                return new PathRule(rule.trim(), null, null);
+            }
+            String[] condition = rule.substring(query + 1).split("=", 2);
+            return new PathRule(rule.substring(0, query).trim(), condition[0].trim(),
+                    condition.length > 1 ? condition[1].trim() : null);
+        }
+    }
+
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           @Value("${app.rate-limit.enabled}") boolean enabled,
+                           @Value("${app.rate-limit.streaming-paths}") List<String> streamingPaths,
+                           @Value("${app.rate-limit.expensive-paths}") List<String> expensivePaths,
+                           @Value("${app.rate-limit.per-resource-paths}") List<String> perResourcePaths) {
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.streamingPaths = streamingPaths.stream().filter(path -> !path.isBlank()).map(PathRule::parse).toList();
+        this.expensivePaths = expensivePaths.stream().filter(path -> !path.isBlank()).map(PathRule::parse).toList();
+        this.perResourcePaths = perResourcePaths.stream().filter(path -> !path.isBlank()).map(PathRule::parse).toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        long waitNanos = rateLimiter.tryAcquire(endpointClass, client(request));
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.debug("Rate limited {} {} ({})", request.getMethod(), request.getRequestURI(), endpointClass);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("text/plain");
+        response.getWriter().write("Too many requests, retry in " + retryAfterSeconds + " s");
+    }
+
+    EndpointClass classify(HttpServletRequest request) {
+        String path = path(request);
+        if (matches(streamingPaths, path, request)) {
+            return EndpointClass.STREAMING;
+        }
+        if (matches(expensivePaths, path, request)) {
+            return EndpointClass.EXPENSIVE;
+        }
+        return EndpointClass.CHEAP;
+    }
+
+    private boolean matches(List<PathRule> rules, String path, HttpServletRequest request) {
+        for (PathRule rule : rules) {
+            if (pathMatcher.match(rule.pattern(), path)
+                    && (rule.parameter() == null || matchesParameter(request.getParameter(rule.parameter()), rule.value()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesParameter(String actual, String expected) {
+        return actual != null && (expected == null || expected.equalsIgnoreCase(actual));
+    }
+
+    String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        String path = path(request);
+        if (matches(perResourcePaths, path, request)) {
+            return "resource:" + path;
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,167 @@
+package io.github.denrzv.audioreview.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client and endpoint class, lock-free: each bucket is a single
+ * {@link AtomicLong} holding the time at which it will be full again (the generic cell rate
+ * algorithm), updated with compare-and-set. A request is allowed while that time is at most
+ * {@code capacity - 1} refill intervals ahead of now.
+ * <p>
+ * A full bucket behaves exactly like a missing one, so full buckets are evicted without losing
+ * anything. The number of buckets is bounded by {@code max-keys}; when every bucket is in use,
+ * new clients share one overflow bucket per endpoint class.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long OVERFLOW_EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private record Key(EndpointClass endpointClass, String client) {
+    }
+
+    private record Limit(long refillNanos, long burstNanos) {
+        static Limit of(int capacity, double perSecond) {
+            long refillNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+            return new Limit(refillNanos, refillNanos * (capacity - 1));
+        }
+    }
+
+    private final Map<Key, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, AtomicLong> overflowBuckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> allowedCounters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejectedCounters = new EnumMap<>(EndpointClass.class);
+    private final Counter overflowCounter;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final AtomicLong lastOverflowEviction = new AtomicLong(EMPTY);
+
+    @Autowired
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.max-keys}") int maxKeys,
+                       @Value("${app.rate-limit.cheap.capacity}") int cheapCapacity,
+                       @Value("${app.rate-limit.cheap.per-second}") double cheapPerSecond,
+                       @Value("${app.rate-limit.expensive.capacity}") int expensiveCapacity,
+                       @Value("${app.rate-limit.expensive.per-second}") double expensivePerSecond,
+                       @Value("${app.rate-limit.streaming.capacity}") int streamingCapacity,
+                       @Value("${app.rate-limit.streaming.per-second}") double streamingPerSecond) {
+        this(meterRegistry, maxKeys, Map.of(
+                EndpointClass.CHEAP, Limit.of(cheapCapacity, cheapPerSecond),
+                EndpointClass.EXPENSIVE, Limit.of(expensiveCapacity, expensivePerSecond),
+                EndpointClass.STREAMING, Limit.of(streamingCapacity, streamingPerSecond)), System::nanoTime);
+    }
+
+    RateLimiter(MeterRegistry meterRegistry, int maxKeys, int capacity, double perSecond, LongSupplier nanoClock) {
+        this(meterRegistry, maxKeys, Map.of(
+                EndpointClass.CHEAP, Limit.of(capacity, perSecond),
+                EndpointClass.EXPENSIVE, Limit.of(capacity, perSecond),
+                EndpointClass.STREAMING, Limit.of(capacity, perSecond)), nanoClock);
+    }
+
+    private RateLimiter(MeterRegistry meterRegistry, int maxKeys, Map<EndpointClass, Limit> limits, LongSupplier nanoClock) {
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.limits.putAll(limits);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            overflowBuckets.put(endpointClass, new AtomicLong(EMPTY));
+            allowedCounters.put(endpointClass, Counter.builder("ratelimit.requests")
+                    .description("Requests checked against the rate limits")
+                    .tag("class", endpointClass.name().toLowerCase())
+                    .tag("outcome", "allowed")
+                    .register(meterRegistry));
+            rejectedCounters.put(endpointClass, Counter.builder("ratelimit.requests")
+                    .description("Requests checked against the rate limits")
+                    .tag("class", endpointClass.name().toLowerCase())
+                    .tag("outcome", "rejected")
+                    .register(meterRegistry));
+        }
+        this.overflowCounter = Counter.builder("ratelimit.overflow")
+                .description("Requests of new clients that shared an overflow bucket because max-keys was reached")
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.keys", buckets, Map::size)
+                .description("Token buckets currently held")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a token from the client's bucket for the endpoint class.
+     *
+     * @param endpointClass the class of the requested endpoint
+     * @param client        the user name, or another stable identifier for anonymous clients
+     * @return 0 if allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(EndpointClass endpointClass, String client) {
+        Limit limit = limits.get(endpointClass);
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = bucket(new Key(endpointClass, client), now);
+        while (true) {
+            long fullAt = bucket.get();
+            long from = fullAt == EMPTY || fullAt - now < 0 ? now : fullAt;
+            long wait = from - now - limit.burstNanos();
+            if (wait > 0) {
+                rejectedCounters.get(endpointClass).increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, from + limit.refillNanos())) {
+                allowedCounters.get(endpointClass).increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely, they hold no state a new bucket would not.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> isFull(bucket.get(), now));
+        log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(Key key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            // Sweep at most once a second, a flood of new clients must not turn every request into a scan
+            long lastEviction = lastOverflowEviction.get();
+            if ((lastEviction == EMPTY || now - lastEviction >= OVERFLOW_EVICTION_INTERVAL_NANOS)
+                    && lastOverflowEviction.compareAndSet(lastEviction, now)) {
+                buckets.values().removeIf(candidate -> isFull(candidate.get(), now));
+            }
+            if (buckets.size() >= maxKeys) {
+                overflowCounter.increment();
+                return overflowBuckets.get(key.endpointClass());
+            }
+        }
+        return buckets.computeIfAbsent(key, ignored -> new AtomicLong(EMPTY));
+    }
+
+    private static boolean isFull(long fullAt, long now) {
+        return fullAt == EMPTY || fullAt - now <= 0;
+    }
+}
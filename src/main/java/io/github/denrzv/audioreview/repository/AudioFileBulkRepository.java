@@ -0,0 +1,73 @@
+package io.github.denrzv.audioreview.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Set-based statements over {@code audio_files} that would otherwise load and write
+ * every entity one by one. IDs are bound as a single array parameter, so the statement
+ * size does not grow with the number of files.
+ * Must be called inside a transaction; the persistence context is not updated.
+ */
+@Repository
+@AllArgsConstructor
+public class AudioFileBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Set the current category of all given files, bumping their version so that
+     * concurrent optimistic updates of the same rows fail.
+     *
+     * @param ids        the audio file IDs
+     * @param categoryId the new current category
+     * @return number of updated rows
+     */
+    public int updateCurrentCategory(List<Long> ids, Long categoryId) {
+        return jdbcTemplate.update(con -> {
+            var statement = con.prepareStatement("UPDATE audio_files SET current_category_id = ?, " +
+                    "version = COALESCE(version, 0) + 1 WHERE id = ANY(?)");
+            statement.setLong(1, categoryId);
+            statement.setArray(2, con.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * Flag the category changes of the rest of the transaction as admin edits, which the
+     * category analytics triggers do not count as reviewer decisions
+     * (see {@code V13__Count_reviewer_decisions_by_utc_day.sql}).
+     */
+    public void markAdminEdits() {
+        jdbcTemplate.execute("SET LOCAL audio_review.label_source = 'admin'");
+    }
+
+    /**
+     * Delete the given files.
+     *
+     * @param ids the audio file IDs
+     * @return storage paths of the deleted files
+     */
+    public List<String> deleteByIdsReturningPaths(List<Long> ids) {
+        return jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("DELETE FROM audio_files WHERE id = ANY(?) RETURNING filepath");
+            statement.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+
+    /**
+     * Remove every file and everything referencing it with {@code TRUNCATE}.
+     *
+     * @return storage paths of the removed files
+     */
+    public List<String> truncateReturningPaths() {
+        jdbcTemplate.execute("LOCK TABLE audio_files IN ACCESS EXCLUSIVE MODE");
+        List<String> paths = jdbcTemplate.queryForList("SELECT filepath FROM audio_files", String.class);
+        jdbcTemplate.execute("TRUNCATE TABLE audio_files CASCADE");
+        return paths;
+    }
+}
@@ -11,7 +11,6 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,14 +31,11 @@ public interface AudioFileRepository extends JpaRepository<AudioFile, Long> {
     Optional<AudioFile> findById(@NonNull Long id);
 
     @Query("SELECT f FROM AudioFile f " +
-            "WHERE f.currentCategory.name = 'Unclassified' " +
-            "AND ((f.lockedBy = :userId) " + // Prioritize files locked by the current user
-            "OR (f.lockedBy IS NULL OR f.lockedAt < :expirationTime)) " + // Otherwise, find unlocked or expired locks
-            "ORDER BY function('RANDOM') " +
-    "LIMIT 1")
-    Optional<AudioFile> findRandomUnclassifiedUnlockedFile(
-            @Param("userId") Long userId,
-            @Param("expirationTime") LocalDateTime expirationTime);
+            "JOIN FETCH f.initialCategory " +
+            "LEFT JOIN FETCH f.currentCategory " +
+            "JOIN FETCH f.uploadedBy " +
+            "WHERE f.id = :id")
+    Optional<AudioFile> findWithDetailsById(@Param("id") Long id);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT f FROM AudioFile f WHERE f.id = :id")
@@ -0,0 +1,305 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.dto.DuplicateClusterResponse;
+import io.github.denrzv.audioreview.dto.DuplicateFileResponse;
+import io.github.denrzv.audioreview.fingerprint.Fingerprint;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Fingerprints and near-duplicate clusters in {@code audio_fingerprints}
+ * (see {@code V10__Add_audio_fingerprints.sql}). A file's label counts as human when it has no
+ * {@code labelled_from}; files labelled by copying from a duplicate point at their source, and
+ * only those and unclassified files are ever relabelled from their cluster.
+ */
+@Repository
+@AllArgsConstructor
+public class AudioFingerprintRepository {
+
+    private static final String UNCLASSIFIED_CATEGORY = "(SELECT id FROM categories WHERE name = 'Unclassified')";
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    // The latest human label of the cluster is copied to every member without one. Members under a
+    // live reviewer lease are skipped; they are settled by the reviewer's own label or, if the
+    // lease runs out, by the next settle of the cluster.
+    private static final String SETTLE_CLUSTER = "WITH source AS (" +
+            "SELECT fp.audio_file_id, f.current_category_id FROM audio_fingerprints fp " +
+            "JOIN audio_files f ON f.id = fp.audio_file_id " +
+            "WHERE fp.cluster_id = ? AND fp.labelled_from IS NULL " +
+            "AND f.current_category_id <> " + UNCLASSIFIED_CATEGORY + " " +
+            "ORDER BY fp.labelled_at DESC NULLS LAST, fp.audio_file_id DESC LIMIT 1), " +
+            "members AS (" +
+            "SELECT f.id, f.current_category_id AS previous_category_id " +
+            "FROM audio_fingerprints fp JOIN audio_files f ON f.id = fp.audio_file_id, source s " +
+            "WHERE fp.cluster_id = ? AND fp.audio_file_id <> s.audio_file_id " +
+            "AND (fp.labelled_from IS NOT NULL OR f.current_category_id = " + UNCLASSIFIED_CATEGORY + ") " +
+            "AND (fp.labelled_from IS DISTINCT FROM s.audio_file_id " +
+            "OR f.current_category_id IS DISTINCT FROM s.current_category_id) " +
+            "AND NOT EXISTS (SELECT 1 FROM file_leases l WHERE l.audio_file_id = f.id AND l.expires_at > LOCALTIMESTAMP) " +
+            "ORDER BY f.id FOR UPDATE OF fp, f SKIP LOCKED), " +
+            "labelled AS (" +
+            "UPDATE audio_files f SET current_category_id = s.current_category_id, " +
+            "version = COALESCE(f.version, 0) + 1 FROM members m, source s WHERE f.id = m.id " +
+            "RETURNING f.id, m.previous_category_id, f.current_category_id, s.audio_file_id) " +
+            "UPDATE audio_fingerprints fp SET labelled_from = l.audio_file_id " +
+            "FROM labelled l WHERE fp.audio_file_id = l.id " +
+            "RETURNING l.id, l.previous_category_id, l.current_category_id, l.audio_file_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Serialize clustering across application instances until the surrounding transaction ends.
+     * Statements of the transaction give up on row locks after a short wait, so clustering never
+     * holds up reviewers for long.
+     *
+     * @param key the advisory lock key
+     */
+    public void lockClusters(long key) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '500ms'");
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {
+        }, key);
+    }
+
+    /**
+     * @param fileId the audio file ID
+     * @return the storage path of the file, empty if it was deleted
+     */
+    public Optional<String> findFilePath(long fileId) {
+        return jdbcTemplate.queryForList("SELECT filepath FROM audio_files WHERE id = ?", String.class, fileId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Store the fingerprint of a file unless it already has one.
+     *
+     * @param fileId        the audio file ID
+     * @param fingerprint   the fingerprint, or null if the audio could not be decoded
+     * @param durationMs    length of the fingerprinted audio
+     * @param clusterId     the cluster the file joins
+     * @param matchedFileId the closest duplicate, if any
+     * @param similarity    share of landmarks matched with it
+     * @return the sequence number of the new row, empty if the file already had a fingerprint
+     */
+    public Optional<Long> insert(long fileId, Fingerprint fingerprint, long durationMs, long clusterId,
+                                 Long matchedFileId, Double similarity) {
+        List<Long> seqs = jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("INSERT INTO audio_fingerprints (audio_file_id, duration_ms, " +
+                    "landmark_count, landmarks, cluster_id, matched_file_id, similarity, fingerprinted_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, LOCALTIMESTAMP) ON CONFLICT (audio_file_id) DO NOTHING RETURNING seq");
+            statement.setLong(1, fileId);
+            statement.setLong(2, durationMs);
+            statement.setInt(3, fingerprint != null ? fingerprint.size() : 0);
+            statement.setBytes(4, fingerprint != null ? fingerprint.toBytes() : null);
+            statement.setLong(5, clusterId);
+            statement.setObject(6, matchedFileId, Types.BIGINT);
+            statement.setObject(7, similarity, Types.REAL);
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1));
+        return seqs.stream().findFirst();
+    }
+
+    /**
+     * @return the highest sequence number handed out to a stored row, 0 if there are none
+     */
+    public long findMaxSeq() {
+        Long seq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM audio_fingerprints", Long.class);
+        return seq != null ? seq : 0;
+    }
+
+    public long countIndexed() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM audio_fingerprints WHERE landmarks IS NOT NULL", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Decodable fingerprints stored after a sequence number, to catch the index up.
+     *
+     * @param afterSeq last sequence number already indexed
+     * @param limit    maximum number of rows
+     * @return fingerprints ordered by sequence number
+     */
+    public List<IndexedFingerprint> findSince(long afterSeq, int limit) {
+        return jdbcTemplate.query("SELECT audio_file_id, seq, landmarks, duration_ms FROM audio_fingerprints " +
+                        "WHERE seq > ? AND landmarks IS NOT NULL ORDER BY seq LIMIT ?",
+                (rs, rowNum) -> indexed(rs), afterSeq, limit);
+    }
+
+    /**
+     * Stream every decodable fingerprint, to rebuild the index. Must be called inside a
+     * transaction, so the rows are fetched through a cursor instead of all at once.
+     *
+     * @param consumer receives the fingerprints ordered by sequence number
+     */
+    public void forEachIndexed(Consumer<IndexedFingerprint> consumer) {
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("SELECT audio_file_id, seq, landmarks, duration_ms " +
+                    "FROM audio_fingerprints WHERE landmarks IS NOT NULL ORDER BY seq");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            consumer.accept(indexed(rs));
+        });
+    }
+
+    /**
+     * Fingerprints of the given files, to verify index candidates. Files that were deleted or
+     * could not be decoded are left out.
+     *
+     * @param fileIds the audio file IDs
+     * @return the fingerprints with their clusters
+     */
+    public List<ClusteredFingerprint> findByFileIds(List<Long> fileIds) {
+        return jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("SELECT audio_file_id, cluster_id, landmarks, duration_ms " +
+                    "FROM audio_fingerprints WHERE audio_file_id = ANY(?) AND landmarks IS NOT NULL");
+            statement.setArray(1, con.createArrayOf("bigint", fileIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> new ClusteredFingerprint(rs.getLong(1), rs.getLong(2),
+                Fingerprint.fromBytes(rs.getBytes(3), rs.getLong(4))));
+    }
+
+    /**
+     * Move every file of the given clusters into another one.
+     *
+     * @param clusterIds the clusters to merge
+     * @param into       the cluster they join
+     * @return number of moved files
+     */
+    public int mergeClusters(List<Long> clusterIds, long into) {
+        return jdbcTemplate.update(con -> {
+            var statement = con.prepareStatement("UPDATE audio_fingerprints SET cluster_id = ? " +
+                    "WHERE cluster_id = ANY(?) AND cluster_id <> ?");
+            statement.setLong(1, into);
+            statement.setArray(2, con.createArrayOf("bigint", clusterIds.toArray()));
+            statement.setLong(3, into);
+            return statement;
+        });
+    }
+
+    /**
+     * Files that have not been fingerprinted yet.
+     *
+     * @param afterId only files with a higher ID, to page through the table
+     * @param limit   maximum number of files
+     * @return audio file IDs in ascending order
+     */
+    public List<Long> findFilesWithoutFingerprint(long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT f.id FROM audio_files f WHERE f.id > ? " +
+                "AND NOT EXISTS (SELECT 1 FROM audio_fingerprints fp WHERE fp.audio_file_id = f.id) " +
+                "ORDER BY f.id LIMIT ?", Long.class, afterId, limit);
+    }
+
+    /**
+     * Record that a human labelled the given files, so their labels are kept and copied to
+     * their duplicates.
+     *
+     * @param fileIds the audio file IDs
+     * @return clusters of the files that have been fingerprinted
+     */
+    public List<Long> markLabelled(List<Long> fileIds) {
+        return jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("UPDATE audio_fingerprints SET labelled_from = NULL, " +
+                    "labelled_at = LOCALTIMESTAMP WHERE audio_file_id = ANY(?) RETURNING cluster_id");
+            statement.setArray(1, con.createArrayOf("bigint", fileIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1)).stream().distinct().toList();
+    }
+
+    /**
+     * Copy the latest human label of a cluster to its unclassified members and to the members
+     * that got their label from a duplicate. Bumps the version of every relabelled file. The
+     * change is flagged for the rest of the transaction, so the category analytics triggers do
+     * not count it as a reviewer decision (see {@code V11__Mark_copied_duplicate_labels.sql}).
+     *
+     * @param clusterId the cluster
+     * @return the relabelled files
+     */
+    public List<CopiedLabel> settleCluster(long clusterId) {
+        jdbcTemplate.execute("SET LOCAL audio_review.label_source = 'duplicate'");
+        return jdbcTemplate.query(SETTLE_CLUSTER, (rs, rowNum) -> new CopiedLabel(rs.getLong(1),
+                rs.getObject(2, Long.class), rs.getLong(3), rs.getLong(4)), clusterId, clusterId);
+    }
+
+    /**
+     * @param fileId the audio file ID
+     * @return the cluster of the file, empty if it has not been fingerprinted
+     */
+    public Optional<Long> findClusterId(long fileId) {
+        return jdbcTemplate.queryForList("SELECT cluster_id FROM audio_fingerprints WHERE audio_file_id = ?",
+                Long.class, fileId).stream().findFirst();
+    }
+
+    /**
+     * Clusters with more than one file, most recently formed first.
+     *
+     * @param limit  page size
+     * @param offset rows to skip
+     * @return the clusters with their file counts
+     */
+    public List<DuplicateClusterResponse> findClusters(int limit, long offset) {
+        return jdbcTemplate.query("SELECT cluster_id, count(*), count(labelled_from), MAX(fingerprinted_at) " +
+                        "FROM audio_fingerprints GROUP BY cluster_id HAVING count(*) > 1 " +
+                        "ORDER BY MAX(fingerprinted_at) DESC, cluster_id DESC LIMIT ? OFFSET ?",
+                (rs, rowNum) -> new DuplicateClusterResponse(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rs.getTimestamp(4).toLocalDateTime()),
+                limit, offset);
+    }
+
+    public long countClusters() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM (SELECT 1 FROM audio_fingerprints " +
+                "GROUP BY cluster_id HAVING count(*) > 1) clusters", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * @param clusterId the cluster
+     * @return its files, oldest first
+     */
+    public List<DuplicateFileResponse> findClusterMembers(long clusterId) {
+        return jdbcTemplate.query("SELECT f.id, f.filename, c.name, fp.duration_ms, fp.landmark_count, " +
+                        "fp.matched_file_id, fp.similarity, fp.labelled_from, fp.labelled_at, fp.fingerprinted_at " +
+                        "FROM audio_fingerprints fp JOIN audio_files f ON f.id = fp.audio_file_id " +
+                        "LEFT JOIN categories c ON c.id = f.current_category_id " +
+                        "WHERE fp.cluster_id = ? ORDER BY f.id",
+                (rs, rowNum) -> DuplicateFileResponse.builder()
+                        .fileId(rs.getLong(1))
+                        .filename(rs.getString(2))
+                        .currentCategory(rs.getString(3))
+                        .durationMs(rs.getLong(4))
+                        .landmarks(rs.getInt(5))
+                        .matchedFileId(rs.getObject(6, Long.class))
+                        .similarity(rs.getObject(7, Float.class))
+                        .labelledFrom(rs.getObject(8, Long.class))
+                        .labelledAt(toLocalDateTime(rs.getTimestamp(9)))
+                        .fingerprintedAt(rs.getTimestamp(10).toLocalDateTime())
+                        .build(),
+                clusterId);
+    }
+
+    private static IndexedFingerprint indexed(ResultSet rs) throws SQLException {
+        return new IndexedFingerprint(rs.getLong(1), rs.getLong(2), Fingerprint.fromBytes(rs.getBytes(3), rs.getLong(4)));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    public record IndexedFingerprint(long fileId, long seq, Fingerprint fingerprint) {
+    }
+
+    public record ClusteredFingerprint(long fileId, long clusterId, Fingerprint fingerprint) {
+    }
+
+    public record CopiedLabel(long fileId, Long previousCategoryId, long newCategoryId, long sourceFileId) {
+    }
+}
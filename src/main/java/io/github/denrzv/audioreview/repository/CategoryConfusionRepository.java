@@ -0,0 +1,64 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.dto.CategoryDecisionCount;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads the category confusion counts maintained by triggers on {@code audio_files}
+ * (see {@code V8__Add_category_confusion_matrix.sql}). Both tables hold at most one row per
+ * category pair (and day), so these reads do not depend on the number of files.
+ */
+@Repository
+@AllArgsConstructor
+public class CategoryConfusionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Files per (initial, current) category pair.
+     *
+     * @return cells with files; the current category is null for files without one
+     */
+    public List<ConfusionCell> findCells() {
+        return jdbcTemplate.query("SELECT ic.name, cc.name, m.file_count FROM category_confusion m " +
+                        "JOIN categories ic ON ic.id = m.initial_category_id " +
+                        "LEFT JOIN categories cc ON cc.id = m.current_category_id " +
+                        "WHERE m.file_count > 0",
+                (rs, rowNum) -> new ConfusionCell(rs.getString(1), rs.getString(2), rs.getLong(3)));
+    }
+
+    /**
+     * Changes of the current category per day.
+     *
+     * @param from first day, inclusive
+     * @param to   last day, inclusive
+     * @return counts ordered by day
+     */
+    public List<CategoryDecisionCount> findDecisions(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT d.day, ic.name, nc.name, d.decision_count FROM category_decisions_daily d " +
+                        "JOIN categories ic ON ic.id = d.initial_category_id " +
+                        "JOIN categories nc ON nc.id = d.new_category_id " +
+                        "WHERE d.day BETWEEN ? AND ? ORDER BY d.day, ic.name, nc.name",
+                (rs, rowNum) -> new CategoryDecisionCount(rs.getDate(1).toLocalDate(), rs.getString(2),
+                        rs.getString(3), rs.getLong(4)),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Recompute all counts from {@code audio_files} and {@code classifications}. Blocks writers of
+     * {@code audio_files} until the surrounding transaction ends.
+     */
+    public void rebuild() {
+        jdbcTemplate.query("SELECT rebuild_category_confusion()", rs -> {
+        });
+    }
+
+    public record ConfusionCell(String initialCategory, String currentCategory, long files) {
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.model.Category;
+
+import java.util.Optional;
+
+/**
+ * Looks categories up by their natural ID, so repeated lookups are answered by the second-level
+ * cache instead of a query.
+ */
+public interface CategoryNaturalIdRepository {
+
+    /**
+     * Find a category by its exact name.
+     *
+     * @param name the category name
+     * @return Optional containing the Category if found
+     */
+    Optional<Category> findByName(String name);
+}
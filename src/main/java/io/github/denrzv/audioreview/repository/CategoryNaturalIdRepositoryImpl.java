@@ -0,0 +1,22 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class CategoryNaturalIdRepositoryImpl implements CategoryNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The session must stay open for the lookup, also when the caller has no transaction
+    @Override
+    @Transactional
+    public Optional<Category> findByName(String name) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Category.class).loadOptional(name);
+    }
+}
@@ -1,15 +1,18 @@
 package io.github.denrzv.audioreview.repository;
 
 import io.github.denrzv.audioreview.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryNaturalIdRepository {
     
     /**
      * Find a category by its name.
@@ -17,6 +20,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @param name the category name
      * @return Optional containing the Category if found
      */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Category> findByNameEqualsIgnoreCase(String name);
 
     boolean existsByName(String name);
@@ -29,8 +33,16 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      */
     boolean existsByShortcut(String shortcut);
 
-    Optional<Category> findByName(String currentCategory);
+    /**
+     * Find a category by its keyboard shortcut.
+     *
+     * @param shortcut the category shortcut
+     * @return Optional containing the Category if found
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<Category> findByShortcutIgnoreCase(String shortcut);
 
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT c FROM Category c WHERE LOWER(REPLACE(c.name, ' ', '')) = LOWER(REPLACE(:name, ' ', ''))")
     Optional<Category> findByNormalizedCategoryName(@Param("name") String name);
 }
\ No newline at end of file
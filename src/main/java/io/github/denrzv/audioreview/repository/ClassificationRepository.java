@@ -7,7 +7,20 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface ClassificationRepository extends JpaRepository<Classification, Long> {
     Page<Classification> findByUserOrderByClassifiedAtDesc(User user, Pageable pageable);
+
+    /**
+     * Page through a user's history starting from the given time, so that only the partitions
+     * covering that range are scanned.
+     *
+     * @param user     the reviewer
+     * @param since    the lower bound of classifiedAt
+     * @param pageable the page request
+     * @return page of classifications, newest first
+     */
+    Page<Classification> findByUserAndClassifiedAtGreaterThanEqualOrderByClassifiedAtDesc(User user, LocalDateTime since, Pageable pageable);
 }
\ No newline at end of file
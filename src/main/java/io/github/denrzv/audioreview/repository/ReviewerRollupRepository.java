@@ -0,0 +1,75 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.journal.LabelTimeHistogram;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Granularity;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads the per-reviewer rollups maintained by the classification journal writer
+ * (see {@code V9__Add_reviewer_rollups.sql}). Reads scale with the number of buckets in the
+ * range, never with the number of classifications.
+ */
+@Repository
+@AllArgsConstructor
+public class ReviewerRollupRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Totals per reviewer over a range of buckets, most labels first.
+     *
+     * @param granularity bucket size to read
+     * @param from        first bucket start, inclusive
+     * @param to          last bucket start, exclusive
+     * @param limit       maximum number of reviewers
+     * @return totals without a bucket start
+     */
+    public List<RollupTotals> findTotalsPerReviewer(Granularity granularity, LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.query("SELECT u.username, NULL, count(*), sum(r.labels), sum(r.timed_labels), " +
+                        "sum(r.label_time_ms), sum(r.idle_ms), sum_histograms(r.label_time_histogram) " +
+                        "FROM reviewer_rollups r JOIN users u ON u.id = r.user_id " +
+                        "WHERE r.granularity = ? AND r.bucket_start >= ? AND r.bucket_start < ? " +
+                        "GROUP BY u.username ORDER BY sum(r.labels) DESC, u.username LIMIT ?",
+                ReviewerRollupRepository::mapTotals,
+                granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+
+    /**
+     * One reviewer's buckets in a range, oldest first. Buckets without labels are absent.
+     *
+     * @param userId      the reviewer
+     * @param granularity bucket size to read
+     * @param from        first bucket start, inclusive
+     * @param to          last bucket start, exclusive
+     * @return totals per bucket
+     */
+    public List<RollupTotals> findBuckets(long userId, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT NULL, r.bucket_start, 1, r.labels, r.timed_labels, r.label_time_ms, " +
+                        "r.idle_ms, r.label_time_histogram FROM reviewer_rollups r " +
+                        "WHERE r.user_id = ? AND r.granularity = ? AND r.bucket_start >= ? AND r.bucket_start < ? " +
+                        "ORDER BY r.bucket_start",
+                ReviewerRollupRepository::mapTotals,
+                userId, granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private static RollupTotals mapTotals(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp bucketStart = rs.getTimestamp(2);
+        Array histogram = rs.getArray(8);
+        return new RollupTotals(rs.getString(1), bucketStart != null ? bucketStart.toLocalDateTime() : null,
+                rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getLong(7),
+                LabelTimeHistogram.of(histogram != null ? (Long[]) histogram.getArray() : null));
+    }
+
+    public record RollupTotals(String username, LocalDateTime bucketStart, long buckets, long labels, long timedLabels,
+                               long labelTimeMs, long idleMs, LabelTimeHistogram histogram) {
+    }
+}
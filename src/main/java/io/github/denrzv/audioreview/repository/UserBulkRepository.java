@@ -0,0 +1,59 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.model.User;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based statements over {@code users} for provisioning many accounts at once.
+ * Values are bound as array parameters, so one statement covers a whole batch.
+ */
+@Repository
+@AllArgsConstructor
+public class UserBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param usernames the usernames to look up
+     * @return those of the usernames that are already taken
+     */
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("SELECT username FROM users WHERE username = ANY(?)");
+            statement.setArray(1, con.createArrayOf("varchar", usernames.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+
+    /**
+     * Insert the given users in one statement, skipping usernames taken in the meantime.
+     *
+     * @param users users with encoded passwords
+     * @return usernames of the inserted users
+     */
+    public Set<String> insertSkippingExisting(List<User> users) {
+        if (users.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("INSERT INTO users (username, password, role, active) " +
+                    "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::boolean[]) " +
+                    "ON CONFLICT (username) DO NOTHING RETURNING username");
+            statement.setArray(1, con.createArrayOf("varchar", users.stream().map(User::getUsername).toArray()));
+            statement.setArray(2, con.createArrayOf("varchar", users.stream().map(User::getPassword).toArray()));
+            statement.setArray(3, con.createArrayOf("varchar", users.stream().map(user -> user.getRole().name()).toArray()));
+            statement.setArray(4, con.createArrayOf("boolean", users.stream().map(User::isActive).toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.denrzv.audioreview.repository;
+
+import io.github.denrzv.audioreview.model.User;
+
+import java.util.Optional;
+
+/**
+ * Looks users up by their natural ID, so repeated lookups are answered by the second-level cache
+ * instead of a query.
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Find user by username.
+     *
+     * @param username the username
+     * @return Optional containing the User if found
+     */
+    Optional<User> findByUsername(String username);
+}
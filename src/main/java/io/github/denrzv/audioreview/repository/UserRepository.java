@@ -4,18 +4,8 @@ import io.github.denrzv.audioreview.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    /**
-     * Find user by username.
-     *
-     * @param username the username
-     * @return Optional containing the User if found
-     */
-    Optional<User> findByUsername(String username);
-
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
     /**
      * Check if a username already exists.
      *
@@ -0,0 +1,48 @@
+package io.github.denrzv.audioreview.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt with a configurable cost, hashing on the {@link PasswordHashingExecutor} pool.
+ * <p>
+ * Hashes of any other cost report {@link #upgradeEncoding}, so {@code DaoAuthenticationProvider}
+ * rehashes the password on the next successful login. This works in both directions: raising the
+ * cost hardens stored hashes, lowering it makes the next login storm cheaper.
+ */
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    public BoundedBCryptPasswordEncoder(int strength, PasswordHashingExecutor passwordHashingExecutor) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingExecutor.execute("encode", () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingExecutor.execute("verify", () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
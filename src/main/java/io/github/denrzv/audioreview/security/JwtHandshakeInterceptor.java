@@ -0,0 +1,77 @@
+package io.github.denrzv.audioreview.security;
+
+import io.github.denrzv.audioreview.model.User;
+import io.github.denrzv.audioreview.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Authenticates the WebSocket handshake once with the same JWT used by the REST API.
+ * Browsers cannot set headers on a WebSocket upgrade, so the token may also be passed as the {@code token} query parameter.
+ */
+@Component
+@AllArgsConstructor
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USER_ID_ATTRIBUTE = "userId";
+    public static final String USERNAME_ATTRIBUTE = "username";
+
+    private JwtUtils jwtUtils;
+
+    private UserRepository userRepository;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String jwt = parseJwt(request);
+        if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        Optional<User> user = userRepository.findByUsername(jwtUtils.getUserNameFromJwtToken(jwt))
+                .filter(User::isActive);
+        if (user.isEmpty()) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        attributes.put(USER_ID_ATTRIBUTE, user.get().getId());
+        attributes.put(USERNAME_ATTRIBUTE, user.get().getUsername());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+        // Nothing to do after the handshake
+    }
+
+    /**
+     * Extract JWT token from the Authorization header or the token query parameter.
+     *
+     * @param request the handshake request
+     * @return JWT token or null if not found
+     */
+    private String parseJwt(ServerHttpRequest request) {
+        String headerAuth = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
+            return headerAuth.substring(7);
+        }
+
+        return UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams()
+                .getFirst("token");
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.denrzv.audioreview.security;
+
+import io.github.denrzv.audioreview.exception.AuthenticationOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool instead of the request threads.
+ * At shift start hundreds of reviewers log in at once; with BCrypt on the Tomcat threads every API
+ * thread ends up hashing and classification requests stall behind the logins.
+ * <p>
+ * The pool is bounded twice: requests beyond the queue capacity are shed immediately with 429, and
+ * callers whose queued work did not finish within {@code max-wait-ms} give up with 503, so at most
+ * {@code threads + queue-capacity} request threads ever wait for a hash.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueTimer;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${app.password-hashing.threads}") int threads,
+                                   @Value("${app.password-hashing.queue-capacity}") int queueCapacity,
+                                   @Value("${app.password-hashing.max-wait-ms}") long maxWaitMs,
+                                   @Value("${app.password-hashing.retry-after-seconds}") long retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("auth.password.queue")
+                .description("Time password hashing work waited for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashing requests waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently hashing or verifying a password")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run hashing work on the pool and wait for its result.
+     *
+     * @param operation {@code verify} or {@code encode}, used as a tag
+     * @param hashing   the hashing work
+     * @return the result of the work
+     * @throws AuthenticationOverloadedException if the queue is full (429) or the work did not
+     *                                           complete within the maximum wait (503)
+     */
+    public <T> T execute(String operation, Supplier<T> hashing) {
+        Timer hashingTimer = Timer.builder("auth.password.hashing")
+                .description("Time to hash or verify a password on a hashing thread")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashingTimer.record(hashing);
+            });
+        } catch (RejectedExecutionException ex) {
+            throw reject("queue_full", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        try {
+            return result.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // A cancelled task still queued is skipped when its turn comes
+            result.cancel(false);
+            throw reject("timeout", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.cancel(false);
+            throw reject("interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private AuthenticationOverloadedException reject(String reason, HttpStatus status) {
+        Counter.builder("auth.password.rejected")
+                .description("Logins shed because password hashing was saturated")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.debug("Password hashing rejected ({}), {} queued", reason, executor.getQueue().size());
+        return new AuthenticationOverloadedException(status, retryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,19 +1,52 @@
 package io.github.denrzv.audioreview.security;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.denrzv.audioreview.event.ClusterEventBus;
+import io.github.denrzv.audioreview.event.ResyncRequiredEvent;
+import io.github.denrzv.audioreview.event.UserChangedEvent;
 import io.github.denrzv.audioreview.model.User;
 import io.github.denrzv.audioreview.repository.UserRepository;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads users for authentication. Every authenticated request resolves its user, so loaded users
+ * are cached and evicted on {@link UserChangedEvent}s from this or any other node.
+ * <p>
+ * Also stores passwords rehashed on login after the configured BCrypt cost changed.
+ */
 @Service
-@AllArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+    private final ClusterEventBus clusterEventBus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<String, UserDetails> users;
 
-    private UserRepository userRepository;
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  ClusterEventBus clusterEventBus,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.cluster-events.cache-ttl-ms}") long cacheTtlMs,
+                                  @Value("${app.cluster-events.user-cache-size}") long userCacheSize) {
+        this.userRepository = userRepository;
+        this.clusterEventBus = clusterEventBus;
+        this.eventPublisher = eventPublisher;
+        this.users = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+                .maximumSize(userCacheSize)
+                .build();
+    }
 
     /**
      * Load user by username.
@@ -25,9 +58,46 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = users.getIfPresent(username);
+        if (cached != null && clusterEventBus.isSynchronized()) {
+            return cached;
+        }
+
         User user = userRepository.findByUsername(username)
                         .orElseThrow(() -> 
                             new UsernameNotFoundException("User Not Found with username: " + username));
-        return UserDetailsImpl.build(user);
+        UserDetails userDetails = UserDetailsImpl.build(user);
+        if (clusterEventBus.isSynchronized()) {
+            users.put(username, userDetails);
+        }
+        return userDetails;
+    }
+
+    /**
+     * Store a password rehashed with the current BCrypt cost.
+     *
+     * @param user        the user who just logged in
+     * @param newPassword the new password hash
+     * @return the user with the new hash
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        userRepository.save(entity);
+        eventPublisher.publishEvent(new UserChangedEvent(entity.getUsername()));
+        return UserDetailsImpl.build(entity);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        users.invalidate(event.getUsername());
+    }
+
+    @EventListener
+    public void onResyncRequired(ResyncRequiredEvent event) {
+        users.invalidateAll();
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,11 @@
 package io.github.denrzv.audioreview.security;
 
 import io.github.denrzv.audioreview.config.AppConfig;
+import io.github.denrzv.audioreview.ratelimit.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,7 +15,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -27,18 +31,22 @@ public class WebSecurityConfig {
 
     private UserDetailsServiceImpl userDetailsService;
     private AuthTokenFilter authTokenFilter;
+    private RateLimitFilter rateLimitFilter;
     private AppConfig appConfig;
 
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           @Value("${app.password-hashing.bcrypt-strength}") int strength) {
+        return new BoundedBCryptPasswordEncoder(strength, passwordHashingExecutor);
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Rehash on login when the configured BCrypt cost changed
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -48,20 +56,29 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider,
+                                           @Value("${management.server.port}") int managementPort) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Async dispatches of already authorized requests (SSE streams)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/admin/audio/files/**").permitAll()
 
+                        // Reviewer WebSocket channel authenticates the JWT once during the handshake
+                        .requestMatchers("/ws/**").permitAll()
+
                         // Allow both USER and ADMIN roles to access the stats endpoint
-                        .requestMatchers("/admin/audio/stats").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers("/admin/audio/stats", "/admin/audio/stats/stream").hasAnyRole("USER", "ADMIN")
 
                         // Allow actuator health and info endpoints to be accessed without authentication
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        // Prometheus scrapes without a JWT, but only on the internal management port
+                        .requestMatchers(request -> request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
 
                         // General actuator access for admin
                         .requestMatchers("/actuator/**").hasAnyRole("ADMIN")
@@ -71,12 +88,23 @@ public class WebSecurityConfig {
                         .requestMatchers("/user/**").hasRole("USER")
                         .anyRequest().authenticated()
                 )
-                .authenticationProvider(authenticationProvider())
-                .addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
+                .authenticationProvider(authenticationProvider)
+                .addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, AuthTokenFilter.class);
 
         return http.build();
     }
 
+    /**
+     * The rate limit filter runs in the security filter chain only, where the user is known.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
@@ -1,14 +1,19 @@
 package io.github.denrzv.audioreview.service;
 
 import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.event.AudioFilesChangedEvent;
+import io.github.denrzv.audioreview.fingerprint.DuplicateDetector;
 import io.github.denrzv.audioreview.model.AudioFile;
 import io.github.denrzv.audioreview.model.Category;
 import io.github.denrzv.audioreview.model.User;
+import io.github.denrzv.audioreview.repository.AudioFileBulkRepository;
 import io.github.denrzv.audioreview.repository.AudioFileRepository;
 import io.github.denrzv.audioreview.repository.CategoryRepository;
 import io.github.denrzv.audioreview.repository.UserRepository;
+import io.micrometer.observation.annotation.Observed;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,21 +28,31 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Observed(name = "service.method")
 @AllArgsConstructor
 @Slf4j
 public class AudioFileService {
 
     private final AudioFileRepository audioFileRepository;
+    private final AudioFileBulkRepository audioFileBulkRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
     private final CategoryService categoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StorageReclaimer storageReclaimer;
+    private final ReviewMetrics reviewMetrics;
+    private final DuplicateDetector duplicateDetector;
     private static final String CATEGORY_NOT_FOUND = "Category not found";
     private static final String FILE_NOT_FOUND = "File not found";
     private static final String UNCLASSIFIED = "Unclassified";
 
     @Transactional
     public AudioFileResponse uploadFile(MultipartFile file) {
+        return reviewMetrics.timeUpload(file.getSize(), () -> storeAndRegister(file));
+    }
+
+    private AudioFileResponse storeAndRegister(MultipartFile file) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -51,11 +66,12 @@ public class AudioFileService {
         Category unclassifiedCategory = categoryRepository.findByNameEqualsIgnoreCase(UNCLASSIFIED)
                 .orElseThrow(() -> new RuntimeException("Unclassified category not found"));
 
-        String filePath = fileStorageService.storeFile(file);
+        StoredFile storedFile = fileStorageService.storeFile(file);
 
         AudioFile audioFile = AudioFile.builder()
                 .filename(file.getOriginalFilename())
-                .filepath(filePath)
+                .filepath(storedFile.getPath())
+                .checksum(storedFile.getChecksum())
                 .initialCategory(initialCategory)
                 .currentCategory(unclassifiedCategory)
                 .uploadedBy(user)
@@ -63,6 +79,8 @@ public class AudioFileService {
                 .build();
 
         AudioFile savedFile = audioFileRepository.save(audioFile);
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.UPLOADED));
+        duplicateDetector.submitAfterCommit(savedFile.getId());
 
         return new AudioFileResponse(
                 savedFile.getId(),
@@ -74,11 +92,18 @@ public class AudioFileService {
         );
     }
 
+    /**
+     * Look up a file to serve. Reads from the primary: audio is fetched anonymously, so no
+     * read-your-writes window applies, and a file leased right after its upload may not have
+     * reached the replica yet.
+     */
+    @Transactional
     public AudioFile getFileByFilename(String filename) {
         return audioFileRepository.findByFilename(filename)
                 .orElseThrow(() -> new RuntimeException("File not found with filename: " + filename));
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getAllFiles(int page, int pageSize, String filename) {
         PageRequest pageable = PageRequest.of(page, pageSize);
         Page<AudioFile> pagedFiles;
@@ -108,6 +133,7 @@ public class AudioFileService {
         return response;
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getDashboardStats() {
         long totalFiles = audioFileRepository.count();
 
@@ -150,12 +176,13 @@ public class AudioFileService {
 
     @Transactional
     public void deleteFileById(Long id) {
-        audioFileRepository.deleteById(id);
+        storageReclaimer.reclaimAfterCommit(audioFileBulkRepository.deleteByIdsReturningPaths(List.of(id)));
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.DELETED));
     }
 
     @Transactional
     public AudioFileResponse updateFileProperties(Long id, AudioFileResponse updatedFile) {
-        AudioFile file = audioFileRepository.findByIdWithLock(id)
+        AudioFile file = reviewMetrics.timeLockWait("update", () -> audioFileRepository.findByIdWithLock(id))
                 .orElseThrow(() -> new RuntimeException(FILE_NOT_FOUND));
 
         file.setFilename(updatedFile.getFilename());
@@ -166,7 +193,10 @@ public class AudioFileService {
 
         file.setCurrentCategory(category);
 
+        audioFileBulkRepository.markAdminEdits();
         audioFileRepository.save(file);
+        duplicateDetector.recordHumanLabels(List.of(id));
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.UPDATED));
 
         return new AudioFileResponse(
                 file.getId(),
@@ -181,25 +211,27 @@ public class AudioFileService {
 
     @Transactional
     public void deleteAllFiles() {
-        audioFileRepository.deleteAll();
+        storageReclaimer.reclaimAfterCommit(audioFileBulkRepository.truncateReturningPaths());
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.DELETED));
     }
 
     @Transactional
     public void deleteMultipleFiles(List<Long> fileIds) {
-        audioFileRepository.deleteAllById(fileIds);
+        storageReclaimer.reclaimAfterCommit(audioFileBulkRepository.deleteByIdsReturningPaths(fileIds));
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.DELETED));
     }
 
     @Transactional
     public void updateMultipleFiles(List<Long> fileIds, String currentCategoryName) {
         Category category = categoryRepository.findByNameEqualsIgnoreCase(currentCategoryName)
                 .orElseThrow(() -> new RuntimeException(CATEGORY_NOT_FOUND));
-        List<AudioFile> files = audioFileRepository.findAllById(fileIds);
-        for (AudioFile file : files) {
-            file.setCurrentCategory(category);
-        }
-        audioFileRepository.saveAll(files);
+        audioFileBulkRepository.markAdminEdits();
+        audioFileBulkRepository.updateCurrentCategory(fileIds, category.getId());
+        duplicateDetector.recordHumanLabels(fileIds);
+        eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.UPDATED));
     }
 
+    @Transactional(readOnly = true)
     public List<AudioFileResponse> getAllFilesWithoutPagination(String filename) {
         List<AudioFile> files;
         if (filename != null && !filename.isEmpty()) {
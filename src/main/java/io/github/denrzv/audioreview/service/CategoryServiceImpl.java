@@ -2,27 +2,48 @@ package io.github.denrzv.audioreview.service;
 
 import io.github.denrzv.audioreview.dto.CategoryRequest;
 import io.github.denrzv.audioreview.dto.CategoryResponse;
+import io.github.denrzv.audioreview.event.CategoriesChangedEvent;
+import io.github.denrzv.audioreview.event.ClusterEventBus;
+import io.github.denrzv.audioreview.event.ResyncRequiredEvent;
 import io.github.denrzv.audioreview.exception.ResourceAlreadyExistsException;
 import io.github.denrzv.audioreview.exception.ResourceNotFoundException;
 import io.github.denrzv.audioreview.model.Category;
 import io.github.denrzv.audioreview.repository.AudioFileRepository;
 import io.github.denrzv.audioreview.repository.CategoryRepository;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.List;
 
 @Service
-@AllArgsConstructor
 @Slf4j
 public class CategoryServiceImpl implements CategoryService {
     
-    private CategoryRepository categoryRepository;
-    private AudioFileRepository audioFileRepository;
+    private final CategoryRepository categoryRepository;
+    private final AudioFileRepository audioFileRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClusterEventBus clusterEventBus;
+    // Categories are read on every upload and rarely change, so they are cached until any node changes one
+    private final SingleFlight<List<CategoryResponse>> categories;
 
+    public CategoryServiceImpl(CategoryRepository categoryRepository,
+                               AudioFileRepository audioFileRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               ClusterEventBus clusterEventBus,
+                               @Value("${app.cluster-events.cache-ttl-ms}") long cacheTtlMs) {
+        this.categoryRepository = categoryRepository;
+        this.audioFileRepository = audioFileRepository;
+        this.eventPublisher = eventPublisher;
+        this.clusterEventBus = clusterEventBus;
+        this.categories = new SingleFlight<>(this::loadCategories, cacheTtlMs);
+    }
 
     /**
      * Create a new category with unique name and shortcut.
@@ -31,6 +52,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @return the created category response
      */
     @Override
+    @Transactional
     public CategoryResponse createCategory(CategoryRequest categoryRequest) {
         // Check if category name or shortcut already exists
         if (categoryRepository.existsByName(categoryRequest.getName())) {
@@ -48,6 +70,7 @@ public class CategoryServiceImpl implements CategoryService {
                 .build();
         
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoriesChangedEvent(savedCategory.getId()));
         
         return mapToResponse(savedCategory);
     }
@@ -58,11 +81,9 @@ public class CategoryServiceImpl implements CategoryService {
      * @return list of category responses
      */
     @Override
+    @Transactional(readOnly = true)
     public List<CategoryResponse> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
-        return categories.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return clusterEventBus.isSynchronized() ? categories.get() : loadCategories();
     }
     
     /**
@@ -72,6 +93,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @return the category response
      */
     @Override
+    @Transactional(readOnly = true)
     public CategoryResponse getCategoryById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category with ID " + id + " not found."));
@@ -86,6 +108,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @return the updated category response
      */
     @Override
+    @Transactional
     public CategoryResponse updateCategory(Long id, CategoryRequest categoryRequest) {
         log.info("Creating category with name: {} and shortcut: {}", categoryRequest.getName(), categoryRequest.getShortcut());
 
@@ -109,6 +132,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setShortcut(categoryRequest.getShortcut());
         
         Category updatedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoriesChangedEvent(updatedCategory.getId()));
         
         return mapToResponse(updatedCategory);
     }
@@ -119,6 +143,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param id the category ID
      */
     @Override
+    @Transactional
     public void deleteCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category with ID " + id + " not found."));
@@ -132,6 +157,23 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoriesChangedEvent(id));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChangedEvent event) {
+        categories.invalidate();
+    }
+
+    @EventListener
+    public void onResyncRequired(ResyncRequiredEvent event) {
+        categories.invalidate();
+    }
+
+    private List<CategoryResponse> loadCategories() {
+        return categoryRepository.findAll().stream()
+                .map(this::mapToResponse)
+                .toList();
     }
     
     /**
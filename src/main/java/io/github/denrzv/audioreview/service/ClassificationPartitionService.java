@@ -0,0 +1,355 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.config.AppConfig;
+import io.github.denrzv.audioreview.dto.ArchivedClassificationResponse;
+import io.github.denrzv.audioreview.exception.ResourceAlreadyExistsException;
+import io.github.denrzv.audioreview.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly partitions of the {@code classifications} table.
+ * Future partitions are created ahead of time; partitions older than the retention period
+ * are detached, exported to gzip-compressed CSV files and dropped. Exported months remain
+ * queryable through {@link #readArchive}.
+ * <p>
+ * Maintenance runs on one node at a time, under a Postgres advisory lock. Partitions are only
+ * archived when the archive directory is declared shared, so dropped months stay readable from
+ * every node and survive redeploying the one that exported them.
+ */
+@Service
+@Slf4j
+public class ClassificationPartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("classifications_y(\\d{4})m(\\d{2})");
+    private static final String ARCHIVE_SUFFIX = ".csv.gz";
+    private static final String CSV_HEADER = "id,user_id,audio_file_id,previous_category_id,new_category_id,classified_at,labelled_from";
+    private static final int EXPORT_FETCH_SIZE = 5000;
+    /**
+     * Advisory lock serializing partition maintenance across application instances.
+     */
+    private static final long MAINTENANCE_LOCK_KEY = 0x434C5350L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig appConfig;
+    private final Path archiveLocation;
+    private final int premakeMonths;
+    private final boolean archiveShared;
+
+    public ClassificationPartitionService(JdbcTemplate jdbcTemplate,
+                                          TransactionTemplate transactionTemplate,
+                                          AppConfig appConfig,
+                                          @Value("${app.classification-partitions.archive-dir}") String archiveDir,
+                                          @Value("${app.classification-partitions.premake-months}") int premakeMonths,
+                                          @Value("${app.classification-partitions.archive-shared}") boolean archiveShared) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.appConfig = appConfig;
+        this.archiveLocation = Paths.get(archiveDir).toAbsolutePath().normalize();
+        this.premakeMonths = premakeMonths;
+        this.archiveShared = archiveShared;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        scheduledMaintenance();
+    }
+
+    @Scheduled(cron = "${app.classification-partitions.maintenance-cron}")
+    public void scheduledMaintenance() {
+        try {
+            maintainPartitions();
+        } catch (ResourceAlreadyExistsException ex) {
+            log.info("Skipping partition maintenance, another node is running it");
+        }
+    }
+
+    /**
+     * Pre-create upcoming partitions and archive the ones past the retention period. Holds a
+     * session advisory lock on a connection of its own while it runs.
+     *
+     * @return the ensured and archived partition names
+     * @throws ResourceAlreadyExistsException if maintenance is running on any node
+     */
+    public Map<String, List<String>> maintainPartitions() {
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, List<String>>>) con -> {
+            try (var statement = con.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, MAINTENANCE_LOCK_KEY);
+                try (var rs = statement.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        throw new ResourceAlreadyExistsException("Partition maintenance is already running.");
+                    }
+                }
+            }
+            try {
+                return maintain();
+            } finally {
+                try (var statement = con.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    statement.setLong(1, MAINTENANCE_LOCK_KEY);
+                    statement.execute();
+                }
+            }
+        });
+    }
+
+    private Map<String, List<String>> maintain() {
+        List<String> created = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= premakeMonths; i++) {
+            created.add(jdbcTemplate.queryForObject("SELECT create_classifications_partition(?)", String.class,
+                    Date.valueOf(current.plusMonths(i).atDay(1))));
+        }
+
+        List<String> archived = new ArrayList<>();
+        YearMonth cutoff = current.minusMonths(appConfig.getClassificationRetentionMonths() - 1L);
+        if (!archiveShared) {
+            log.debug("Not archiving partitions before {}, the archive directory is not declared shared", cutoff);
+            return Map.of("ensured", created, "archived", archived);
+        }
+        reclaimLateRows(cutoff);
+        for (String partition : findPartitionTables()) {
+            YearMonth month = monthOf(partition);
+            if (month.isBefore(cutoff)) {
+                try {
+                    archivePartition(partition, month);
+                    archived.add(partition);
+                } catch (RuntimeException ex) {
+                    log.error("Could not archive partition {}, will retry on next run", partition, ex);
+                }
+            }
+        }
+
+        Map<String, List<String>> result = new HashMap<>();
+        result.put("ensured", created);
+        result.put("archived", archived);
+        return result;
+    }
+
+    /**
+     * List the months that have been archived.
+     *
+     * @return archived months, oldest first
+     */
+    public List<String> listArchives() {
+        if (!Files.isDirectory(archiveLocation)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(archiveLocation)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> PARTITION_NAME.matcher(name).lookingAt() && name.endsWith(ARCHIVE_SUFFIX))
+                    .map(name -> monthOf(name.substring(0, name.length() - ARCHIVE_SUFFIX.length())).toString())
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list classification archives", ex);
+        }
+    }
+
+    /**
+     * Scan an archived month, optionally filtered by user and audio file.
+     *
+     * @param month       the archived month, {@code yyyy-MM}
+     * @param userId      optional reviewer filter
+     * @param audioFileId optional audio file filter
+     * @param limit       maximum number of rows to return
+     * @return matching archived classifications
+     */
+    public List<ArchivedClassificationResponse> readArchive(String month, Long userId, Long audioFileId, int limit) {
+        YearMonth archivedMonth;
+        try {
+            archivedMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid month " + month + ", expected yyyy-MM");
+        }
+        Path archive = archiveLocation.resolve(partitionName(archivedMonth) + ARCHIVE_SUFFIX);
+        if (!Files.exists(archive)) {
+            throw new ResourceNotFoundException("No archived classifications for " + month);
+        }
+
+        List<ArchivedClassificationResponse> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while (result.size() < limit && (line = reader.readLine()) != null) {
+                String[] fields = line.split(",", -1);
+                ArchivedClassificationResponse row = new ArchivedClassificationResponse(
+                        Long.valueOf(fields[0]),
+                        fields[1].isEmpty() ? null : Long.valueOf(fields[1]),
+                        Long.valueOf(fields[2]),
+                        fields[3].isEmpty() ? null : Long.valueOf(fields[3]),
+                        Long.valueOf(fields[4]),
+                        LocalDateTime.parse(fields[5]),
+                        // Archives exported before copied labels were recorded have six columns
+                        fields.length > 6 && !fields[6].isEmpty() ? Long.valueOf(fields[6]) : null
+                );
+                if ((userId == null || userId.equals(row.getUserId()))
+                        && (audioFileId == null || audioFileId.equals(row.getAudioFileId()))) {
+                    result.add(row);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read classification archive " + month, ex);
+        }
+        return result;
+    }
+
+    /**
+     * Move rows of months past the retention period out of the default partition. They arrive there
+     * when the journal replays records of a month that was already archived; recreating the month's
+     * partition moves them into it, and the partition is then archived again, merged with the
+     * existing archive.
+     */
+    private void reclaimLateRows(YearMonth cutoff) {
+        List<Date> months = jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', classified_at)::DATE FROM classifications_default " +
+                        "WHERE classified_at < ?", Date.class, Date.valueOf(cutoff.atDay(1)));
+        for (Date month : months) {
+            String partition = jdbcTemplate.queryForObject("SELECT create_classifications_partition(?)", String.class, month);
+            log.warn("Found classifications of archived month {} in the default partition, moved them to {}",
+                    YearMonth.from(month.toLocalDate()), partition);
+        }
+    }
+
+    /**
+     * Detach, export and drop a single partition. A partition left detached by an interrupted
+     * run is picked up again, and the table is only dropped after the export was verified.
+     * An existing archive of the same month is merged into the new one.
+     */
+    private void archivePartition(String partition, YearMonth month) {
+        Boolean attached = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = to_regclass(?) " +
+                        "AND inhparent = 'classifications'::regclass)", Boolean.class, partition);
+        if (Boolean.TRUE.equals(attached)) {
+            jdbcTemplate.execute("ALTER TABLE classifications DETACH PARTITION " + partition);
+        }
+
+        Path archive = archiveLocation.resolve(partition + ARCHIVE_SUFFIX);
+        long exported = exportTable(partition, archive);
+        Long expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class);
+        if (expected == null || expected != exported) {
+            throw new IllegalStateException("Exported " + exported + " rows of " + partition + ", expected " + expected);
+        }
+
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        log.info("Archived classifications of {} ({} rows) to {}", month, exported, archive);
+    }
+
+    private long exportTable(String table, Path archive) {
+        AtomicLong rows = new AtomicLong();
+        try {
+            Files.createDirectories(archiveLocation);
+            Path tempFile = Files.createTempFile(archiveLocation, table, ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile)), StandardCharsets.UTF_8))) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+                if (Files.exists(archive)) {
+                    copyArchivedRows(table, archive, writer);
+                }
+
+                // A transaction is needed for the driver to stream rows through a cursor
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    var statement = con.prepareStatement("SELECT id, user_id, audio_file_id, previous_category_id, " +
+                            "new_category_id, classified_at, labelled_from FROM " + table + " ORDER BY classified_at");
+                    statement.setFetchSize(EXPORT_FETCH_SIZE);
+                    return statement;
+                }, rs -> {
+                    Long userId = rs.getObject("user_id", Long.class);
+                    Long previousCategoryId = rs.getObject("previous_category_id", Long.class);
+                    Long labelledFrom = rs.getObject("labelled_from", Long.class);
+                    String line = rs.getLong("id") + "," + (userId != null ? userId : "") + ","
+                            + rs.getLong("audio_file_id") + ","
+                            + (previousCategoryId != null ? previousCategoryId : "") + ","
+                            + rs.getLong("new_category_id") + ","
+                            + rs.getTimestamp("classified_at").toLocalDateTime() + ","
+                            + (labelledFrom != null ? labelledFrom : "");
+                    try {
+                        writer.write(line);
+                        writer.newLine();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    rows.incrementAndGet();
+                }));
+            }
+            Files.move(tempFile, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not export " + table, ex);
+        }
+        return rows.get();
+    }
+
+    /**
+     * Copy the rows of an earlier archive of the same month, leaving out the ones that are
+     * still in the table because a previous run stopped before dropping it.
+     */
+    private void copyArchivedRows(String table, Path archive, BufferedWriter writer) throws IOException {
+        Set<Long> pending = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM " + table, Long.class));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!pending.contains(Long.valueOf(line.substring(0, line.indexOf(','))))) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private List<String> findPartitionTables() {
+        return jdbcTemplate.queryForList(
+                "SELECT tablename FROM pg_tables WHERE schemaname = current_schema() " +
+                        "AND tablename ~ '^classifications_y[0-9]{4}m[0-9]{2}$' ORDER BY tablename", String.class);
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.lookingAt()) {
+            throw new IllegalArgumentException("Not a classifications partition: " + partitionName);
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("classifications_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+}
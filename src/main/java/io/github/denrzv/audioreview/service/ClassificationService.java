@@ -4,6 +4,10 @@ import io.github.denrzv.audioreview.config.AppConfig;
 import io.github.denrzv.audioreview.dto.AudioFileResponse;
 import io.github.denrzv.audioreview.dto.ClassificationRequest;
 import io.github.denrzv.audioreview.dto.ClassificationResponse;
+import io.github.denrzv.audioreview.event.AudioFilesChangedEvent;
+import io.github.denrzv.audioreview.fingerprint.DuplicateDetector;
+import io.github.denrzv.audioreview.journal.ClassificationJournal;
+import io.github.denrzv.audioreview.journal.ClassificationRecord;
 import io.github.denrzv.audioreview.model.AudioFile;
 import io.github.denrzv.audioreview.model.Category;
 import io.github.denrzv.audioreview.model.Classification;
@@ -12,8 +16,10 @@ import io.github.denrzv.audioreview.repository.AudioFileRepository;
 import io.github.denrzv.audioreview.repository.CategoryRepository;
 import io.github.denrzv.audioreview.repository.ClassificationRepository;
 import io.github.denrzv.audioreview.repository.UserRepository;
+import io.micrometer.observation.annotation.Observed;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -24,11 +30,17 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ConcurrentModificationException;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
+@Observed(name = "service.method")
 @AllArgsConstructor
 @Slf4j
 public class ClassificationService {
@@ -41,25 +53,26 @@ public class ClassificationService {
 
     private UserRepository userRepository;
     private AppConfig appConfig;
+    private ClassificationJournal classificationJournal;
+    private LeaseManager leaseManager;
+    private ReviewMetrics reviewMetrics;
+    private ApplicationEventPublisher eventPublisher;
+    private DuplicateDetector duplicateDetector;
 
+    // Not read-only on purpose: leases live in an unlogged table that only exists on the primary
     @Transactional
     public AudioFileResponse getRandomUnclassifiedFile(Long userId) {
+        return reviewMetrics.timeAssignment(() -> leaseRandomUnclassifiedFile(userId));
+    }
 
-        LocalDateTime expirationTime = LocalDateTime.now().minusMinutes(Long.parseLong(appConfig.getUserLockMinutes()));
-
-        // Attempt to find an unclassified file, prioritizing those locked by the current user
-        AudioFile file = audioFileRepository.findRandomUnclassifiedUnlockedFile(userId, expirationTime)
+    private AudioFileResponse leaseRandomUnclassifiedFile(Long userId) {
+        // Prefer a file the user already holds, otherwise lease a random one nobody holds
+        Long fileId = leaseManager.acquire(userId)
                 .orElseThrow(() -> new IllegalStateException("No unclassified files available."));
 
-        // Lock the file if it’s not already locked by the current user
-        if (!userId.equals(file.getLockedBy())) {
-            file = audioFileRepository.findByIdWithLock(file.getId())
-                    .orElseThrow(() -> new RuntimeException("File not found for locking"));
+        AudioFile file = audioFileRepository.findWithDetailsById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found for leasing"));
 
-            file.setLockedBy(userId);
-            file.setLockedAt(LocalDateTime.now());
-            audioFileRepository.save(file);
-        }
         String encodedFilename = URLEncoder.encode(file.getFilename(), StandardCharsets.UTF_8);
         String filePath = String.format("%s/admin/audio/files/%s", appConfig.getFileServerUrl(), encodedFilename);
 
@@ -76,33 +89,65 @@ public class ClassificationService {
 
     @Transactional
     public AudioFileResponse classifyFile(Long fileId, ClassificationRequest request) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return classifyFile(fileId, request, username);
+    }
+
+    /**
+     * Classify a file by the category keyboard shortcut, on behalf of the given user.
+     * Used by the reviewer WebSocket channel, where no security context is bound to the thread.
+     *
+     * @param fileId   the audio file ID
+     * @param shortcut the category shortcut
+     * @param username the reviewer username
+     * @return the classified file
+     */
+    @Transactional
+    public AudioFileResponse classifyFileByShortcut(Long fileId, String shortcut, String username) {
+        Category category = categoryRepository.findByShortcutIgnoreCase(shortcut)
+                .orElseThrow(() -> new RuntimeException("Category not found"));
+        return classifyFile(fileId, new ClassificationRequest(category.getName()), username);
+    }
+
+    @Transactional
+    public AudioFileResponse classifyFile(Long fileId, ClassificationRequest request, String username) {
+        return reviewMetrics.timeClassification(() -> classify(fileId, request, username));
+    }
+
+    private AudioFileResponse classify(Long fileId, ClassificationRequest request, String username) {
         try {
             // Fetch and lock the file using a separate locking query
-            AudioFile file = audioFileRepository.findByIdWithLock(fileId)
+            AudioFile file = reviewMetrics.timeLockWait("classify", () -> audioFileRepository.findByIdWithLock(fileId))
                     .orElseThrow(() -> new RuntimeException("File not found"));
 
             // Fetch the category without saving it directly to avoid cascade issues
             Category newCategory = categoryRepository.findByNormalizedCategoryName(request.getCategory())
                     .orElseThrow(() -> new RuntimeException("Category not found"));
 
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            Classification classification = Classification.builder()
-                    .audioFile(file)
-                    .user(user)
-                    .previousCategory(file.getCurrentCategory())
-                    .newCategory(newCategory)
-                    .classifiedAt(LocalDateTime.now())
-                    .build();
-            classificationRepository.save(classification);
+            // The audit row is written behind; only the file's current category is updated synchronously
+            Category previousCategory = file.getCurrentCategory();
+            classificationJournal.record(new ClassificationRecord(
+                    UUID.randomUUID(),
+                    user.getId(),
+                    file.getId(),
+                    previousCategory != null ? previousCategory.getId() : null,
+                    newCategory.getId(),
+                    LocalDateTime.now(),
+                    null
+            ));
 
             file.setCurrentCategory(newCategory);
             audioFileRepository.save(file);
+            // Duplicates of the file take over the label once this transaction commits
+            duplicateDetector.recordHumanLabels(List.of(fileId));
+            eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.CLASSIFIED));
 
-            // Unlock the file after classification
-            unlockFile(fileId);
+            // End the lease after classification
+            leaseManager.complete(fileId);
+            reviewMetrics.recordClassified(newCategory.getName());
 
             return new AudioFileResponse(
                     file.getId(), file.getFilename(),
@@ -111,26 +156,64 @@ public class ClassificationService {
                     file.getFilepath()
             );
         } catch (OptimisticLockingFailureException ex) {
+            reviewMetrics.recordOptimisticLockConflict("classify");
             log.error("This file was modified by another user. Please try again. Request: {0}", request);
             throw new ConcurrentModificationException("This file was modified by another user. Please try again.");
         }
     }
 
-    public void unlockFile(Long fileId) {
-        Optional<AudioFile> fileOpt = audioFileRepository.findById(fileId);
-        fileOpt.ifPresent(file -> {
-            file.setLockedBy(null);
-            file.setLockedAt(null);
-            audioFileRepository.save(file);
-        });
+    /**
+     * Extend the lease on a file held by the given user.
+     *
+     * @param fileId the audio file ID
+     * @param userId the lease holder
+     * @return false if the user no longer holds the lease
+     */
+    @Transactional
+    public boolean extendLock(Long fileId, Long userId) {
+        return leaseManager.extend(fileId, userId);
+    }
+
+    /**
+     * Release a file lease, but only if it is still held by the given user.
+     *
+     * @param fileId the audio file ID
+     * @param userId the lease holder
+     */
+    @Transactional
+    public void releaseLock(Long fileId, Long userId) {
+        leaseManager.release(fileId, userId);
+    }
+
+    /**
+     * Check a set of leases handed out to reviewers and return those that are no longer valid:
+     * the file was deleted, classified by someone else, leased by another user or the lease expired.
+     *
+     * @param leases file ID to lease holder user ID
+     * @return IDs of the files whose leases were lost
+     */
+    // Not read-only on purpose: lease state must come from the primary, never from a lagging replica
+    @Transactional
+    public Set<Long> findRevokedLeases(Map<Long, Long> leases) {
+        Set<Long> held = leaseManager.findHeld(leases);
+
+        return leases.keySet().stream()
+                .filter(id -> !held.contains(id))
+                .collect(Collectors.toSet());
     }
 
+    @Transactional(readOnly = true)
     public Page<ClassificationResponse> getClassificationHistoryForUser(String username, int page, int pageSize) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Pageable pageable = PageRequest.of(page, pageSize);
-        Page<Classification> classifications = classificationRepository.findByUserOrderByClassifiedAtDesc(user, pageable);
+        // Older months are archived out of the table, so bounding the range lets the planner prune partitions
+        LocalDateTime since = LocalDate.now().withDayOfMonth(1)
+                .minusMonths(appConfig.getClassificationRetentionMonths() - 1L)
+                .atStartOfDay();
+        Page<Classification> classifications = classificationRepository
+                .findByUserAndClassifiedAtGreaterThanEqualOrderByClassifiedAtDesc(user, since, pageable);
 
         return classifications.map(classification -> {
             String encodedFilename = URLEncoder.encode(classification.getAudioFile().getFilename(), StandardCharsets.UTF_8);
@@ -0,0 +1,108 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.CategoryAgreement;
+import io.github.denrzv.audioreview.dto.ConfusionMatrixResponse;
+import io.github.denrzv.audioreview.repository.CategoryConfusionRepository;
+import io.github.denrzv.audioreview.repository.CategoryConfusionRepository.ConfusionCell;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares the filename-derived initial category of files with the category reviewers settled on.
+ * The counts are maintained by database triggers in the same transaction as every upload,
+ * classification, bulk update and delete, so the report costs the same at any table size.
+ * The initial category is treated as the prediction and the reviewer label as the truth;
+ * files not reviewed yet are left out of the rates.
+ */
+@Service
+@AllArgsConstructor
+@Slf4j
+public class ConfusionMatrixService {
+
+    private static final String UNCLASSIFIED = "Unclassified";
+
+    private final CategoryConfusionRepository categoryConfusionRepository;
+
+    /**
+     * @param from first day of the decision history, inclusive
+     * @param to   last day of the decision history, inclusive
+     * @return the matrix, per-category precision and recall, and decisions per day
+     */
+    @Transactional(readOnly = true)
+    public ConfusionMatrixResponse getConfusionMatrix(LocalDate from, LocalDate to) {
+        Map<String, Map<String, Long>> matrix = new TreeMap<>();
+        TreeSet<String> categories = new TreeSet<>();
+        long pending = 0;
+        for (ConfusionCell cell : categoryConfusionRepository.findCells()) {
+            if (cell.currentCategory() == null || cell.currentCategory().equals(UNCLASSIFIED)) {
+                pending += cell.files();
+            }
+            if (cell.currentCategory() != null) {
+                matrix.computeIfAbsent(cell.initialCategory(), initial -> new TreeMap<>())
+                        .merge(cell.currentCategory(), cell.files(), Long::sum);
+                categories.add(cell.currentCategory());
+            }
+            categories.add(cell.initialCategory());
+        }
+        categories.remove(UNCLASSIFIED);
+
+        List<CategoryAgreement> agreements = new ArrayList<>();
+        long reviewed = 0;
+        long agreed = 0;
+        for (String category : categories) {
+            Map<String, Long> row = matrix.getOrDefault(category, Map.of());
+            long predicted = row.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(UNCLASSIFIED))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            long labelled = matrix.values().stream()
+                    .mapToLong(currents -> currents.getOrDefault(category, 0L))
+                    .sum();
+            long categoryAgreed = row.getOrDefault(category, 0L);
+            reviewed += predicted;
+            agreed += categoryAgreed;
+            agreements.add(CategoryAgreement.builder()
+                    .category(category)
+                    .predicted(predicted)
+                    .labelled(labelled)
+                    .agreed(categoryAgreed)
+                    .precision(ratio(categoryAgreed, predicted))
+                    .recall(ratio(categoryAgreed, labelled))
+                    .overturnRate(ratio(predicted - categoryAgreed, predicted))
+                    .build());
+        }
+
+        return ConfusionMatrixResponse.builder()
+                .matrix(matrix)
+                .categories(agreements)
+                .reviewed(reviewed)
+                .agreed(agreed)
+                .pending(pending)
+                .decisions(categoryConfusionRepository.findDecisions(from, to))
+                .build();
+    }
+
+    /**
+     * Recompute the counts from scratch, e.g. after restoring a backup without the triggers.
+     * Uploads and classifications wait until the rebuild commits.
+     */
+    @Transactional
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        categoryConfusionRepository.rebuild();
+        log.info("Rebuilt category confusion counts in {} ms", (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private static Double ratio(long numerator, long denominator) {
+        return denominator == 0 ? null : (double) numerator / denominator;
+    }
+}
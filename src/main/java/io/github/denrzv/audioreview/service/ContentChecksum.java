@@ -0,0 +1,130 @@
+package io.github.denrzv.audioreview.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * Incremental content checksum. Values are stored self-describing, e.g. {@code crc32c:1a2b3c4d}
+ * or {@code sha256:<hex>}, so the algorithm can be changed without invalidating stored checksums.
+ */
+public final class ContentChecksum {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Algorithm {
+        CRC32C("crc32c"),
+        SHA256("sha256");
+
+        private final String prefix;
+
+        Algorithm(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Find the algorithm a stored checksum was computed with.
+         *
+         * @param checksum the stored checksum
+         * @return the algorithm
+         */
+        public static Algorithm of(String checksum) {
+            for (Algorithm algorithm : values()) {
+                if (checksum.startsWith(algorithm.prefix + ":")) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unknown checksum format: " + checksum);
+        }
+    }
+
+    private final Algorithm algorithm;
+    private final CRC32C crc;
+    private final MessageDigest digest;
+
+    public ContentChecksum(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        if (algorithm == Algorithm.CRC32C) {
+            this.crc = new CRC32C();
+            this.digest = null;
+        } else {
+            this.crc = null;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    public void update(byte[] buffer, int offset, int length) {
+        if (crc != null) {
+            crc.update(buffer, offset, length);
+        } else {
+            digest.update(buffer, offset, length);
+        }
+    }
+
+    public String value() {
+        String hex = crc != null
+                ? String.format("%08x", crc.getValue())
+                : HexFormat.of().formatHex(digest.digest());
+        return algorithm.prefix + ":" + hex;
+    }
+
+    /**
+     * Wrap a stream so everything read through it is added to this checksum.
+     *
+     * @param in the stream to read
+     * @return the wrapping stream
+     */
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    update(new byte[]{(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    update(buffer, offset, read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Compute the checksum of a stream, reading no faster than the rate limiter allows.
+     *
+     * @param in          the stream, read to the end but not closed
+     * @param algorithm   the algorithm
+     * @param rateLimiter permits are bytes; null for no limit
+     * @return the checksum
+     * @throws IOException if the stream cannot be read
+     */
+    public static String compute(InputStream in, Algorithm algorithm, RateLimiter rateLimiter) throws IOException {
+        ContentChecksum checksum = new ContentChecksum(algorithm);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (rateLimiter != null && read > 0) {
+                rateLimiter.acquire(read);
+            }
+            checksum.update(buffer, 0, read);
+        }
+        return checksum.value();
+    }
+}
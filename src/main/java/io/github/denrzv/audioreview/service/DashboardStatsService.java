@@ -0,0 +1,113 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.event.AudioFilesChangedEvent;
+import io.github.denrzv.audioreview.event.ResyncRequiredEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves dashboard statistics to pollers and Server-Sent Events subscribers.
+ * Concurrent requests share one in-flight computation, and subscribers are only
+ * pushed the changed entries after audio files actually change, on this or any other node.
+ */
+@Service
+@Slf4j
+public class DashboardStatsService {
+
+    private final SingleFlight<Map<String, Object>> stats;
+    private final long emitterTimeoutMs;
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private volatile Map<String, Object> lastPushed;
+
+    public DashboardStatsService(AudioFileService audioFileService,
+                                 @Value("${app.dashboard-stats.coalesce-window-ms}") long coalesceWindowMs,
+                                 @Value("${app.dashboard-stats.emitter-timeout-ms}") long emitterTimeoutMs) {
+        this.stats = new SingleFlight<>(audioFileService::getDashboardStats, coalesceWindowMs);
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public Map<String, Object> getStats() {
+        return stats.get();
+    }
+
+    /**
+     * Register a new stats subscriber. The full snapshot is sent as a {@code stats} event,
+     * followed by {@code delta} events containing only the entries that changed.
+     *
+     * @return the emitter bound to the request
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(ex -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        send(emitter, SseEmitter.event().name("stats").data(getStats()));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAudioFilesChanged(AudioFilesChangedEvent event) {
+        stats.invalidate();
+        dirty.set(true);
+    }
+
+    @EventListener
+    public void onResyncRequired(ResyncRequiredEvent event) {
+        stats.invalidate();
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard-stats.push-interval-ms}")
+    public void pushChanges() {
+        if (emitters.isEmpty() || !dirty.getAndSet(false)) {
+            return;
+        }
+
+        Map<String, Object> current = getStats();
+        Map<String, Object> previous = lastPushed;
+        lastPushed = current;
+
+        Map<String, Object> delta = new HashMap<>();
+        current.forEach((key, value) -> {
+            if (previous == null || !Objects.equals(previous.get(key), value)) {
+                delta.put(key, value);
+            }
+        });
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        emitters.forEach(emitter -> send(emitter, SseEmitter.event().name("delta").data(delta)));
+    }
+
+    @Scheduled(fixedRateString = "${app.dashboard-stats.keepalive-ms}")
+    public void keepAlive() {
+        emitters.forEach(emitter -> send(emitter, SseEmitter.event().comment("keepalive")));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping stats subscriber: {}", ex.getMessage());
+            emitters.remove(emitter);
+            emitter.completeWithError(ex);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.DuplicateClusterResponse;
+import io.github.denrzv.audioreview.dto.DuplicateFileResponse;
+import io.github.denrzv.audioreview.exception.ResourceNotFoundException;
+import io.github.denrzv.audioreview.fingerprint.DuplicateDetector;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the near-duplicate clusters found by the {@link DuplicateDetector}.
+ */
+@Service
+@AllArgsConstructor
+public class DuplicateClusterService {
+
+    private final AudioFingerprintRepository fingerprintRepository;
+    private final DuplicateDetector duplicateDetector;
+
+    /**
+     * @param page     zero-based page number
+     * @param pageSize clusters per page
+     * @return clusters with more than one file under {@code data}, their number under {@code total}
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getClusters(int page, int pageSize) {
+        List<DuplicateClusterResponse> clusters = fingerprintRepository.findClusters(pageSize, (long) page * pageSize);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", clusters);
+        response.put("total", fingerprintRepository.countClusters());
+        return response;
+    }
+
+    /**
+     * @param fileId the audio file ID
+     * @return the files of the cluster the file belongs to, including itself
+     */
+    @Transactional(readOnly = true)
+    public List<DuplicateFileResponse> getClusterOfFile(long fileId) {
+        long clusterId = fingerprintRepository.findClusterId(fileId)
+                .orElseThrow(() -> new ResourceNotFoundException("File " + fileId + " has not been fingerprinted"));
+        return fingerprintRepository.findClusterMembers(clusterId);
+    }
+
+    /**
+     * Queue a rebuild of the near-duplicate index.
+     *
+     * @return false if duplicate detection is disabled or busy
+     */
+    public boolean rebuildIndex() {
+        return duplicateDetector.requestRebuild();
+    }
+}
@@ -1,5 +1,9 @@
 package io.github.denrzv.audioreview.service;
 
+import io.github.denrzv.audioreview.exception.ResourceAlreadyExistsException;
+import io.github.denrzv.audioreview.storage.StorageBackend;
+import io.github.denrzv.audioreview.storage.StorageObject;
+import io.micrometer.observation.annotation.Observed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -7,48 +11,139 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
+@Observed(name = "storage.io")
 @Slf4j
 public class FileStorageService {
 
-    private final Path fileStorageLocation;
+    private static final int MAX_KEY_ATTEMPTS = 3;
+
+    private final StorageBackend storageBackend;
     private final CategoryService categoryService;
+    private final ContentChecksum.Algorithm checksumAlgorithm;
+    private final StorageLayout storageLayout;
+    private final Duration directUrlTtl;
 
-    public FileStorageService(@Value("${file.upload-dir}") String uploadDir, CategoryService categoryService) {
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    public FileStorageService(StorageBackend storageBackend,
+                              @Value("${app.storage-reconciler.checksum-algorithm}") ContentChecksum.Algorithm checksumAlgorithm,
+                              @Value("${app.storage-layout.strategy}") StorageLayout storageLayout,
+                              @Value("${app.storage.direct-url-ttl-seconds}") long directUrlTtlSeconds,
+                              CategoryService categoryService) {
+        this.storageBackend = storageBackend;
         this.categoryService = categoryService;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.storageLayout = storageLayout;
+        this.directUrlTtl = Duration.ofSeconds(directUrlTtlSeconds);
+    }
+
+    public StoredFile storeFile(MultipartFile file) {
+        String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
 
         try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where uploaded files will be stored.", ex);
+            String category = storageLayout.usesCategory()
+                    ? categoryService.extractCategoryFromFileName(originalFileName)
+                    : null;
+            // Existing files are never overwritten; a salted layout retries a taken path with a new salt
+            int attempts = storageLayout.usesSalt() ? MAX_KEY_ATTEMPTS : 1;
+            for (int attempt = 1; ; attempt++) {
+                String key = storageLayout.pathFor(originalFileName, category, LocalDate.now(), UUID.randomUUID().toString());
+
+                // Checksum the content while it streams to the backend so it never has to be read twice
+                ContentChecksum checksum = new ContentChecksum(checksumAlgorithm);
+                long size;
+                try (InputStream in = checksum.wrap(file.getInputStream())) {
+                    size = storageBackend.put(key, in, file.getSize());
+                } catch (FileAlreadyExistsException ex) {
+                    if (attempt < attempts) {
+                        continue;
+                    }
+                    throw new ResourceAlreadyExistsException("A file is already stored at " + key);
+                }
+
+                // Store the relative path for the database
+                return new StoredFile(key, checksum.value(), size);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + originalFileName, ex);
         }
     }
 
-    public String storeFile(MultipartFile file) {
-        String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+    public StorageLayout getStorageLayout() {
+        return storageLayout;
+    }
 
+    /**
+     * Look up a stored file.
+     *
+     * @param relativePath the path returned by {@link #storeFile}
+     * @return size and modification time, or empty if the file is missing
+     */
+    public Optional<StorageObject> stat(String relativePath) {
         try {
-            String category = categoryService.extractCategoryFromFileName(originalFileName);
-            String dateFolder = LocalDate.now().toString();
-            Path categoryDir = fileStorageLocation.resolve(category).resolve(dateFolder).normalize();
+            return storageBackend.stat(relativePath);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not look up file " + relativePath, ex);
+        }
+    }
+
+    /**
+     * Open a byte range of a stored file.
+     *
+     * @param relativePath the path returned by {@link #storeFile}
+     * @param offset       first byte to read
+     * @param length       number of bytes to read, or -1 to read to the end
+     * @return the content, to be closed by the caller
+     * @throws IOException if the file is missing or cannot be read
+     */
+    public InputStream open(String relativePath, long offset, long length) throws IOException {
+        return storageBackend.get(relativePath, offset, length);
+    }
+
+    /**
+     * A short-lived URL clients can fetch the file from without going through this service.
+     *
+     * @param relativePath the path returned by {@link #storeFile}
+     * @return the URL, or empty if the backend cannot serve files itself
+     */
+    public Optional<URI> directUrl(String relativePath) {
+        return storageBackend.directUrl(relativePath, directUrlTtl);
+    }
 
-            Files.createDirectories(categoryDir);
+    /**
+     * Make a stored file available under a second path, leaving the original in place.
+     *
+     * @param relativePath the existing path
+     * @param targetPath   the additional path
+     * @throws java.nio.file.FileAlreadyExistsException if a different file already exists at the target
+     */
+    public void copy(String relativePath, String targetPath) throws IOException {
+        storageBackend.copy(relativePath, targetPath);
+    }
 
-            Path targetLocation = categoryDir.resolve(originalFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    public boolean exists(String relativePath) {
+        return stat(relativePath).isPresent();
+    }
 
-            // Store the relative path for the database
-            return fileStorageLocation.relativize(targetLocation).toString();
+    /**
+     * Delete a stored file.
+     *
+     * @param relativePath the path returned by {@link #storeFile}
+     * @return true if the file existed and was deleted
+     */
+    public boolean deleteFile(String relativePath) {
+        try {
+            return storageBackend.delete(relativePath);
         } catch (IOException ex) {
-            throw new RuntimeException("Could not store file " + originalFileName, ex);
+            throw new RuntimeException("Could not delete file " + relativePath, ex);
         }
     }
 }
@@ -0,0 +1,227 @@
+package io.github.denrzv.audioreview.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out time-limited leases on unclassified files to reviewers.
+ * Leases are kept in the narrow {@code file_leases} table instead of on the {@code audio_files}
+ * row, so leasing never rewrites the file or bumps its version. A lease is valid until its
+ * expiry time ({@code app.user-lock-minutes} after it was taken or last extended); expired
+ * leases can be taken over at any time and are removed by a periodic sweep.
+ * All times come from the database clock, so nodes with skewed clocks agree on expiry.
+ */
+@Service
+@Slf4j
+public class LeaseManager {
+
+    private static final int ACQUIRE_ATTEMPTS = 5;
+
+    private static final String UNCLASSIFIED_CATEGORY = "(SELECT id FROM categories WHERE name = 'Unclassified')";
+
+    private static final String OWN_LEASE = "SELECT l.audio_file_id FROM file_leases l " +
+            "JOIN audio_files f ON f.id = l.audio_file_id " +
+            "WHERE l.user_id = ? AND l.expires_at > LOCALTIMESTAMP " +
+            "AND f.current_category_id = " + UNCLASSIFIED_CATEGORY + " " +
+            "ORDER BY l.leased_at LIMIT 1";
+
+    // Walks the unclassified files in ID order from a random ID between the lowest and highest
+    // of them, wrapping around once, so only the files up to the first unleased one are read
+    private static final String RANDOM_CANDIDATE = "WITH pivot AS (" +
+            "SELECT min(id) + floor(random() * (max(id) - min(id) + 1))::BIGINT AS id FROM audio_files " +
+            "WHERE current_category_id = " + UNCLASSIFIED_CATEGORY + ") " +
+            "SELECT id FROM ((" + unleasedFrom("f.id >= p.id") + ") UNION ALL (" + unleasedFrom("f.id < p.id") + ")) c " +
+            "LIMIT 1";
+
+    // Takes over the row only if the existing lease has expired or already belongs to the user
+    private static final String CLAIM = "INSERT INTO file_leases (audio_file_id, user_id, leased_at, expires_at) " +
+            "VALUES (?, ?, LOCALTIMESTAMP, LOCALTIMESTAMP + make_interval(secs => ?)) " +
+            "ON CONFLICT (audio_file_id) DO UPDATE SET user_id = EXCLUDED.user_id, " +
+            "leased_at = EXCLUDED.leased_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE file_leases.expires_at <= EXCLUDED.leased_at OR file_leases.user_id = EXCLUDED.user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final AtomicLong activeLeases = new AtomicLong();
+    private final Counter acquiredCounter;
+    private final Counter extendedCounter;
+    private final Counter contentionCounter;
+    private final Counter completedCounter;
+    private final Counter abandonedCounter;
+    private final Counter expiredCounter;
+
+    public LeaseManager(JdbcTemplate jdbcTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.user-lock-minutes}") long leaseMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofMinutes(leaseMinutes);
+
+        this.acquiredCounter = Counter.builder("file.leases.acquired")
+                .description("Leases handed out to reviewers")
+                .register(meterRegistry);
+        this.extendedCounter = Counter.builder("file.leases.extended")
+                .description("Lease heartbeats that extended a live lease")
+                .register(meterRegistry);
+        this.contentionCounter = Counter.builder("file.leases.contention")
+                .description("Claims lost to another reviewer leasing the same file first")
+                .register(meterRegistry);
+        this.completedCounter = endedCounter(meterRegistry, "completed", "Leases ended by classifying the file");
+        this.abandonedCounter = endedCounter(meterRegistry, "abandoned", "Leases released without classifying the file");
+        this.expiredCounter = endedCounter(meterRegistry, "expired", "Leases removed after their expiry time passed");
+        Gauge.builder("file.leases.active", activeLeases, AtomicLong::get)
+                .description("Leases in the table as of the last sweep")
+                .register(meterRegistry);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Lease an unclassified file to a user. A live lease the user already holds is renewed and
+     * returned first; otherwise a random file without a live lease is claimed.
+     * Must be called inside a transaction that runs on the primary.
+     *
+     * @param userId the reviewer
+     * @return the leased file ID, or empty if every unclassified file is leased
+     */
+    public Optional<Long> acquire(Long userId) {
+        Optional<Long> own = jdbcTemplate.queryForList(OWN_LEASE, Long.class, userId).stream().findFirst();
+        if (own.isPresent()) {
+            claim(own.get(), userId);
+            return own;
+        }
+
+        for (int attempt = 0; attempt < ACQUIRE_ATTEMPTS; attempt++) {
+            Optional<Long> candidate = jdbcTemplate.queryForList(RANDOM_CANDIDATE, Long.class).stream().findFirst();
+            if (candidate.isEmpty()) {
+                return Optional.empty();
+            }
+            if (claim(candidate.get(), userId)) {
+                acquiredCounter.increment();
+                return candidate;
+            }
+            contentionCounter.increment();
+            log.debug("File {} was leased by another reviewer, retrying", candidate.get());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Push back the expiry of a live lease held by the given user.
+     *
+     * @param fileId the audio file ID
+     * @param userId the lease holder
+     * @return false if the user no longer holds a live lease on the file
+     */
+    public boolean extend(Long fileId, Long userId) {
+        boolean extended = jdbcTemplate.update("UPDATE file_leases SET expires_at = LOCALTIMESTAMP + make_interval(secs => ?) " +
+                "WHERE audio_file_id = ? AND user_id = ? AND expires_at > LOCALTIMESTAMP",
+                ttl.toSeconds(), fileId, userId) > 0;
+        if (extended) {
+            extendedCounter.increment();
+        }
+        return extended;
+    }
+
+    /**
+     * Give up a lease without classifying the file, but only if it is held by the given user.
+     *
+     * @param fileId the audio file ID
+     * @param userId the lease holder
+     */
+    public void release(Long fileId, Long userId) {
+        if (jdbcTemplate.update("DELETE FROM file_leases WHERE audio_file_id = ? AND user_id = ?", fileId, userId) > 0) {
+            abandonedCounter.increment();
+        }
+    }
+
+    /**
+     * End the lease on a file that has been classified, whoever holds it.
+     *
+     * @param fileId the audio file ID
+     */
+    public void complete(Long fileId) {
+        if (jdbcTemplate.update("DELETE FROM file_leases WHERE audio_file_id = ?", fileId) > 0) {
+            completedCounter.increment();
+        }
+    }
+
+    /**
+     * Find which of the given leases are still live, held by the expected user and on a file
+     * that is still unclassified.
+     *
+     * @param leases file ID to lease holder user ID
+     * @return IDs of the files whose leases are still held
+     */
+    public Set<Long> findHeld(Map<Long, Long> leases) {
+        if (leases.isEmpty()) {
+            return Set.of();
+        }
+        Map<Long, Long> holders = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("SELECT l.audio_file_id, l.user_id FROM file_leases l " +
+                    "JOIN audio_files f ON f.id = l.audio_file_id " +
+                    "WHERE l.audio_file_id = ANY(?) AND l.expires_at > LOCALTIMESTAMP " +
+                    "AND f.current_category_id = " + UNCLASSIFIED_CATEGORY);
+            statement.setArray(1, con.createArrayOf("bigint", leases.keySet().toArray()));
+            return statement;
+        }, rs -> {
+            holders.put(rs.getLong(1), rs.getLong(2));
+        });
+
+        return leases.entrySet().stream()
+                .filter(lease -> lease.getValue().equals(holders.get(lease.getKey())))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Remove expired leases. Expired leases are already ignored everywhere, so the sweep only
+     * keeps the table small and feeds the expiry metrics.
+     */
+    @Scheduled(fixedDelayString = "${app.leases.sweep-interval-ms}")
+    public void sweepExpired() {
+        List<Long> expired = jdbcTemplate.queryForList(
+                "DELETE FROM file_leases WHERE expires_at <= LOCALTIMESTAMP RETURNING audio_file_id", Long.class);
+        if (!expired.isEmpty()) {
+            expiredCounter.increment(expired.size());
+            log.debug("Removed {} expired file leases", expired.size());
+        }
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM file_leases", Long.class);
+        activeLeases.set(count != null ? count : 0);
+    }
+
+    boolean claim(Long fileId, Long userId) {
+        return jdbcTemplate.update(CLAIM, fileId, userId, ttl.toSeconds()) > 0;
+    }
+
+    private static String unleasedFrom(String range) {
+        return "SELECT f.id FROM audio_files f, pivot p " +
+                "WHERE f.current_category_id = " + UNCLASSIFIED_CATEGORY + " AND " + range + " " +
+                "AND NOT EXISTS (SELECT 1 FROM file_leases l WHERE l.audio_file_id = f.id AND l.expires_at > LOCALTIMESTAMP) " +
+                "ORDER BY f.id LIMIT 1";
+    }
+
+    private static Counter endedCounter(MeterRegistry meterRegistry, String outcome, String description) {
+        return Counter.builder("file.leases.ended")
+                .tag("outcome", outcome)
+                .description(description)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,294 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.exception.ResourceNotFoundException;
+import io.github.denrzv.audioreview.exception.UploadOffsetConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Resumable uploads in the style of the tus protocol. An upload is created with its final length,
+ * chunks are written at the current offset straight into a preallocated staging file through
+ * positional {@link FileChannel} writes, and the completed file is registered through
+ * {@link AudioFileService#uploadFile}. Offsets are persisted next to the staging file, so an
+ * upload can be resumed after a dropped connection or a restart.
+ */
+@Service
+@Slf4j
+public class ResumableUploadService {
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f\\-]{36}");
+    private static final String DATA_SUFFIX = ".part";
+    private static final String INFO_SUFFIX = ".info";
+    private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+    private final AudioFileService audioFileService;
+    private final Path stagingLocation;
+    private final long maxSize;
+    private final Duration expiry;
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(AudioFileService audioFileService,
+                                  @Value("${app.resumable-upload.dir}") String stagingDir,
+                                  @Value("${app.resumable-upload.max-size-mb}") long maxSizeMb,
+                                  @Value("${app.resumable-upload.expiry-hours}") long expiryHours) {
+        this.audioFileService = audioFileService;
+        this.stagingLocation = Paths.get(stagingDir).toAbsolutePath().normalize();
+        this.maxSize = maxSizeMb * 1024 * 1024;
+        this.expiry = Duration.ofHours(expiryHours);
+
+        try {
+            Files.createDirectories(this.stagingLocation);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the directory where uploads are staged.", ex);
+        }
+    }
+
+    /**
+     * Create an upload and preallocate its staging file.
+     *
+     * @param filename    the original file name
+     * @param contentType the content type, must be an audio type
+     * @param length      the total length in bytes
+     * @return the upload
+     */
+    public Upload create(String filename, String contentType, long length) {
+        if (contentType == null || !contentType.startsWith("audio/")) {
+            throw new RuntimeException("Invalid file type. Only audio files are allowed.");
+        }
+        if (!StringUtils.hasText(filename)) {
+            throw new RuntimeException("File name is required.");
+        }
+        if (length <= 0 || length > maxSize) {
+            throw new RuntimeException("Upload length must be between 1 and " + maxSize + " bytes.");
+        }
+
+        Upload upload = new Upload(UUID.randomUUID().toString(), StringUtils.cleanPath(filename), contentType,
+                length, 0, Instant.now());
+        try (FileChannel channel = FileChannel.open(dataPath(upload.id()),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            // Reserve the full length up front, sparse where the filesystem supports it
+            channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+            writeInfo(upload);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create upload for " + filename, ex);
+        }
+        return upload;
+    }
+
+    /**
+     * Look up an upload and its current offset.
+     *
+     * @param id the upload ID
+     * @return the upload
+     */
+    public Upload get(String id) {
+        return readInfo(id);
+    }
+
+    /**
+     * Write a chunk. The chunk must start at the current offset; whatever arrives before the
+     * connection drops is kept, and the client resumes from the returned offset.
+     *
+     * @param id      the upload ID
+     * @param offset  where the client believes the chunk starts
+     * @param content the chunk content
+     * @return the upload with its new offset
+     */
+    public Upload append(String id, long offset, InputStream content) {
+        ReentrantLock lock = locks.computeIfAbsent(id, key -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            throw new UploadOffsetConflictException("Another chunk is being written to upload " + id);
+        }
+        try {
+            Upload upload = readInfo(id);
+            if (offset != upload.offset()) {
+                throw new UploadOffsetConflictException("Upload " + id + " is at offset " + upload.offset() + ", not " + offset);
+            }
+
+            long position = upload.offset();
+            boolean interrupted = false;
+            try (FileChannel channel = FileChannel.open(dataPath(id), StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[CHUNK_BUFFER_SIZE];
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                try {
+                    int read;
+                    while (position < upload.length()
+                            && (read = content.read(buffer, 0, (int) Math.min(buffer.length, upload.length() - position))) != -1) {
+                        byteBuffer.clear().limit(read);
+                        while (byteBuffer.hasRemaining()) {
+                            position += channel.write(byteBuffer, position);
+                        }
+                    }
+                } catch (IOException ex) {
+                    interrupted = true;
+                    log.info("Upload {} interrupted at offset {}: {}", id, position, ex.getMessage());
+                } finally {
+                    // Only advertise bytes that are on disk
+                    channel.force(false);
+                    upload = upload.withOffset(position);
+                    writeInfo(upload);
+                }
+            }
+            if (!interrupted && position == upload.length() && content.read() != -1) {
+                throw new RuntimeException("Chunk exceeds the declared upload length of " + upload.length() + " bytes.");
+            }
+            return upload;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write to upload " + id, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Register a completed upload as an audio file and discard the staging files.
+     *
+     * @param id the upload ID
+     * @return the registered audio file
+     */
+    public AudioFileResponse finish(String id) {
+        ReentrantLock lock = locks.computeIfAbsent(id, key -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            throw new UploadOffsetConflictException("Upload " + id + " is still being written");
+        }
+        try {
+            Upload upload = readInfo(id);
+            if (upload.offset() != upload.length()) {
+                throw new UploadOffsetConflictException("Upload " + id + " is incomplete: "
+                        + upload.offset() + " of " + upload.length() + " bytes received");
+            }
+
+            AudioFileResponse response = audioFileService.uploadFile(
+                    new StagedMultipartFile(dataPath(id), upload.filename(), upload.contentType(), upload.length()));
+            delete(id);
+            return response;
+        } finally {
+            lock.unlock();
+            locks.remove(id);
+        }
+    }
+
+    /**
+     * Abandon an upload.
+     *
+     * @param id the upload ID
+     */
+    public void abort(String id) {
+        readInfo(id);
+        delete(id);
+        locks.remove(id);
+    }
+
+    @Scheduled(cron = "${app.resumable-upload.cleanup-cron}")
+    public void removeExpiredUploads() {
+        Instant cutoff = Instant.now().minus(expiry);
+        try (Stream<Path> files = Files.list(stagingLocation)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(INFO_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - INFO_SUFFIX.length()))
+                    .forEach(id -> {
+                        try {
+                            if (Files.getLastModifiedTime(infoPath(id)).toInstant().isBefore(cutoff)) {
+                                log.info("Removing expired upload {}", id);
+                                delete(id);
+                                locks.remove(id);
+                            }
+                        } catch (IOException ex) {
+                            log.warn("Could not check upload {}: {}", id, ex.getMessage());
+                        }
+                    });
+        } catch (IOException ex) {
+            log.warn("Could not list staged uploads: {}", ex.getMessage());
+        }
+    }
+
+    private Upload readInfo(String id) {
+        if (!UPLOAD_ID.matcher(id).matches()) {
+            throw new ResourceNotFoundException("Upload not found: " + id);
+        }
+        Properties info = new Properties();
+        try (Reader reader = Files.newBufferedReader(infoPath(id), StandardCharsets.UTF_8)) {
+            info.load(reader);
+        } catch (NoSuchFileException ex) {
+            throw new ResourceNotFoundException("Upload not found: " + id);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read upload " + id, ex);
+        }
+        return new Upload(id,
+                info.getProperty("filename"),
+                info.getProperty("contentType"),
+                Long.parseLong(info.getProperty("length")),
+                Long.parseLong(info.getProperty("offset")),
+                Instant.parse(info.getProperty("createdAt")));
+    }
+
+    private void writeInfo(Upload upload) throws IOException {
+        Properties info = new Properties();
+        info.setProperty("filename", upload.filename());
+        info.setProperty("contentType", upload.contentType());
+        info.setProperty("length", String.valueOf(upload.length()));
+        info.setProperty("offset", String.valueOf(upload.offset()));
+        info.setProperty("createdAt", upload.createdAt().toString());
+
+        Path temp = stagingLocation.resolve(upload.id() + INFO_SUFFIX + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            info.store(writer, null);
+        }
+        Files.move(temp, infoPath(upload.id()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void delete(String id) {
+        try {
+            Files.deleteIfExists(dataPath(id));
+            Files.deleteIfExists(infoPath(id));
+        } catch (IOException ex) {
+            log.warn("Could not delete staged upload {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private Path dataPath(String id) {
+        return stagingLocation.resolve(id + DATA_SUFFIX);
+    }
+
+    private Path infoPath(String id) {
+        return stagingLocation.resolve(id + INFO_SUFFIX);
+    }
+
+    /**
+     * State of a resumable upload.
+     */
+    public record Upload(String id, String filename, String contentType, long length, long offset, Instant createdAt) {
+
+        Upload withOffset(long newOffset) {
+            return new Upload(id, filename, contentType, length, newOffset, createdAt);
+        }
+    }
+}
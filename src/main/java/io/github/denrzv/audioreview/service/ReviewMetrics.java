@@ -0,0 +1,164 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.event.AudioFilesChangedEvent;
+import io.github.denrzv.audioreview.event.ResyncRequiredEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the review pipeline: classification, file assignment, uploads and audio serving.
+ * Percentile histograms for the {@code review.*} and {@code audio.*} timers and summaries are enabled
+ * in {@code management.metrics.distribution}. Lease metrics live in {@link LeaseManager}.
+ * <p>
+ * The unclassified backlog gauge reads a cached value, recounted in the background only after
+ * audio files changed on this or another node, so scrapes never hit the database.
+ */
+@Component
+@Slf4j
+public class ReviewMetrics {
+
+    private static final String UNCLASSIFIED_COUNT = "SELECT count(*) FROM audio_files " +
+            "WHERE current_category_id = (SELECT id FROM categories WHERE name = 'Unclassified')";
+
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer classificationTimer;
+    private final Timer assignmentTimer;
+    private final Timer uploadTimer;
+    private final DistributionSummary uploadedBytes;
+    private final Timer serveTimer;
+    private final Timer serveFirstByteTimer;
+    private final DistributionSummary servedBytes;
+    private final AtomicLong unclassifiedBacklog = new AtomicLong();
+    private final AtomicBoolean backlogDirty = new AtomicBoolean(true);
+
+    public ReviewMetrics(MeterRegistry meterRegistry, JdbcTemplate jdbcTemplate) {
+        this.meterRegistry = meterRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+
+        this.classificationTimer = Timer.builder("review.classification")
+                .description("Time to classify a file")
+                .register(meterRegistry);
+        this.assignmentTimer = Timer.builder("review.assignment")
+                .description("Time to lease the next unclassified file to a reviewer")
+                .register(meterRegistry);
+        this.uploadTimer = Timer.builder("audio.upload")
+                .description("Time to store and register an uploaded file")
+                .register(meterRegistry);
+        this.uploadedBytes = DistributionSummary.builder("audio.upload.size")
+                .description("Size of uploaded files")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.serveTimer = Timer.builder("audio.serve")
+                .description("Time to stream an audio file or range")
+                .register(meterRegistry);
+        this.serveFirstByteTimer = Timer.builder("audio.serve.first.byte")
+                .description("Time from request to the first streamed byte of audio")
+                .register(meterRegistry);
+        this.servedBytes = DistributionSummary.builder("audio.serve.size")
+                .description("Bytes streamed per audio response")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("review.backlog", unclassifiedBacklog, AtomicLong::get)
+                .description("Files waiting to be classified")
+                .register(meterRegistry);
+    }
+
+    public <T> T timeClassification(Supplier<T> classification) {
+        return classificationTimer.record(classification);
+    }
+
+    public <T> T timeAssignment(Supplier<T> assignment) {
+        return assignmentTimer.record(assignment);
+    }
+
+    public <T> T timeUpload(long bytes, Supplier<T> upload) {
+        T result = uploadTimer.record(upload);
+        uploadedBytes.record(bytes);
+        return result;
+    }
+
+    /**
+     * Time waiting for the row lock of {@code findByIdWithLock}.
+     *
+     * @param operation the operation taking the lock, used as a tag
+     * @param lookup    the locking lookup
+     * @return the lookup result
+     */
+    public <T> T timeLockWait(String operation, Supplier<T> lookup) {
+        return Timer.builder("review.lock.wait")
+                .description("Time spent waiting for audio file row locks")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(lookup);
+    }
+
+    public void recordOptimisticLockConflict(String operation) {
+        Counter.builder("review.optimistic.lock.conflicts")
+                .description("Updates rejected because the file was changed concurrently")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordClassified(String category) {
+        Counter.builder("review.classifications")
+                .description("Files classified, by the category chosen")
+                .tag("category", category)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Record a streamed audio response.
+     *
+     * @param bytes          bytes written
+     * @param firstByteNanos time from the start of the request to the first byte, or -1 if none was written
+     * @param totalNanos     time from the start of the request to the last byte
+     */
+    public void recordServed(long bytes, long firstByteNanos, long totalNanos) {
+        servedBytes.record(bytes);
+        if (firstByteNanos >= 0) {
+            serveFirstByteTimer.record(firstByteNanos, TimeUnit.NANOSECONDS);
+        }
+        serveTimer.record(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAudioFilesChanged(AudioFilesChangedEvent event) {
+        backlogDirty.set(true);
+    }
+
+    @EventListener
+    public void onResyncRequired(ResyncRequiredEvent event) {
+        backlogDirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.metrics.backlog-refresh-ms}")
+    public void refreshBacklog() {
+        if (!backlogDirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            Long count = jdbcTemplate.queryForObject(UNCLASSIFIED_COUNT, Long.class);
+            unclassifiedBacklog.set(count != null ? count : 0);
+        } catch (RuntimeException ex) {
+            backlogDirty.set(true);
+            log.debug("Could not count the unclassified backlog: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.ReviewerThroughput;
+import io.github.denrzv.audioreview.dto.ReviewerTrendPoint;
+import io.github.denrzv.audioreview.exception.ResourceNotFoundException;
+import io.github.denrzv.audioreview.journal.ReviewerRollupWriter;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Granularity;
+import io.github.denrzv.audioreview.model.User;
+import io.github.denrzv.audioreview.repository.ReviewerRollupRepository;
+import io.github.denrzv.audioreview.repository.ReviewerRollupRepository.RollupTotals;
+import io.github.denrzv.audioreview.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reviewer throughput from the minute, hour and day rollups that the classification journal
+ * maintains as it writes, so leaderboards and trends never scan the classifications table.
+ */
+@Service
+@AllArgsConstructor
+@Slf4j
+public class ReviewerAnalyticsService {
+
+    private static final double MEDIAN = 0.5;
+    private static final double P90 = 0.9;
+
+    private final ReviewerRollupRepository reviewerRollupRepository;
+    private final ReviewerRollupWriter reviewerRollupWriter;
+    private final UserRepository userRepository;
+
+    /**
+     * @param granularity bucket size to read; the range is widened to whole buckets
+     * @param from        start of the range, inclusive
+     * @param to          end of the range, exclusive
+     * @param limit       maximum number of reviewers
+     * @return reviewers with labels in the range, most labels first
+     */
+    @Transactional(readOnly = true)
+    public List<ReviewerThroughput> getLeaderboard(Granularity granularity, LocalDateTime from, LocalDateTime to, int limit) {
+        return reviewerRollupRepository.findTotalsPerReviewer(granularity, granularity.bucketOf(from), to, limit).stream()
+                .map(totals -> ReviewerThroughput.builder()
+                        .username(totals.username())
+                        .labels(totals.labels())
+                        .activeBuckets(totals.buckets())
+                        .labelsPerHour(totals.labelTimeMs() == 0 ? null
+                                : totals.timedLabels() * (double) TimeUnit.HOURS.toMillis(1) / totals.labelTimeMs())
+                        .meanLabelMs(mean(totals))
+                        .medianLabelMs(totals.histogram().valueAtQuantile(MEDIAN))
+                        .p90LabelMs(totals.histogram().valueAtQuantile(P90))
+                        .labelTimeMs(totals.labelTimeMs())
+                        .idleMs(totals.idleMs())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * @param username    the reviewer
+     * @param granularity bucket size to read; the range is widened to whole buckets
+     * @param from        start of the range, inclusive
+     * @param to          end of the range, exclusive
+     * @return the reviewer's buckets with labels, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<ReviewerTrendPoint> getTrend(String username, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        return reviewerRollupRepository.findBuckets(user.getId(), granularity, granularity.bucketOf(from), to).stream()
+                .map(totals -> ReviewerTrendPoint.builder()
+                        .bucketStart(totals.bucketStart())
+                        .labels(totals.labels())
+                        .meanLabelMs(mean(totals))
+                        .medianLabelMs(totals.histogram().valueAtQuantile(MEDIAN))
+                        .p90LabelMs(totals.histogram().valueAtQuantile(P90))
+                        .labelTimeMs(totals.labelTimeMs())
+                        .idleMs(totals.idleMs())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Recompute the rollups from the classifications, e.g. after changing the idle threshold.
+     * Classifications are journaled meanwhile and written once the rebuild commits.
+     */
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        long classifications = reviewerRollupWriter.rebuild();
+        log.info("Rebuilt reviewer rollups from {} classifications in {} ms",
+                classifications, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private static Long mean(RollupTotals totals) {
+        return totals.timedLabels() == 0 ? null : totals.labelTimeMs() / totals.timedLabels();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.denrzv.audioreview.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same value: callers arriving while a load is in flight
+ * wait for that load instead of starting their own, and a completed result is reused for the
+ * duration of the window.
+ *
+ * @param <T> the loaded value type
+ */
+public class SingleFlight<T> {
+
+    private final Supplier<T> loader;
+    private final long windowNanos;
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile T lastValue;
+    private volatile long lastLoadedAt;
+
+    public SingleFlight(Supplier<T> loader, long windowMs) {
+        this.loader = loader;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    public T get() {
+        T cached = freshValue();
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.compareAndExchange(null, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            T value = freshValue();
+            if (value == null) {
+                long loadGeneration = generation.get();
+                value = loader.get();
+                // A load that raced with invalidate() may be stale, so it is returned but not cached
+                if (generation.get() == loadGeneration) {
+                    lastValue = value;
+                    lastLoadedAt = System.nanoTime();
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    /**
+     * Drop the cached result so that the next call loads a new value.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        lastValue = null;
+    }
+
+    private T freshValue() {
+        T value = lastValue;
+        return value != null && System.nanoTime() - lastLoadedAt < windowNanos ? value : null;
+    }
+
+    private T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
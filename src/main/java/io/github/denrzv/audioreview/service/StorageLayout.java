@@ -0,0 +1,61 @@
+package io.github.denrzv.audioreview.service;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Where stored files are placed below the upload directory.
+ */
+public enum StorageLayout {
+
+    /**
+     * {@code <category>/<yyyy-mm-dd>/<filename>}. Busy days end up with very large directories.
+     */
+    CATEGORY_DATE {
+        @Override
+        public String directoryFor(String filename, String category, LocalDate date, String salt) {
+            return category.toLowerCase().replaceAll("\\s+", "") + "/" + date;
+        }
+    },
+
+    /**
+     * {@code <h1h2>/<h3h4>/<filename>}, where the hex digits come from a hash of a per-file salt and
+     * the filename. Spreads files evenly over 65,536 directories regardless of upload pattern, and
+     * files sharing a name end up in different directories.
+     */
+    HASH_FANOUT {
+        @Override
+        public String directoryFor(String filename, String category, LocalDate date, String salt) {
+            String hash = Hashing.murmur3_32_fixed().hashString(salt + "/" + filename, StandardCharsets.UTF_8).toString();
+            return hash.substring(0, 2) + "/" + hash.substring(2, 4);
+        }
+    };
+
+    /**
+     * Directory for a file, relative to the upload directory.
+     *
+     * @param filename the original filename
+     * @param category the category the file was uploaded for
+     * @param date     the upload date
+     * @param salt     a value unique to the stored file, so equal filenames get different paths
+     * @return the relative directory, using {@code /} as separator
+     */
+    public abstract String directoryFor(String filename, String category, LocalDate date, String salt);
+
+    public boolean usesCategory() {
+        return this == CATEGORY_DATE;
+    }
+
+    /**
+     * Whether the salt is part of the path. Only then can a taken path be avoided by picking another salt.
+     */
+    public boolean usesSalt() {
+        return this == HASH_FANOUT;
+    }
+
+    public String pathFor(String filename, String category, LocalDate date, String salt) {
+        return directoryFor(filename, category, date, salt) + "/" + filename;
+    }
+}
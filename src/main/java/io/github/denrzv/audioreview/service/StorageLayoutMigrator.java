@@ -0,0 +1,258 @@
+package io.github.denrzv.audioreview.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves stored files into the configured {@link StorageLayout} while the service keeps serving.
+ *
+ * <p>Rows are visited in ID order in batches. Each file is first copied to its new path (a hard link
+ * on local storage), then the batch of {@code filepath} updates is committed, and only then are the
+ * old paths removed, so a file is readable under the path the database currently points at throughout. The update bumps
+ * the row version, which makes a concurrent entity update fail instead of writing the old path back.
+ * Every step is idempotent: an interrupted run is resumed from the last committed ID, or after a restart
+ * from the start, skipping rows that already match the layout.</p>
+ */
+@Service
+@Slf4j
+public class StorageLayoutMigrator {
+
+    private static final String JOB = "layout migration";
+    private static final String SELECT_BATCH = "SELECT a.id, a.filename, a.filepath, a.uploaded_at, c.name AS category " +
+            "FROM audio_files a JOIN categories c ON c.id = a.initial_category_id " +
+            "WHERE a.id > ? ORDER BY a.id LIMIT ?";
+    private static final String UPDATE_FILEPATH = "UPDATE audio_files SET filepath = ?, version = COALESCE(version, 0) + 1 " +
+            "WHERE id = ? AND filepath = ?";
+
+    private final FileStorageService fileStorageService;
+    private final StorageMaintenanceLock maintenanceLock;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RateLimiter rateLimiter;
+    private final int batchSize;
+    private final boolean migrateOnStartup;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-layout-migrator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastId;
+    private volatile boolean stopRequested;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public StorageLayoutMigrator(FileStorageService fileStorageService,
+                                 StorageMaintenanceLock maintenanceLock,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${app.storage-layout.migration-batch-size}") int batchSize,
+                                 @Value("${app.storage-layout.migration-files-per-second}") double filesPerSecond,
+                                 @Value("${app.storage-layout.migrate-on-startup}") boolean migrateOnStartup) {
+        this.fileStorageService = fileStorageService;
+        this.maintenanceLock = maintenanceLock;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rateLimiter = RateLimiter.create(filesPerSecond);
+        this.batchSize = batchSize;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            start(false);
+        }
+    }
+
+    /**
+     * Start or resume the migration in the background.
+     *
+     * @param restart start over from the first row instead of resuming
+     * @return the migration status
+     */
+    public Map<String, Object> start(boolean restart) {
+        maintenanceLock.acquire(JOB);
+        if (restart || finishedAt != null) {
+            lastId = 0;
+            migrated.set(0);
+            skipped.set(0);
+            conflicts.set(0);
+            failed.set(0);
+        }
+        stopRequested = false;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (RuntimeException ex) {
+                log.error("Storage layout migration failed at id {}", lastId, ex);
+                error = ex.getMessage();
+            } finally {
+                maintenanceLock.release(JOB);
+            }
+        });
+        return getStatus();
+    }
+
+    /**
+     * Pause the migration after the current batch. It resumes from there on the next start.
+     *
+     * @return the migration status
+     */
+    public Map<String, Object> stop() {
+        stopRequested = true;
+        return getStatus();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("layout", fileStorageService.getStorageLayout());
+        status.put("running", maintenanceLock.isHeldBy(JOB));
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastId", lastId);
+        status.put("migrated", migrated.get());
+        status.put("skipped", skipped.get());
+        status.put("conflicts", conflicts.get());
+        status.put("failed", failed.get());
+        status.put("error", error);
+        return status;
+    }
+
+    private void run() {
+        StorageLayout layout = fileStorageService.getStorageLayout();
+        log.info("Migrating stored files to the {} layout from id {}", layout, lastId);
+        while (!stopRequested) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_BATCH, lastId, batchSize);
+            if (rows.isEmpty()) {
+                finishedAt = LocalDateTime.now();
+                log.info("Storage layout migration finished: {} migrated, {} conflicts, {} failed",
+                        migrated.get(), conflicts.get(), failed.get());
+                return;
+            }
+
+            List<Move> moves = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                String source = (String) row.get("filepath");
+                long id = ((Number) row.get("id")).longValue();
+                // The row ID keeps the salted target stable across runs
+                String target = layout.pathFor((String) row.get("filename"), (String) row.get("category"),
+                        ((Timestamp) row.get("uploaded_at")).toLocalDateTime().toLocalDate(), String.valueOf(id));
+                if (source.equals(target)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+
+                rateLimiter.acquire();
+                Boolean copied = copyToTarget(id, source, target);
+                if (copied != null) {
+                    moves.add(new Move(id, source, target, copied));
+                }
+            }
+
+            commit(moves);
+            lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+        log.info("Storage layout migration paused at id {}", lastId);
+    }
+
+    /**
+     * Make the file available at its target path.
+     *
+     * @return whether a copy was created by this call, or null if the row cannot be migrated
+     */
+    private Boolean copyToTarget(long id, String source, String target) {
+        try {
+            if (fileStorageService.exists(source)) {
+                fileStorageService.copy(source, target);
+                return true;
+            }
+            // The source is gone but an earlier run already copied it to the target
+            if (fileStorageService.exists(target)) {
+                return false;
+            }
+            log.warn("Stored file {} of audio file {} is missing, not migrating it", source, id);
+            failed.incrementAndGet();
+        } catch (FileAlreadyExistsException ex) {
+            log.warn("Cannot migrate audio file {}: {} is taken by another file", id, target);
+            conflicts.incrementAndGet();
+        } catch (IOException ex) {
+            log.warn("Cannot migrate audio file {}: {}", id, ex.getMessage());
+            failed.incrementAndGet();
+        }
+        return null;
+    }
+
+    private void commit(List<Move> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+
+        int[] updated;
+        try {
+            updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_FILEPATH,
+                    moves.stream().map(move -> new Object[]{move.target, move.id, move.source}).toList()));
+        } catch (DataIntegrityViolationException ex) {
+            // Another row already points at one of the targets, retry one by one to find it
+            updated = new int[moves.size()];
+            for (int i = 0; i < moves.size(); i++) {
+                Move move = moves.get(i);
+                try {
+                    updated[i] = jdbcTemplate.update(UPDATE_FILEPATH, move.target, move.id, move.source);
+                } catch (DataIntegrityViolationException duplicate) {
+                    conflicts.incrementAndGet();
+                    updated[i] = -1;
+                }
+            }
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.get(i);
+            if (updated[i] > 0) {
+                fileStorageService.deleteFile(move.source);
+                migrated.incrementAndGet();
+            } else if (move.copied) {
+                // Row was deleted or repointed meanwhile, drop the copy nobody references
+                fileStorageService.deleteFile(move.target);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        executor.shutdown();
+    }
+
+    private record Move(long id, String source, String target, boolean copied) {
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.exception.ResourceAlreadyExistsException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps background storage jobs from running at the same time. The reconciler would
+ * otherwise see files mid-move by the layout migration as orphans.
+ */
+@Component
+public class StorageMaintenanceLock {
+
+    private final AtomicReference<String> holder = new AtomicReference<>();
+
+    /**
+     * Acquire the lock for a job.
+     *
+     * @param job name of the job, reported to whoever finds the lock taken
+     * @throws ResourceAlreadyExistsException if another job holds the lock
+     */
+    public void acquire(String job) {
+        if (!holder.compareAndSet(null, job)) {
+            throw new ResourceAlreadyExistsException("Storage " + holder.get() + " is already running.");
+        }
+    }
+
+    public boolean isHeld() {
+        return holder.get() != null;
+    }
+
+    public boolean isHeldBy(String job) {
+        return job.equals(holder.get());
+    }
+
+    public void release(String job) {
+        holder.compareAndSet(job, null);
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.denrzv.audioreview.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes stored audio of removed files in the background.
+ * Paths are only queued once the deleting transaction commits; deletion runs on a small
+ * thread pool and is throttled so a mass delete does not saturate the disk.
+ * The queue holds at most {@code app.storage-reclaimer.queue-capacity} paths. Blobs that did
+ * not fit, and blobs missed because of a crash, are left as orphans for the storage reconciler.
+ */
+@Service
+@Slf4j
+public class StorageReclaimer {
+
+    private final FileStorageService fileStorageService;
+    private final ExecutorService executor;
+    private final RateLimiter rateLimiter;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public StorageReclaimer(FileStorageService fileStorageService,
+                            @Value("${app.storage-reclaimer.threads}") int threads,
+                            @Value("${app.storage-reclaimer.deletes-per-second}") double deletesPerSecond,
+                            @Value("${app.storage-reclaimer.queue-capacity}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.rateLimiter = RateLimiter.create(deletesPerSecond);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "storage-reclaimer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    /**
+     * Queue stored files for deletion after the current transaction commits,
+     * or immediately when no transaction is active.
+     *
+     * @param paths storage paths relative to the upload directory
+     */
+    public void reclaimAfterCommit(Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = List.copyOf(paths);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(snapshot);
+                }
+            });
+        } else {
+            submit(snapshot);
+        }
+    }
+
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    public long getReclaimedCount() {
+        return reclaimed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void submit(List<String> paths) {
+        pending.addAndGet(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            try {
+                executor.execute(() -> reclaim(path));
+            } catch (RejectedExecutionException ex) {
+                int left = paths.size() - i;
+                pending.addAndGet(-left);
+                dropped.addAndGet(left);
+                log.warn("Reclaim queue is full, leaving {} stored files as orphans for the storage reconciler", left);
+                return;
+            }
+        }
+    }
+
+    private void reclaim(String path) {
+        rateLimiter.acquire();
+        try {
+            if (fileStorageService.deleteFile(path)) {
+                reclaimed.incrementAndGet();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not reclaim stored file {}: {}", path, ex.getMessage());
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Stopping with {} stored files not reclaimed", pending.get());
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package io.github.denrzv.audioreview.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.github.denrzv.audioreview.dto.StorageReconciliationReport;
+import io.github.denrzv.audioreview.storage.StorageBackend;
+import io.github.denrzv.audioreview.storage.StorageObject;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles the storage backend with {@code audio_files.filepath} and scrubs stored content.
+ *
+ * <p>Both sides are enumerated in the same order and merged like sorted files: the backend listing
+ * is consumed as a stream, and database rows are streamed through a cursor sorted the way the backend
+ * lists keys, so neither set is held in memory. Stored files without a row are orphans,
+ * rows without a stored file are missing. Matched files whose checksum was not verified recently are
+ * checksummed on a separate pool, throttled to a configured number of bytes per second.</p>
+ */
+@Service
+@Slf4j
+public class StorageReconciler {
+
+    private static final String JOB = "reconciliation";
+    private static final int SAMPLE_LIMIT = 100;
+    private static final int FETCH_SIZE = 1000;
+    private static final int UPDATE_BATCH_SIZE = 500;
+    private static final String DB_PATHS_QUERY = "SELECT id, filepath, checksum, checksum_verified_at FROM audio_files ORDER BY ";
+    private static final String UPDATE_CHECKSUM = "UPDATE audio_files SET checksum = COALESCE(checksum, ?), " +
+            "checksum_verified_at = ? WHERE id = ?";
+
+    private final StorageBackend storageBackend;
+    private final FileStorageService fileStorageService;
+    private final StorageMaintenanceLock maintenanceLock;
+    private final AudioFileService audioFileService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentChecksum.Algorithm checksumAlgorithm;
+    private final RateLimiter verifyRateLimiter;
+    private final Duration verifyInterval;
+    private final Duration orphanGracePeriod;
+    private final int verifyThreads;
+    private final boolean scheduledFixOrphans;
+    private final boolean scheduledFixMissing;
+    private final ExecutorService runExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile StorageReconciliationReport lastReport = StorageReconciliationReport.builder().build();
+
+    public StorageReconciler(StorageBackend storageBackend,
+                             FileStorageService fileStorageService,
+                             StorageMaintenanceLock maintenanceLock,
+                             AudioFileService audioFileService,
+                             JdbcTemplate jdbcTemplate,
+                             DataSource dataSource,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.storage-reconciler.checksum-algorithm}") ContentChecksum.Algorithm checksumAlgorithm,
+                             @Value("${app.storage-reconciler.verify-bytes-per-second}") long verifyBytesPerSecond,
+                             @Value("${app.storage-reconciler.verify-interval-days}") long verifyIntervalDays,
+                             @Value("${app.storage-reconciler.orphan-grace-minutes}") long orphanGraceMinutes,
+                             @Value("${app.storage-reconciler.verify-threads}") int verifyThreads,
+                             @Value("${app.storage-reconciler.fix-orphans}") boolean scheduledFixOrphans,
+                             @Value("${app.storage-reconciler.fix-missing}") boolean scheduledFixMissing) {
+        this.storageBackend = storageBackend;
+        this.fileStorageService = fileStorageService;
+        this.maintenanceLock = maintenanceLock;
+        this.audioFileService = audioFileService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = transactionTemplate;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.verifyRateLimiter = RateLimiter.create(verifyBytesPerSecond);
+        this.verifyInterval = Duration.ofDays(verifyIntervalDays);
+        this.orphanGracePeriod = Duration.ofMinutes(orphanGraceMinutes);
+        this.verifyThreads = verifyThreads;
+        this.scheduledFixOrphans = scheduledFixOrphans;
+        this.scheduledFixMissing = scheduledFixMissing;
+
+        Gauge.builder("storage.reconciler.orphans", this, reconciler -> reconciler.lastReport.getOrphanCount())
+                .description("Stored files without a database row in the last reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconciler.missing", this, reconciler -> reconciler.lastReport.getMissingCount())
+                .description("Database rows without a stored file in the last reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconciler.checksum.mismatches", this, reconciler -> reconciler.lastReport.getChecksumMismatchCount())
+                .description("Stored files whose content no longer matches the recorded checksum")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconciler.scrub.failures", this, reconciler -> reconciler.lastReport.getScrubFailureCount())
+                .description("Stored files whose checksum could not be verified because reading them failed")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconciler.running", this, reconciler -> reconciler.maintenanceLock.isHeldBy(JOB) ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    public StorageReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    @Scheduled(cron = "${app.storage-reconciler.cron}")
+    public void scheduledRun() {
+        if (!maintenanceLock.isHeld()) {
+            start(scheduledFixOrphans, scheduledFixMissing, true);
+        }
+    }
+
+    /**
+     * Start a reconciliation in the background.
+     *
+     * @param fixOrphans delete stored files that have no database row
+     * @param fixMissing delete database rows whose stored file is gone
+     * @param verify     verify checksums of files not verified recently
+     * @return the initial state of the run
+     */
+    public StorageReconciliationReport start(boolean fixOrphans, boolean fixMissing, boolean verify) {
+        maintenanceLock.acquire(JOB);
+        Run run = new Run(fixOrphans, fixMissing, verify);
+        lastReport = run.snapshot(true);
+        runExecutor.execute(() -> {
+            try {
+                run.execute();
+                lastReport = run.snapshot(false);
+                log.info("Storage reconciliation finished: {}", lastReport);
+            } catch (RuntimeException ex) {
+                log.error("Storage reconciliation failed", ex);
+                run.error = ex.getMessage();
+                lastReport = run.snapshot(false);
+            } finally {
+                maintenanceLock.release(JOB);
+            }
+        });
+        return lastReport;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runExecutor.shutdownNow();
+    }
+
+    /**
+     * State of a single reconciliation run.
+     */
+    private class Run {
+        private final boolean fixOrphans;
+        private final boolean fixMissing;
+        private final boolean verify;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final Instant orphanCutoff = Instant.now().minus(orphanGracePeriod);
+        private final LocalDateTime verifiedCutoff = startedAt.minus(verifyInterval);
+        private final AtomicLong storedFiles = new AtomicLong();
+        private final AtomicLong databaseRows = new AtomicLong();
+        private final AtomicLong orphanCount = new AtomicLong();
+        private final AtomicLong missingCount = new AtomicLong();
+        private final AtomicLong checksumsVerified = new AtomicLong();
+        private final AtomicLong checksumsRecorded = new AtomicLong();
+        private final AtomicLong mismatchCount = new AtomicLong();
+        private final AtomicLong scrubFailureCount = new AtomicLong();
+        private final AtomicLong bytesVerified = new AtomicLong();
+        private final AtomicLong orphansDeleted = new AtomicLong();
+        private final AtomicLong missingRowsDeleted = new AtomicLong();
+        private final List<String> orphanSamples = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> missingSamples = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> mismatchSamples = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> scrubFailureSamples = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> missingIds = new ArrayList<>();
+        private final Queue<Object[]> checksumUpdates = new ConcurrentLinkedQueue<>();
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Run(boolean fixOrphans, boolean fixMissing, boolean verify) {
+            this.fixOrphans = fixOrphans;
+            this.fixMissing = fixMissing;
+            this.verify = verify;
+        }
+
+        private void execute() {
+            ExecutorService verifyPool = Executors.newFixedThreadPool(verifyThreads);
+            Semaphore verifySlots = new Semaphore(verifyThreads * 4);
+            try {
+                // Not read-only: a lagging replica would report fresh uploads as orphans. The transaction
+                // is needed for the driver to stream rows through a cursor
+                transactionTemplate.executeWithoutResult(status -> {
+                    StorageBackend.KeyOrder order = storageBackend.listOrder();
+                    try (Stream<StorageObject> files = storageBackend.list("");
+                         Stream<DbEntry> rows = cursorJdbcTemplate.queryForStream(DB_PATHS_QUERY + order.getSqlOrderBy(), (rs, rowNum) -> {
+                             Timestamp verifiedAt = rs.getTimestamp("checksum_verified_at");
+                             return new DbEntry(rs.getLong("id"), rs.getString("filepath"), rs.getString("checksum"),
+                                     verifiedAt != null ? verifiedAt.toLocalDateTime() : null);
+                         })) {
+                        merge(files.iterator(), rows.iterator(), order.comparator(), verifyPool, verifySlots);
+                    }
+                });
+            } finally {
+                verifyPool.shutdown();
+                try {
+                    verifyPool.awaitTermination(1, TimeUnit.DAYS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            flushChecksumUpdates(true);
+
+            if (fixMissing && !missingIds.isEmpty()) {
+                audioFileService.deleteMultipleFiles(missingIds);
+                missingRowsDeleted.set(missingIds.size());
+            }
+            finishedAt = LocalDateTime.now();
+        }
+
+        private void merge(Iterator<StorageObject> files, Iterator<DbEntry> rows, Comparator<String> order,
+                           ExecutorService verifyPool, Semaphore verifySlots) {
+            StorageObject file = files.hasNext() ? files.next() : null;
+            DbEntry row = rows.hasNext() ? rows.next() : null;
+            while (file != null || row != null) {
+                int comparison = file == null ? 1 : row == null ? -1 : order.compare(file.key(), row.path);
+                if (comparison < 0) {
+                    storedFiles.incrementAndGet();
+                    onOrphan(file);
+                    file = files.hasNext() ? files.next() : null;
+                } else if (comparison > 0) {
+                    databaseRows.incrementAndGet();
+                    onMissing(row);
+                    row = rows.hasNext() ? rows.next() : null;
+                } else {
+                    storedFiles.incrementAndGet();
+                    databaseRows.incrementAndGet();
+                    if (verify && (row.checksum == null || row.verifiedAt == null || row.verifiedAt.isBefore(verifiedCutoff))) {
+                        submitVerification(row, file.size(), verifyPool, verifySlots);
+                    }
+                    file = files.hasNext() ? files.next() : null;
+                    row = rows.hasNext() ? rows.next() : null;
+                }
+            }
+        }
+
+        private void onOrphan(StorageObject file) {
+            // Uploads write the file before the row, so recent files may just be in flight
+            if (!file.lastModified().isBefore(orphanCutoff)) {
+                return;
+            }
+
+            orphanCount.incrementAndGet();
+            sample(orphanSamples, file.key());
+            if (fixOrphans && fileStorageService.deleteFile(file.key())) {
+                orphansDeleted.incrementAndGet();
+            }
+        }
+
+        private void onMissing(DbEntry row) {
+            missingCount.incrementAndGet();
+            sample(missingSamples, row.path);
+            if (fixMissing) {
+                missingIds.add(row.id);
+            }
+        }
+
+        private void submitVerification(DbEntry row, long size, ExecutorService verifyPool, Semaphore verifySlots) {
+            verifySlots.acquireUninterruptibly();
+            verifyPool.execute(() -> {
+                try {
+                    verifyChecksum(row, size);
+                } catch (RuntimeException ex) {
+                    onScrubFailure(row, ex);
+                } finally {
+                    verifySlots.release();
+                }
+            });
+        }
+
+        private void verifyChecksum(DbEntry row, long size) {
+            ContentChecksum.Algorithm algorithm = row.checksum != null ? ContentChecksum.Algorithm.of(row.checksum) : checksumAlgorithm;
+            String actual;
+            try (InputStream in = storageBackend.get(row.path, 0, -1)) {
+                actual = ContentChecksum.compute(in, algorithm, verifyRateLimiter);
+                bytesVerified.addAndGet(size);
+            } catch (NoSuchFileException ex) {
+                // Deleted since it was listed
+                return;
+            } catch (IOException ex) {
+                onScrubFailure(row, ex);
+                return;
+            }
+
+            if (row.checksum == null) {
+                checksumsRecorded.incrementAndGet();
+            } else if (row.checksum.equals(actual)) {
+                checksumsVerified.incrementAndGet();
+            } else {
+                mismatchCount.incrementAndGet();
+                sample(mismatchSamples, row.path);
+                log.warn("Checksum mismatch for {}: expected {}, found {}", row.path, row.checksum, actual);
+                return;
+            }
+            checksumUpdates.add(new Object[]{actual, Timestamp.valueOf(LocalDateTime.now()), row.id});
+            flushChecksumUpdates(false);
+        }
+
+        private void onScrubFailure(DbEntry row, Exception ex) {
+            scrubFailureCount.incrementAndGet();
+            sample(scrubFailureSamples, row.path);
+            log.warn("Could not verify checksum of {}: {}", row.path, ex.toString());
+        }
+
+        private void flushChecksumUpdates(boolean force) {
+            if (!force && checksumUpdates.size() < UPDATE_BATCH_SIZE) {
+                return;
+            }
+            List<Object[]> batch = new ArrayList<>();
+            Object[] update;
+            while ((update = checksumUpdates.poll()) != null) {
+                batch.add(update);
+            }
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_CHECKSUM, batch);
+            }
+        }
+
+        private void sample(List<String> samples, String path) {
+            if (samples.size() < SAMPLE_LIMIT) {
+                samples.add(path);
+            }
+        }
+
+        private StorageReconciliationReport snapshot(boolean stillRunning) {
+            return StorageReconciliationReport.builder()
+                    .running(stillRunning)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .fixOrphans(fixOrphans)
+                    .fixMissing(fixMissing)
+                    .storedFiles(storedFiles.get())
+                    .databaseRows(databaseRows.get())
+                    .orphanCount(orphanCount.get())
+                    .orphanSamples(List.copyOf(orphanSamples))
+                    .missingCount(missingCount.get())
+                    .missingSamples(List.copyOf(missingSamples))
+                    .checksumsVerified(checksumsVerified.get())
+                    .checksumsRecorded(checksumsRecorded.get())
+                    .checksumMismatchCount(mismatchCount.get())
+                    .checksumMismatchSamples(List.copyOf(mismatchSamples))
+                    .scrubFailureCount(scrubFailureCount.get())
+                    .scrubFailureSamples(List.copyOf(scrubFailureSamples))
+                    .bytesVerified(bytesVerified.get())
+                    .orphansDeleted(orphansDeleted.get())
+                    .missingRowsDeleted(missingRowsDeleted.get())
+                    .error(error)
+                    .build();
+        }
+    }
+
+    private record DbEntry(long id, String path, String checksum, LocalDateTime verifiedAt) {
+    }
+}
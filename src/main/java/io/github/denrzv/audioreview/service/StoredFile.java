@@ -0,0 +1,21 @@
+package io.github.denrzv.audioreview.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of storing an uploaded file.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredFile {
+
+    /**
+     * Path relative to the upload directory, as saved in {@code audio_files.filepath}.
+     */
+    private final String path;
+
+    private final String checksum;
+
+    private final long size;
+}
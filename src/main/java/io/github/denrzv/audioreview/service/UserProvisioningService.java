@@ -0,0 +1,309 @@
+package io.github.denrzv.audioreview.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.AbstractIterator;
+import io.github.denrzv.audioreview.dto.UserProvisioningRequest;
+import io.github.denrzv.audioreview.dto.UserProvisioningResult;
+import io.github.denrzv.audioreview.dto.UserProvisioningResult.Status;
+import io.github.denrzv.audioreview.event.UserChangedEvent;
+import io.github.denrzv.audioreview.model.User;
+import io.github.denrzv.audioreview.repository.UserBulkRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Creates many user accounts from one CSV or JSON stream, for onboarding whole reviewer teams.
+ * <p>
+ * Users are processed in batches: duplicates are found with one query per batch, passwords are
+ * hashed in parallel on a dedicated pool (half of the cores by default, at the configured BCrypt
+ * cost, but not through the login pool so onboarding is never shed), and each batch is inserted
+ * with a single statement in its own transaction. Results are handed to the caller batch by batch,
+ * in input order, so they can be streamed back while the rest of the input is still being read.
+ */
+@Service
+@Slf4j
+public class UserProvisioningService {
+
+    private static final int MAX_USERNAME_LENGTH = 50;
+
+    private final UserBulkRepository userBulkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ExecutorService hashingPool;
+    private final int batchSize;
+
+    public UserProvisioningService(UserBulkRepository userBulkRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.password-hashing.bcrypt-strength}") int strength,
+                                   @Value("${app.user-provisioning.hashing-threads}") int hashingThreads,
+                                   @Value("${app.user-provisioning.batch-size}") int batchSize) {
+        this.userBulkRepository = userBulkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.passwordEncoder = new BCryptPasswordEncoder(strength);
+        this.batchSize = batchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "user-provisioning-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // By default leave half of the cores to request handling and logins while a large import runs
+        this.hashingPool = Executors.newFixedThreadPool(
+                hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                threadFactory);
+    }
+
+    /**
+     * Read users from CSV with the columns {@code username,password[,role]}. A header row and blank
+     * lines are skipped; fields may be double-quoted.
+     *
+     * @param reader the CSV input
+     * @return the users, read lazily
+     */
+    public Iterator<UserProvisioningRequest> readCsv(BufferedReader reader) {
+        return new AbstractIterator<>() {
+            private boolean first = true;
+
+            @Override
+            protected UserProvisioningRequest computeNext() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        List<String> fields = parseCsvLine(line);
+                        boolean header = first && fields.get(0).trim().equalsIgnoreCase("username");
+                        first = false;
+                        if (!header) {
+                            return new UserProvisioningRequest(fields.get(0),
+                                    fields.size() > 1 ? fields.get(1) : null,
+                                    fields.size() > 2 ? fields.get(2) : null);
+                        }
+                    }
+                    return endOfData();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
+    }
+
+    /**
+     * Read users from a JSON array or from newline-delimited JSON objects.
+     *
+     * @param input the JSON input
+     * @return the users, read lazily
+     * @throws IOException if the input cannot be opened as JSON
+     */
+    public Iterator<UserProvisioningRequest> readJson(InputStream input) throws IOException {
+        MappingIterator<UserProvisioningRequest> users = objectMapper.readerFor(UserProvisioningRequest.class).readValues(input);
+        return users;
+    }
+
+    /**
+     * Create the users.
+     *
+     * @param users   the users to create
+     * @param results receives the results of each batch, in input order
+     */
+    public void provision(Iterator<UserProvisioningRequest> users, Consumer<List<UserProvisioningResult>> results) {
+        Set<String> seen = new HashSet<>();
+        List<UserProvisioningRequest> batch = new ArrayList<>(batchSize);
+        int firstRow = 1;
+        int created = 0;
+        while (true) {
+            UserProvisioningRequest next;
+            try {
+                next = users.hasNext() ? users.next() : null;
+            } catch (RuntimeException ex) {
+                // Malformed input: keep what was read, report where reading stopped
+                created += provisionBatch(firstRow, batch, seen, results);
+                results.accept(List.of(new UserProvisioningResult(firstRow + batch.size(), null, Status.FAILED,
+                        "Unreadable input: " + ex.getMessage())));
+                break;
+            }
+            if (next == null) {
+                created += provisionBatch(firstRow, batch, seen, results);
+                break;
+            }
+            batch.add(next);
+            if (batch.size() == batchSize) {
+                created += provisionBatch(firstRow, batch, seen, results);
+                firstRow += batch.size();
+                batch.clear();
+            }
+        }
+        log.info("Provisioned {} users", created);
+    }
+
+    private int provisionBatch(int firstRow, List<UserProvisioningRequest> batch, Set<String> seen,
+                               Consumer<List<UserProvisioningResult>> results) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        UserProvisioningResult[] batchResults = new UserProvisioningResult[batch.size()];
+        List<Integer> pending = new ArrayList<>();
+        List<User.Role> roles = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            UserProvisioningRequest request = batch.get(i);
+            String username = request.getUsername() != null ? request.getUsername().trim() : "";
+            String problem = validate(username, request.getPassword());
+            User.Role role = role(request.getRole());
+            if (problem == null && role == null) {
+                problem = "Unknown role " + request.getRole();
+            }
+            if (problem != null) {
+                batchResults[i] = new UserProvisioningResult(firstRow + i, username, Status.INVALID, problem);
+            } else if (!seen.add(username)) {
+                batchResults[i] = new UserProvisioningResult(firstRow + i, username, Status.DUPLICATE, "Username appears twice in the input");
+            } else {
+                pending.add(i);
+            }
+            roles.add(role);
+        }
+
+        Set<String> existing = userBulkRepository.findExistingUsernames(
+                pending.stream().map(i -> batch.get(i).getUsername().trim()).toList());
+        List<Future<String>> hashes = new ArrayList<>();
+        List<Integer> toInsert = new ArrayList<>();
+        for (int i : pending) {
+            String username = batch.get(i).getUsername().trim();
+            if (existing.contains(username)) {
+                batchResults[i] = new UserProvisioningResult(firstRow + i, username, Status.DUPLICATE, "Username is already taken");
+            } else {
+                String password = batch.get(i).getPassword();
+                hashes.add(hashingPool.submit(() -> passwordEncoder.encode(password)));
+                toInsert.add(i);
+            }
+        }
+
+        List<User> users = new ArrayList<>(toInsert.size());
+        for (int j = 0; j < toInsert.size(); j++) {
+            int i = toInsert.get(j);
+            users.add(User.builder()
+                    .username(batch.get(i).getUsername().trim())
+                    .password(hash(hashes.get(j)))
+                    .role(roles.get(i))
+                    .active(true)
+                    .build());
+        }
+
+        Set<String> inserted = transactionTemplate.execute(status -> {
+            Set<String> usernames = userBulkRepository.insertSkippingExisting(users);
+            usernames.forEach(username -> eventPublisher.publishEvent(new UserChangedEvent(username)));
+            return usernames;
+        });
+        for (int i : toInsert) {
+            String username = batch.get(i).getUsername().trim();
+            batchResults[i] = inserted.contains(username)
+                    ? new UserProvisioningResult(firstRow + i, username, Status.CREATED, null)
+                    // Taken between the duplicate check and the insert
+                    : new UserProvisioningResult(firstRow + i, username, Status.DUPLICATE, "Username is already taken");
+        }
+        results.accept(List.of(batchResults));
+        return inserted.size();
+    }
+
+    private static String validate(String username, String password) {
+        if (username.isEmpty()) {
+            return "Username is required";
+        }
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            return "Username is longer than " + MAX_USERNAME_LENGTH + " characters";
+        }
+        if (password == null || password.isEmpty()) {
+            return "Password is required";
+        }
+        return null;
+    }
+
+    private static User.Role role(String role) {
+        if (role == null || role.isBlank()) {
+            return User.Role.USER;
+        }
+        try {
+            return User.Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static String hash(Future<String> hash) {
+        try {
+            return hash.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Could not hash a password", ex.getCause());
+        }
+    }
+
+    /**
+     * Split one CSV line into fields. Fields may be enclosed in double quotes, with {@code ""}
+     * standing for a quote inside them.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+}
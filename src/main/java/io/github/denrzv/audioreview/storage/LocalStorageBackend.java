@@ -0,0 +1,298 @@
+package io.github.denrzv.audioreview.storage;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stores objects as files below a root directory, one file per key.
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int PREFETCH_DIRECTORIES = 8;
+
+    private final Path root;
+    private final ForkJoinPool listingPool;
+    // Directories known to exist, so writes skip the filesystem round trips of createDirectories
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    public LocalStorageBackend(Path root, int listingThreads) {
+        this.root = root.toAbsolutePath().normalize();
+        this.listingPool = new ForkJoinPool(listingThreads);
+
+        try {
+            Files.createDirectories(this.root);
+        } catch (Exception ex) {
+            throw new RuntimeException("Could not create the directory where uploaded files will be stored.", ex);
+        }
+    }
+
+    @Override
+    public long put(String key, InputStream content, long contentLength) throws IOException {
+        Path target = resolve(key);
+        long size = 0;
+        try (OutputStream out = openForWrite(target)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : ByteStreams.limit(in, length);
+    }
+
+    /**
+     * Delete the file and any directories left empty by it.
+     */
+    @Override
+    public boolean delete(String key) throws IOException {
+        Path target = resolve(key);
+        boolean deleted = Files.deleteIfExists(target);
+        try {
+            Path directory = target.getParent();
+            while (directory != null && !directory.equals(root)) {
+                try (var entries = Files.list(directory)) {
+                    if (entries.findAny().isPresent()) {
+                        break;
+                    }
+                }
+                knownDirectories.remove(directory);
+                Files.deleteIfExists(directory);
+                directory = directory.getParent();
+            }
+        } catch (DirectoryNotEmptyException | NoSuchFileException ex) {
+            // A concurrent write reused the directory, or a concurrent delete already pruned it
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new StorageObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Hard-link the file where the filesystem supports it, so no data is copied.
+     */
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        Path source = resolve(sourceKey);
+        Path target = resolve(targetKey);
+        ensureDirectory(target.getParent());
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException ex) {
+            if (!Files.isSameFile(source, target)) {
+                throw ex;
+            }
+        } catch (UnsupportedOperationException ex) {
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+        } catch (NoSuchFileException ex) {
+            // The directory was pruned after it was cached
+            knownDirectories.remove(target.getParent());
+            ensureDirectory(target.getParent());
+            Files.createLink(target, source);
+        }
+    }
+
+    /**
+     * Walk the tree depth-first. Listings of the next few subdirectories are fetched ahead
+     * on the listing pool while the current one is being consumed.
+     */
+    @Override
+    public Stream<StorageObject> list(String prefix) {
+        Path start = prefix.isEmpty() ? root : resolve(prefix);
+        String startKey = prefix.isEmpty() ? "" : root.relativize(start).toString();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new SortedTreeIterator(startKey), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public KeyOrder listOrder() {
+        return KeyOrder.PATH_SEGMENTS;
+    }
+
+    public void shutdown() {
+        listingPool.shutdownNow();
+    }
+
+    private Path resolve(String key) {
+        Path target = root.resolve(key).normalize();
+        if (!target.startsWith(root)) {
+            throw new IllegalArgumentException("Path is outside of the storage location: " + key);
+        }
+        return target;
+    }
+
+    private void ensureDirectory(Path directory) throws IOException {
+        if (!knownDirectories.contains(directory)) {
+            Files.createDirectories(directory);
+            knownDirectories.add(directory);
+        }
+    }
+
+    private OutputStream openForWrite(Path target) throws IOException {
+        ensureDirectory(target.getParent());
+        try {
+            return Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException ex) {
+            // The directory was pruned by a delete after it was cached
+            knownDirectories.remove(target.getParent());
+            ensureDirectory(target.getParent());
+            return Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+    private List<Entry> listSorted(Path directory) {
+        try (Stream<Path> children = Files.list(directory)) {
+            return children
+                    .map(this::entry)
+                    .filter(Objects::nonNull)
+                    .sorted((a, b) -> KeyOrder.PATH_SEGMENTS.comparator().compare(a.name, b.name))
+                    .toList();
+        } catch (NoSuchFileException ex) {
+            return List.of();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list " + directory, ex);
+        }
+    }
+
+    private Entry entry(Path child) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class);
+            return new Entry(child.getFileName().toString(), attributes.isDirectory(), attributes);
+        } catch (NoSuchFileException ex) {
+            // Deleted since it was listed
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private class SortedTreeIterator implements Iterator<StorageObject> {
+
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private StorageObject next;
+
+        private SortedTreeIterator(String startKey) {
+            stack.push(new Frame(startKey, listSorted(startKey.isEmpty() ? root : root.resolve(startKey))));
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public StorageObject next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            StorageObject current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (frame.index >= frame.entries.size()) {
+                    stack.pop();
+                    continue;
+                }
+                Entry entry = frame.entries.get(frame.index);
+                CompletableFuture<List<Entry>> listing = frame.listings.remove(frame.index);
+                frame.index++;
+                frame.prefetch();
+                String key = frame.prefix.isEmpty() ? entry.name : frame.prefix + "/" + entry.name;
+                if (entry.directory) {
+                    stack.push(new Frame(key, listing != null ? listing.join() : listSorted(root.resolve(key))));
+                } else {
+                    next = new StorageObject(key, entry.attributes.size(), entry.attributes.lastModifiedTime().toInstant());
+                    return;
+                }
+            }
+        }
+
+        private class Frame {
+            private final String prefix;
+            private final List<Entry> entries;
+            private final Map<Integer, CompletableFuture<List<Entry>>> listings = new HashMap<>();
+            private int index;
+            private int prefetched;
+
+            private Frame(String prefix, List<Entry> entries) {
+                this.prefix = prefix;
+                this.entries = entries;
+                prefetch();
+            }
+
+            private void prefetch() {
+                prefetched = Math.max(prefetched, index);
+                while (prefetched < entries.size() && prefetched < index + PREFETCH_DIRECTORIES) {
+                    Entry entry = entries.get(prefetched);
+                    if (entry.directory) {
+                        Path directory = root.resolve(prefix.isEmpty() ? entry.name : prefix + "/" + entry.name);
+                        listings.put(prefetched, CompletableFuture.supplyAsync(() -> listSorted(directory), listingPool));
+                    }
+                    prefetched++;
+                }
+            }
+        }
+    }
+
+    private record Entry(String name, boolean directory, BasicFileAttributes attributes) {
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.denrzv.audioreview.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects in an S3-compatible bucket (AWS S3, MinIO, ...).
+ * Large uploads are streamed as multipart uploads so no more than one part is buffered,
+ * and reads use ranged GETs.
+ */
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_CONFLICT = 409;
+    private static final int HTTP_PRECONDITION_FAILED = 412;
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final int partSize;
+    private final boolean directUrls;
+
+    public S3StorageBackend(S3Client s3, S3Presigner presigner, String bucket, int partSize, boolean directUrls) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.directUrls = directUrls;
+    }
+
+    @Override
+    public long put(String key, InputStream content, long contentLength) throws IOException {
+        byte[] part = new byte[partSize];
+        int read = content.readNBytes(part, 0, partSize);
+        if (read < partSize) {
+            try {
+                s3.putObject(builder -> builder.bucket(bucket).key(key).ifNoneMatch("*"), body(part, read));
+            } catch (S3Exception ex) {
+                if (keyTaken(ex)) {
+                    throw new FileAlreadyExistsException(key);
+                }
+                throw ex;
+            }
+            return read;
+        }
+
+        String uploadId = s3.createMultipartUpload(builder -> builder.bucket(bucket).key(key)).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long size = 0;
+            while (read > 0) {
+                int partNumber = parts.size() + 1;
+                String etag = s3.uploadPart(builder -> builder.bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber),
+                        body(part, read)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+                size += read;
+                read = content.readNBytes(part, 0, partSize);
+            }
+            try {
+                s3.completeMultipartUpload(builder -> builder.bucket(bucket).key(key).uploadId(uploadId).ifNoneMatch("*")
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+            } catch (S3Exception ex) {
+                if (keyTaken(ex)) {
+                    throw new FileAlreadyExistsException(key);
+                }
+                throw ex;
+            }
+            return size;
+        } catch (IOException | RuntimeException ex) {
+            try {
+                s3.abortMultipartUpload(builder -> builder.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (RuntimeException abortEx) {
+                log.warn("Could not abort multipart upload of {}: {}", key, abortEx.getMessage());
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (offset > 0 || length >= 0) {
+            request.range("bytes=" + offset + "-" + (length >= 0 ? String.valueOf(offset + length - 1) : ""));
+        }
+        try {
+            return s3.getObject(request.build());
+        } catch (NoSuchKeyException ex) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) {
+        // S3 deletes are idempotent and do not report whether the object existed
+        s3.deleteObject(builder -> builder.bucket(bucket).key(key));
+        return true;
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) {
+        try {
+            HeadObjectResponse head = s3.headObject(builder -> builder.bucket(bucket).key(key));
+            return Optional.of(new StorageObject(key, head.contentLength(), head.lastModified()));
+        } catch (S3Exception ex) {
+            if (ex.statusCode() == HTTP_NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        // There are no hard links; an existing target of the same size is taken to be an earlier copy
+        Optional<StorageObject> existing = stat(targetKey);
+        if (existing.isPresent()) {
+            StorageObject source = stat(sourceKey).orElseThrow(() -> new NoSuchFileException(sourceKey));
+            if (existing.get().size() != source.size()) {
+                throw new FileAlreadyExistsException(targetKey);
+            }
+            return;
+        }
+        s3.copyObject(builder -> builder
+                .sourceBucket(bucket).sourceKey(sourceKey)
+                .destinationBucket(bucket).destinationKey(targetKey));
+    }
+
+    @Override
+    public Stream<StorageObject> list(String prefix) {
+        return s3.listObjectsV2Paginator(builder -> builder.bucket(bucket).prefix(prefix))
+                .contents()
+                .stream()
+                .map(object -> new StorageObject(object.key(), object.size(), object.lastModified()));
+    }
+
+    @Override
+    public KeyOrder listOrder() {
+        return KeyOrder.BYTES;
+    }
+
+    @Override
+    public Optional<URI> directUrl(String key, Duration ttl) {
+        if (!directUrls) {
+            return Optional.empty();
+        }
+        URI url = URI.create(presigner.presignGetObject(builder -> builder
+                .signatureDuration(ttl)
+                .getObjectRequest(request -> request.bucket(bucket).key(key))).url().toString());
+        return Optional.of(url);
+    }
+
+    /**
+     * Whether a conditional write failed because of the key: 412 means it exists, 409 that a
+     * concurrent write to it won.
+     */
+    private static boolean keyTaken(S3Exception ex) {
+        return ex.statusCode() == HTTP_PRECONDITION_FAILED || ex.statusCode() == HTTP_CONFLICT;
+    }
+
+    public void shutdown() {
+        presigner.close();
+        s3.close();
+    }
+
+    private static RequestBody body(byte[] buffer, int length) {
+        // The part buffer is reused, but the request is sent before the next part is read
+        return RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length);
+    }
+}
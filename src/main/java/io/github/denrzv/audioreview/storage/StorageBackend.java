@@ -0,0 +1,142 @@
+package io.github.denrzv.audioreview.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where audio content is kept. Keys are relative paths using {@code /} as separator,
+ * as saved in {@code audio_files.filepath}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Store content under a new key. An existing object is never replaced.
+     *
+     * @param key           the key
+     * @param content       the content, read to the end but not closed
+     * @param contentLength the content length if known, otherwise -1
+     * @return the number of bytes stored
+     * @throws java.nio.file.FileAlreadyExistsException if an object already exists under the key
+     * @throws IOException                              if the content cannot be read or stored
+     */
+    long put(String key, InputStream content, long contentLength) throws IOException;
+
+    /**
+     * Open a byte range of an object.
+     *
+     * @param key    the key
+     * @param offset first byte to read
+     * @param length number of bytes to read, or -1 to read to the end
+     * @return the content, to be closed by the caller
+     * @throws java.nio.file.NoSuchFileException if there is no such object
+     * @throws IOException                       if the object cannot be read
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    /**
+     * Delete an object. Deleting a missing object is not an error.
+     *
+     * @param key the key
+     * @return true if the object existed
+     * @throws IOException if the object cannot be deleted
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Look up the metadata of an object.
+     *
+     * @param key the key
+     * @return the metadata, or empty if there is no such object
+     * @throws IOException if the lookup fails
+     */
+    Optional<StorageObject> stat(String key) throws IOException;
+
+    /**
+     * Make an object available under a second key. The source is left in place.
+     *
+     * @param sourceKey the existing key
+     * @param targetKey the additional key
+     * @throws java.nio.file.FileAlreadyExistsException if different content already exists at the target
+     * @throws IOException                              if the copy fails
+     */
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * List all objects below a prefix in {@link #listOrder()}.
+     *
+     * @param prefix key prefix, empty for all objects
+     * @return the objects, to be closed by the caller
+     */
+    Stream<StorageObject> list(String prefix);
+
+    /**
+     * Order of {@link #list} results.
+     */
+    KeyOrder listOrder();
+
+    /**
+     * A URL clients can fetch the object from directly, bypassing this service.
+     *
+     * @param key the key
+     * @param ttl how long the URL stays valid
+     * @return the URL, or empty if the backend cannot serve objects itself
+     */
+    default Optional<URI> directUrl(String key, Duration ttl) {
+        return Optional.empty();
+    }
+
+    /**
+     * How keys are ordered when listed, with the matching SQL ordering of {@code audio_files.filepath}
+     * so both can be merged.
+     */
+    enum KeyOrder {
+
+        /**
+         * Plain code point (UTF-8 byte) order, as returned by S3 listings.
+         */
+        BYTES("filepath COLLATE \"C\""),
+
+        /**
+         * Code point order with the separator sorting first, as returned by a depth-first directory walk.
+         */
+        PATH_SEGMENTS("replace(filepath, '/', chr(1)) COLLATE \"C\"");
+
+        private final String sqlOrderBy;
+
+        KeyOrder(String sqlOrderBy) {
+            this.sqlOrderBy = sqlOrderBy;
+        }
+
+        public String getSqlOrderBy() {
+            return sqlOrderBy;
+        }
+
+        public Comparator<String> comparator() {
+            return (a, b) -> compare(a, b, this == PATH_SEGMENTS);
+        }
+
+        private static int compare(String a, String b, boolean separatorFirst) {
+            int i = 0;
+            int j = 0;
+            while (i < a.length() && j < b.length()) {
+                int ca = a.codePointAt(i);
+                int cb = b.codePointAt(j);
+                if (ca != cb) {
+                    if (separatorFirst) {
+                        ca = ca == '/' ? 1 : ca;
+                        cb = cb == '/' ? 1 : cb;
+                    }
+                    return Integer.compare(ca, cb);
+                }
+                i += Character.charCount(ca);
+                j += Character.charCount(cb);
+            }
+            return Integer.compare(a.length() - i, b.length() - j);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.denrzv.audioreview.storage;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a stored object.
+ *
+ * @param key          key relative to the storage root, using {@code /} as separator
+ * @param size         size in bytes
+ * @param lastModified last modification time
+ */
+public record StorageObject(String key, long size, Instant lastModified) {
+}
@@ -0,0 +1,27 @@
+package io.github.denrzv.audioreview.tracing;
+
+import java.util.Map;
+
+/**
+ * A finished span of a kept trace.
+ *
+ * @param spanId         ID unique within the trace
+ * @param parentId       ID of the enclosing span, or null for the root
+ * @param name           observation name, e.g. {@code http.server.requests} or {@code jdbc.statement}
+ * @param contextualName the operation, e.g. {@code ClassificationService#classifyFile}
+ * @param thread         thread the span was started on
+ * @param startMicros    start relative to the start of the root span
+ * @param durationMicros duration of the span
+ * @param tags           low and high cardinality key values of the observation
+ * @param error          error that ended the span, if any
+ */
+public record SpanRecord(int spanId,
+                         Integer parentId,
+                         String name,
+                         String contextualName,
+                         String thread,
+                         long startMicros,
+                         long durationMicros,
+                         Map<String, String> tags,
+                         String error) {
+}
@@ -0,0 +1,24 @@
+package io.github.denrzv.audioreview.tracing;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A trace kept by tail sampling, with its spans in start order.
+ *
+ * @param traceId      random trace ID
+ * @param name         contextual name of the root span
+ * @param startedAt    wall clock start of the root span
+ * @param durationMs   duration of the root span
+ * @param keptBecause  {@code slow}, {@code error} or {@code sampled}
+ * @param droppedSpans spans not recorded because the trace hit {@code app.tracing.max-spans}
+ * @param spans        recorded spans, the root first
+ */
+public record TraceRecord(String traceId,
+                          String name,
+                          Instant startedAt,
+                          double durationMs,
+                          String keptBecause,
+                          int droppedSpans,
+                          List<SpanRecord> spans) {
+}
@@ -0,0 +1,176 @@
+package io.github.denrzv.audioreview.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns Micrometer observations into traces. Every observation started without a parent opens a
+ * trace (an HTTP request, a scheduled task); observations started inside it become its spans.
+ * Spans are buffered in memory until the root span stops and only then is the trace sampled, so
+ * the decision can look at the whole request: traces slower than {@code app.tracing.slow-threshold-ms}
+ * or ending in an error are always kept, the rest with probability {@code app.tracing.sample-rate}.
+ * Kept traces go to the {@link TraceStore}.
+ */
+@Component
+public class TraceRecorder implements ObservationHandler<Observation.Context> {
+
+    private final TraceStore traceStore;
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxSpans;
+
+    public TraceRecorder(TraceStore traceStore,
+                         @Value("${app.tracing.enabled}") boolean enabled,
+                         @Value("${app.tracing.slow-threshold-ms}") long slowThresholdMs,
+                         @Value("${app.tracing.sample-rate}") double sampleRate,
+                         @Value("${app.tracing.max-spans}") int maxSpans) {
+        this.traceStore = traceStore;
+        this.enabled = enabled;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.sampleRate = sampleRate;
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return enabled;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        ActiveSpan parent = parentSpan(context);
+        ActiveTrace trace = parent != null ? parent.trace : new ActiveTrace();
+        context.put(ActiveSpan.class, trace.startSpan(parent, maxSpans));
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        ActiveSpan span = context.get(ActiveSpan.class);
+        if (span == null) {
+            return;
+        }
+        span.finish(context);
+        if (span.parentId == null) {
+            sample(span.trace, span);
+        }
+    }
+
+    private void sample(ActiveTrace trace, ActiveSpan root) {
+        String keptBecause;
+        if (root.durationNanos >= slowThresholdNanos) {
+            keptBecause = "slow";
+        } else if (trace.failed) {
+            keptBecause = "error";
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            keptBecause = "sampled";
+        } else {
+            return;
+        }
+        traceStore.add(trace.toRecord(root, keptBecause));
+    }
+
+    private static ActiveSpan parentSpan(Observation.Context context) {
+        ObservationView parent = context.getParentObservation();
+        return parent != null ? parent.getContextView().get(ActiveSpan.class) : null;
+    }
+
+    /**
+     * Spans of a trace whose root has not stopped yet. Children may finish on other threads.
+     */
+    private static final class ActiveTrace {
+        private final String traceId = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger nextSpanId = new AtomicInteger();
+        private final AtomicInteger droppedSpans = new AtomicInteger();
+        private final List<ActiveSpan> spans = new ArrayList<>();
+        private volatile boolean failed;
+
+        ActiveSpan startSpan(ActiveSpan parent, int maxSpans) {
+            ActiveSpan span;
+            synchronized (spans) {
+                boolean recorded = parent == null || spans.size() < maxSpans;
+                span = new ActiveSpan(this, nextSpanId.incrementAndGet(), parent != null ? parent.spanId : null, recorded);
+                if (recorded) {
+                    spans.add(span);
+                } else {
+                    droppedSpans.incrementAndGet();
+                }
+            }
+            return span;
+        }
+
+        TraceRecord toRecord(ActiveSpan root, String keptBecause) {
+            List<SpanRecord> finished = new ArrayList<>();
+            int unfinished = 0;
+            synchronized (spans) {
+                for (ActiveSpan span : spans) {
+                    if (span.finished != null) {
+                        finished.add(span.finished);
+                    } else {
+                        unfinished++;
+                    }
+                }
+            }
+            finished.sort(Comparator.comparingLong(SpanRecord::startMicros).thenComparingInt(SpanRecord::spanId));
+            return new TraceRecord(traceId, root.finished.contextualName(), startedAt,
+                    root.durationNanos / 1e6, keptBecause, droppedSpans.get() + unfinished, finished);
+        }
+    }
+
+    private static final class ActiveSpan {
+        private final ActiveTrace trace;
+        private final int spanId;
+        private final Integer parentId;
+        private final boolean recorded;
+        private final String thread = Thread.currentThread().getName();
+        private final long startNanos = System.nanoTime();
+        private long durationNanos;
+        private volatile SpanRecord finished;
+
+        ActiveSpan(ActiveTrace trace, int spanId, Integer parentId, boolean recorded) {
+            this.trace = trace;
+            this.spanId = spanId;
+            this.parentId = parentId;
+            this.recorded = recorded;
+        }
+
+        void finish(Observation.Context context) {
+            durationNanos = System.nanoTime() - startNanos;
+            String error = context.getError() != null ? context.getError().toString() : null;
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (KeyValue keyValue : context.getLowCardinalityKeyValues()) {
+                tags.put(keyValue.getKey(), keyValue.getValue());
+            }
+            for (KeyValue keyValue : context.getHighCardinalityKeyValues()) {
+                tags.put(keyValue.getKey(), keyValue.getValue());
+            }
+            // Handled exceptions never reach the HTTP observation, but its outcome still says so
+            if (error != null || "SERVER_ERROR".equals(tags.get("outcome"))) {
+                trace.failed = true;
+            }
+            if (!recorded) {
+                return;
+            }
+            String contextualName = context.getContextualName() != null ? context.getContextualName() : context.getName();
+            finished = new SpanRecord(spanId, parentId, context.getName(), contextualName, thread,
+                    TimeUnit.NANOSECONDS.toMicros(startNanos - trace.startNanos),
+                    TimeUnit.NANOSECONDS.toMicros(durationNanos), tags, error);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.denrzv.audioreview.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last {@code app.tracing.buffer-size} sampled traces in memory for the admin endpoint
+ * and, if {@code app.tracing.file} is set, appends each of them to that file as a JSON line.
+ * File writes happen on a background thread and are dropped rather than queued without bound
+ * when the disk cannot keep up, so exporting never slows requests down.
+ */
+@Component
+@Slf4j
+public class TraceStore {
+
+    private static final int EXPORT_QUEUE_CAPACITY = 1000;
+
+    private final int capacity;
+    private final Deque<TraceRecord> traces = new ArrayDeque<>();
+    private final ObjectMapper objectMapper;
+    private final Path exportFile;
+    private final ThreadPoolExecutor exporter;
+
+    public TraceStore(ObjectMapper objectMapper,
+                      @Value("${app.tracing.buffer-size}") int capacity,
+                      @Value("${app.tracing.file}") String exportFile) {
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.exportFile = exportFile.isBlank() ? null : Path.of(exportFile);
+        if (this.exportFile == null) {
+            this.exporter = null;
+            return;
+        }
+        this.exporter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPORT_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "trace-exporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public void add(TraceRecord trace) {
+        synchronized (traces) {
+            if (traces.size() == capacity) {
+                traces.removeFirst();
+            }
+            traces.addLast(trace);
+        }
+        if (exporter != null) {
+            exporter.execute(() -> export(trace));
+        }
+    }
+
+    /**
+     * Kept traces, newest first.
+     *
+     * @param minDurationMs only traces at least this long
+     * @param limit         maximum number of traces
+     * @return the matching traces
+     */
+    public List<TraceRecord> list(double minDurationMs, int limit) {
+        List<TraceRecord> result = new ArrayList<>();
+        synchronized (traces) {
+            Iterator<TraceRecord> newestFirst = traces.descendingIterator();
+            while (newestFirst.hasNext() && result.size() < limit) {
+                TraceRecord trace = newestFirst.next();
+                if (trace.durationMs() >= minDurationMs) {
+                    result.add(trace);
+                }
+            }
+        }
+        return result;
+    }
+
+    public Optional<TraceRecord> find(String traceId) {
+        synchronized (traces) {
+            return traces.stream().filter(trace -> trace.traceId().equals(traceId)).findFirst();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (exporter != null) {
+            exporter.shutdown();
+            exporter.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void export(TraceRecord trace) {
+        try {
+            Path parent = exportFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        } catch (IOException ex) {
+            log.warn("Could not create the trace export directory for {}: {}", exportFile, ex.getMessage());
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(exportFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(trace));
+            writer.write('\n');
+        } catch (IOException ex) {
+            log.warn("Could not export trace {} to {}: {}", trace.traceId(), exportFile, ex.getMessage());
+        }
+    }
+}
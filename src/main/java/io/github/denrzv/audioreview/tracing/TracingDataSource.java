@@ -0,0 +1,127 @@
+package io.github.denrzv.audioreview.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Observes every JDBC statement executed inside an observation as a {@code jdbc.statement} span
+ * carrying its SQL. Connections taken outside of any observation are handed out unwrapped, so
+ * untraced work pays nothing.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    private final ObservationRegistry observationRegistry;
+    private final int maxSqlLength;
+
+    public TracingDataSource(DataSource target, ObservationRegistry observationRegistry, int maxSqlLength) {
+        super(target);
+        this.observationRegistry = observationRegistry;
+        this.maxSqlLength = maxSqlLength;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traced(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traced(super.getConnection(username, password));
+    }
+
+    private Connection traced(Connection connection) {
+        if (observationRegistry.getCurrentObservation() == null) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && STATEMENT_FACTORIES.contains(method.getName())) {
+                String preparedSql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+                return tracedStatement(method.getReturnType(), statement, preparedSql);
+            }
+            return result;
+        });
+    }
+
+    private Object tracedStatement(Class<?> type, Statement statement, String preparedSql) {
+        return proxy(type, statement, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String executed ? executed : preparedSql;
+            Observation observation = Observation.createNotStarted("jdbc.statement", observationRegistry)
+                    .contextualName(verb(sql, method.getName()))
+                    .highCardinalityKeyValue("sql", abbreviate(sql))
+                    .start();
+            try {
+                return invoke(statement, method, args);
+            } catch (Throwable ex) {
+                observation.error(ex);
+                throw ex;
+            } finally {
+                observation.stop();
+            }
+        });
+    }
+
+    private String abbreviate(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        return sql.length() > maxSqlLength ? sql.substring(0, maxSqlLength) + "..." : sql;
+    }
+
+    private static String verb(String sql, String method) {
+        if (method.equals("executeBatch")) {
+            return "batch";
+        }
+        if (sql == null) {
+            return method;
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return end > 0 ? trimmed.substring(0, end).toLowerCase(Locale.ROOT) : method;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap", "isWrapperFor":
+                    // Keep working for callers looking for the driver classes
+                    return invoke(target, method, args);
+                default:
+                    return handler.invoke(proxy, method, args);
+            }
+        });
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.denrzv.audioreview.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.dto.ReviewerMessage;
+import io.github.denrzv.audioreview.security.JwtHandshakeInterceptor;
+import io.github.denrzv.audioreview.service.ClassificationService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent reviewer channel. The session is authenticated once during the handshake,
+ * after which the server pushes the next leased file and the client answers with one
+ * classify frame per label.
+ *
+ * <p>Client frames: {@code next}, {@code classify} (fileId, shortcut), {@code heartbeat} (fileId), {@code release} (fileId).
+ * Server frames: {@code assigned}, {@code empty}, {@code revoked}, {@code error}.</p>
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class ReviewerSessionHandler extends TextWebSocketHandler {
+
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    private final ClassificationService classificationService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ReviewerSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        ReviewerSession reviewer = new ReviewerSession(
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_SIZE_LIMIT),
+                (Long) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE),
+                (String) session.getAttributes().get(JwtHandshakeInterceptor.USERNAME_ATTRIBUTE));
+        sessions.put(session.getId(), reviewer);
+        log.info("Reviewer session opened for {}", reviewer.username);
+
+        assignNext(reviewer, null);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        ReviewerSession reviewer = sessions.get(session.getId());
+        if (reviewer == null) {
+            return;
+        }
+
+        ReviewerMessage request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), ReviewerMessage.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Reviewer {} sent an unreadable frame: {}", reviewer.username, ex.getOriginalMessage());
+            send(reviewer, ReviewerMessage.builder()
+                    .type(ReviewerMessage.ERROR)
+                    .message("Malformed message")
+                    .build());
+            return;
+        }
+
+        try {
+            switch (String.valueOf(request.getType())) {
+                case ReviewerMessage.NEXT -> assignNext(reviewer, null);
+                case ReviewerMessage.CLASSIFY -> {
+                    // Only the file leased to this session may be labelled here; anything else
+                    // would bypass the lease and leave the held one unreleased
+                    if (request.getFileId() == null || !request.getFileId().equals(reviewer.leasedFileId)) {
+                        send(reviewer, ReviewerMessage.builder()
+                                .type(ReviewerMessage.ERROR)
+                                .fileId(request.getFileId())
+                                .message("File is not leased to this session")
+                                .build());
+                        return;
+                    }
+                    classificationService.classifyFileByShortcut(request.getFileId(), request.getShortcut(), reviewer.username);
+                    reviewer.leasedFileId = null;
+                    assignNext(reviewer, request.getFileId());
+                }
+                case ReviewerMessage.HEARTBEAT -> {
+                    if (!classificationService.extendLock(request.getFileId(), reviewer.userId)) {
+                        revoke(reviewer, request.getFileId(), "Lease is no longer held");
+                    }
+                }
+                case ReviewerMessage.RELEASE -> {
+                    classificationService.releaseLock(request.getFileId(), reviewer.userId);
+                    reviewer.leasedFileId = null;
+                }
+                default -> send(reviewer, ReviewerMessage.builder()
+                        .type(ReviewerMessage.ERROR)
+                        .message("Unknown message type: " + request.getType())
+                        .build());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Reviewer {} request {} failed: {}", reviewer.username, request.getType(), ex.getMessage());
+            send(reviewer, ReviewerMessage.builder()
+                    .type(ReviewerMessage.ERROR)
+                    .fileId(request.getFileId())
+                    .message(ex.getMessage())
+                    .build());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        ReviewerSession reviewer = sessions.remove(session.getId());
+        if (reviewer == null) {
+            return;
+        }
+
+        Long leasedFileId = reviewer.leasedFileId;
+        if (leasedFileId != null) {
+            classificationService.releaseLock(leasedFileId, reviewer.userId);
+        }
+        log.info("Reviewer session closed for {} ({})", reviewer.username, status);
+    }
+
+    /**
+     * Periodically verify the leases held by connected reviewers and push a revocation
+     * for every lease that was lost (expired, taken over, classified elsewhere or deleted).
+     */
+    @Scheduled(fixedDelayString = "${app.reviewer-session.revocation-check-ms}")
+    public void revokeLostLeases() {
+        Map<Long, Long> leases = new HashMap<>();
+        sessions.values().forEach(reviewer -> {
+            Long leasedFileId = reviewer.leasedFileId;
+            if (leasedFileId != null) {
+                leases.put(leasedFileId, reviewer.userId);
+            }
+        });
+        if (leases.isEmpty()) {
+            return;
+        }
+
+        Set<Long> revoked = classificationService.findRevokedLeases(leases);
+        if (revoked.isEmpty()) {
+            return;
+        }
+
+        sessions.values().stream()
+                .filter(reviewer -> reviewer.leasedFileId != null && revoked.contains(reviewer.leasedFileId))
+                .forEach(reviewer -> revoke(reviewer, reviewer.leasedFileId, "Lease expired or was taken over"));
+    }
+
+    private void assignNext(ReviewerSession reviewer, Long classifiedFileId) {
+        try {
+            AudioFileResponse file = classificationService.getRandomUnclassifiedFile(reviewer.userId);
+            reviewer.leasedFileId = file.getId();
+            send(reviewer, ReviewerMessage.builder()
+                    .type(ReviewerMessage.ASSIGNED)
+                    .classifiedFileId(classifiedFileId)
+                    .file(file)
+                    .build());
+        } catch (IllegalStateException ex) {
+            send(reviewer, ReviewerMessage.builder()
+                    .type(ReviewerMessage.EMPTY)
+                    .classifiedFileId(classifiedFileId)
+                    .build());
+        }
+    }
+
+    private void revoke(ReviewerSession reviewer, Long fileId, String reason) {
+        if (fileId != null && fileId.equals(reviewer.leasedFileId)) {
+            reviewer.leasedFileId = null;
+        }
+        send(reviewer, ReviewerMessage.builder()
+                .type(ReviewerMessage.REVOKED)
+                .fileId(fileId)
+                .message(reason)
+                .build());
+    }
+
+    private void send(ReviewerSession reviewer, ReviewerMessage message) {
+        try {
+            reviewer.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (IOException | IllegalStateException ex) {
+            log.warn("Could not send {} to reviewer {}: {}", message.getType(), reviewer.username, ex.getMessage());
+        }
+    }
+
+    private static class ReviewerSession {
+        private final WebSocketSession session;
+        private final Long userId;
+        private final String username;
+        private volatile Long leasedFileId;
+
+        private ReviewerSession(WebSocketSession session, Long userId, String username) {
+            this.session = session;
+            this.userId = userId;
+            this.username = username;
+        }
+    }
+}
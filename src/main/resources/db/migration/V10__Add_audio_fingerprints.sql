@@ -0,0 +1,25 @@
+-- V10__Add_audio_fingerprints.sql
+-- Acoustic fingerprints of the uploaded audio and the near-duplicate clusters they fall into.
+-- The LSH index used to find duplicates lives in a memory-mapped file next to the application
+-- and is rebuilt from this table; seq orders the rows so the index can catch up after a restart.
+
+CREATE TABLE IF NOT EXISTS audio_fingerprints (
+                                                  audio_file_id BIGINT PRIMARY KEY REFERENCES audio_files (id) ON DELETE CASCADE,
+                                                  seq BIGSERIAL NOT NULL UNIQUE,
+                                                  duration_ms BIGINT NOT NULL,
+                                                  landmark_count INT NOT NULL,
+                                                  -- Delta and varint encoded landmarks, NULL if the audio could not be decoded
+                                                  landmarks BYTEA,
+                                                  -- ID of the first file of the cluster; a file without duplicates is a cluster of its own
+                                                  cluster_id BIGINT NOT NULL,
+                                                  -- Closest duplicate found when the file was fingerprinted and the share of landmarks they matched on
+                                                  matched_file_id BIGINT,
+                                                  similarity REAL,
+                                                  -- File whose label was copied to this one; NULL for files labelled by a human or not at all
+                                                  labelled_from BIGINT,
+                                                  -- Last time a human labelled the file
+                                                  labelled_at TIMESTAMP WITHOUT TIME ZONE,
+                                                  fingerprinted_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_audio_fingerprints_cluster ON audio_fingerprints (cluster_id);
@@ -0,0 +1,6 @@
+-- V12__Index_unclassified_files_by_id.sql
+-- Reviewers are handed a file found by walking the files of a category in ID order from a random
+-- point, so the category index also orders by ID. It covers every lookup of the old one.
+
+CREATE INDEX IF NOT EXISTS idx_audio_files_current_category_id ON audio_files(current_category_id, id);
+DROP INDEX IF EXISTS idx_audio_files_current_category;
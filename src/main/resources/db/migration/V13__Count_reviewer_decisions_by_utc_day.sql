@@ -0,0 +1,68 @@
+-- V13__Count_reviewer_decisions_by_utc_day.sql
+-- The decision counts kept by the update trigger and the ones recomputed by the rebuild must agree.
+-- Both now count reviewer classifications only, per UTC day. Admin edits of a file's category
+-- leave no classification to recompute them from, so like copied duplicate labels they set
+-- audio_review.label_source for their transaction and are not counted as decisions.
+
+CREATE OR REPLACE FUNCTION category_confusion_on_update()
+    RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO category_confusion (initial_category_id, current_category_id, file_count)
+    SELECT initial_category_id, current_category_id, sum(delta)
+    FROM (SELECT o.initial_category_id, COALESCE(o.current_category_id, 0) AS current_category_id, -1 AS delta
+          FROM old_rows o
+                   JOIN new_rows n ON n.id = o.id
+          WHERE o.initial_category_id <> n.initial_category_id
+             OR o.current_category_id IS DISTINCT FROM n.current_category_id
+          UNION ALL
+          SELECT n.initial_category_id, COALESCE(n.current_category_id, 0), 1
+          FROM old_rows o
+                   JOIN new_rows n ON n.id = o.id
+          WHERE o.initial_category_id <> n.initial_category_id
+             OR o.current_category_id IS DISTINCT FROM n.current_category_id) changes
+    GROUP BY 1, 2
+    HAVING sum(delta) <> 0
+    ORDER BY 1, 2
+    ON CONFLICT (initial_category_id, current_category_id)
+        DO UPDATE SET file_count = category_confusion.file_count + EXCLUDED.file_count;
+
+    -- Once set in a session, the setting reads as an empty string outside the transaction that set it
+    IF COALESCE(current_setting('audio_review.label_source', true), '') = '' THEN
+        INSERT INTO category_decisions_daily (day, initial_category_id, new_category_id, decision_count)
+        SELECT (NOW() AT TIME ZONE 'utc')::date, n.initial_category_id, n.current_category_id, count(*)
+        FROM old_rows o
+                 JOIN new_rows n ON n.id = o.id
+        WHERE n.current_category_id IS NOT NULL
+          AND o.current_category_id IS DISTINCT FROM n.current_category_id
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        ON CONFLICT (day, initial_category_id, new_category_id)
+            DO UPDATE SET decision_count = category_decisions_daily.decision_count + EXCLUDED.decision_count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- classified_at holds the application's local time, which is also the session time zone the
+-- JDBC driver sets, so converting it through the session time zone gives the UTC day
+CREATE OR REPLACE FUNCTION rebuild_category_confusion()
+    RETURNS VOID AS $$
+BEGIN
+    LOCK TABLE audio_files IN SHARE MODE;
+    DELETE FROM category_confusion;
+    DELETE FROM category_decisions_daily;
+
+    INSERT INTO category_confusion (initial_category_id, current_category_id, file_count)
+    SELECT initial_category_id, COALESCE(current_category_id, 0), count(*)
+    FROM audio_files
+    GROUP BY 1, 2;
+
+    INSERT INTO category_decisions_daily (day, initial_category_id, new_category_id, decision_count)
+    SELECT (c.classified_at::timestamptz AT TIME ZONE 'utc')::date, f.initial_category_id, c.new_category_id, count(*)
+    FROM classifications c
+             JOIN audio_files f ON f.id = c.audio_file_id
+    WHERE c.previous_category_id IS DISTINCT FROM c.new_category_id
+      AND c.labelled_from IS NULL
+    GROUP BY 1, 2, 3;
+END;
+$$ LANGUAGE plpgsql;
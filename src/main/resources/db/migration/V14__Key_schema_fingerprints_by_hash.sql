@@ -0,0 +1,15 @@
+-- V14__Key_schema_fingerprints_by_hash.sql
+-- During a rolling deploy, nodes of the previous release overwrote the single fingerprint row with
+-- their own hash, so nodes of the new release ran Flyway again on every start. Every build that
+-- migrated the schema now keeps a row of its own. schema_fingerprint stays for nodes of the
+-- previous release and can be dropped once none are left.
+
+CREATE TABLE IF NOT EXISTS schema_fingerprints (
+                                                   fingerprint VARCHAR(64) PRIMARY KEY,
+                                                   recorded_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+INSERT INTO schema_fingerprints (fingerprint, recorded_at)
+SELECT fingerprint, recorded_at
+FROM schema_fingerprint
+ON CONFLICT (fingerprint) DO NOTHING;
@@ -0,0 +1,7 @@
+-- V3__Add_classification_journal_id.sql
+
+-- Classification rows are written behind from a local journal; the journal ID makes replays idempotent
+ALTER TABLE classifications
+    ADD COLUMN IF NOT EXISTS journal_id UUID;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_classifications_journal_id ON classifications(journal_id);
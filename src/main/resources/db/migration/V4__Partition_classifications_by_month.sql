@@ -0,0 +1,97 @@
+-- V4__Partition_classifications_by_month.sql
+
+-- 1. Move the existing table out of the way, keeping its id sequence
+ALTER TABLE classifications RENAME TO classifications_legacy;
+ALTER TABLE classifications_legacy RENAME CONSTRAINT classifications_pkey TO classifications_legacy_pkey;
+ALTER SEQUENCE classifications_id_seq OWNED BY NONE;
+
+DROP INDEX IF EXISTS idx_classifications_user_id;
+DROP INDEX IF EXISTS idx_classifications_audio_file_id;
+DROP INDEX IF EXISTS idx_classifications_new_category_id;
+DROP INDEX IF EXISTS idx_classifications_journal_id;
+
+-- 2. Create the 'classifications' table partitioned by month of 'classified_at'
+CREATE TABLE classifications (
+                                 id BIGINT NOT NULL DEFAULT nextval('classifications_id_seq'),
+                                 user_id BIGINT NOT NULL,
+                                 audio_file_id BIGINT NOT NULL,
+                                 previous_category_id BIGINT,
+                                 new_category_id BIGINT NOT NULL,
+                                 classified_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT (NOW() AT TIME ZONE 'utc'),
+                                 journal_id UUID,
+                                 PRIMARY KEY (id, classified_at),
+                                 FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+                                 FOREIGN KEY (audio_file_id) REFERENCES audio_files(id) ON DELETE CASCADE,
+                                 FOREIGN KEY (previous_category_id) REFERENCES categories(id) ON DELETE SET NULL,
+                                 FOREIGN KEY (new_category_id) REFERENCES categories(id) ON DELETE RESTRICT
+) PARTITION BY RANGE (classified_at);
+
+ALTER SEQUENCE classifications_id_seq OWNED BY classifications.id;
+
+-- Catches rows outside of the pre-created months, e.g. replayed journal entries for archived months
+CREATE TABLE classifications_default PARTITION OF classifications DEFAULT;
+
+-- 3. Indexes, created on every partition
+CREATE INDEX idx_classifications_user_classified_at ON classifications(user_id, classified_at DESC);
+CREATE INDEX idx_classifications_audio_file_id ON classifications(audio_file_id);
+CREATE INDEX idx_classifications_new_category_id ON classifications(new_category_id);
+CREATE UNIQUE INDEX idx_classifications_journal_id ON classifications(journal_id, classified_at);
+
+-- 4. Create the partition for the month containing 'month_start'.
+-- Rows of that month that already landed in the default partition are moved into the new partition.
+CREATE OR REPLACE FUNCTION create_classifications_partition(month_start DATE)
+    RETURNS TEXT AS $$
+DECLARE
+    partition_start DATE := date_trunc('month', month_start)::DATE;
+    partition_end DATE := (date_trunc('month', month_start) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'classifications_y' || to_char(partition_start, 'YYYY') || 'm' || to_char(partition_start, 'MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM classifications_default
+               WHERE classified_at >= partition_start AND classified_at < partition_end) THEN
+        CREATE TEMP TABLE classifications_moved (LIKE classifications);
+        WITH moved AS (
+            DELETE FROM classifications_default
+                WHERE classified_at >= partition_start AND classified_at < partition_end
+                RETURNING *
+        )
+        INSERT INTO classifications_moved SELECT * FROM moved;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF classifications FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, partition_start, partition_end);
+
+    IF to_regclass('pg_temp.classifications_moved') IS NOT NULL THEN
+        INSERT INTO classifications SELECT * FROM classifications_moved;
+        DROP TABLE classifications_moved;
+    END IF;
+
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 5. Pre-create partitions from the oldest classification up to three months ahead
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(classified_at), NOW() AT TIME ZONE 'utc'))::DATE
+    INTO month_start
+    FROM classifications_legacy;
+
+    WHILE month_start <= (date_trunc('month', NOW() AT TIME ZONE 'utc') + INTERVAL '3 months')::DATE LOOP
+        PERFORM create_classifications_partition(month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+-- 6. Copy the existing history and drop the old table
+INSERT INTO classifications (id, user_id, audio_file_id, previous_category_id, new_category_id, classified_at, journal_id)
+SELECT id, user_id, audio_file_id, previous_category_id, new_category_id, classified_at, journal_id
+FROM classifications_legacy;
+
+DROP TABLE classifications_legacy;
@@ -0,0 +1,6 @@
+-- V5__Add_audio_file_checksums.sql
+
+-- Content checksum recorded at upload (or first scrub) and the last time the stored blob was verified against it
+ALTER TABLE audio_files
+    ADD COLUMN IF NOT EXISTS checksum VARCHAR(80),
+    ADD COLUMN IF NOT EXISTS checksum_verified_at TIMESTAMP WITHOUT TIME ZONE;
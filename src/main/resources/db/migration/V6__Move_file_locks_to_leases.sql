@@ -0,0 +1,27 @@
+-- V6__Move_file_locks_to_leases.sql
+
+-- Reviewer leases live in their own narrow table, so taking, extending and releasing a lease
+-- no longer rewrites audio_files rows or bumps their optimistic version. Lease state is
+-- short-lived and rebuilt by reviewers on reconnect, so the table skips the WAL.
+CREATE UNLOGGED TABLE IF NOT EXISTS file_leases (
+                                                    audio_file_id BIGINT PRIMARY KEY,
+                                                    user_id BIGINT NOT NULL,
+                                                    leased_at TIMESTAMP NOT NULL,
+                                                    expires_at TIMESTAMP NOT NULL,
+                                                    FOREIGN KEY (audio_file_id) REFERENCES audio_files(id) ON DELETE CASCADE,
+                                                    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_leases_user_id ON file_leases(user_id);
+CREATE INDEX IF NOT EXISTS idx_file_leases_expires_at ON file_leases(expires_at);
+
+-- Carry over current locks with the default lock time; stale ones are removed by the next sweep
+INSERT INTO file_leases (audio_file_id, user_id, leased_at, expires_at)
+SELECT id, locked_by, locked_at, locked_at + INTERVAL '15 minutes'
+FROM audio_files
+WHERE locked_by IS NOT NULL AND locked_at IS NOT NULL
+ON CONFLICT (audio_file_id) DO NOTHING;
+
+ALTER TABLE audio_files
+    DROP COLUMN IF EXISTS locked_by,
+    DROP COLUMN IF EXISTS locked_at;
@@ -0,0 +1,9 @@
+-- V7__Add_schema_fingerprint.sql
+-- Hash of the migration scripts the schema was last migrated with, so nodes of the same build can
+-- start without running Flyway validation. Holds at most one row.
+
+CREATE TABLE schema_fingerprint (
+                                    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+                                    fingerprint VARCHAR(64) NOT NULL,
+                                    recorded_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
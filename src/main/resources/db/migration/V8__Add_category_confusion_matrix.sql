@@ -0,0 +1,148 @@
+-- V8__Add_category_confusion_matrix.sql
+-- Incrementally maintained analytics of reviewer decisions against the filename-derived initial
+-- category. Triggers on audio_files update the counts in the same transaction as the change, so
+-- reading them never scans audio_files or classifications.
+
+-- Files per (initial, current) category pair. A current category of 0 stands for none, which is
+-- what files end up with when their current category is deleted.
+CREATE TABLE IF NOT EXISTS category_confusion (
+                                                  initial_category_id BIGINT NOT NULL,
+                                                  current_category_id BIGINT NOT NULL,
+                                                  file_count BIGINT NOT NULL,
+                                                  PRIMARY KEY (initial_category_id, current_category_id)
+);
+
+-- Changes of the current category per UTC day, by initial and new category
+CREATE TABLE IF NOT EXISTS category_decisions_daily (
+                                                        day DATE NOT NULL,
+                                                        initial_category_id BIGINT NOT NULL,
+                                                        new_category_id BIGINT NOT NULL,
+                                                        decision_count BIGINT NOT NULL,
+                                                        PRIMARY KEY (day, initial_category_id, new_category_id)
+);
+
+-- Statement level triggers see all changed rows at once, so a bulk update of thousands of files
+-- adds one upsert per category pair. Rows are upserted in key order so concurrent transactions
+-- always lock them in the same order.
+CREATE OR REPLACE FUNCTION category_confusion_on_insert()
+    RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO category_confusion (initial_category_id, current_category_id, file_count)
+    SELECT initial_category_id, COALESCE(current_category_id, 0), count(*)
+    FROM new_rows
+    GROUP BY 1, 2
+    ORDER BY 1, 2
+    ON CONFLICT (initial_category_id, current_category_id)
+        DO UPDATE SET file_count = category_confusion.file_count + EXCLUDED.file_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION category_confusion_on_delete()
+    RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO category_confusion (initial_category_id, current_category_id, file_count)
+    SELECT initial_category_id, COALESCE(current_category_id, 0), -count(*)
+    FROM old_rows
+    GROUP BY 1, 2
+    ORDER BY 1, 2
+    ON CONFLICT (initial_category_id, current_category_id)
+        DO UPDATE SET file_count = category_confusion.file_count + EXCLUDED.file_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION category_confusion_on_update()
+    RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO category_confusion (initial_category_id, current_category_id, file_count)
+    SELECT initial_category_id, current_category_id, sum(delta)
+    FROM (SELECT o.initial_category_id, COALESCE(o.current_category_id, 0) AS current_category_id, -1 AS delta
+          FROM old_rows o
+                   JOIN new_rows n ON n.id = o.id
+          WHERE o.initial_category_id <> n.initial_category_id
+             OR o.current_category_id IS DISTINCT FROM n.current_category_id
+          UNION ALL
+          SELECT n.initial_category_id, COALESCE(n.current_category_id, 0), 1
+          FROM old_rows o
+                   JOIN new_rows n ON n.id = o.id
+          WHERE o.initial_category_id <> n.initial_category_id
+             OR o.current_category_id IS DISTINCT FROM n.current_category_id) changes
+    GROUP BY 1, 2
+    HAVING sum(delta) <> 0
+    ORDER BY 1, 2
+    ON CONFLICT (initial_category_id, current_category_id)
+        DO UPDATE SET file_count = category_confusion.file_count + EXCLUDED.file_count;
+
+    INSERT INTO category_decisions_daily (day, initial_category_id, new_category_id, decision_count)
+    SELECT (NOW() AT TIME ZONE 'utc')::date, n.initial_category_id, n.current_category_id, count(*)
+    FROM old_rows o
+             JOIN new_rows n ON n.id = o.id
+    WHERE n.current_category_id IS NOT NULL
+      AND o.current_category_id IS DISTINCT FROM n.current_category_id
+    GROUP BY 1, 2, 3
+    ORDER BY 1, 2, 3
+    ON CONFLICT (day, initial_category_id, new_category_id)
+        DO UPDATE SET decision_count = category_decisions_daily.decision_count + EXCLUDED.decision_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Removing all files resets the analytics, like it resets the classification history
+CREATE OR REPLACE FUNCTION category_confusion_on_truncate()
+    RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM category_confusion;
+    DELETE FROM category_decisions_daily;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Recompute both tables from audio_files and the (not yet archived) classification history.
+-- Writers of audio_files wait until it is done, so no change is counted twice or missed.
+CREATE OR REPLACE FUNCTION rebuild_category_confusion()
+    RETURNS VOID AS $$
+BEGIN
+    LOCK TABLE audio_files IN SHARE MODE;
+    DELETE FROM category_confusion;
+    DELETE FROM category_decisions_daily;
+
+    INSERT INTO category_confusion (initial_category_id, current_category_id, file_count)
+    SELECT initial_category_id, COALESCE(current_category_id, 0), count(*)
+    FROM audio_files
+    GROUP BY 1, 2;
+
+    INSERT INTO category_decisions_daily (day, initial_category_id, new_category_id, decision_count)
+    SELECT c.classified_at::date, f.initial_category_id, c.new_category_id, count(*)
+    FROM classifications c
+             JOIN audio_files f ON f.id = c.audio_file_id
+    WHERE c.previous_category_id IS DISTINCT FROM c.new_category_id
+    GROUP BY 1, 2, 3;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_category_confusion_insert
+    AFTER INSERT ON audio_files
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION category_confusion_on_insert();
+
+CREATE TRIGGER trigger_category_confusion_delete
+    AFTER DELETE ON audio_files
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION category_confusion_on_delete();
+
+CREATE TRIGGER trigger_category_confusion_update
+    AFTER UPDATE ON audio_files
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION category_confusion_on_update();
+
+CREATE TRIGGER trigger_category_confusion_truncate
+    AFTER TRUNCATE ON audio_files
+    FOR EACH STATEMENT
+EXECUTE FUNCTION category_confusion_on_truncate();
+
+-- One-time backfill of the existing files, in the same transaction that installs the triggers
+SELECT rebuild_category_confusion();
@@ -0,0 +1,45 @@
+-- V9__Add_reviewer_rollups.sql
+-- Per-reviewer throughput per minute, hour and day, maintained by the classification journal
+-- writer in the same transaction that inserts the classifications, so throughput queries never
+-- read the classifications table.
+
+CREATE TABLE IF NOT EXISTS reviewer_rollups (
+                                                granularity VARCHAR(6) NOT NULL,
+                                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                                user_id BIGINT NOT NULL,
+                                                labels BIGINT NOT NULL,
+                                                -- Labels that followed the reviewer's previous label within the idle threshold
+                                                timed_labels BIGINT NOT NULL,
+                                                label_time_ms BIGINT NOT NULL,
+                                                idle_ms BIGINT NOT NULL,
+                                                -- Counts of timed labels per log-linear time bin, see LabelTimeHistogram; trailing zeros trimmed
+                                                label_time_histogram BIGINT[] NOT NULL,
+                                                PRIMARY KEY (granularity, bucket_start, user_id),
+                                                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+                                                CONSTRAINT chk_reviewer_rollups_granularity CHECK (granularity IN ('MINUTE', 'HOUR', 'DAY'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_reviewer_rollups_user ON reviewer_rollups(user_id, granularity, bucket_start);
+
+-- Time of each reviewer's latest label, to time the next one
+CREATE TABLE IF NOT EXISTS reviewer_activity (
+                                                 user_id BIGINT PRIMARY KEY,
+                                                 last_classified_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                                 FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Element-wise sum of two histograms of possibly different lengths
+CREATE OR REPLACE FUNCTION add_histograms(a BIGINT[], b BIGINT[])
+    RETURNS BIGINT[] AS $$
+SELECT CASE
+           WHEN a IS NULL THEN b
+           WHEN b IS NULL THEN a
+           ELSE (SELECT array_agg(COALESCE(x, 0) + COALESCE(y, 0) ORDER BY i)
+                 FROM unnest(a, b) WITH ORDINALITY AS t(x, y, i))
+           END
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE AGGREGATE sum_histograms(BIGINT[]) (
+    SFUNC = add_histograms,
+    STYPE = BIGINT[]
+);
@@ -0,0 +1,93 @@
+package io.github.denrzv.audioreview.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read replica routing with two data sources. The "replica" is a read-only pool on the same
+ * database, told apart by its application name, so a write routed to it fails like on a real
+ * standby. Runs in its own {@code replica_routing_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=replica_routing_test",
+        "spring.datasource.hikari.schema=replica_routing_test",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=${spring.datasource.url}?ApplicationName=replica&currentSchema=replica_routing_test",
+        "app.datasource.replica.username=${spring.datasource.username}",
+        "app.datasource.replica.password=${spring.datasource.password}",
+        "app.datasource.replica.sticky-window-ms=60000",
+        "file.upload-dir=target/replica-routing/uploads",
+        "app.classification-journal.dir=target/replica-routing/journal",
+        "app.classification-partitions.archive-dir=target/replica-routing/archive",
+        "app.resumable-upload.dir=target/replica-routing/uploads-staging",
+        "app.duplicates.index-file=target/replica-routing/fingerprints/lsh.index"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+
+    private static final String ADMIN = "admin@test.io";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                "uploaded_by, uploaded_at, version) VALUES ('replica.wav', 'replica/0.wav', " +
+                "(SELECT id FROM categories WHERE name = 'Voice'), (SELECT id FROM categories WHERE name = 'Unclassified'), " +
+                "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)", ADMIN);
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaUntilTheUserWrites() {
+        assertEquals("replica", applicationName(true));
+        assertEquals(false, "replica".equals(applicationName(false)));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "replica-reader@test.io", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        assertEquals("replica", applicationName(true));
+        applicationName(false);
+        // Within the read-your-writes window the user's reads stay on the primary
+        assertEquals(false, "replica".equals(applicationName(true)));
+    }
+
+    @Test
+    @WithMockUser(username = ADMIN, roles = "ADMIN")
+    void assignmentLeasesOnThePrimaryAfterReadsInTheSameRequest() throws Exception {
+        mockMvc.perform(get("/classification/random")).andExpect(status().isOk());
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT count(*) FROM file_leases", Long.class));
+    }
+
+    private String applicationName(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT current_setting('application_name')", String.class));
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.denrzv.audioreview.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchemaFingerprintMigrationStrategyTest {
+
+    private static final Location CURRENT = new Location("classpath:db/migration");
+    private static final Location PREVIOUS = new Location("classpath:db/migration/previous-release");
+
+    /** The recorded fingerprints, keyed like {@code schema_fingerprints}. */
+    private final Set<String> recorded = new HashSet<>();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SchemaFingerprintMigrationStrategy strategy = new SchemaFingerprintMigrationStrategy(true);
+
+    SchemaFingerprintMigrationStrategyTest() {
+        when(jdbcTemplate.queryForList(eq(SchemaFingerprintMigrationStrategy.RECORDED), eq(String.class), anyString()))
+                .thenAnswer(invocation -> recorded.contains(invocation.<String>getArgument(2))
+                        ? List.of(invocation.<String>getArgument(2)) : List.of());
+        when(jdbcTemplate.update(eq(SchemaFingerprintMigrationStrategy.RECORD), anyString()))
+                .thenAnswer(invocation -> {
+                    recorded.add(invocation.getArgument(1));
+                    return 1;
+                });
+    }
+
+    @Test
+    void unknownSchemaIsMigratedAndRecordedThenSkipped() {
+        Flyway flyway = flyway(CURRENT);
+        strategy.migrate(flyway, jdbcTemplate);
+        verify(flyway).migrate();
+        assertEquals(Set.of(SchemaFingerprintMigrationStrategy.fingerprint(new Location[]{CURRENT})), recorded);
+
+        strategy.migrate(flyway, jdbcTemplate);
+        verify(flyway, times(1)).migrate();
+    }
+
+    @Test
+    void nodesOfAnotherReleaseDoNotDisplaceTheRecordedFingerprint() {
+        String current = SchemaFingerprintMigrationStrategy.fingerprint(new Location[]{CURRENT});
+        String previous = SchemaFingerprintMigrationStrategy.fingerprint(new Location[]{PREVIOUS});
+        assertNotEquals(current, previous);
+        recorded.add(current);
+
+        // A node of the previous release restarts during the rolling deploy
+        Flyway older = flyway(PREVIOUS);
+        strategy.migrate(older, jdbcTemplate);
+        verify(older).migrate();
+        assertEquals(Set.of(current, previous), recorded);
+
+        Flyway newer = flyway(CURRENT);
+        strategy.migrate(newer, jdbcTemplate);
+        verify(newer, never()).migrate();
+    }
+
+    @Test
+    void databaseWithoutTheTableIsMigrated() {
+        when(jdbcTemplate.queryForList(eq(SchemaFingerprintMigrationStrategy.RECORDED), eq(String.class), anyString()))
+                .thenThrow(new BadSqlGrammarException("fingerprint", SchemaFingerprintMigrationStrategy.RECORDED,
+                        new SQLException("relation \"schema_fingerprints\" does not exist")));
+        Flyway flyway = flyway(CURRENT);
+        strategy.migrate(flyway, jdbcTemplate);
+        verify(flyway).migrate();
+    }
+
+    @Test
+    void disabledStrategyAlwaysMigratesWithoutRecording() {
+        Flyway flyway = flyway(CURRENT);
+        new SchemaFingerprintMigrationStrategy(false).migrate(flyway, jdbcTemplate);
+        verify(flyway).migrate();
+        verify(jdbcTemplate, never()).update(anyString(), anyString());
+    }
+
+    private static Flyway flyway(Location location) {
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getLocations()).thenReturn(new Location[]{location});
+        Flyway flyway = mock(Flyway.class);
+        when(flyway.getConfiguration()).thenReturn(configuration);
+        return flyway;
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.denrzv.audioreview.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relaying change events between nodes through {@code LISTEN/NOTIFY} on a real database, with a
+ * read replica configured like in {@code ReadReplicaRoutingTest}. The test plays the other node
+ * on a connection of its own. Runs in its own {@code cluster_event_bus_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=cluster_event_bus_test",
+        "spring.datasource.hikari.schema=cluster_event_bus_test",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=${spring.datasource.url}?ApplicationName=replica&currentSchema=cluster_event_bus_test",
+        "app.datasource.replica.username=${spring.datasource.username}",
+        "app.datasource.replica.password=${spring.datasource.password}",
+        "app.cluster-events.poll-ms=100",
+        "app.cluster-events.keepalive-ms=600000",
+        "app.cluster-events.max-reconnect-delay-ms=500",
+        "file.upload-dir=target/cluster-event-bus/uploads",
+        "app.classification-journal.dir=target/cluster-event-bus/journal",
+        "app.classification-partitions.archive-dir=target/cluster-event-bus/archive",
+        "app.resumable-upload.dir=target/cluster-event-bus/uploads-staging",
+        "app.duplicates.index-file=target/cluster-event-bus/fingerprints/lsh.index"
+})
+class ClusterEventBusTest {
+
+    private static final String CHANNEL = "audio_review_events";
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecordedEvents recordedEvents;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private Connection otherNode;
+
+    @TestConfiguration
+    static class Recording {
+        @Bean
+        RecordedEvents recordedEvents() {
+            return new RecordedEvents();
+        }
+    }
+
+    static class RecordedEvents {
+        private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+
+        @EventListener
+        void onResync(ResyncRequiredEvent event) {
+            events.add(event);
+        }
+
+        @EventListener
+        void onAudioFilesChanged(AudioFilesChangedEvent event) {
+            if (event.isRemote()) {
+                events.add(event);
+            }
+        }
+    }
+
+    @BeforeEach
+    void listen() throws Exception {
+        awaitTrue(clusterEventBus::isSynchronized);
+        otherNode = DriverManager.getConnection(url, username, password);
+        try (Statement statement = otherNode.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        recordedEvents.events.clear();
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        otherNode.close();
+    }
+
+    @Test
+    void changesAreSentToOtherNodesOnlyOnceCommitted() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.DELETED));
+            try {
+                assertTrue(received(200).isEmpty());
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        List<String> payloads = received(2000);
+        assertEquals(1, payloads.size());
+        assertTrue(payloads.get(0).contains(clusterEventBus.getNodeId()));
+        assertTrue(payloads.get(0).contains("DELETED"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.UPLOADED));
+            status.setRollbackOnly();
+        });
+        assertTrue(received(500).isEmpty());
+    }
+
+    @Test
+    void changesPublishedInReadOnlyTransactionsOnTheReplicaAreSentFromThePrimary() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        String route = readOnly.execute(status -> {
+            eventPublisher.publishEvent(new AudioFilesChangedEvent(AudioFilesChangedEvent.Reason.UPDATED));
+            return jdbcTemplate.queryForObject("SELECT current_setting('application_name')", String.class);
+        });
+        assertEquals("replica", route);
+
+        // A standby cannot notify; the test replica can, so check where it came from
+        PGNotification[] notifications = otherNode.unwrap(PGConnection.class).getNotifications(2000);
+        assertEquals(1, notifications.length);
+        assertTrue(notifications[0].getParameter().contains("UPDATED"));
+        try (var statement = otherNode.prepareStatement("SELECT application_name FROM pg_stat_activity WHERE pid = ?")) {
+            statement.setInt(1, notifications[0].getPID());
+            try (var rs = statement.executeQuery()) {
+                assertTrue(rs.next());
+                assertNotEquals("replica", rs.getString(1));
+            }
+        }
+    }
+
+    @Test
+    void onlyChangesOfOtherNodesArePublishedLocally() throws Exception {
+        notifyAs(clusterEventBus.getNodeId(), "DELETED");
+        notifyAs("other-node", "CLASSIFIED");
+
+        Object event = recordedEvents.events.poll(5, TimeUnit.SECONDS);
+        AudioFilesChangedEvent changed = assertInstanceOf(AudioFilesChangedEvent.class, event);
+        assertEquals(AudioFilesChangedEvent.Reason.CLASSIFIED, changed.getReason());
+        assertTrue(changed.isRemote());
+        assertNull(recordedEvents.events.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void lostListenerConnectionIsReopenedAndCachesAreToldToResync() throws Exception {
+        try (Statement statement = otherNode.createStatement()) {
+            // Every node listening on the channel but the test's own connection
+            statement.execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity " +
+                    "WHERE query = 'LISTEN " + CHANNEL + "' AND pid <> pg_backend_pid()");
+        }
+        awaitTrue(() -> !clusterEventBus.isSynchronized());
+        awaitTrue(clusterEventBus::isSynchronized);
+        assertInstanceOf(ResyncRequiredEvent.class, recordedEvents.events.poll(5, TimeUnit.SECONDS));
+
+        // Changes of other nodes arrive again
+        notifyAs("other-node", "UPLOADED");
+        assertInstanceOf(AudioFilesChangedEvent.class, recordedEvents.events.poll(5, TimeUnit.SECONDS));
+    }
+
+    private void notifyAs(String node, String reason) throws SQLException {
+        try (var statement = otherNode.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, CHANNEL);
+            statement.setString(2, "{\"node\":\"" + node + "\",\"type\":\"AUDIO_FILES\",\"key\":\"" + reason + "\"}");
+            statement.execute();
+        }
+    }
+
+    private List<String> received(int waitMs) throws SQLException {
+        List<String> payloads = new ArrayList<>();
+        PGNotification[] notifications = otherNode.unwrap(PGConnection.class).getNotifications(waitMs);
+        if (notifications != null) {
+            for (PGNotification notification : notifications) {
+                payloads.add(notification.getParameter());
+            }
+        }
+        return payloads;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioFingerprinterTest {
+
+    private static final double SECONDS = 30;
+
+    private final AudioFingerprinter fingerprinter = new AudioFingerprinter(600);
+
+    @Test
+    void reEncodedTrimmedCopyMatchesAtItsOffset() throws Exception {
+        float[] original = speech(1, 8000, SECONDS);
+        // Starts a fraction of a frame hop into the original, at half the level, as µ-law
+        int trim = 18_960;
+        float[] copy = Arrays.copyOfRange(original, trim, original.length - 8000);
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] *= 0.5f;
+        }
+
+        Fingerprint originalPrint = fingerprinter.fingerprint(new ByteArrayInputStream(wav(original, 8000, false)));
+        Fingerprint copyPrint = fingerprinter.fingerprint(new ByteArrayInputStream(wav(copy, 8000, true)));
+        Fingerprint.Match match = originalPrint.match(copyPrint);
+
+        assertTrue(match.score() > 0.3, () -> "Copy matched " + match);
+        assertTrue(match.landmarks() > 100, () -> "Copy matched " + match);
+        assertEquals(-trim / (double) AudioFingerprinter.HOP_SIZE, match.offset(), 1.0);
+    }
+
+    @Test
+    void wideBandRecordingMatchesTelephoneBandCopy() throws Exception {
+        Fingerprint wide = fingerprinter.fingerprint(new ByteArrayInputStream(wav(speech(2, 16_000, SECONDS), 16_000, false)));
+        Fingerprint narrow = fingerprinter.fingerprint(new ByteArrayInputStream(wav(speech(2, 8000, SECONDS), 8000, true)));
+
+        Fingerprint.Match match = wide.match(narrow);
+        assertTrue(match.score() > 0.3, () -> "Resampled copy matched " + match);
+        assertEquals(0, match.offset(), 1);
+        assertEquals((long) (SECONDS * 1000), wide.getDurationMs());
+    }
+
+    @Test
+    void unrelatedRecordingsDoNotMatch() {
+        Fingerprint first = fingerprinter.fingerprint(speech(3, 8000, SECONDS));
+        Fingerprint second = fingerprinter.fingerprint(speech(4, 8000, SECONDS));
+
+        Fingerprint.Match match = first.match(second);
+        assertTrue(match.score() < 0.05, () -> "Unrelated recordings matched " + match);
+        assertTrue(first.size() > 1000 && second.size() > 1000);
+    }
+
+    @Test
+    void encodedFingerprintDecodesToTheSameLandmarks() {
+        Fingerprint fingerprint = fingerprinter.fingerprint(speech(5, 8000, SECONDS));
+        byte[] encoded = fingerprint.toBytes();
+
+        Fingerprint decoded = Fingerprint.fromBytes(encoded, fingerprint.getDurationMs());
+        assertEquals(fingerprint.size(), decoded.size());
+        assertArrayEquals(encoded, decoded.toBytes());
+        assertEquals(1.0, fingerprint.match(decoded).score());
+        assertTrue(encoded.length < fingerprint.size() * 5, () -> encoded.length + " bytes for " + fingerprint.size() + " landmarks");
+    }
+
+    @Test
+    void silenceHasNoLandmarks() {
+        assertEquals(0, fingerprinter.fingerprint(new float[8000 * 5]).size());
+        assertEquals(0, fingerprinter.fingerprint(new float[100]).size());
+    }
+
+    @Test
+    void rejectsAudioItCannotDecode() {
+        assertThrows(UnsupportedAudioFileException.class,
+                () -> fingerprinter.fingerprint(new ByteArrayInputStream(new byte[]{'R', 'I', 'F', 'F'})));
+    }
+
+    /**
+     * Speech-like audio: voiced syllables of a gliding pitch with three formants, and pauses.
+     * The same seed gives the same audio at any sample rate.
+     */
+    private static float[] speech(long seed, int rate, double seconds) {
+        Random random = new Random(seed);
+        float[] samples = new float[(int) (rate * seconds)];
+        double start = 0;
+        while (start < seconds) {
+            double length = 0.08 + random.nextDouble() * 0.25;
+            boolean pause = random.nextDouble() < 0.2;
+            double pitch = 90 + random.nextDouble() * 160;
+            double glide = (random.nextDouble() - 0.5) * 60;
+            double[] formants = {300 + random.nextDouble() * 600, 900 + random.nextDouble() * 1400, 2000 + random.nextDouble() * 1200};
+            double amplitude = 0.3 + random.nextDouble() * 0.5;
+            int first = (int) Math.ceil(start * rate);
+            int end = (int) Math.min(samples.length, Math.ceil((start + length) * rate));
+            for (int i = first; i < end && !pause; i++) {
+                double t = (double) i / rate - start;
+                double frequency = pitch + glide * t / length;
+                double value = 0;
+                for (int harmonic = 1; harmonic * frequency < 3800; harmonic++) {
+                    double gain = 0;
+                    for (double formant : formants) {
+                        double distance = (harmonic * frequency - formant) / 150;
+                        gain += Math.exp(-distance * distance);
+                    }
+                    value += gain * Math.sin(2 * Math.PI * harmonic * frequency * t + harmonic);
+                }
+                samples[i] = (float) (0.2 * amplitude * Math.sin(Math.PI * t / length) * value);
+            }
+            start += length;
+        }
+        Random noise = new Random(seed + rate);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] += (float) (noise.nextGaussian() * 0.003);
+        }
+        return samples;
+    }
+
+    private static byte[] wav(float[] samples, int rate, boolean muLaw) throws IOException {
+        byte[] pcm = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            int value = Math.max(-32768, Math.min(32767, Math.round(samples[i] * 32767)));
+            pcm[2 * i] = (byte) value;
+            pcm[2 * i + 1] = (byte) (value >> 8);
+        }
+        AudioInputStream audio = new AudioInputStream(new ByteArrayInputStream(pcm),
+                new AudioFormat(rate, 16, 1, true, false), samples.length);
+        if (muLaw) {
+            audio = AudioSystem.getAudioInputStream(AudioFormat.Encoding.ULAW, audio);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AudioSystem.write(audio, AudioFileFormat.Type.WAVE, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,216 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import io.github.denrzv.audioreview.dto.ClassificationRequest;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository;
+import io.github.denrzv.audioreview.service.ClassificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Merging duplicate clusters, copying a human label within them and fingerprinting failures,
+ * against a real database. Files are put into clusters directly, without decoding audio. Runs in its own
+ * {@code duplicate_cluster_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=duplicate_cluster_test",
+        "spring.datasource.hikari.schema=duplicate_cluster_test",
+        "file.upload-dir=target/duplicate-cluster/uploads",
+        "app.classification-journal.dir=target/duplicate-cluster/journal",
+        "app.classification-partitions.archive-dir=target/duplicate-cluster/archive",
+        "app.resumable-upload.dir=target/duplicate-cluster/uploads-staging",
+        "app.duplicates.index-file=target/duplicate-cluster/fingerprints/lsh.index"
+})
+class DuplicateClusterSettleTest {
+
+    private static final String ADMIN = "admin@test.io";
+
+    @Autowired
+    private DuplicateDetector duplicateDetector;
+
+    @Autowired
+    private AudioFingerprintRepository fingerprintRepository;
+
+    @Autowired
+    private ClassificationService classificationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                            "uploaded_by, uploaded_at, version) VALUES (?, ?, " +
+                            "(SELECT id FROM categories WHERE name = 'Voice'), " +
+                            "(SELECT id FROM categories WHERE name = 'Unclassified'), " +
+                            "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)",
+                    "duplicate_" + i + ".wav", "duplicate/" + i + ".wav", ADMIN);
+        }
+        ids = jdbcTemplate.queryForList("SELECT id FROM audio_files ORDER BY id", Long.class);
+        // Every file starts in a cluster of its own; the last one stays there
+        ids.forEach(id -> fingerprintRepository.insert(id, null, 0, id, null, null));
+    }
+
+    @Test
+    void humanLabelIsCopiedToUnleasedDuplicatesWithoutCountingAsDecisions() throws InterruptedException {
+        long source = ids.get(0);
+        Integer moved = transactionTemplate.execute(status -> {
+            fingerprintRepository.lockClusters(DuplicateDetector.CLUSTER_LOCK_KEY);
+            return fingerprintRepository.mergeClusters(List.of(ids.get(1), ids.get(2), ids.get(3)), source);
+        });
+        assertEquals(3, moved);
+        assertEquals(List.of(source, source, source, source, ids.get(4)),
+                ids.stream().map(id -> fingerprintRepository.findClusterId(id).orElseThrow()).toList());
+
+        // A reviewer is working on the third file
+        jdbcTemplate.update("INSERT INTO file_leases (audio_file_id, user_id, leased_at, expires_at) " +
+                "SELECT ?, id, LOCALTIMESTAMP, LOCALTIMESTAMP + INTERVAL '10 minutes' FROM users WHERE username = ?",
+                ids.get(2), ADMIN);
+        classificationService.classifyFile(source, new ClassificationRequest("Silent"), ADMIN);
+
+        awaitTrue(() -> categoryOf(ids.get(1)).equals("Silent") && categoryOf(ids.get(3)).equals("Silent"));
+        awaitTrue(() -> countClassifications() == 3);
+        assertEquals("Unclassified", categoryOf(ids.get(2)));
+        assertEquals("Unclassified", categoryOf(ids.get(4)));
+
+        Map<Long, Long> labelledFrom = new HashMap<>();
+        jdbcTemplate.query("SELECT audio_file_id, labelled_from FROM classifications WHERE user_id IS NULL",
+                rs -> {
+                    labelledFrom.put(rs.getLong(1), rs.getLong(2));
+                });
+        assertEquals(Map.of(ids.get(1), source, ids.get(3), source), labelledFrom);
+        assertNull(jdbcTemplate.queryForObject("SELECT labelled_from FROM classifications WHERE audio_file_id = ?",
+                Long.class, source));
+        assertEquals(source, jdbcTemplate.queryForObject("SELECT labelled_from FROM audio_fingerprints " +
+                "WHERE audio_file_id = ?", Long.class, ids.get(1)));
+
+        // Only the reviewer's label is a decision, before and after a rebuild; the matrix counts every file
+        assertEquals(1L, countDecisions());
+        assertConfusionMatchesRecount();
+        jdbcTemplate.execute("SELECT rebuild_category_confusion()");
+        assertEquals(1L, countDecisions());
+        assertConfusionMatchesRecount();
+    }
+
+    @Test
+    void clusterIsSettledAgainAfterAFailedAttempt() throws Exception {
+        long source = ids.get(0);
+        transactionTemplate.executeWithoutResult(status ->
+                fingerprintRepository.mergeClusters(List.of(ids.get(1)), source));
+        jdbcTemplate.update("UPDATE audio_files SET current_category_id = (SELECT id FROM categories WHERE name = 'Silent') " +
+                "WHERE id = ?", source);
+
+        // Another instance holds the cluster lock longer than a settle waits for it
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holding = holder.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                fingerprintRepository.lockClusters(DuplicateDetector.CLUSTER_LOCK_KEY);
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            duplicateDetector.recordHumanLabels(List.of(source));
+            Thread.sleep(1500);
+            assertEquals("Unclassified", categoryOf(ids.get(1)));
+            release.countDown();
+            holding.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            holder.shutdown();
+        }
+
+        duplicateDetector.backfill();
+        awaitTrue(() -> categoryOf(ids.get(1)).equals("Silent"));
+    }
+
+    @Test
+    void fileTheFingerprinterFailsOnIsCountedAsFailedAndLeftForTheBackfill() throws InterruptedException {
+        jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                "uploaded_by, uploaded_at, version) VALUES ('malformed.wav', '../malformed.wav', " +
+                "(SELECT id FROM categories WHERE name = 'Voice'), (SELECT id FROM categories WHERE name = 'Unclassified'), " +
+                "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)", ADMIN);
+        long malformed = jdbcTemplate.queryForObject("SELECT id FROM audio_files WHERE filename = 'malformed.wav'", Long.class);
+        double failedBefore = countFingerprinted("failed");
+
+        // Waits for the index to open before the batch can run
+        awaitTrue(() -> {
+            duplicateDetector.backfill();
+            return countFingerprinted("failed") > failedBefore;
+        });
+        assertTrue(fingerprintRepository.findClusterId(malformed).isEmpty());
+    }
+
+    private double countFingerprinted(String outcome) {
+        Counter counter = meterRegistry.find("duplicates.fingerprinted").tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private String categoryOf(long fileId) {
+        return jdbcTemplate.queryForObject("SELECT c.name FROM audio_files f JOIN categories c " +
+                "ON c.id = f.current_category_id WHERE f.id = ?", String.class, fileId);
+    }
+
+    private long countClassifications() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM classifications", Long.class);
+    }
+
+    private Long countDecisions() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(sum(decision_count), 0) FROM category_decisions_daily", Long.class);
+    }
+
+    private void assertConfusionMatchesRecount() {
+        Map<String, Long> recount = new HashMap<>();
+        jdbcTemplate.query("SELECT initial_category_id || '>' || current_category_id, count(*) FROM audio_files " +
+                "GROUP BY 1", rs -> {
+            recount.put(rs.getString(1), rs.getLong(2));
+        });
+        Map<String, Long> counted = new HashMap<>();
+        jdbcTemplate.query("SELECT initial_category_id || '>' || current_category_id, file_count FROM category_confusion " +
+                "WHERE file_count <> 0", rs -> {
+            counted.put(rs.getString(1), rs.getLong(2));
+        });
+        assertEquals(recount, counted);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.denrzv.audioreview.fingerprint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LshIndexTest {
+
+    private static final int BANDS = 32;
+    private static final int ROWS = 2;
+    private static final int LANDMARKS = 1000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsFilesSharingMostLandmarks() throws IOException {
+        Random random = new Random(1);
+        long[] original = randomLandmarks(random, LANDMARKS);
+        try (LshIndex index = LshIndex.create(dir.resolve("lsh.index"), BANDS, ROWS, 10)) {
+            index.add(1, index.signature(new Fingerprint(original, 0)));
+            for (long fileId = 2; fileId <= 10; fileId++) {
+                index.add(fileId, index.signature(new Fingerprint(randomLandmarks(random, LANDMARKS), 0)));
+            }
+
+            // A copy keeping two thirds of the landmarks, plus some of its own
+            long[] copy = Arrays.copyOf(original, LANDMARKS);
+            for (int i = 0; i < LANDMARKS / 3; i++) {
+                copy[i] = randomLandmarks(random, 1)[0];
+            }
+            assertEquals(List.of(1L), index.candidates(index.signature(new Fingerprint(copy, 0)), 5));
+            assertEquals(List.of(), index.candidates(index.signature(new Fingerprint(randomLandmarks(random, LANDMARKS), 0)), 5));
+        }
+    }
+
+    @Test
+    void keepsFilesAndLastSequenceAcrossReopen() throws IOException {
+        Path path = dir.resolve("lsh.index");
+        Fingerprint fingerprint = new Fingerprint(randomLandmarks(new Random(2), LANDMARKS), 0);
+        try (LshIndex index = LshIndex.create(path, BANDS, ROWS, 10)) {
+            int[] signature = index.signature(fingerprint);
+            index.add(7, signature);
+            index.add(7, signature);
+            index.setLastSeq(42);
+            index.force();
+        }
+
+        try (LshIndex index = LshIndex.open(path, BANDS, ROWS)) {
+            assertNotNull(index);
+            assertEquals(1, index.getFiles());
+            assertEquals(BANDS, index.getEntries());
+            assertEquals(42, index.getLastSeq());
+            assertEquals(List.of(7L), index.candidates(index.signature(fingerprint), 5));
+        }
+        assertNull(LshIndex.open(path, BANDS * 2, ROWS));
+        assertNull(LshIndex.open(dir.resolve("missing.index"), BANDS, ROWS));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() throws IOException {
+        Path path = dir.resolve("lsh.index");
+        Random random = new Random(3);
+        Fingerprint[] fingerprints = new Fingerprint[300];
+        try (LshIndex index = LshIndex.create(path, BANDS, ROWS, 0)) {
+            long initialCapacity = index.getCapacity();
+            for (int i = 0; i < fingerprints.length; i++) {
+                fingerprints[i] = new Fingerprint(randomLandmarks(random, 200), 0);
+                index.add(i + 1, index.signature(fingerprints[i]));
+            }
+            assertTrue(index.getCapacity() > initialCapacity);
+            assertEquals(fingerprints.length, index.getFiles());
+        }
+
+        try (LshIndex index = LshIndex.open(path, BANDS, ROWS)) {
+            assertNotNull(index);
+            assertEquals(fingerprints.length, index.getFiles());
+            for (int i = 0; i < fingerprints.length; i++) {
+                assertEquals(i + 1L, index.candidates(index.signature(fingerprints[i]), 1).get(0));
+            }
+        }
+    }
+
+    @Test
+    void refusesSecondOpenOfTheSameFile() throws IOException {
+        Path path = dir.resolve("lsh.index");
+        try (LshIndex ignored = LshIndex.create(path, BANDS, ROWS, 10)) {
+            assertThrows(IOException.class, () -> LshIndex.open(path, BANDS, ROWS));
+        }
+    }
+
+    private static long[] randomLandmarks(Random random, int count) {
+        long[] landmarks = new long[count];
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = (long) random.nextInt(1 << Fingerprint.HASH_BITS) << 32 | random.nextInt(10_000);
+        }
+        return landmarks;
+    }
+}
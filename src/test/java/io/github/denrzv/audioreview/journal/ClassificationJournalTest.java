@@ -0,0 +1,167 @@
+package io.github.denrzv.audioreview.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Journaling, abort markers, truncation and crash replay against a real database. Each test
+ * runs its own journal in a fresh directory. Runs in its own {@code classification_journal_test}
+ * schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=classification_journal_test",
+        "spring.datasource.hikari.schema=classification_journal_test",
+        "file.upload-dir=target/classification-journal/uploads",
+        "app.classification-journal.dir=target/classification-journal/journal",
+        "app.classification-partitions.archive-dir=target/classification-journal/archive",
+        "app.resumable-upload.dir=target/classification-journal/uploads-staging",
+        "app.duplicates.index-file=target/classification-journal/fingerprints/lsh.index"
+})
+class ClassificationJournalTest {
+
+    private static final String ADMIN = "admin@test.io";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReviewerRollupWriter rollupWriter;
+
+    private Path journalDir;
+    private ClassificationJournal journal;
+    private long userId;
+    private long unclassified;
+    private long silent;
+    private List<Long> ids;
+
+    @BeforeEach
+    void seed() throws IOException {
+        journalDir = Files.createTempDirectory(Files.createDirectories(Paths.get("target/classification-journal")), "test");
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases, reviewer_rollups, reviewer_activity CASCADE");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, ADMIN);
+        unclassified = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Unclassified'", Long.class);
+        silent = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Silent'", Long.class);
+        for (int i = 0; i < 4; i++) {
+            // Even files carry the label recorded below, odd ones do not
+            jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                            "uploaded_by, uploaded_at, version) VALUES (?, ?, ?, ?, ?, LOCALTIMESTAMP, 0)",
+                    "journal_" + i + ".wav", "journal/" + i + ".wav", silent, i % 2 == 0 ? silent : unclassified, userId);
+        }
+        ids = jdbcTemplate.queryForList("SELECT id FROM audio_files ORDER BY id", Long.class);
+    }
+
+    @AfterEach
+    void stopJournal() {
+        if (journal != null && journal.isRunning()) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void replayInsertsCommittedRecordsAndUnmarkedOnesWhoseLabelCommitted() throws IOException {
+        ClassificationRecord committed = record(ids.get(0));
+        ClassificationRecord aborted = record(ids.get(2));
+        ClassificationRecord committedBeforeCrash = record(ids.get(2));
+        ClassificationRecord crashedBeforeCommit = record(ids.get(1));
+        String lines = String.join("\n",
+                committed.toJournalLine(),
+                aborted.toJournalLine(),
+                committedBeforeCrash.toJournalLine(),
+                crashedBeforeCommit.toJournalLine(),
+                "committed," + committed.getJournalId(),
+                "aborted," + aborted.getJournalId(),
+                // Torn by the crash
+                UUID.randomUUID() + ",1,") + "\n";
+        Files.writeString(journalDir.resolve("classifications.journal"), lines, StandardCharsets.UTF_8);
+
+        start();
+        assertEquals(Set.of(committed.getJournalId(), committedBeforeCrash.getJournalId()), journalIds());
+        assertEquals(0, Files.size(journalDir.resolve("classifications.journal")));
+        journal.stop();
+
+        // Replaying the same journal again inserts nothing twice
+        Files.writeString(journalDir.resolve("classifications.journal"), lines, StandardCharsets.UTF_8);
+        start();
+        assertEquals(2, journalIds().size());
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT sum(labels) FROM reviewer_rollups " +
+                "WHERE granularity = 'DAY' AND user_id = ?", Long.class, userId));
+    }
+
+    @Test
+    void rolledBackRecordIsMarkedAbortedAndTheJournalTruncatedOnceAllIsFlushed() throws Exception {
+        start();
+        TransactionTemplate inner = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ClassificationRecord kept = record(ids.get(0));
+        ClassificationRecord rolledBack = record(ids.get(2));
+
+        transactionTemplate.executeWithoutResult(outer -> {
+            journal.record(kept);
+            inner.executeWithoutResult(status -> {
+                journal.record(rolledBack);
+                status.setRollbackOnly();
+            });
+            try {
+                // The open transaction keeps its record in the journal, without a marker yet
+                assertEquals(List.of(kept.toJournalLine(), rolledBack.toJournalLine(), "aborted," + rolledBack.getJournalId()),
+                        Files.readAllLines(journalDir.resolve("classifications.journal")));
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        awaitTrue(() -> journalIds().equals(Set.of(kept.getJournalId())));
+        awaitTrue(() -> {
+            try {
+                return Files.size(journalDir.resolve("classifications.journal")) == 0;
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    private void start() {
+        journal = new ClassificationJournal(jdbcTemplate, transactionTemplate, rollupWriter, journalDir.toString(),
+                16, 10, 50, true);
+        journal.start();
+    }
+
+    private ClassificationRecord record(long fileId) {
+        return new ClassificationRecord(UUID.randomUUID(), userId, fileId, unclassified, silent,
+                LocalDateTime.now(), null);
+    }
+
+    private Set<UUID> journalIds() {
+        return Set.copyOf(jdbcTemplate.queryForList("SELECT journal_id FROM classifications", UUID.class));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.denrzv.audioreview.journal;
+
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Granularity;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Key;
+import io.github.denrzv.audioreview.journal.ReviewerRollups.Rollup;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewerRollupsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 9, 59, 50);
+
+    @Test
+    void timesLabelsAndCountsLongGapsAsIdle() {
+        ReviewerRollups rollups = new ReviewerRollups(60_000);
+        rollups.add(1, START);
+        rollups.add(1, START.plusSeconds(20));
+        rollups.add(1, START.plusSeconds(30));
+        // A break, then a label replayed late
+        rollups.add(1, START.plusMinutes(10));
+        rollups.add(1, START.plusSeconds(5));
+
+        Rollup hour9 = rollups.getRollups().get(new Key(Granularity.HOUR, START.withMinute(0).withSecond(0), 1));
+        assertEquals(2, hour9.getLabels());
+        assertEquals(0, hour9.getTimedLabels());
+        Rollup hour10 = rollups.getRollups().get(new Key(Granularity.HOUR, START.plusHours(1).withMinute(0).withSecond(0), 1));
+        assertEquals(3, hour10.getLabels());
+        assertEquals(2, hour10.getTimedLabels());
+        assertEquals(30_000, hour10.getLabelTimeMs());
+        assertEquals(570_000, hour10.getIdleMs());
+
+        Rollup day = rollups.getRollups().get(new Key(Granularity.DAY, START.toLocalDate().atStartOfDay(), 1));
+        assertEquals(5, day.getLabels());
+        assertEquals(2, day.getTimedLabels());
+        assertEquals(2, day.getHistogram().getTotalCount());
+        assertEquals(START.plusMinutes(10), rollups.getLastLabelAt().get(1L));
+    }
+
+    @Test
+    void continuesFromLastKnownLabel() {
+        ReviewerRollups rollups = new ReviewerRollups(60_000);
+        rollups.setLastLabelAt(1, START);
+        rollups.add(1, START.plusSeconds(4));
+
+        Rollup day = rollups.getRollups().get(new Key(Granularity.DAY, START.toLocalDate().atStartOfDay(), 1));
+        assertEquals(1, day.getTimedLabels());
+        assertEquals(4_000, day.getLabelTimeMs());
+    }
+
+    @Test
+    void histogramBinsAreContiguousAndQuantilesWithinBinWidth() {
+        for (int bin = 1; bin < LabelTimeHistogram.BINS; bin++) {
+            assertEquals(LabelTimeHistogram.upperBound(bin - 1), LabelTimeHistogram.lowerBound(bin));
+            assertEquals(bin, LabelTimeHistogram.bin(LabelTimeHistogram.lowerBound(bin)));
+            assertEquals(bin, LabelTimeHistogram.bin(LabelTimeHistogram.upperBound(bin) - 1));
+        }
+
+        LabelTimeHistogram histogram = new LabelTimeHistogram();
+        assertNull(histogram.valueAtQuantile(0.5));
+        for (long millis = 1_000; millis <= 10_000; millis += 1_000) {
+            histogram.record(millis);
+        }
+        long median = histogram.valueAtQuantile(0.5);
+        assertTrue(Math.abs(median - 5_000) <= 5_000 / LabelTimeHistogram.SUB_BINS, "median " + median);
+        long p90 = histogram.valueAtQuantile(0.9);
+        assertTrue(Math.abs(p90 - 9_000) <= 9_000 / LabelTimeHistogram.SUB_BINS, "p90 " + p90);
+
+        LabelTimeHistogram merged = LabelTimeHistogram.of(histogram.toArray());
+        merged.add(LabelTimeHistogram.of(new Long[]{3L}));
+        assertEquals(13, merged.getTotalCount());
+        assertEquals(3L, merged.toArray()[0]);
+        assertArrayEquals(new Long[0], new LabelTimeHistogram().toArray());
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.denrzv.audioreview.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new RateLimiter(new SimpleMeterRegistry(), 100, 1, 0.001, () -> 0L), true,
+            List.of("/admin/audio/files/**"), List.of(), List.of("/admin/audio/files/**"));
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anonymousAudioFetchesBehindOneAddressAreLimitedPerFile() throws Exception {
+        assertEquals(200, status("/admin/audio/files/a.wav", "10.0.0.1"));
+        assertEquals(200, status("/admin/audio/files/b.wav", "10.0.0.1"));
+        assertEquals(429, status("/admin/audio/files/a.wav", "10.0.0.2"));
+    }
+
+    @Test
+    void otherAnonymousRequestsAreLimitedPerAddressAndAuthenticatedOnesPerUser() throws Exception {
+        assertEquals(200, status("/auth/login", "10.0.0.1"));
+        assertEquals(200, status("/auth/login", "10.0.0.2"));
+        assertEquals(429, status("/auth/login", "10.0.0.1"));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "reviewer@test.io", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        assertEquals(200, status("/admin/audio/files/a.wav", "10.0.0.1"));
+        assertEquals(429, status("/admin/audio/files/b.wav", "10.0.0.3"));
+    }
+
+    private int status(String path, String remoteAddress) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(remoteAddress);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.denrzv.audioreview.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        AtomicLong clock = new AtomicLong(-5 * SECOND);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, 100, 3, 2, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(EndpointClass.EXPENSIVE, "user:a"));
+        }
+        assertEquals(SECOND / 2, rateLimiter.tryAcquire(EndpointClass.EXPENSIVE, "user:a"));
+        // Other users and endpoint classes have their own buckets
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.EXPENSIVE, "user:b"));
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:a"));
+
+        clock.addAndGet(SECOND / 2);
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.EXPENSIVE, "user:a"));
+        assertEquals(SECOND / 2, rateLimiter.tryAcquire(EndpointClass.EXPENSIVE, "user:a"));
+
+        assertEquals(2, meterRegistry.get("ratelimit.requests").tag("class", "expensive").tag("outcome", "rejected")
+                .counter().count(), 1e-9);
+    }
+
+    @Test
+    void evictsFullBucketsAndSharesOverflowBucket() {
+        AtomicLong clock = new AtomicLong();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, 2, 1, 1, clock::get);
+
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:a"));
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:b"));
+        // Keyspace full and both buckets in use: new clients share the overflow bucket
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:c"));
+        assertEquals(SECOND, rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:d"));
+        assertEquals(2, meterRegistry.get("ratelimit.overflow").counter().count(), 1e-9);
+
+        clock.addAndGet(2 * SECOND);
+        rateLimiter.evictIdle();
+        assertEquals(0, rateLimiter.size());
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:d"));
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(new SimpleMeterRegistry(), 100, 50, 1e-3, () -> 0L);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            callers.submit(() -> {
+                if (rateLimiter.tryAcquire(EndpointClass.CHEAP, "user:a") == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        callers.shutdown();
+        callers.awaitTermination(10, TimeUnit.SECONDS);
+        assertEquals(50, allowed.get());
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.denrzv.audioreview.security;
+
+import io.github.denrzv.audioreview.exception.AuthenticationOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void shedsWithTooManyRequestsWhenQueueIsFull() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(meterRegistry, 1, 1, 5_000, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // One running, one queued
+            for (int i = 0; i < 2; i++) {
+                callers.submit(() -> hashingExecutor.execute("verify", () -> await(release)));
+            }
+            Thread.sleep(200);
+
+            AuthenticationOverloadedException ex = assertThrows(AuthenticationOverloadedException.class,
+                    () -> hashingExecutor.execute("verify", () -> true));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getStatus());
+            assertEquals(2, ex.getRetryAfterSeconds());
+            assertEquals(1, meterRegistry.get("auth.password.rejected").tag("reason", "queue_full").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            callers.awaitTermination(5, TimeUnit.SECONDS);
+            hashingExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void givesUpWithServiceUnavailableAfterMaxWait() {
+        PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 1, 100, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            AuthenticationOverloadedException ex = assertThrows(AuthenticationOverloadedException.class,
+                    () -> hashingExecutor.execute("verify", () -> await(release)));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        } finally {
+            release.countDown();
+            hashingExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void reportsHashesOfAnotherCostForUpgrade() {
+        PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 4, 5_000, 2);
+        try {
+            BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder(5, hashingExecutor);
+            String current = encoder.encode("password");
+
+            assertTrue(encoder.matches("password", current));
+            assertFalse(encoder.upgradeEncoding(current));
+            assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+            assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        } finally {
+            hashingExecutor.shutdown();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
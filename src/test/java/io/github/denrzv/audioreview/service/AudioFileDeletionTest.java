@@ -0,0 +1,172 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.repository.AudioFileBulkRepository;
+import io.github.denrzv.audioreview.repository.AudioFingerprintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deleting files in bulk, the rows removed with them and reclaiming their stored audio, against
+ * a real database and local storage. Runs in its own {@code audio_file_deletion_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=audio_file_deletion_test",
+        "spring.datasource.hikari.schema=audio_file_deletion_test",
+        "file.upload-dir=target/audio-file-deletion/uploads",
+        "app.classification-journal.dir=target/audio-file-deletion/journal",
+        "app.classification-partitions.archive-dir=target/audio-file-deletion/archive",
+        "app.resumable-upload.dir=target/audio-file-deletion/uploads-staging",
+        "app.duplicates.index-file=target/audio-file-deletion/fingerprints/lsh.index"
+})
+class AudioFileDeletionTest {
+
+    private static final Path UPLOAD_DIR = Paths.get("target/audio-file-deletion/uploads");
+    private static final String ADMIN = "admin@test.io";
+
+    @Autowired
+    private AudioFileService audioFileService;
+
+    @Autowired
+    private AudioFileBulkRepository bulkRepository;
+
+    @Autowired
+    private AudioFingerprintRepository fingerprintRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void seed() throws IOException {
+        FileSystemUtils.deleteRecursively(UPLOAD_DIR.resolve("deletion"));
+        Files.createDirectories(UPLOAD_DIR.resolve("deletion"));
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        for (int i = 0; i < 3; i++) {
+            Files.writeString(UPLOAD_DIR.resolve(path(i)), "audio " + i);
+            jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                            "uploaded_by, uploaded_at, version) VALUES (?, ?, " +
+                            "(SELECT id FROM categories WHERE name = 'Voice'), " +
+                            "(SELECT id FROM categories WHERE name = 'Unclassified'), " +
+                            "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)",
+                    "deletion_" + i + ".wav", path(i), ADMIN);
+        }
+        ids = jdbcTemplate.queryForList("SELECT id FROM audio_files ORDER BY id", Long.class);
+        for (long id : ids) {
+            fingerprintRepository.insert(id, null, 0, id, null, null);
+            jdbcTemplate.update("INSERT INTO file_leases (audio_file_id, user_id, leased_at, expires_at) " +
+                    "SELECT ?, id, LOCALTIMESTAMP, LOCALTIMESTAMP + INTERVAL '10 minutes' FROM users WHERE username = ?",
+                    id, ADMIN);
+            jdbcTemplate.update("INSERT INTO classifications (user_id, audio_file_id, previous_category_id, " +
+                    "new_category_id, classified_at) SELECT u.id, f.id, f.current_category_id, f.initial_category_id, " +
+                    "LOCALTIMESTAMP FROM users u, audio_files f WHERE u.username = ? AND f.id = ?", ADMIN, id);
+        }
+    }
+
+    @Test
+    void deletingByIdsReturnsThePathsOfExistingFilesAndRemovesWhatReferencesThem() throws InterruptedException {
+        List<String> paths = transactionTemplate.execute(status ->
+                bulkRepository.deleteByIdsReturningPaths(List.of(ids.get(0), ids.get(2), -1L)));
+        assertEquals(Set.of(path(0), path(2)), Set.copyOf(paths));
+        for (String table : List.of("audio_files", "file_leases", "audio_fingerprints", "classifications")) {
+            String column = table.equals("audio_files") ? "id" : "audio_file_id";
+            assertEquals(List.of(ids.get(1)), jdbcTemplate.queryForList("SELECT " + column + " FROM " + table, Long.class),
+                    table);
+        }
+
+        audioFileService.deleteMultipleFiles(List.of(ids.get(1)));
+        awaitTrue(() -> !Files.exists(UPLOAD_DIR.resolve(path(1))));
+        // The repository alone leaves stored audio in place
+        assertTrue(Files.exists(UPLOAD_DIR.resolve(path(0))));
+    }
+
+    @Test
+    void storedAudioIsOnlyReclaimedOnceTheDeleteCommits() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            audioFileService.deleteFileById(ids.get(0));
+            status.setRollbackOnly();
+        });
+        audioFileService.deleteFileById(ids.get(1));
+
+        awaitTrue(() -> !Files.exists(UPLOAD_DIR.resolve(path(1))));
+        assertTrue(Files.exists(UPLOAD_DIR.resolve(path(0))));
+        assertEquals(List.of(ids.get(0), ids.get(2)),
+                jdbcTemplate.queryForList("SELECT id FROM audio_files ORDER BY id", Long.class));
+    }
+
+    @Test
+    void deletingAllFilesTruncatesEverythingReferencingThemAndReclaimsTheirAudio() throws InterruptedException {
+        List<String> paths = transactionTemplate.execute(status -> bulkRepository.truncateReturningPaths());
+        assertEquals(Set.of(path(0), path(1), path(2)), Set.copyOf(paths));
+        for (String table : List.of("audio_files", "file_leases", "audio_fingerprints", "classifications")) {
+            assertEquals(0L, jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class), table);
+        }
+
+        jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                "uploaded_by, uploaded_at, version) VALUES ('deletion.wav', ?, " +
+                "(SELECT id FROM categories WHERE name = 'Voice'), (SELECT id FROM categories WHERE name = 'Voice'), " +
+                "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)", path(0), ADMIN);
+        audioFileService.deleteAllFiles();
+        awaitTrue(() -> !Files.exists(UPLOAD_DIR.resolve(path(0))));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT count(*) FROM audio_files", Long.class));
+    }
+
+    @Test
+    void pathsBeyondTheQueueCapacityAreLeftForTheReconciler() throws InterruptedException {
+        FileStorageService storage = mock(FileStorageService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(storage.deleteFile(anyString())).thenAnswer(invocation -> release.await(10, TimeUnit.SECONDS));
+        StorageReclaimer reclaimer = new StorageReclaimer(storage, 1, 1000, 2);
+        try {
+            reclaimer.reclaimAfterCommit(List.of("a", "b", "c", "d", "e"));
+            // One path is being deleted and two wait in the queue
+            assertEquals(2, reclaimer.getDroppedCount());
+            assertEquals(3, reclaimer.getPendingCount());
+
+            release.countDown();
+            awaitTrue(() -> reclaimer.getPendingCount() == 0);
+            assertEquals(3, reclaimer.getReclaimedCount());
+            verify(storage, times(3)).deleteFile(anyString());
+        } finally {
+            release.countDown();
+            reclaimer.shutdown();
+        }
+    }
+
+    private static String path(int i) {
+        return "deletion/" + i + ".wav";
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
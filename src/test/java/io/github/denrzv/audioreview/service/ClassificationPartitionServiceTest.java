@@ -0,0 +1,156 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.config.AppConfig;
+import io.github.denrzv.audioreview.dto.ArchivedClassificationResponse;
+import io.github.denrzv.audioreview.exception.ResourceAlreadyExistsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archiving cold partitions, archiving rows that arrive for an archived month, resuming an
+ * interrupted run and excluding concurrent runs, against a real database. Runs in its own
+ * {@code classification_partition_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=classification_partition_test",
+        "spring.datasource.hikari.schema=classification_partition_test",
+        "file.upload-dir=target/classification-partition/uploads",
+        "app.classification-journal.dir=target/classification-partition/journal",
+        "app.classification-partitions.archive-dir=target/classification-partition/archive",
+        "app.classification-partitions.archive-shared=true",
+        "app.resumable-upload.dir=target/classification-partition/uploads-staging",
+        "app.duplicates.index-file=target/classification-partition/fingerprints/lsh.index"
+})
+class ClassificationPartitionServiceTest {
+
+    private static final Path ARCHIVE_DIR = Paths.get("target/classification-partition/archive");
+
+    @Autowired
+    private ClassificationPartitionService partitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private long userId;
+    private long fileId;
+
+    @BeforeEach
+    void seed() throws IOException {
+        FileSystemUtils.deleteRecursively(ARCHIVE_DIR);
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'admin@test.io'", Long.class);
+        jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                "uploaded_by, uploaded_at, version) SELECT 'partition.wav', 'partition/0.wav', id, id, ?, " +
+                "LOCALTIMESTAMP, 0 FROM categories WHERE name = 'Voice'", userId);
+        fileId = jdbcTemplate.queryForObject("SELECT id FROM audio_files", Long.class);
+    }
+
+    @Test
+    void archivesColdMonthsAndMergesRowsArrivingLater() {
+        YearMonth month = YearMonth.now().minusMonths(24);
+        insert(month, userId, null);
+        insert(month, null, fileId);
+
+        Map<String, List<String>> result = partitionService.maintainPartitions();
+        assertTrue(result.get("archived").contains(partition(month)));
+        assertFalse(tableExists(partition(month)));
+        assertTrue(partitionService.listArchives().contains(month.toString()));
+        List<ArchivedClassificationResponse> rows = partitionService.readArchive(month.toString(), null, null, 100);
+        assertEquals(2, rows.size());
+        ArchivedClassificationResponse copied = rows.stream().filter(row -> row.getUserId() == null).findFirst().orElseThrow();
+        assertEquals(fileId, copied.getLabelledFrom());
+
+        // A replayed journal record of the archived month lands in the default partition
+        insert(month, userId, null);
+        partitionService.maintainPartitions();
+        assertEquals(3, partitionService.readArchive(month.toString(), null, null, 100).size());
+        assertEquals(1, partitionService.readArchive(month.toString(), null, null, 100).stream()
+                .filter(row -> row.getUserId() == null).count());
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT count(*) FROM classifications_default", Long.class));
+    }
+
+    @Test
+    void partitionLeftDetachedByAnInterruptedRunIsArchived() {
+        YearMonth month = YearMonth.now().minusMonths(30);
+        jdbcTemplate.queryForObject("SELECT create_classifications_partition(?)", String.class,
+                Date.valueOf(month.atDay(1)));
+        insert(month, userId, null);
+        jdbcTemplate.execute("ALTER TABLE classifications DETACH PARTITION " + partition(month));
+
+        assertTrue(partitionService.maintainPartitions().get("archived").contains(partition(month)));
+        assertFalse(tableExists(partition(month)));
+        assertEquals(1, partitionService.readArchive(month.toString(), userId, null, 100).size());
+    }
+
+    @Test
+    void partitionsStayWhileTheArchiveIsNotShared() {
+        YearMonth month = YearMonth.now().minusMonths(36);
+        insert(month, userId, null);
+        ClassificationPartitionService unshared = new ClassificationPartitionService(jdbcTemplate, transactionTemplate,
+                appConfig, ARCHIVE_DIR.toString(), 1, false);
+
+        assertTrue(unshared.maintainPartitions().get("archived").isEmpty());
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT count(*) FROM classifications", Long.class));
+        assertTrue(unshared.listArchives().isEmpty());
+    }
+
+    @Test
+    void onlyOneNodeMaintainsAtATime() throws Exception {
+        try (Connection otherNode = dataSource.getConnection()) {
+            try (var statement = otherNode.prepareStatement("SELECT pg_advisory_lock(x'434C5350'::BIGINT)")) {
+                statement.execute();
+            }
+            assertThrows(ResourceAlreadyExistsException.class, () -> partitionService.maintainPartitions());
+            try (var statement = otherNode.prepareStatement("SELECT pg_advisory_unlock(x'434C5350'::BIGINT)")) {
+                statement.execute();
+            }
+        }
+        // Released again once the other node is done
+        assertFalse(partitionService.maintainPartitions().get("ensured").isEmpty());
+    }
+
+    private void insert(YearMonth month, Long user, Long labelledFrom) {
+        jdbcTemplate.update("INSERT INTO classifications (user_id, audio_file_id, previous_category_id, new_category_id, " +
+                        "classified_at, labelled_from) SELECT ?, id, current_category_id, current_category_id, ?, ? " +
+                        "FROM audio_files WHERE id = ?",
+                user, Timestamp.valueOf(month.atDay(10).atTime(12, 0)), labelledFrom, fileId);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private static String partition(YearMonth month) {
+        return String.format("classifications_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.dto.CategoryAgreement;
+import io.github.denrzv.audioreview.dto.CategoryDecisionCount;
+import io.github.denrzv.audioreview.dto.ClassificationRequest;
+import io.github.denrzv.audioreview.dto.ConfusionMatrixResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The trigger-maintained confusion counts must always equal a recount of {@code audio_files},
+ * whichever way the files changed, and the decision counts what a rebuild recomputes. Runs in its own {@code confusion_matrix_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=confusion_matrix_test",
+        "spring.datasource.hikari.schema=confusion_matrix_test",
+        "file.upload-dir=target/confusion-matrix/uploads",
+        "app.classification-journal.dir=target/confusion-matrix/journal",
+        "app.classification-partitions.archive-dir=target/confusion-matrix/archive",
+        "app.resumable-upload.dir=target/confusion-matrix/uploads-staging",
+        "app.duplicates.index-file=target/confusion-matrix/fingerprints/lsh.index"
+})
+class ConfusionMatrixConsistencyTest {
+
+    private static final String ADMIN = "admin@test.io";
+
+    @Autowired
+    private ConfusionMatrixService confusionMatrixService;
+
+    @Autowired
+    private ClassificationService classificationService;
+
+    @Autowired
+    private AudioFileService audioFileService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        for (int i = 0; i < 8; i++) {
+            jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                            "uploaded_by, uploaded_at, version) VALUES (?, ?, " +
+                            "(SELECT id FROM categories WHERE name = ?), " +
+                            "(SELECT id FROM categories WHERE name = 'Unclassified'), " +
+                            "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)",
+                    "confusion_" + i + ".wav", "confusion/" + i + ".wav", i % 2 == 0 ? "Voice" : "Silent", ADMIN);
+        }
+        ids = jdbcTemplate.queryForList("SELECT id FROM audio_files ORDER BY id", Long.class);
+    }
+
+    @Test
+    void countsFollowEveryKindOfChange() throws InterruptedException {
+        assertMatchesRecount();
+
+        // Voice files: one confirmed, one overturned; Silent files: one confirmed
+        classificationService.classifyFile(ids.get(0), new ClassificationRequest("Voice"), ADMIN);
+        classificationService.classifyFile(ids.get(2), new ClassificationRequest("Silent"), ADMIN);
+        classificationService.classifyFile(ids.get(1), new ClassificationRequest("Silent"), ADMIN);
+        assertMatchesRecount();
+
+        audioFileService.updateMultipleFiles(List.of(ids.get(3), ids.get(4), ids.get(5)), "AnsweringMachine");
+        assertMatchesRecount();
+
+        audioFileService.deleteMultipleFiles(List.of(ids.get(5), ids.get(6)));
+        audioFileService.deleteFileById(ids.get(7));
+        assertMatchesRecount();
+
+        ConfusionMatrixResponse report = report();
+        CategoryAgreement voice = agreement(report, "Voice");
+        // Voice files left: 0 -> Voice, 2 -> Silent, 4 -> AnsweringMachine
+        assertEquals(3, voice.getPredicted());
+        assertEquals(1, voice.getAgreed());
+        assertEquals(1.0 / 3, voice.getPrecision(), 1e-9);
+        assertEquals(1.0, voice.getRecall(), 1e-9);
+        // Silent files left: 1 -> Silent, 3 -> AnsweringMachine
+        CategoryAgreement silent = agreement(report, "Silent");
+        assertEquals(0.5, silent.getPrecision(), 1e-9);
+        assertEquals(0.5, silent.getRecall(), 1e-9);
+        assertEquals(5, report.getReviewed());
+        assertEquals(0, report.getPending());
+
+        // Only the reviewers' labels are decisions, the admin edits are not
+        assertEquals(3, decisionsToday(report));
+
+        awaitClassifications(3);
+        confusionMatrixService.rebuild();
+        assertMatchesRecount();
+        assertEquals(report.getDecisions(), report().getDecisions());
+
+        audioFileService.deleteAllFiles();
+        assertMatchesRecount();
+        assertTrue(report().getMatrix().isEmpty());
+    }
+
+    @Test
+    void rebuildCountsDecisionsPerUtcDayWhateverTheSessionTimeZone() throws InterruptedException {
+        classificationService.classifyFile(ids.get(0), new ClassificationRequest("Voice"), ADMIN);
+        audioFileService.updateFileProperties(ids.get(1), new AudioFileResponse(ids.get(1), "confusion_1.wav", null,
+                null, null, "Voice", null));
+        List<CategoryDecisionCount> counted = report().getDecisions();
+        assertEquals(1, decisionsToday(report()));
+        awaitClassifications(1);
+
+        // Far ahead of UTC, so the local date is a day later for most of the UTC day
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL TIME ZONE 'Pacific/Kiritimati'");
+            jdbcTemplate.update("UPDATE classifications SET classified_at = LOCALTIMESTAMP");
+            jdbcTemplate.execute("SELECT rebuild_category_confusion()");
+        });
+        assertEquals(counted, report().getDecisions());
+    }
+
+    @Test
+    void uploadsCountAsPending() {
+        jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                "uploaded_by, uploaded_at, version) SELECT 'confusion_new.wav', 'confusion/new.wav', id, NULL, " +
+                "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0 FROM categories WHERE name = 'Voice'", ADMIN);
+        assertMatchesRecount();
+        assertEquals(9, report().getPending());
+    }
+
+    // Classifications are written by the journal in the background
+    private void awaitClassifications(long expected) throws InterruptedException {
+        for (int i = 0; i < 100 && countClassifications() < expected; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, countClassifications());
+    }
+
+    private long countClassifications() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM classifications", Long.class);
+    }
+
+    private static long decisionsToday(ConfusionMatrixResponse report) {
+        return report.getDecisions().stream()
+                .filter(decision -> decision.getDay().equals(LocalDate.now(ZoneOffset.UTC)))
+                .mapToLong(CategoryDecisionCount::getCount)
+                .sum();
+    }
+
+    private ConfusionMatrixResponse report() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return confusionMatrixService.getConfusionMatrix(today.minusDays(1), today);
+    }
+
+    private static CategoryAgreement agreement(ConfusionMatrixResponse report, String category) {
+        return report.getCategories().stream()
+                .filter(agreement -> agreement.getCategory().equals(category))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void assertMatchesRecount() {
+        Map<String, Map<String, Long>> recount = new TreeMap<>();
+        jdbcTemplate.query("SELECT ic.name, cc.name, count(*) FROM audio_files f " +
+                "JOIN categories ic ON ic.id = f.initial_category_id " +
+                "JOIN categories cc ON cc.id = f.current_category_id GROUP BY 1, 2", rs -> {
+            recount.computeIfAbsent(rs.getString(1), initial -> new TreeMap<>()).put(rs.getString(2), rs.getLong(3));
+        });
+        assertEquals(recount, report().getMatrix());
+
+        Long withoutCategory = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audio_files WHERE current_category_id IS NULL", Long.class);
+        Long countedWithoutCategory = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(sum(file_count), 0) FROM category_confusion WHERE current_category_id = 0", Long.class);
+        assertEquals(withoutCategory, countedWithoutCategory);
+    }
+}
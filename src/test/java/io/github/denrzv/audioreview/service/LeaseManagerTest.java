@@ -0,0 +1,150 @@
+package io.github.denrzv.audioreview.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Leasing, contention, expiry takeover and the sweep against a real database. Runs in its own
+ * {@code lease_manager_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=lease_manager_test",
+        "spring.datasource.hikari.schema=lease_manager_test",
+        "file.upload-dir=target/lease-manager/uploads",
+        "app.classification-journal.dir=target/lease-manager/journal",
+        "app.classification-partitions.archive-dir=target/lease-manager/archive",
+        "app.resumable-upload.dir=target/lease-manager/uploads-staging",
+        "app.duplicates.index-file=target/lease-manager/fingerprints/lsh.index"
+})
+class LeaseManagerTest {
+
+    @Autowired
+    private LeaseManager leaseManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private long first;
+    private long second;
+    private List<Long> ids;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        jdbcTemplate.update("INSERT INTO users (username, password, role, active) VALUES " +
+                "('lease-first@test.io', 'x', 'USER', true), ('lease-second@test.io', 'x', 'USER', true) " +
+                "ON CONFLICT (username) DO NOTHING");
+        first = userId("lease-first@test.io");
+        second = userId("lease-second@test.io");
+        for (int i = 0; i < 5; i++) {
+            // The middle file is classified already
+            jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                            "uploaded_by, uploaded_at, version) VALUES (?, ?, " +
+                            "(SELECT id FROM categories WHERE name = 'Voice'), " +
+                            "(SELECT id FROM categories WHERE name = ?), ?, LOCALTIMESTAMP, 0)",
+                    "lease_" + i + ".wav", "lease/" + i + ".wav", i == 2 ? "Voice" : "Unclassified", first);
+        }
+        ids = jdbcTemplate.queryForList("SELECT id FROM audio_files ORDER BY id", Long.class);
+    }
+
+    @Test
+    void reviewersGetDifferentFilesAndTheirOwnLeaseBack() {
+        long firstFile = leaseManager.acquire(first).orElseThrow();
+        long secondFile = leaseManager.acquire(second).orElseThrow();
+        assertNotEquals(firstFile, secondFile);
+        assertEquals(Optional.of(firstFile), leaseManager.acquire(first));
+
+        ids.stream().filter(id -> id != firstFile && id != secondFile && id != ids.get(2))
+                .forEach(id -> assertTrue(leaseManager.claim(id, second)));
+        assertEquals(Optional.empty(), leaseManager.acquire(userId("admin@test.io")));
+    }
+
+    @Test
+    void filesBelowTheRandomStartAreFoundByWrappingAround() {
+        // Only the lowest file is free, wherever the walk starts
+        for (long id : List.of(ids.get(1), ids.get(3), ids.get(4))) {
+            assertTrue(leaseManager.claim(id, second));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Optional.of(ids.get(0)), leaseManager.acquire(first));
+            leaseManager.release(ids.get(0), first);
+        }
+    }
+
+    @Test
+    void claimTakesOverOnlyExpiredOrOwnLeases() {
+        long file = ids.get(0);
+        assertTrue(leaseManager.claim(file, first));
+        assertFalse(leaseManager.claim(file, second));
+        assertEquals(first, leaseHolder(file));
+        assertTrue(leaseManager.claim(file, first));
+
+        expire(file);
+        assertTrue(leaseManager.claim(file, second));
+        assertEquals(second, leaseHolder(file));
+    }
+
+    @Test
+    void leaseTakenOverAfterExpiryCannotBeExtendedByItsFormerHolder() {
+        long admin = userId("admin@test.io");
+        for (long id : List.of(ids.get(1), ids.get(3), ids.get(4))) {
+            assertTrue(leaseManager.claim(id, admin));
+        }
+        long file = ids.get(0);
+        assertEquals(Optional.of(file), leaseManager.acquire(first));
+        assertTrue(leaseManager.extend(file, first));
+        assertFalse(leaseManager.extend(file, second));
+
+        expire(file);
+        // The expired lease no longer counts as the first user's own
+        assertEquals(Optional.of(file), leaseManager.acquire(second));
+        assertFalse(leaseManager.extend(file, first));
+        assertTrue(leaseManager.extend(file, second));
+        leaseManager.release(file, first);
+        assertEquals(second, leaseHolder(file));
+    }
+
+    @Test
+    void sweepRemovesExpiredLeasesAndCountsThem() {
+        for (long id : List.of(ids.get(0), ids.get(1), ids.get(3))) {
+            assertTrue(leaseManager.claim(id, first));
+        }
+        expire(ids.get(0));
+        expire(ids.get(1));
+        double expiredBefore = meterRegistry.get("file.leases.ended").tag("outcome", "expired").counter().count();
+
+        leaseManager.sweepExpired();
+        assertEquals(2, meterRegistry.get("file.leases.ended").tag("outcome", "expired").counter().count() - expiredBefore,
+                1e-9);
+        assertEquals(1, meterRegistry.get("file.leases.active").gauge().value(), 1e-9);
+        assertEquals(List.of(ids.get(3)), jdbcTemplate.queryForList("SELECT audio_file_id FROM file_leases", Long.class));
+    }
+
+    private void expire(long fileId) {
+        jdbcTemplate.update("UPDATE file_leases SET leased_at = LOCALTIMESTAMP - INTERVAL '1 hour', " +
+                "expires_at = LOCALTIMESTAMP - INTERVAL '1 second' WHERE audio_file_id = ?", fileId);
+    }
+
+    private long leaseHolder(long fileId) {
+        return jdbcTemplate.queryForObject("SELECT user_id FROM file_leases WHERE audio_file_id = ?", Long.class, fileId);
+    }
+
+    private long userId(String username) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+}
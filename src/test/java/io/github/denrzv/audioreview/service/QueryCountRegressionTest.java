@@ -0,0 +1,204 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.dto.ClassificationRequest;
+import io.github.denrzv.audioreview.event.ClusterEventBus;
+import io.github.denrzv.audioreview.repository.UserRepository;
+import io.github.denrzv.audioreview.support.QueryCount;
+import io.github.denrzv.audioreview.support.QueryCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query budget of the hot service calls. Every call is measured against a fixed data set and must
+ * run exactly the recorded number of statements, fetch exactly the recorded number of rows and take
+ * exactly the recorded number of row locks. A change that adds queries (an N+1, a lazy association
+ * touched in a loop, an extra lookup) fails the build; a change that removes some fails too, so the
+ * budget gets lowered along with it instead of leaving room for the next regression.
+ * <p>
+ * Users and categories are measured as served by the second-level cache, the steady state of a
+ * running node; {@link #referenceEntitiesComeFromSecondLevelCache()} shows what a cold cache costs.
+ * <p>
+ * Runs against the configured database in its own {@code query_count_test} schema, which is
+ * emptied before every test.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=query_count_test",
+        "spring.datasource.hikari.schema=query_count_test",
+        "file.upload-dir=target/query-count/uploads",
+        "app.classification-journal.dir=target/query-count/journal",
+        "app.classification-partitions.archive-dir=target/query-count/archive",
+        "app.resumable-upload.dir=target/query-count/uploads-staging",
+        "app.duplicates.index-file=target/query-count/fingerprints/lsh.index"
+})
+@Import(QueryCounter.class)
+class QueryCountRegressionTest {
+
+    private static final String ADMIN = "admin@test.io";
+    private static final String REVIEWER = "query-count-reviewer@test.io";
+    private static final int UNCLASSIFIED_FILES = 6;
+    private static final int CLASSIFIED_FILES = 4;
+    private static final int HISTORY_ROWS = 5;
+    private static final int COLD_LISTING_STATEMENTS = 5;
+    private static final int COLD_LISTING_ROWS = 14;
+    private static final int COLD_CLASSIFY_STATEMENTS = 9;
+    private static final int COLD_CLASSIFY_ROWS = 6;
+
+    @Autowired
+    private AudioFileService audioFileService;
+
+    @Autowired
+    private ClassificationService classificationService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long reviewerId;
+    private List<Long> unclassifiedIds;
+
+    @BeforeEach
+    void seed() throws InterruptedException {
+        // The cluster event listener clears all caches once it connects
+        for (int i = 0; i < 100 && !clusterEventBus.isSynchronized(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(clusterEventBus.isSynchronized(), "Cluster event listener did not connect");
+
+        jdbcTemplate.execute("TRUNCATE audio_files, classifications, file_leases CASCADE");
+        jdbcTemplate.update("INSERT INTO users (username, password, role, active) VALUES (?, 'x', 'USER', TRUE) " +
+                "ON CONFLICT (username) DO NOTHING", REVIEWER);
+        reviewerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, REVIEWER);
+
+        for (int i = 0; i < UNCLASSIFIED_FILES + CLASSIFIED_FILES; i++) {
+            jdbcTemplate.update("INSERT INTO audio_files (filename, filepath, initial_category_id, current_category_id, " +
+                            "uploaded_by, uploaded_at, version) VALUES (?, ?, " +
+                            "(SELECT id FROM categories WHERE name = 'Voice'), " +
+                            "(SELECT id FROM categories WHERE name = ?), " +
+                            "(SELECT id FROM users WHERE username = ?), LOCALTIMESTAMP, 0)",
+                    "query_count_voice_" + i + ".wav", "query-count/" + i + ".wav",
+                    i < UNCLASSIFIED_FILES ? "Unclassified" : "Silent", ADMIN);
+        }
+        unclassifiedIds = jdbcTemplate.queryForList("SELECT id FROM audio_files WHERE current_category_id = " +
+                "(SELECT id FROM categories WHERE name = 'Unclassified') ORDER BY id", Long.class);
+
+        for (int i = 0; i < HISTORY_ROWS; i++) {
+            jdbcTemplate.update("INSERT INTO classifications (user_id, audio_file_id, previous_category_id, new_category_id, " +
+                    "classified_at) SELECT ?, id, current_category_id, current_category_id, LOCALTIMESTAMP " +
+                    "FROM audio_files WHERE filename = ?", reviewerId, "query_count_voice_" + (UNCLASSIFIED_FILES + i % CLASSIFIED_FILES) + ".wav");
+        }
+
+        // Categories and users are cached after the first lookup; measure the steady state
+        categoryService.getAllCategories();
+        userRepository.findAll();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getAllFiles() {
+        QueryCount count = QueryCounter.count(() -> audioFileService.getAllFiles(0, 20, null));
+        assertBudget(count, 1, 10, 0);
+    }
+
+    @Test
+    void getAllFilesFilteredByName() {
+        QueryCount count = QueryCounter.count(() -> audioFileService.getAllFiles(0, 20, "voice_1"));
+        assertBudget(count, 1, 1, 0);
+    }
+
+    @Test
+    void getDashboardStats() {
+        QueryCount count = QueryCounter.count(() -> audioFileService.getDashboardStats());
+        assertBudget(count, 6, 51, 0);
+    }
+
+    @Test
+    void getRandomUnclassifiedFile() {
+        QueryCount count = QueryCounter.count(() -> classificationService.getRandomUnclassifiedFile(reviewerId));
+        assertBudget(count, 4, 2, 0);
+    }
+
+    @Test
+    void classifyFile() {
+        Long fileId = unclassifiedIds.get(0);
+        classificationService.getRandomUnclassifiedFile(reviewerId);
+
+        QueryCount count = QueryCounter.count(() ->
+                classificationService.classifyFile(fileId, new ClassificationRequest("Voice"), REVIEWER));
+        assertBudget(count, 6, 3, 1);
+    }
+
+    @Test
+    void uploadFile() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(ADMIN, null, List.of()));
+        MockMultipartFile file = new MockMultipartFile("file", "query_count_upload_voice.wav", "audio/wav",
+                new byte[]{'R', 'I', 'F', 'F'});
+
+        QueryCounter.Measured<AudioFileResponse> measured = QueryCounter.measure(() -> audioFileService.uploadFile(file));
+        assertBudget(measured.count(), 4, 4, 0);
+        audioFileService.deleteFileById(measured.result().getId());
+    }
+
+    @Test
+    void getClassificationHistory() {
+        QueryCount count = QueryCounter.count(() ->
+                classificationService.getClassificationHistoryForUser(REVIEWER, 0, 20));
+        assertBudget(count, 5, 9, 0);
+    }
+
+    @Test
+    void referenceEntitiesComeFromSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+        QueryCount cold = QueryCounter.count(() -> audioFileService.getAllFiles(0, 20, null));
+        QueryCount warm = QueryCounter.count(() -> audioFileService.getAllFiles(0, 20, null));
+        assertBudget(cold, COLD_LISTING_STATEMENTS, COLD_LISTING_ROWS, 0);
+        assertBudget(warm, 1, 10, 0);
+
+        classificationService.getRandomUnclassifiedFile(reviewerId);
+        entityManagerFactory.getCache().evictAll();
+        cold = QueryCounter.count(() ->
+                classificationService.classifyFile(unclassifiedIds.get(0), new ClassificationRequest("Voice"), REVIEWER));
+        classificationService.getRandomUnclassifiedFile(reviewerId);
+        warm = QueryCounter.count(() ->
+                classificationService.classifyFile(unclassifiedIds.get(1), new ClassificationRequest("Voice"), REVIEWER));
+        assertBudget(cold, COLD_CLASSIFY_STATEMENTS, COLD_CLASSIFY_ROWS, 1);
+        assertBudget(warm, 5, 2, 1);
+    }
+
+    private static void assertBudget(QueryCount count, int statements, long rows, int locks) {
+        String actual = count.toString();
+        assertEquals(statements, count.getStatements(), () -> "Statement count changed: " + actual);
+        assertEquals(rows, count.getRows(), () -> "Fetched row count changed: " + actual);
+        assertEquals(locks, count.getLocks(), () -> "Row lock count changed: " + actual);
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.exception.UploadOffsetConflictException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResumableUploadServiceTest {
+
+    @TempDir
+    Path stagingDir;
+
+    @Test
+    void resumesFromTheLastByteWrittenBeforeTheConnectionDropped() throws IOException {
+        ResumableUploadService service = new ResumableUploadService(null, stagingDir.toString(), 1, 24);
+        ResumableUploadService.Upload upload = service.create("call.wav", "audio/wav", 10);
+
+        // The first request dies after four bytes
+        service.append(upload.id(), 0, new DroppingInputStream("0123".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4, service.get(upload.id()).offset());
+
+        assertThrows(UploadOffsetConflictException.class,
+                () -> service.append(upload.id(), 0, stream("0123456789")));
+
+        assertEquals(10, service.append(upload.id(), 4, stream("456789")).offset());
+        assertEquals("0123456789", Files.readString(stagingDir.resolve(upload.id() + ".part")));
+    }
+
+    @Test
+    void rejectsChunksBeyondTheDeclaredLength() {
+        ResumableUploadService service = new ResumableUploadService(null, stagingDir.toString(), 1, 24);
+        ResumableUploadService.Upload upload = service.create("call.wav", "audio/wav", 4);
+
+        assertThrows(RuntimeException.class, () -> service.append(upload.id(), 0, stream("012345")));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class DroppingInputStream extends InputStream {
+
+        private final InputStream content;
+
+        DroppingInputStream(byte[] content) {
+            this.content = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = content.read();
+            if (b == -1) {
+                throw new IOException("Connection reset");
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = content.read(buffer, offset, length);
+            if (read == -1) {
+                throw new IOException("Connection reset");
+            }
+            return read;
+        }
+    }
+}
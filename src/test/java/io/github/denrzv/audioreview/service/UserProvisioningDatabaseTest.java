@@ -0,0 +1,140 @@
+package io.github.denrzv.audioreview.service;
+
+import io.github.denrzv.audioreview.dto.UserProvisioningRequest;
+import io.github.denrzv.audioreview.dto.UserProvisioningResult;
+import io.github.denrzv.audioreview.dto.UserProvisioningResult.Status;
+import io.github.denrzv.audioreview.repository.UserBulkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Provisioning against a real database, with batches of three so batch boundaries are crossed.
+ * Runs in its own {@code user_provisioning_test} schema.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=user_provisioning_test",
+        "spring.datasource.hikari.schema=user_provisioning_test",
+        "file.upload-dir=target/user-provisioning/uploads",
+        "app.classification-journal.dir=target/user-provisioning/journal",
+        "app.classification-partitions.archive-dir=target/user-provisioning/archive",
+        "app.resumable-upload.dir=target/user-provisioning/uploads-staging",
+        "app.duplicates.index-file=target/user-provisioning/fingerprints/lsh.index",
+        "app.user-provisioning.batch-size=3",
+        "app.password-hashing.bcrypt-strength=4"
+})
+class UserProvisioningDatabaseTest {
+
+    @Autowired
+    private UserProvisioningService userProvisioningService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private UserBulkRepository userBulkRepository;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'prov\\_%'");
+    }
+
+    @Test
+    void reportsEveryRowInInputOrderAcrossBatches() {
+        List<List<UserProvisioningResult>> batches = provision(List.of(
+                new UserProvisioningRequest("prov_alice", "secret-a", null),
+                new UserProvisioningRequest(" prov_bob ", "secret-b", "user"),
+                new UserProvisioningRequest("prov_alice", "secret-c", null),
+                new UserProvisioningRequest("  ", "secret-d", null),
+                new UserProvisioningRequest("prov_carol", "secret-e", "OWNER"),
+                new UserProvisioningRequest("admin@test.io", "secret-f", null),
+                new UserProvisioningRequest("prov_dave", "secret-g", "ADMIN"),
+                new UserProvisioningRequest("prov_bob", "secret-h", null),
+                new UserProvisioningRequest("prov_" + "x".repeat(46), "secret-i", null),
+                new UserProvisioningRequest("prov_erin", "", null)));
+
+        assertEquals(List.of(3, 3, 3, 1), batches.stream().map(List::size).toList());
+        List<UserProvisioningResult> results = batches.stream().flatMap(List::stream).toList();
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), results.stream().map(UserProvisioningResult::getRow).toList());
+        assertEquals(List.of(Status.CREATED, Status.CREATED, Status.DUPLICATE, Status.INVALID, Status.INVALID,
+                        Status.DUPLICATE, Status.CREATED, Status.DUPLICATE, Status.INVALID, Status.INVALID),
+                results.stream().map(UserProvisioningResult::getStatus).toList());
+        assertEquals("Username appears twice in the input", results.get(2).getMessage());
+        assertEquals("Unknown role OWNER", results.get(4).getMessage());
+        assertEquals("Username is already taken", results.get(5).getMessage());
+        // Repeats are caught across batches too
+        assertEquals("Username appears twice in the input", results.get(7).getMessage());
+
+        Map<String, String> roles = new TreeMap<>();
+        jdbcTemplate.query("SELECT username, role FROM users WHERE username LIKE 'prov\\_%'",
+                rs -> { roles.put(rs.getString(1), rs.getString(2)); });
+        assertEquals(Map.of("prov_alice", "USER", "prov_bob", "USER", "prov_dave", "ADMIN"), roles);
+        String hash = jdbcTemplate.queryForObject("SELECT password FROM users WHERE username = 'prov_bob'", String.class);
+        assertTrue(new BCryptPasswordEncoder().matches("secret-b", hash));
+    }
+
+    @Test
+    void usernameTakenAfterTheCheckIsReportedAsDuplicate() {
+        doAnswer(invocation -> {
+            Object existing = invocation.callRealMethod();
+            // Another request creates the user between the duplicate check and the insert
+            jdbcTemplate.update("INSERT INTO users (username, password, role, active) VALUES ('prov_frank', 'taken', 'USER', TRUE)");
+            return existing;
+        }).when(userBulkRepository).findExistingUsernames(anyCollection());
+
+        List<UserProvisioningResult> results = provision(List.of(
+                new UserProvisioningRequest("prov_frank", "secret", null),
+                new UserProvisioningRequest("prov_gina", "secret", null))).get(0);
+
+        assertEquals(Status.DUPLICATE, results.get(0).getStatus());
+        assertEquals("Username is already taken", results.get(0).getMessage());
+        assertEquals(Status.CREATED, results.get(1).getStatus());
+        assertEquals("taken", jdbcTemplate.queryForObject(
+                "SELECT password FROM users WHERE username = 'prov_frank'", String.class));
+    }
+
+    @Test
+    void unreadableInputKeepsEarlierRowsAndReportsWhereReadingStopped() throws IOException {
+        String json = """
+                {"username": "prov_hank", "password": "secret"}
+                {"username": "prov_ivy", "password": "secret"}
+                {"username": "prov_jack", "pass
+                """;
+        List<UserProvisioningResult> results = new ArrayList<>();
+        userProvisioningService.provision(
+                userProvisioningService.readJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))),
+                results::addAll);
+
+        assertEquals(3, results.size());
+        assertEquals(Status.CREATED, results.get(0).getStatus());
+        assertEquals(Status.CREATED, results.get(1).getStatus());
+        assertEquals(3, results.get(2).getRow());
+        assertEquals(Status.FAILED, results.get(2).getStatus());
+        assertEquals(Set.of("prov_hank", "prov_ivy"), Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT username FROM users WHERE username LIKE 'prov\\_%'", String.class)));
+    }
+
+    private List<List<UserProvisioningResult>> provision(List<UserProvisioningRequest> users) {
+        List<List<UserProvisioningResult>> batches = new ArrayList<>();
+        userProvisioningService.provision(users.iterator(), batches::add);
+        return batches;
+    }
+}
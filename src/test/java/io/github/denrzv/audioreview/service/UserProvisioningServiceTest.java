@@ -0,0 +1,23 @@
+package io.github.denrzv.audioreview.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserProvisioningServiceTest {
+
+    @Test
+    void splitsPlainFields() {
+        assertEquals(List.of("reviewer1", "secret", "USER"), UserProvisioningService.parseCsvLine("reviewer1,secret,USER"));
+        assertEquals(List.of("reviewer1", "secret"), UserProvisioningService.parseCsvLine("reviewer1,secret"));
+        assertEquals(List.of("reviewer1", ""), UserProvisioningService.parseCsvLine("reviewer1,"));
+    }
+
+    @Test
+    void keepsCommasAndQuotesInsideQuotedFields() {
+        assertEquals(List.of("reviewer1", "se,cr\"et", "ADMIN"),
+                UserProvisioningService.parseCsvLine("reviewer1,\"se,cr\"\"et\",ADMIN"));
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.denrzv.audioreview.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderTest {
+
+    private static final List<String> KEYS = List.of(
+            "cat-b/2024-01-01/a.wav",
+            "cat/2024-01-02/a.wav",
+            "cat.wav",
+            "cat/2024-01-01/b.wav",
+            "cat/2024-01-01/a.wav");
+
+    @Test
+    void pathSegmentsSortInDepthFirstOrder() {
+        List<String> keys = new ArrayList<>(KEYS);
+        keys.sort(StorageBackend.KeyOrder.PATH_SEGMENTS.comparator());
+
+        // A directory's contents come before siblings that extend its name
+        assertEquals(List.of(
+                "cat/2024-01-01/a.wav",
+                "cat/2024-01-01/b.wav",
+                "cat/2024-01-02/a.wav",
+                "cat-b/2024-01-01/a.wav",
+                "cat.wav"), keys);
+    }
+
+    @Test
+    void bytesSortLikeS3Listings() {
+        List<String> keys = new ArrayList<>(KEYS);
+        keys.sort(StorageBackend.KeyOrder.BYTES.comparator());
+
+        assertEquals(List.of(
+                "cat-b/2024-01-01/a.wav",
+                "cat.wav",
+                "cat/2024-01-01/a.wav",
+                "cat/2024-01-01/b.wav",
+                "cat/2024-01-02/a.wav"), keys);
+    }
+
+    @Test
+    void comparesByCodePoint() {
+        Comparator<String> order = StorageBackend.KeyOrder.BYTES.comparator();
+        assertTrue(order.compare("a/Z.wav", "a/a.wav") < 0);
+        assertTrue(order.compare("a/🎵.wav", "a/�.wav") > 0);
+        assertEquals(0, order.compare("a/b.wav", "a/b.wav"));
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.denrzv.audioreview.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path root;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new LocalStorageBackend(root, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.shutdown();
+    }
+
+    @Test
+    void readsByteRanges() throws IOException {
+        put("ab/cd/a.wav", "0123456789");
+
+        try (InputStream in = backend.get("ab/cd/a.wav", 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream in = backend.get("ab/cd/a.wav", 8, -1)) {
+            assertEquals("89", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void listsInPathSegmentOrder() throws IOException {
+        for (String key : List.of("cat.wav", "cat-b/x.wav", "cat/2/a.wav", "cat/1/b.wav", "cat/1/a.wav")) {
+            put(key, key);
+        }
+
+        try (Stream<StorageObject> objects = backend.list("")) {
+            assertEquals(List.of("cat/1/a.wav", "cat/1/b.wav", "cat/2/a.wav", "cat-b/x.wav", "cat.wav"),
+                    objects.map(StorageObject::key).toList());
+        }
+    }
+
+    @Test
+    void deletePrunesEmptyDirectoriesAndWritesRecreateThem() throws IOException {
+        put("ab/cd/a.wav", "a");
+
+        assertTrue(backend.delete("ab/cd/a.wav"));
+        assertFalse(Files.exists(root.resolve("ab")));
+
+        // The directory cache must not assume the pruned directory still exists
+        put("ab/cd/b.wav", "b");
+        assertEquals(1, backend.stat("ab/cd/b.wav").orElseThrow().size());
+    }
+
+    @Test
+    void putNeverReplacesAnExistingFile() throws IOException {
+        put("ab/cd/a.wav", "first");
+
+        assertThrows(FileAlreadyExistsException.class, () -> put("ab/cd/a.wav", "second"));
+        try (InputStream in = backend.get("ab/cd/a.wav", 0, -1)) {
+            assertEquals("first", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void put(String key, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        backend.put(key, new ByteArrayInputStream(bytes), bytes.length);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.denrzv.audioreview.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Statements, fetched rows and row locks of one measured call, see {@link QueryCounter}.
+ */
+public class QueryCount {
+
+    private static final Pattern LOCKING = Pattern.compile(
+            "\\bfor\\s+(no\\s+key\\s+update|update|share|key\\s+share)\\b|\\bpg_(try_)?advisory_(xact_)?lock",
+            Pattern.CASE_INSENSITIVE);
+
+    private final List<String> statements = new ArrayList<>();
+    private int selects;
+    private int inserts;
+    private int updates;
+    private int deletes;
+    private int locks;
+    private long rows;
+
+    void statement(String sql) {
+        String normalized = sql == null ? "" : sql.strip().toLowerCase(Locale.ROOT);
+        statements.add(normalized);
+        if (normalized.startsWith("select") || normalized.startsWith("with")) {
+            selects++;
+        } else if (normalized.startsWith("insert")) {
+            inserts++;
+        } else if (normalized.startsWith("update")) {
+            updates++;
+        } else if (normalized.startsWith("delete")) {
+            deletes++;
+        }
+        if (LOCKING.matcher(normalized).find()) {
+            locks++;
+        }
+    }
+
+    void row() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements.size();
+    }
+
+    public int getSelects() {
+        return selects;
+    }
+
+    public int getInserts() {
+        return inserts;
+    }
+
+    public int getUpdates() {
+        return updates;
+    }
+
+    public int getDeletes() {
+        return deletes;
+    }
+
+    public int getLocks() {
+        return locks;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public List<String> getSql() {
+        return List.copyOf(statements);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder()
+                .append(statements.size()).append(" statements (")
+                .append(selects).append(" select, ")
+                .append(inserts).append(" insert, ")
+                .append(updates).append(" update, ")
+                .append(deletes).append(" delete), ")
+                .append(rows).append(" rows, ")
+                .append(locks).append(" locks");
+        for (String sql : statements) {
+            text.append("\n  ").append(sql);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.denrzv.audioreview.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Counts the JDBC statements, fetched rows and row locks of a call. Import it into a Spring test
+ * to wrap the application data source, then measure calls with {@link #count(Runnable)}
+ * or {@link #measure(Supplier)}.
+ * Only statements run on the calling thread are counted, so schedulers and background writers
+ * running at the same time do not disturb the numbers.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class QueryCounter {
+
+    private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+    private static final Set<String> RESULT_SETS = Set.of("executeQuery", "getResultSet");
+
+    @Bean
+    static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource dataSource) {
+                    return new CountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Run a call and count the statements it executes on this thread.
+     *
+     * @param call the call to measure
+     * @return what the call executed
+     */
+    public static QueryCount count(Runnable call) {
+        return measure(() -> {
+            call.run();
+            return null;
+        }).count();
+    }
+
+    /**
+     * Run a call and count the statements it executes on this thread.
+     *
+     * @param call the call to measure
+     * @return the call result together with what it executed
+     */
+    public static <T> Measured<T> measure(Supplier<T> call) {
+        QueryCount count = new QueryCount();
+        CURRENT.set(count);
+        try {
+            return new Measured<>(call.get(), count);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    public record Measured<T>(T result, QueryCount count) {
+    }
+
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            return proxy(Connection.class, connection, (method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof Statement statement && STATEMENT_FACTORIES.contains(method.getName())) {
+                    String preparedSql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+                    return countingStatement(method.getReturnType(), statement, preparedSql);
+                }
+                return result;
+            });
+        }
+
+        private static Object countingStatement(Class<?> type, Statement statement, String preparedSql) {
+            return proxy(type, statement, (method, args) -> {
+                QueryCount count = CURRENT.get();
+                if (count != null && method.getName().startsWith("execute")) {
+                    count.statement(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+                }
+                Object result = invoke(statement, method, args);
+                if (count != null && result instanceof ResultSet resultSet && RESULT_SETS.contains(method.getName())) {
+                    return countingResultSet(resultSet, count);
+                }
+                return result;
+            });
+        }
+
+        private static ResultSet countingResultSet(ResultSet resultSet, QueryCount count) {
+            return proxy(ResultSet.class, resultSet, (method, args) -> {
+                Object result = invoke(resultSet, method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    count.row();
+                }
+                return result;
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+            return (T) Proxy.newProxyInstance(QueryCounter.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "unwrap", "isWrapperFor":
+                        return invoke(target, method, args);
+                    default:
+                        return handler.invoke(method, args);
+                }
+            });
+        }
+
+        private interface Handler {
+            Object invoke(Method method, Object[] args) throws Throwable;
+        }
+    }
+}
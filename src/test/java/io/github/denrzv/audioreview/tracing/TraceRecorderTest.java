@@ -0,0 +1,88 @@
+package io.github.denrzv.audioreview.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceRecorderTest {
+
+    private TraceStore traceStore;
+    private ObservationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        traceStore = new TraceStore(new ObjectMapper().findAndRegisterModules(), 10, "");
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new TraceRecorder(traceStore, true, 50, 0.0, 3));
+    }
+
+    @Test
+    void keepsSlowTracesWithTheirSpans() {
+        Observation.createNotStarted("request", registry).observe(() -> {
+            Observation.createNotStarted("service", registry).contextualName("Service#work").observe(() -> {
+                Observation.createNotStarted("jdbc.statement", registry)
+                        .highCardinalityKeyValue("sql", "SELECT 1")
+                        .observe(() -> sleep(60));
+            });
+        });
+
+        List<TraceRecord> traces = traceStore.list(0, 10);
+        assertEquals(1, traces.size());
+        TraceRecord trace = traces.get(0);
+        assertEquals("slow", trace.keptBecause());
+        assertEquals(3, trace.spans().size());
+        SpanRecord root = trace.spans().get(0);
+        SpanRecord service = trace.spans().get(1);
+        SpanRecord statement = trace.spans().get(2);
+        assertNull(root.parentId());
+        assertEquals(root.spanId(), service.parentId());
+        assertEquals("Service#work", service.contextualName());
+        assertEquals(service.spanId(), statement.parentId());
+        assertEquals("SELECT 1", statement.tags().get("sql"));
+        assertTrue(trace.durationMs() >= 50);
+    }
+
+    @Test
+    void dropsFastTracesUnlessTheyFail() {
+        Observation.createNotStarted("fast", registry).observe(() -> { });
+        assertTrue(traceStore.list(0, 10).isEmpty());
+
+        Observation failing = Observation.createNotStarted("failing", registry).start();
+        failing.error(new IllegalStateException("boom"));
+        failing.stop();
+
+        List<TraceRecord> traces = traceStore.list(0, 10);
+        assertEquals(1, traces.size());
+        assertEquals("error", traces.get(0).keptBecause());
+    }
+
+    @Test
+    void capsSpansPerTrace() {
+        Observation.createNotStarted("request", registry).observe(() -> {
+            for (int i = 0; i < 5; i++) {
+                Observation.createNotStarted("jdbc.statement", registry).observe(() -> { });
+            }
+            sleep(60);
+        });
+
+        TraceRecord trace = traceStore.list(0, 10).get(0);
+        assertEquals(3, trace.spans().size());
+        assertEquals(3, trace.droppedSpans());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
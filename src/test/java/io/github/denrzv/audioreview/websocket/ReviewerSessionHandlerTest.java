@@ -0,0 +1,133 @@
+package io.github.denrzv.audioreview.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.denrzv.audioreview.dto.AudioFileResponse;
+import io.github.denrzv.audioreview.dto.ReviewerMessage;
+import io.github.denrzv.audioreview.security.JwtHandshakeInterceptor;
+import io.github.denrzv.audioreview.service.ClassificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewerSessionHandlerTest {
+
+    private static final long USER_ID = 7;
+    private static final String USERNAME = "reviewer@test.io";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ClassificationService classificationService = mock(ClassificationService.class);
+    private final ReviewerSessionHandler handler = new ReviewerSessionHandler(classificationService, objectMapper);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+
+    @BeforeEach
+    void connect() throws Exception {
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(Map.of(
+                JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, USER_ID,
+                JwtHandshakeInterceptor.USERNAME_ATTRIBUTE, USERNAME));
+        when(classificationService.getRandomUnclassifiedFile(USER_ID)).thenReturn(file(10), file(11));
+        handler.afterConnectionEstablished(session);
+    }
+
+    @Test
+    void onlyTheFileLeasedToTheSessionCanBeClassified() throws Exception {
+        receive("{\"type\":\"classify\",\"fileId\":99,\"shortcut\":\"v\"}");
+        receive("{\"type\":\"classify\",\"shortcut\":\"v\"}");
+        verify(classificationService, never()).classifyFileByShortcut(anyLong(), anyString(), anyString());
+
+        receive("{\"type\":\"classify\",\"fileId\":10,\"shortcut\":\"v\"}");
+        verify(classificationService).classifyFileByShortcut(10L, "v", USERNAME);
+
+        List<ReviewerMessage> sent = sent();
+        assertEquals(List.of(ReviewerMessage.ASSIGNED, ReviewerMessage.ERROR, ReviewerMessage.ERROR, ReviewerMessage.ASSIGNED),
+                sent.stream().map(ReviewerMessage::getType).toList());
+        assertEquals(99L, sent.get(1).getFileId());
+        assertEquals("File is not leased to this session", sent.get(1).getMessage());
+        assertEquals(10L, sent.get(3).getClassifiedFileId());
+        assertEquals(11L, sent.get(3).getFile().getId());
+
+        // The lease on the next file is released when the reviewer leaves
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        verify(classificationService).releaseLock(11L, USER_ID);
+    }
+
+    @Test
+    void malformedAndUnknownFramesAreAnsweredWithAnError() throws Exception {
+        receive("{\"type\":");
+        receive("[1, 2]");
+        receive("{\"type\":\"shout\"}");
+        receive("{\"fileId\":10}");
+
+        List<ReviewerMessage> sent = sent();
+        assertEquals(List.of(ReviewerMessage.ASSIGNED, ReviewerMessage.ERROR, ReviewerMessage.ERROR,
+                ReviewerMessage.ERROR, ReviewerMessage.ERROR), sent.stream().map(ReviewerMessage::getType).toList());
+        assertEquals("Malformed message", sent.get(1).getMessage());
+        assertEquals("Malformed message", sent.get(2).getMessage());
+        assertEquals("Unknown message type: shout", sent.get(3).getMessage());
+        assertEquals("Unknown message type: null", sent.get(4).getMessage());
+        verify(classificationService, never()).classifyFileByShortcut(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void lostLeasesArePushedAsRevokedAndNotReleasedOnClose() throws Exception {
+        when(classificationService.findRevokedLeases(anyMap())).thenReturn(Set.of(10L));
+        handler.revokeLostLeases();
+        verify(classificationService).findRevokedLeases(Map.of(10L, USER_ID));
+
+        // A heartbeat for a lease the server no longer holds is revoked too
+        when(classificationService.extendLock(12L, USER_ID)).thenReturn(false);
+        receive("{\"type\":\"heartbeat\",\"fileId\":12}");
+
+        List<ReviewerMessage> sent = sent();
+        assertEquals(List.of(ReviewerMessage.ASSIGNED, ReviewerMessage.REVOKED, ReviewerMessage.REVOKED),
+                sent.stream().map(ReviewerMessage::getType).toList());
+        assertEquals(10L, sent.get(1).getFileId());
+        assertEquals(12L, sent.get(2).getFileId());
+
+        // With nothing leased the check has nothing to ask about
+        handler.revokeLostLeases();
+        verify(classificationService).findRevokedLeases(any());
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        verify(classificationService, never()).releaseLock(anyLong(), anyLong());
+    }
+
+    private void receive(String payload) throws Exception {
+        handler.handleMessage(session, new TextMessage(payload));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ReviewerMessage> sent() throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, atLeastOnce()).sendMessage(captor.capture());
+        List<ReviewerMessage> messages = new ArrayList<>();
+        for (WebSocketMessage<?> message : captor.getAllValues()) {
+            messages.add(objectMapper.readValue(((TextMessage) message).getPayload(), ReviewerMessage.class));
+        }
+        return messages;
+    }
+
+    private static AudioFileResponse file(long id) {
+        return new AudioFileResponse(id, "file_" + id + ".wav", "Voice", null, USERNAME, "Unclassified", id + ".wav");
+    }
+}